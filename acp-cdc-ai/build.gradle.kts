@@ -34,9 +34,11 @@ tasks.test {
     if (project.findProperty("profile") == "acp-integration") {
         // Only run integration tests (AcpChatModelIntegrationTest in acp package)
         include("**/acp/AcpChatModelIntegrationTest*")
+    } else if (project.findProperty("profile") == "perf") {
+        include("**/perf/**")
     } else {
-        // Exclude integration tests from normal test runs
-        exclude("**/acp/AcpChatModelIntegrationTest*")
+        // Exclude integration and perf tests from normal test runs
+        exclude("**/acp/AcpChatModelIntegrationTest*", "**/perf/**")
     }
     dependsOn("processYmlFiles")
 }
@@ -0,0 +1,38 @@
+package com.hayden.acp_cdc_ai.acp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-worktree cache behind the ACP {@code fsReadTextFile} callback: a line-offset index per
+ * file, and the full text of small files.
+ */
+@ConfigurationProperties(prefix = "multi-agent-embabel.acp-file-cache")
+@Component
+@Data
+public class AcpFileCacheProperties {
+
+    boolean enabled = true;
+
+    /**
+     * Worktrees with a cache; the least recently used one is dropped beyond this.
+     */
+    int maxWorktrees = 64;
+
+    /**
+     * Indexed files per worktree; the least recently read are dropped beyond this.
+     */
+    int maxFilesPerWorktree = 1_024;
+
+    /**
+     * Files up to this size have their full text kept for whole-file reads.
+     */
+    long maxCachedFileBytes = 1_048_576;
+
+    /**
+     * Total full text kept per worktree.
+     */
+    long maxContentBytesPerWorktree = 33_554_432;
+
+}
@@ -0,0 +1,46 @@
+package com.hayden.acp_cdc_ai.acp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-started ACP agent processes. A process is only reused for a session launched with the
+ * same provider, command line, environment and working directory, so pools fill per sandbox
+ * profile on first use.
+ */
+@ConfigurationProperties(prefix = "multi-agent-embabel.acp-pool")
+@Component
+@Data
+public class AcpProcessPoolProperties {
+
+    boolean enabled = false;
+
+    /**
+     * Started and initialized processes kept ready per launch profile, unless overridden in
+     * {@link #warmSizeByProvider}.
+     */
+    int warmSize = 1;
+
+    Map<String, Integer> warmSizeByProvider = new HashMap<>();
+
+    /**
+     * Warm processes older than this are discarded instead of handed out, and reaped in the
+     * background; a launch profile whose pool is left empty is dropped.
+     */
+    Duration maxIdle = Duration.ofMinutes(15);
+
+    /**
+     * After a failed background start, no refill is attempted for this long.
+     */
+    Duration refillBackoff = Duration.ofSeconds(30);
+
+    public int warmSizeFor(String provider) {
+        return warmSizeByProvider.getOrDefault(provider, warmSize);
+    }
+
+}
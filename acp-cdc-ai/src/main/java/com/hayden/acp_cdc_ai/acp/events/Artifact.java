@@ -25,7 +25,7 @@ import java.util.stream.Collectors;
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public sealed interface Artifact
-        permits Artifact.AgentModelArtifact, Artifact.ArtifactDbRef, Artifact.ControllerChecklistTurnArtifact, Artifact.EventArtifact, Artifact.ExecutionArtifact, Artifact.ExecutionConfigArtifact, Artifact.FilterDecisionRecordArtifact, Artifact.FilterDescriptorArtifact, Artifact.IntermediateArtifact, Artifact.OutcomeEvidenceArtifact, Artifact.PolicyDeactivationArtifact, Artifact.PolicyLayerBindingToggleArtifact, Artifact.PolicyLayerBindingUpdateArtifact, Artifact.PolicyRegistrationArtifact, Artifact.PromptArgsArtifact, Artifact.RenderedPromptArtifact, Artifact.ToolCallArtifact, MessageStreamArtifact, Templated {
+        permits Artifact.AgentModelArtifact, Artifact.ArtifactDbRef, Artifact.ControllerChecklistTurnArtifact, Artifact.EventArtifact, Artifact.ExecutionArtifact, Artifact.ExecutionConfigArtifact, Artifact.FilterDecisionRecordArtifact, Artifact.FilterDescriptorArtifact, Artifact.IntermediateArtifact, Artifact.OutcomeEvidenceArtifact, Artifact.PersistedArtifactStub, Artifact.PolicyDeactivationArtifact, Artifact.PolicyLayerBindingToggleArtifact, Artifact.PolicyLayerBindingUpdateArtifact, Artifact.PolicyRegistrationArtifact, Artifact.PromptArgsArtifact, Artifact.RenderedPromptArtifact, Artifact.ToolCallArtifact, MessageStreamArtifact, Templated {
 
     String SCHEMA = "schema";
 
@@ -366,6 +366,36 @@ public sealed interface Artifact
         }
     }
 
+    /**
+     * Stand-in left in the in-memory tree for an artifact that has already been
+     * written to the database. Keeps the key, hash and type so later children can
+     * still attach and duplicates are still detected, but drops the content.
+     */
+    @Builder(toBuilder = true)
+    @With
+    record PersistedArtifactStub(
+            ArtifactKey artifactKey,
+            String hash,
+            String stubbedArtifactType,
+            Map<String, String> metadata,
+            List<Artifact> children
+    ) implements Artifact {
+
+        public static PersistedArtifactStub of(Artifact artifact) {
+            return new PersistedArtifactStub(
+                    artifact.artifactKey(),
+                    artifact.contentHash().orElse(null),
+                    artifact.artifactType(),
+                    new HashMap<>(),
+                    StreamUtil.toStream(artifact.children()).toList());
+        }
+
+        @Override
+        public Optional<String> contentHash() {
+            return Optional.ofNullable(hash);
+        }
+    }
+
     @Builder(toBuilder = true)
     @With
     record FilterDecisionRecordArtifact(
@@ -17,6 +17,17 @@ public interface EventBus {
      */
     void subscribe(EventListener listener);
 
+    /**
+     * Subscribe a listener to events for one node and its descendants. Buses that route by
+     * node only call the listener for those events; this default subscribes to everything, so
+     * the listener must still filter. A blank {@code nodeId} subscribes to every event.
+     * @param nodeId the node whose subtree the listener cares about
+     * @param listener the event listener
+     */
+    default void subscribe(String nodeId, EventListener listener) {
+        subscribe(listener);
+    }
+
     /**
      * Unsubscribe a listener from events.
      * @param listener the event listener
@@ -1,5 +1,8 @@
 package com.hayden.acp_cdc_ai.acp.events;
 
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
 
 /**
  * Listener for graph events.
@@ -7,6 +10,28 @@ package com.hayden.acp_cdc_ai.acp.events;
  */
 public interface EventListener {
 
+    /**
+     * How the event bus delivers events to this listener. ASYNC listeners are only
+     * decoupled from the publisher when the bus has async delivery enabled; otherwise
+     * every listener is invoked synchronously.
+     */
+    enum DeliveryMode {
+        SYNC,
+        ASYNC
+    }
+
+    /**
+     * What an ASYNC listener's queue does when it is full.
+     */
+    enum BackpressurePolicy {
+        /** Block the publisher until the listener catches up. */
+        BLOCK,
+        /** Drop the oldest queued stream delta; block if no delta is queued. */
+        DROP_OLDEST_DELTAS,
+        /** Merge the incoming stream delta into the queued tail delta for the same node; block otherwise. */
+        COALESCE
+    }
+
     /**
      * Get a unique ID for this listener.
      * @return listener ID
@@ -32,6 +57,30 @@ public interface EventListener {
         return isInterestedIn(eventType.eventType());
     }
 
+    /**
+     * Handle a batch of events drained from this listener's async queue, in publish order.
+     * Like synchronous delivery, a failing event is logged and the rest are still delivered.
+     * @param events the events to handle
+     */
+    default void onEvents(List<Events.GraphEvent> events) {
+        for (Events.GraphEvent event : events) {
+            try {
+                onEvent(event);
+            } catch (Exception e) {
+                LoggerFactory.getLogger(EventListener.class)
+                        .error("Error handling event {} in listener {}.", event.eventId(), listenerId(), e);
+            }
+        }
+    }
+
+    default DeliveryMode deliveryMode() {
+        return DeliveryMode.SYNC;
+    }
+
+    default BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.BLOCK;
+    }
+
     /**
      * Listener execution order. Lower values run first.
      */
@@ -157,6 +157,7 @@ public interface Events {
             @JsonSubTypes.Type(value = MergePhaseStartedEvent.class, name = "MERGE_PHASE_STARTED"),
             @JsonSubTypes.Type(value = MergePhaseCompletedEvent.class, name = "MERGE_PHASE_COMPLETED"),
             @JsonSubTypes.Type(value = ArtifactEvent.class, name = "ARTIFACT_EMITTED"),
+            @JsonSubTypes.Type(value = ArtifactsPersistedEvent.class, name = "ARTIFACTS_PERSISTED"),
             @JsonSubTypes.Type(value = PropagationEvent.class, name = "PROPAGATION"),
             @JsonSubTypes.Type(value = TransformationEvent.class, name = "TRANSFORMATION"),
             @JsonSubTypes.Type(value = AgentCallStartedEvent.class, name = "AGENT_CALL_STARTED"),
@@ -164,6 +165,8 @@ public interface Events {
             @JsonSubTypes.Type(value = AgentCallEvent.class, name = "AGENT_CALL"),
             @JsonSubTypes.Type(value = AgentExecutorStartEvent.class, name = "AGENT_EXECUTOR_START"),
             @JsonSubTypes.Type(value = AgentExecutorCompleteEvent.class, name = "AGENT_EXECUTOR_COMPLETE"),
+            @JsonSubTypes.Type(value = DispatchChildStartedEvent.class, name = "DISPATCH_CHILD_STARTED"),
+            @JsonSubTypes.Type(value = DispatchChildCompletedEvent.class, name = "DISPATCH_CHILD_COMPLETED"),
             @JsonSubTypes.Type(value = PromptReceivedEvent.class, name = "PROMPT_RECEIVED"),
             @JsonSubTypes.Type(value = NullResultEvent.class, name = "NULL_RESULT"),
             @JsonSubTypes.Type(value = IncompleteJsonEvent.class, name = "INCOMPLETE_JSON"),
@@ -609,6 +612,24 @@ public interface Events {
                         line("actionName", e.actionName()),
                         line("requestContextId", e.requestContextId()),
                         line("startNodeId", e.startNodeId()));
+                case DispatchChildStartedEvent e -> formatEvent("Dispatch Child Started Event", e.eventType(),
+                        line("eventId", e.eventId()),
+                        line("timestamp", e.timestamp()),
+                        line("nodeId", e.nodeId()),
+                        line("dispatchNodeId", e.dispatchNodeId()),
+                        line("dispatchAgentName", e.dispatchAgentName()),
+                        line("childIndex", e.childIndex()),
+                        line("childCount", e.childCount()),
+                        line("parallel", e.parallel()));
+                case DispatchChildCompletedEvent e -> formatEvent("Dispatch Child Completed Event", e.eventType(),
+                        line("eventId", e.eventId()),
+                        line("timestamp", e.timestamp()),
+                        line("nodeId", e.nodeId()),
+                        line("dispatchNodeId", e.dispatchNodeId()),
+                        line("dispatchAgentName", e.dispatchAgentName()),
+                        line("childIndex", e.childIndex()),
+                        line("outcome", e.outcome()),
+                        line("durationMs", e.durationMs()));
                 case NullResultEvent e -> formatEvent("Null Result Event", e.eventType(),
                         line("eventId", e.eventId()),
                         line("timestamp", e.timestamp()),
@@ -643,6 +664,17 @@ public interface Events {
                         line("sessionKey", e.sessionKey()),
                         line("actionName", e.actionName()),
                         block("rawOutput", e.rawOutput()));
+                case ArtifactsPersistedEvent e -> formatEvent("Artifacts Persisted Event", e.eventType(),
+                        line("eventId", e.eventId()),
+                        line("timestamp", e.timestamp()),
+                        line("nodeId", e.nodeId()),
+                        line("executionKey", e.executionKey()),
+                        line("artifactCount", e.artifactCount()),
+                        line("originalsInserted", e.originalsInserted()),
+                        line("refsInserted", e.refsInserted()),
+                        line("existingHashHits", e.existingHashHits()),
+                        line("chunkCount", e.chunkCount()),
+                        line("durationMs", e.durationMs()));
             };
         }
 
@@ -1766,6 +1798,30 @@ public interface Events {
         }
     }
 
+    /**
+     * Emitted after an execution's artifact tree has been written to the database.
+     * {@code originalsInserted} and {@code refsInserted} are the rows written;
+     * {@code existingHashHits} counts artifacts whose content hash was already stored.
+     */
+    @Builder
+    record ArtifactsPersistedEvent(
+            String eventId,
+            Instant timestamp,
+            String nodeId,
+            String executionKey,
+            int artifactCount,
+            int originalsInserted,
+            int refsInserted,
+            int existingHashHits,
+            int chunkCount,
+            long durationMs
+    ) implements GraphEvent {
+        @Override
+        public String eventType() {
+            return "ARTIFACTS_PERSISTED";
+        }
+    }
+
     // ============ PROPAGATION & TRANSFORMATION EVENTS ============
 
     /**
@@ -1922,6 +1978,58 @@ public interface Events {
         }
     }
 
+    enum DispatchChildOutcome {
+        COMPLETED,
+        INTERRUPTED,
+        FAILED,
+        CANCELLED
+    }
+
+    /**
+     * Emitted by AgentExecutor when a dispatch agent hands one request to its subagent.
+     *
+     * <p>{@code nodeId} is the child request's contextId, {@code dispatchNodeId} the
+     * dispatch container's. {@code parallel} records whether the child ran alongside its
+     * siblings so start/complete pairs can be compared across dispatch modes.
+     */
+    @Builder
+    record DispatchChildStartedEvent(
+            String eventId,
+            Instant timestamp,
+            String nodeId,
+            String dispatchNodeId,
+            String dispatchAgentName,
+            int childIndex,
+            int childCount,
+            boolean parallel
+    ) implements GraphEvent {
+        @Override
+        public String eventType() {
+            return "DISPATCH_CHILD_STARTED";
+        }
+    }
+
+    /**
+     * Emitted when a dispatched subagent returns, fails, or is cancelled because a
+     * sibling raised an interrupt. {@code durationMs} is wall-clock time of the child.
+     */
+    @Builder
+    record DispatchChildCompletedEvent(
+            String eventId,
+            Instant timestamp,
+            String nodeId,
+            String dispatchNodeId,
+            String dispatchAgentName,
+            int childIndex,
+            DispatchChildOutcome outcome,
+            long durationMs
+    ) implements GraphEvent {
+        @Override
+        public String eventType() {
+            return "DISPATCH_CHILD_COMPLETED";
+        }
+    }
+
     /**
      * Event emitted when a fully assembled prompt is about to be sent to the LLM.
      * Captures the complete prompt text (template + all prompt contributors) for observability.
@@ -22,6 +22,7 @@ import org.springframework.ai.mcp.client.common.autoconfigure.NamedClientMcpTran
 import org.springframework.ai.mcp.client.common.autoconfigure.configurer.McpSyncClientConfigurer;
 import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpClientCommonProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils;
@@ -31,10 +32,18 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -93,12 +102,31 @@ public class DynamicMcpToolCallbackProvider {
     @Autowired(required = false)
     private ObjectMapper mapper = new ObjectMapper();
 
+    @Autowired(required = false)
+    private McpClientPoolProperties poolProperties = new McpClientPoolProperties();
+
+    /**
+     * Proxied self, so that the shared-client path still goes through the {@link StripedLock} aspect.
+     */
+    @Lazy
+    @Autowired
+    private DynamicMcpToolCallbackProvider self;
+
+    private ScheduledExecutorService poolEvictor;
+
     @PostConstruct
     public void initialize() {
         if (jsonMapper == null)
             jsonMapper = new JacksonMcpJsonMapper(mapper);
         stdioTransports = new ArrayList<>(stdioTransports);
         stdioTransports.addAll(namedTransports.stream().filter(Predicate.not(stdioTransports::contains)).toList());
+        if (poolProperties.isEnabled()) {
+            long period = Math.max(1, poolProperties.getIdleTimeout().toMillis() / 2);
+            poolEvictor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("mcp-pool-evictor").factory());
+            poolEvictor.scheduleAtFixedRate(
+                    this::evictPools,
+                    period, period, TimeUnit.MILLISECONDS);
+        }
     }
 
     ConcurrentHashMap<String, McpSyncClient> getClientConcurrentHashMap() {
@@ -107,11 +135,54 @@ public class DynamicMcpToolCallbackProvider {
 
     final ConcurrentHashMap<String, McpSyncClient> clientConcurrentHashMap = new ConcurrentHashMap<>();
 
+    /**
+     * A pool serves one server as customized by the caller, so callers whose customizers yield
+     * different parameters get different pools, as they get different shared clients. Pools for
+     * customized parameters are retired once unused for the idle timeout.
+     */
+    record PoolKey(String clientName, String name, String command, List<String> args, Map<String, String> env,
+                   boolean customized) {
+        static PoolKey of(String clientName, McpServerMetadata.StdioServerMetadata metadata, boolean customized) {
+            ServerParameters params = metadata.serverParameters();
+            return new PoolKey(clientName, metadata.name(), params.getCommand(),
+                    params.getArgs() == null ? List.of() : new ArrayList<>(params.getArgs()),
+                    params.getEnv() == null ? Map.of() : new HashMap<>(params.getEnv()),
+                    customized);
+        }
+    }
+
+    final ConcurrentHashMap<PoolKey, StdioMcpClientPool> clientPools = new ConcurrentHashMap<>();
+
+    /**
+     * Numbers pooled processes across all pools, so two pools for one server never hand out the
+     * same container name.
+     */
+    private final AtomicInteger poolInstances = new AtomicInteger();
+
+    private static final Set<String> containersWithShutdownHook = ConcurrentHashMap.newKeySet();
+
+    void evictPools() {
+        clientPools.forEach((key, pool) -> {
+            if (key.customized() && pool.retireIfUnused()) {
+                clientPools.remove(key, pool);
+                pool.close();
+            } else {
+                pool.evictIdle();
+            }
+        });
+    }
+
     public void shutdown() {
         try {
+            if (poolEvictor != null) {
+                poolEvictor.shutdownNow();
+            }
             for (var c : clientConcurrentHashMap.values()) {
                 tryStop(c);
             }
+            for (var p : clientPools.values()) {
+                p.close();
+            }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
@@ -158,15 +229,158 @@ public class DynamicMcpToolCallbackProvider {
         }
     }
 
-    //  must hold lock on (assuming) stdio otherwise send multiple concurrent requests on stdio but this fails.
-    @StripedLock
+    /**
+     * Run the request on a client for {@code clientName}. With {@code mcp.pool.enabled}, stdio
+     * servers lease a client from a per-server pool so concurrent callers run in parallel;
+     * otherwise, and for http servers, the shared client is used under the server's lock.
+     */
     public <T extends McpServerMetadata> Result<McpSchema.CallToolResult, McpError> doOnClient(String clientName,
                                                                                                ServerCustomizer<T> replace,
                                                                                                McpClientRequest request) {
+        if (poolProperties.isEnabled()) {
+            Optional<StdioMcpClientPool> pool = stdioPool(clientName, replace);
+            if (pool.isPresent()) {
+                Optional<Result<McpSchema.CallToolResult, McpError>> pooled = doOnPooledClient(pool.get(), request);
+                if (pooled.isPresent()) {
+                    return pooled.get();
+                }
+            }
+        }
+        return (self == null ? this : self).doOnSharedClient(clientName, replace, request);
+    }
+
+    //  must hold lock on (assuming) stdio otherwise send multiple concurrent requests on stdio but this fails.
+    @StripedLock
+    public <T extends McpServerMetadata> Result<McpSchema.CallToolResult, McpError> doOnSharedClient(String clientName,
+                                                                                                     ServerCustomizer<T> replace,
+                                                                                                     McpClientRequest request) {
         return buildClient(clientName, replace)
                 .map(request);
     }
 
+    public List<StdioMcpClientPool.Stats> poolStats() {
+        return clientPools.values().stream()
+                .map(StdioMcpClientPool::stats)
+                .toList();
+    }
+
+    /**
+     * Empty if the pool was retired between lookup and lease, in which case the caller falls back
+     * to the shared client.
+     */
+    private Optional<Result<McpSchema.CallToolResult, McpError>> doOnPooledClient(StdioMcpClientPool pool,
+                                                                                  McpClientRequest request) {
+        StdioMcpClientPool.Lease lease;
+        try {
+            lease = pool.lease(poolProperties.getAcquireTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.of(Result.err(new McpError("Interrupted waiting for MCP client.")));
+        } catch (TimeoutException | RuntimeException e) {
+            if (pool.isClosed()) {
+                return Optional.empty();
+            }
+            return Optional.of(Result.err(new McpError(e.getMessage())));
+        }
+        try (lease) {
+            try {
+                return Optional.of(Result.ok(request.apply(lease.client())));
+            } catch (RuntimeException e) {
+                if (!lease.client().isInitialized()) {
+                    lease.invalidate();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Pool for a stdio server as customized by {@code replace}, created and pre-started on first
+     * use. The customizer is applied on every call, like the shared path, and the pool is keyed
+     * by its result. If pre-starting fails the pool is closed and the request falls back to the
+     * shared client.
+     */
+    private <T extends McpServerMetadata> Optional<StdioMcpClientPool> stdioPool(String clientName,
+                                                                                  ServerCustomizer<T> replace) {
+        Optional<NamedClientMcpTransport> namedTransport = stdioTransports.stream()
+                .filter(t -> Objects.equals(t.name(), clientName))
+                .filter(t -> t.transport() instanceof StdioClientTransport)
+                .findFirst();
+        if (namedTransport.isEmpty()) {
+            return Optional.empty();
+        }
+        ServerParameters params;
+        try {
+            params = stdioParams(namedTransport.get());
+        } catch (NoSuchFieldException e) {
+            log.error(e.getMessage(), e);
+            return Optional.empty();
+        }
+        if (params == null) {
+            return Optional.empty();
+        }
+        ServerCustomizer.StdioServerCustomizer customizer =
+                replace instanceof ServerCustomizer.StdioServerCustomizer h ? h : s -> s;
+        var paramsBefore = new McpServerMetadata.StdioServerMetadata(
+                this.connectedClientName(commonProperties.getName(), namedTransport.get().name()), params);
+        var paramsAfter = customizer.apply(paramsBefore);
+        boolean customized = !PoolKey.of(clientName, paramsAfter, false)
+                .equals(PoolKey.of(clientName, paramsBefore, false));
+        PoolKey key = PoolKey.of(clientName, paramsAfter, customized);
+        StdioMcpClientPool existing = clientPools.get(key);
+        if (existing != null) {
+            return Optional.of(existing);
+        }
+
+        StdioMcpClientPool created = new StdioMcpClientPool(
+                paramsAfter.name(),
+                () -> {
+                    int instance = poolInstances.getAndIncrement();
+                    ServerParameters instanceParams = withInstanceName(paramsAfter.serverParameters(), instance);
+                    doStopExistingNotInMap(instanceParams);
+                    var client = buildInitializeClient(
+                            paramsAfter.name() + " #" + instance,
+                            McpClient.sync(new StdioClientTransport(instanceParams, jsonMapper)),
+                            namedTransport.get());
+                    if (!client.isInitialized()) {
+                        client.initialize();
+                    }
+                    return client;
+                },
+                poolProperties.maxSizeFor(clientName),
+                poolProperties.getMinIdle(),
+                poolProperties.getIdleTimeout(),
+                poolProperties.getHealthCheckAfterIdle());
+        StdioMcpClientPool raced = clientPools.putIfAbsent(key, created);
+        if (raced != null) {
+            return Optional.of(raced);
+        }
+        // Started outside the map so a slow server does not hold up lookups of other pools.
+        // A pool that cannot start is dropped and the next call tries again.
+        if (!created.prewarm()) {
+            clientPools.remove(key, created);
+            created.close();
+            return Optional.empty();
+        }
+        return Optional.of(created);
+    }
+
+    /**
+     * Pooled processes run side by side, so a docker {@code --name} gets a per-instance suffix.
+     */
+    private static ServerParameters withInstanceName(ServerParameters params, int instance) {
+        List<String> args = new ArrayList<>(params.getArgs());
+        int nameIndex = args.indexOf("--name");
+        if (nameIndex < 0 || nameIndex + 1 >= args.size()) {
+            return params;
+        }
+        args.set(nameIndex + 1, args.get(nameIndex + 1) + "-" + instance);
+        return ServerParameters.builder(params.getCommand())
+                .args(args)
+                .env(params.getEnv())
+                .build();
+    }
+
     /**
      * Kill the client and then perform some synchronized action on that service.
      *
@@ -186,6 +400,13 @@ public class DynamicMcpToolCallbackProvider {
                 log.error("Killing client " + clientName, e);
             }
         }
+        clientPools.entrySet().removeIf(e -> {
+            if (!e.getKey().clientName().equals(clientName)) {
+                return false;
+            }
+            e.getValue().close();
+            return true;
+        });
         return toDo.get();
     }
 
@@ -316,9 +537,7 @@ public class DynamicMcpToolCallbackProvider {
     private Result<McpSyncClient, McpError> initializeStdioMcpSyncClient(String clientName,
                                                                                       ServerCustomizer.StdioServerCustomizer replace,
                                                                                       NamedClientMcpTransport namedTransport) throws NoSuchFieldException {
-        Field paramsField = namedTransport.transport().getClass().getDeclaredField("params");
-        paramsField.trySetAccessible();
-        ServerParameters params = (ServerParameters) ReflectionUtils.getField(paramsField, namedTransport.transport());
+        ServerParameters params = stdioParams(namedTransport);
 
         if (params == null)
             return Result.err(new McpError("Could not find valid params for name %s.".formatted(clientName)));
@@ -343,6 +562,12 @@ public class DynamicMcpToolCallbackProvider {
         return Result.ok(client);
     }
 
+    private static ServerParameters stdioParams(NamedClientMcpTransport namedTransport) throws NoSuchFieldException {
+        Field paramsField = namedTransport.transport().getClass().getDeclaredField("params");
+        paramsField.trySetAccessible();
+        return (ServerParameters) ReflectionUtils.getField(paramsField, namedTransport.transport());
+    }
+
     private static void doStopExistingNotInMap(ServerParameters params) {
         String name = null;
         boolean next = false;
@@ -357,6 +582,9 @@ public class DynamicMcpToolCallbackProvider {
         }
 
         doRunStopDocker(name);
+        if (name == null || !containersWithShutdownHook.add(name)) {
+            return;
+        }
         String finalName = name;
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Running docker shutdown hook for {}", finalName);
@@ -0,0 +1,47 @@
+package com.hayden.acp_cdc_ai.mcp;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pooled mode for stdio MCP servers in {@link DynamicMcpToolCallbackProvider}. When disabled,
+ * every call to a server goes through one shared client under a lock on the server name.
+ */
+@ConfigurationProperties(prefix = "mcp.pool")
+@Component
+@Data
+public class McpClientPoolProperties {
+
+    boolean enabled = false;
+
+    /**
+     * Processes per server, unless overridden in {@link #maxSizeByServer}.
+     */
+    int maxSize = 4;
+
+    Map<String, Integer> maxSizeByServer = new HashMap<>();
+
+    /**
+     * Processes started up front and kept through idle eviction.
+     */
+    int minIdle = 1;
+
+    Duration idleTimeout = Duration.ofMinutes(5);
+
+    Duration acquireTimeout = Duration.ofMinutes(2);
+
+    /**
+     * Idle clients unused for longer than this are pinged before being leased.
+     */
+    Duration healthCheckAfterIdle = Duration.ofSeconds(30);
+
+    int maxSizeFor(String server) {
+        return maxSizeByServer.getOrDefault(server, maxSize);
+    }
+
+}
@@ -0,0 +1,389 @@
+package com.hayden.acp_cdc_ai.mcp;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pool of initialized stdio MCP clients for one server. A stdio transport can only carry one
+ * request at a time, so instead of serializing every caller on a single process each caller
+ * leases a process of its own, up to {@code maxSize}.
+ *
+ * <p>Idle clients that have not been used for a while are pinged before being handed out and
+ * replaced if the ping fails. Clients idle longer than the idle timeout are closed, keeping
+ * {@code minIdle} warm. A pool nobody has leased from for the idle timeout can be retired
+ * with {@link #retireIfUnused}.
+ */
+@Slf4j
+public final class StdioMcpClientPool implements AutoCloseable {
+
+    public record Stats(
+            String server,
+            int maxSize,
+            int open,
+            int idle,
+            int leased,
+            long leases,
+            long created,
+            long healthCheckFailures,
+            long evicted,
+            double avgWaitMillis,
+            double maxWaitMillis,
+            double avgLeaseMillis,
+            double maxLeaseMillis
+    ) {}
+
+    /**
+     * Exclusive use of one client until closed. Call {@link #invalidate} if the client
+     * misbehaved so that it is closed instead of returned to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Pooled pooled;
+        private final long leasedAt = System.nanoTime();
+        private boolean broken;
+        private boolean returned;
+
+        private Lease(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        public McpSyncClient client() {
+            return pooled.client;
+        }
+
+        public void invalidate() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    private static final class Pooled {
+        private final McpSyncClient client;
+        private long lastUsed = System.nanoTime();
+
+        private Pooled(McpSyncClient client) {
+            this.client = client;
+        }
+    }
+
+    private final String server;
+    private final Supplier<McpSyncClient> factory;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutNanos;
+    private final long healthCheckAfterNanos;
+    private final Semaphore permits;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Pooled> idle = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    private int open;
+    private long leases;
+    private long created;
+    private long healthCheckFailures;
+    private long evicted;
+    private long waitNanosTotal;
+    private long waitNanosMax;
+    private long leaseNanosTotal;
+    private long leaseNanosMax;
+    private long released;
+    private int inFlight;
+    private long lastActive = System.nanoTime();
+
+    public StdioMcpClientPool(String server,
+                              Supplier<McpSyncClient> factory,
+                              int maxSize,
+                              int minIdle,
+                              Duration idleTimeout,
+                              Duration healthCheckAfterIdle) {
+        this.server = server;
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.minIdle = Math.max(0, Math.min(minIdle, this.maxSize));
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.healthCheckAfterNanos = healthCheckAfterIdle.toNanos();
+        this.permits = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * Starts {@code minIdle} processes up front so the first callers do not pay for startup.
+     *
+     * @return false if a process failed to start
+     */
+    public boolean prewarm() {
+        while (!closed) {
+            lock.lock();
+            try {
+                if (open >= minIdle) {
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!permits.tryAcquire()) {
+                return true;
+            }
+            try {
+                Pooled pooled = create();
+                lock.lock();
+                try {
+                    idle.addLast(pooled);
+                } finally {
+                    lock.unlock();
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to pre-start MCP client for {}: {}", server, e.getMessage());
+                return false;
+            } finally {
+                permits.release();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits up to {@code timeout} for a free client, starting a new process if the pool is
+     * below its max size.
+     */
+    public Lease lease(Duration timeout) throws InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("MCP client pool for %s is closed".formatted(server));
+            }
+            inFlight++;
+            lastActive = start;
+        } finally {
+            lock.unlock();
+        }
+        boolean leased = false;
+        try {
+            if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("Timed out after %s waiting for an MCP client for %s".formatted(timeout, server));
+            }
+            Lease lease = leaseWithPermit(System.nanoTime() - start);
+            leased = true;
+            return lease;
+        } finally {
+            if (!leased) {
+                endActivity();
+            }
+        }
+    }
+
+    /**
+     * Marks the pool closed if nothing is leased or being leased and nothing has been for the
+     * idle timeout. The caller then {@link #close closes} it.
+     */
+    public boolean retireIfUnused() {
+        lock.lock();
+        try {
+            if (closed || inFlight > 0 || System.nanoTime() - lastActive <= idleTimeoutNanos) {
+                return false;
+            }
+            closed = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void endActivity() {
+        lock.lock();
+        try {
+            inFlight--;
+            lastActive = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lease leaseWithPermit(long waited) {
+        try {
+            Pooled pooled = takeHealthy();
+            lock.lock();
+            try {
+                leases++;
+                waitNanosTotal += waited;
+                waitNanosMax = Math.max(waitNanosMax, waited);
+            } finally {
+                lock.unlock();
+            }
+            return new Lease(pooled);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes clients idle longer than the idle timeout, keeping {@code minIdle}.
+     */
+    public void evictIdle() {
+        List<Pooled> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            while (idle.size() > minIdle && now - idle.peekLast().lastUsed > idleTimeoutNanos) {
+                expired.add(idle.pollLast());
+                evicted++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(this::discard);
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(
+                    server,
+                    maxSize,
+                    open,
+                    idle.size(),
+                    open - idle.size(),
+                    leases,
+                    created,
+                    healthCheckFailures,
+                    evicted,
+                    leases == 0 ? 0.0 : waitNanosTotal / (double) leases / 1_000_000.0,
+                    waitNanosMax / 1_000_000.0,
+                    released == 0 ? 0.0 : leaseNanosTotal / (double) released / 1_000_000.0,
+                    leaseNanosMax / 1_000_000.0
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes idle clients now; leased clients are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<Pooled> toClose;
+        lock.lock();
+        try {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(this::discard);
+    }
+
+    private Pooled takeHealthy() {
+        while (true) {
+            Pooled candidate;
+            lock.lock();
+            try {
+                candidate = idle.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+            if (candidate == null) {
+                return create();
+            }
+            if (isHealthy(candidate)) {
+                return candidate;
+            }
+            lock.lock();
+            try {
+                healthCheckFailures++;
+            } finally {
+                lock.unlock();
+            }
+            discard(candidate);
+        }
+    }
+
+    private boolean isHealthy(Pooled pooled) {
+        try {
+            if (!pooled.client.isInitialized()) {
+                return false;
+            }
+            if (System.nanoTime() - pooled.lastUsed > healthCheckAfterNanos) {
+                pooled.client.ping();
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("MCP client for {} failed health check: {}", server, e.getMessage());
+            return false;
+        }
+    }
+
+    private Pooled create() {
+        McpSyncClient client = factory.get();
+        lock.lock();
+        try {
+            open++;
+            created++;
+        } finally {
+            lock.unlock();
+        }
+        return new Pooled(client);
+    }
+
+    private void release(Lease lease) {
+        if (lease.returned) {
+            return;
+        }
+        lease.returned = true;
+        long now = System.nanoTime();
+        long held = now - lease.leasedAt;
+        boolean discard = lease.broken || closed;
+        lock.lock();
+        try {
+            released++;
+            leaseNanosTotal += held;
+            leaseNanosMax = Math.max(leaseNanosMax, held);
+            if (!discard) {
+                lease.pooled.lastUsed = now;
+                idle.addFirst(lease.pooled);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (discard) {
+            discard(lease.pooled);
+        }
+        permits.release();
+        endActivity();
+        evictIdle();
+    }
+
+    private void discard(Pooled pooled) {
+        lock.lock();
+        try {
+            open--;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            pooled.client.closeGracefully();
+        } catch (Exception e) {
+            log.error("Error stopping pooled MCP client for {}", server, e);
+        }
+    }
+}
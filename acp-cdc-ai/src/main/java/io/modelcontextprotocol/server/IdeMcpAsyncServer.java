@@ -15,7 +15,6 @@ import io.modelcontextprotocol.spec.McpSchema.SetLevelRequest;
 import io.modelcontextprotocol.util.DefaultMcpUriTemplateManagerFactory;
 import io.modelcontextprotocol.util.McpUriTemplateManagerFactory;
 import io.modelcontextprotocol.util.Utils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -23,18 +22,13 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
 
 import static io.modelcontextprotocol.spec.McpError.RESOURCE_NOT_FOUND;
 
@@ -58,7 +52,7 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
 
     private final String instructions;
 
-    private final CopyOnWriteArrayList<McpServerFeatures.AsyncToolSpecification> tools = new CopyOnWriteArrayList<>();
+    private final IdeMcpToolRegistry tools = new IdeMcpToolRegistry();
 
     private final ConcurrentHashMap<String, McpServerFeatures.AsyncResourceSpecification> resources = new ConcurrentHashMap<>();
 
@@ -242,11 +236,9 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
         }
 
         return Mono.defer(() -> {
-            if (this.tools.stream().anyMatch(th -> th.tool().name().equals(toolSpecification.tool().name()))) {
+            if (!this.tools.add(withStructuredOutputHandling(jsonSchemaValidator, toolSpecification))) {
                 return Mono.error(new McpError("Tool with name '" + toolSpecification.tool().name() + "' already exists"));
             }
-
-            this.tools.add(withStructuredOutputHandling(jsonSchemaValidator, toolSpecification));
             logger.debug("Added tool handler: {}", toolSpecification.tool().name());
 
             if (this.serverCapabilities.tools().listChanged()) {
@@ -257,7 +249,7 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
     }
 
     public Flux<McpSchema.Tool> listTools() {
-        return Flux.fromIterable(this.tools).map(McpServerFeatures.AsyncToolSpecification::tool);
+        return Flux.fromIterable(this.tools.all()).map(McpServerFeatures.AsyncToolSpecification::tool);
     }
 
     public Mono<Void> removeTool(String toolName) {
@@ -269,8 +261,7 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
         }
 
         return Mono.defer(() -> {
-            boolean removed = this.tools
-                    .removeIf(toolSpecification -> toolSpecification.tool().name().equals(toolName));
+            boolean removed = this.tools.remove(toolName);
             if (removed) {
                 logger.debug("Removed tool handler: {}", toolName);
                 if (this.serverCapabilities.tools().listChanged()) {
@@ -288,10 +279,7 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
 
     private McpRequestHandler<McpSchema.ListToolsResult> toolsListRequestHandler() {
         return (exchange, params) -> {
-            List<McpSchema.Tool> tools = this.tools.stream()
-                    .filter(spec -> isToolVisible(exchange, spec))
-                    .map(McpServerFeatures.AsyncToolSpecification::tool)
-                    .toList();
+            List<McpSchema.Tool> tools = this.tools.visibleTools(requestHeaders(exchange));
 
             return Mono.just(new McpSchema.ListToolsResult(tools, null));
         };
@@ -303,10 +291,9 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
                     new TypeRef<McpSchema.CallToolRequest>() {
                     });
 
-            Optional<McpServerFeatures.AsyncToolSpecification> toolSpecification = this.tools.stream()
-                    .filter(tr -> callToolRequest.name().equals(tr.tool().name()))
-                    .filter(tr -> isToolVisible(exchange, tr))
-                    .findAny();
+            HttpHeaders headers = requestHeaders(exchange);
+            Optional<McpServerFeatures.AsyncToolSpecification> toolSpecification =
+                    this.tools.findVisible(callToolRequest.name(), headers);
 
             if (toolSpecification.isEmpty()) {
                 return Mono.error(McpError.builder(ErrorCodes.INVALID_PARAMS)
@@ -315,14 +302,6 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
                         .build());
             }
 
-            HttpHeaders headers = null;
-            if (exchange != null && exchange.transportContext() != null) {
-                Object headersObj = exchange.transportContext().get(CONTEXT_HEADERS_KEY);
-                if (headersObj instanceof HttpHeaders found) {
-                    headers = found;
-                }
-            }
-
             HttpHeaders captured = headers;
             return Mono.using(
                     () -> {
@@ -780,43 +759,12 @@ public class IdeMcpAsyncServer extends McpAsyncServer {
                 .build();
     }
 
-    private static boolean isToolVisible(McpAsyncServerExchange exchange,
-                                         McpServerFeatures.AsyncToolSpecification toolSpecification) {
+    private static HttpHeaders requestHeaders(McpAsyncServerExchange exchange) {
         if (exchange == null || exchange.transportContext() == null) {
-            return true;
-        }
-        Object headersObj = exchange.transportContext().get(CONTEXT_HEADERS_KEY);
-        if (!(headersObj instanceof HttpHeaders headers)) {
-            return true;
-        }
-
-        Set<String> allowList = parseToolList(headers.getFirst(TOOL_ALLOWLIST_HEADER))
-                .stream()
-                .filter(StringUtils::isNotBlank)
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-
-        if (!allowList.isEmpty() && !allowList.contains(toolSpecification.tool().name().toLowerCase())) {
-            return false;
-        }
-
-        Set<String> blockList = parseToolList(headers.getFirst(TOOL_BLOCKLIST_HEADER))
-                .stream()
-                .filter(StringUtils::isNotBlank)
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-        return blockList.isEmpty() || !blockList.contains(toolSpecification.tool().name().toLowerCase());
-    }
-
-    private static Set<String> parseToolList(String headerValue) {
-        if (headerValue == null || headerValue.isBlank()) {
-            return Set.of();
+            return null;
         }
-        Set<String> values = new HashSet<>();
-        Arrays.stream(headerValue.split(","))
-                .map(String::trim)
-                .filter(value -> !value.isEmpty())
-                .forEach(values::add);
-        return values;
+        return exchange.transportContext().get(CONTEXT_HEADERS_KEY) instanceof HttpHeaders headers
+                ? headers
+                : null;
     }
 }
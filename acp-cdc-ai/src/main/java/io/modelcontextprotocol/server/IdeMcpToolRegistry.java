@@ -0,0 +1,175 @@
+package io.modelcontextprotocol.server;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Tool specifications for {@link IdeMcpAsyncServer}, indexed by name, with the visible tool
+ * list cached per {@code x-mcp-tools}/{@code x-mcp-tools-exclude} header pair.
+ *
+ * <p>Header values are parsed once per distinct raw pair into a normalized {@link ToolFilter}, and
+ * the filtered {@code tools/list} result is cached per filter. Adding or removing a tool swaps in
+ * an empty list cache; a reader that raced the change can only have written into the old one.
+ */
+public final class IdeMcpToolRegistry {
+
+    /**
+     * Bound on distinct header pairs and filters remembered; headers are client supplied.
+     */
+    static final int MAX_CACHED_FILTERS = 256;
+
+    /**
+     * Normalized allow/block lists. Empty allow list means every tool is allowed.
+     */
+    public record ToolFilter(Set<String> allow, Set<String> block) {
+
+        public static final ToolFilter NONE = new ToolFilter(Set.of(), Set.of());
+
+        public static ToolFilter of(String allowHeader, String blockHeader) {
+            Set<String> allow = parseToolList(allowHeader);
+            Set<String> block = parseToolList(blockHeader);
+            return allow.isEmpty() && block.isEmpty() ? NONE : new ToolFilter(allow, block);
+        }
+
+        public boolean isVisible(String toolName) {
+            if (this == NONE) {
+                return true;
+            }
+            String name = toolName.toLowerCase();
+            return (allow.isEmpty() || allow.contains(name)) && !block.contains(name);
+        }
+
+        private static Set<String> parseToolList(String headerValue) {
+            if (headerValue == null || headerValue.isBlank()) {
+                return Set.of();
+            }
+            return Arrays.stream(headerValue.split(","))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    private record HeaderPair(String allow, String block) {
+    }
+
+    private final CopyOnWriteArrayList<McpServerFeatures.AsyncToolSpecification> tools = new CopyOnWriteArrayList<>();
+
+    private final ConcurrentHashMap<String, McpServerFeatures.AsyncToolSpecification> toolsByName = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<HeaderPair, ToolFilter> filters = new ConcurrentHashMap<>();
+
+    private volatile ConcurrentHashMap<ToolFilter, List<McpSchema.Tool>> visibleTools = new ConcurrentHashMap<>();
+
+    /**
+     * Adds specs as given. When names repeat, calls resolve to the first one, as before.
+     */
+    public synchronized void addAll(List<McpServerFeatures.AsyncToolSpecification> specs) {
+        for (McpServerFeatures.AsyncToolSpecification spec : specs) {
+            tools.add(spec);
+            toolsByName.putIfAbsent(spec.tool().name(), spec);
+        }
+        visibleTools = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return false if a tool with the same name is already registered
+     */
+    public synchronized boolean add(McpServerFeatures.AsyncToolSpecification spec) {
+        if (toolsByName.putIfAbsent(spec.tool().name(), spec) != null) {
+            return false;
+        }
+        tools.add(spec);
+        visibleTools = new ConcurrentHashMap<>();
+        return true;
+    }
+
+    /**
+     * @return false if no tool with that name was registered
+     */
+    public synchronized boolean remove(String toolName) {
+        boolean removed = toolsByName.remove(toolName) != null;
+        removed |= tools.removeIf(spec -> spec.tool().name().equals(toolName));
+        if (removed) {
+            visibleTools = new ConcurrentHashMap<>();
+        }
+        return removed;
+    }
+
+    public List<McpServerFeatures.AsyncToolSpecification> all() {
+        return List.copyOf(tools);
+    }
+
+    public int size() {
+        return tools.size();
+    }
+
+    /**
+     * Tools visible to a request with these headers, in registration order. {@code null}
+     * headers see every tool.
+     */
+    public List<McpSchema.Tool> visibleTools(HttpHeaders headers) {
+        ToolFilter filter = filterFor(headers);
+        ConcurrentHashMap<ToolFilter, List<McpSchema.Tool>> cache = visibleTools;
+        List<McpSchema.Tool> cached = cache.get(filter);
+        if (cached != null) {
+            return cached;
+        }
+        List<McpSchema.Tool> visible = tools.stream()
+                .map(McpServerFeatures.AsyncToolSpecification::tool)
+                .filter(tool -> filter.isVisible(tool.name()))
+                .toList();
+        if (cache.size() >= MAX_CACHED_FILTERS) {
+            cache.clear();
+        }
+        cache.put(filter, visible);
+        return visible;
+    }
+
+    /**
+     * The tool called {@code toolName}, if registered and visible with these headers.
+     */
+    public Optional<McpServerFeatures.AsyncToolSpecification> findVisible(String toolName, HttpHeaders headers) {
+        if (toolName == null) {
+            return Optional.empty();
+        }
+        McpServerFeatures.AsyncToolSpecification spec = toolsByName.get(toolName);
+        if (spec == null || !filterFor(headers).isVisible(toolName)) {
+            return Optional.empty();
+        }
+        return Optional.of(spec);
+    }
+
+    ToolFilter filterFor(HttpHeaders headers) {
+        if (headers == null) {
+            return ToolFilter.NONE;
+        }
+        String allow = headers.getFirst(IdeMcpAsyncServer.TOOL_ALLOWLIST_HEADER);
+        String block = headers.getFirst(IdeMcpAsyncServer.TOOL_BLOCKLIST_HEADER);
+        if (allow == null && block == null) {
+            return ToolFilter.NONE;
+        }
+        HeaderPair key = new HeaderPair(allow, block);
+        ToolFilter filter = filters.get(key);
+        if (filter != null) {
+            return filter;
+        }
+        if (filters.size() >= MAX_CACHED_FILTERS) {
+            filters.clear();
+        }
+        return filters.computeIfAbsent(key, k -> ToolFilter.of(k.allow(), k.block()));
+    }
+
+    int cachedToolLists() {
+        return visibleTools.size();
+    }
+}
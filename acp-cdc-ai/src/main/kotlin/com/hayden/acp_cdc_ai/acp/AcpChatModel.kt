@@ -11,7 +11,9 @@ import com.agentclientprotocol.protocol.Protocol
 import com.agentclientprotocol.transport.Transport
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.hayden.acp_cdc_ai.acp.config.AcpChatOptionsString
+import com.hayden.acp_cdc_ai.acp.config.AcpFileCacheProperties
 import com.hayden.acp_cdc_ai.acp.config.AcpModelProperties
+import com.hayden.acp_cdc_ai.acp.config.AcpProcessPoolProperties
 import com.hayden.acp_cdc_ai.acp.config.AcpProvider
 import com.hayden.acp_cdc_ai.acp.config.AcpResolvedCall
 import com.hayden.acp_cdc_ai.acp.config.AcpSessionRoutingKey
@@ -29,12 +31,14 @@ import io.modelcontextprotocol.server.IdeMcpAsyncServer.TOOL_ALLOWLIST_HEADER
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.onCompletion
 import kotlinx.coroutines.flow.toList
 import kotlinx.coroutines.flow.transform
 import kotlinx.coroutines.reactor.flux
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
 import kotlinx.io.asSink
 import kotlinx.io.asSource
 import kotlinx.io.buffered
@@ -91,6 +95,12 @@ class AcpChatModel(
     @Value("\${server.port:8080}")
     lateinit var mcpServerPort: Integer
 
+    @Autowired(required = false)
+    var processPool: AcpProcessPool = AcpProcessPool(AcpProcessPoolProperties())
+
+    @Autowired(required = false)
+    var fileCache: AcpFileCache = AcpFileCache(AcpFileCacheProperties())
+
 
     companion object AcpChatModel {
 
@@ -336,7 +346,13 @@ class AcpChatModel(
         command: Array<String>,
         extraEnv: Map<String, String>,
         dir: Path
-    ): Transport {
+    ): Transport = stdioTransport(coroutineScope, startProcess(command, extraEnv, dir))
+
+    private fun startProcess(
+        command: Array<String>,
+        extraEnv: Map<String, String>,
+        dir: Path
+    ): Process {
         val pb = ProcessBuilder(*command)
             .redirectInput(ProcessBuilder.Redirect.PIPE)
             .redirectOutput(ProcessBuilder.Redirect.PIPE)
@@ -347,9 +363,11 @@ class AcpChatModel(
 
         extraEnv.forEach { (envKey, envValue) -> pb.environment()[envKey] = envValue }
 
-        val process = pb
+        return pb
             .start()
+    }
 
+    private fun stdioTransport(coroutineScope: CoroutineScope, process: Process): Transport {
         val stdin = process.outputStream.asSink().buffered()
         val stdout = process.inputStream.asSource().buffered()
         return AcpSerializerTransport(
@@ -438,31 +456,18 @@ class AcpChatModel(
             ?: ArtifactKey.createRoot()
 
         return try {
-            val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
-            val transport = createProcessStdioTransport(scope, process, joinedEnv, Path.of(cwd))
-            val protocol = Protocol(scope, transport)
-            val client = Client(protocol)
-
-            val agentInfo = protocol.start()
-
-            provider.authMethod?.let {
-                val authenticationResult = client.authenticate(AuthMethodId(it))
-                log.info("Authenticated with ACP {}", authenticationResult)
-            }
-
-            val initialized = client.initialize(
-                ClientInfo(
-                    capabilities = ClientCapabilities(
-                        fs = FileSystemCapability(
-                            readTextFile = true,
-                            writeTextFile = true
-                        ),
-                        terminal = true
-                    )
-                )
+            val processSpec = AcpProcessPool.AcpProcessSpec(
+                provider = provider.name ?: resolvedCall.providerName()?.wireValue() ?: "",
+                command = process.toList(),
+                env = joinedEnv.toMap(),
+                workingDirectory = cwd,
+                authMethod = provider.authMethod
             )
-
-            log.info("Agent info: ${initialized.implementation.toString()}")
+            val acpProcess = processPool.acquire(processSpec) { startAcpProcess(it) }
+            val scope = acpProcess.scope
+            val transport = acpProcess.transport
+            val protocol = acpProcess.protocol
+            val client = acpProcess.client
 
             val toolAllowlist = mutableSetOf<String>()
             val mcpSyncServers: MutableSet<McpServer> = mutableSetOf()
@@ -528,6 +533,7 @@ class AcpChatModel(
             val streamWindows = AcpStreamWindowBuffer(sessionManager.eventBus)
 
             var acp: AcpSessionManager.AcpSessionContext? = null
+            val worktreeFileCache = fileCache.forWorktree(cwd)
 
             val addMessage = object : AddMessage {
                 override suspend fun addToSession(message: String) {
@@ -535,7 +541,7 @@ class AcpChatModel(
                 }
             }
             val session = client.newSession(sessionParams)
-            { _, _ -> AcpSessionOperations(permissionGate, chatKey.value, streamWindows, addMessage) }
+            { _, _ -> AcpSessionOperations(permissionGate, chatKey.value, streamWindows, addMessage, worktreeFileCache) }
 
             val modelToSet = sandboxTranslation.model ?: resolvedCall.effectiveModel()
             modelToSet?.takeIf { it.isNotBlank() }?.let {
@@ -554,6 +560,7 @@ class AcpChatModel(
                 chatOptions = objectMapper.writeValueAsString(resolvedCall),
                 sandbox = sandboxTranslation,
                 resolvedCall = resolvedCall,
+                fileCache = worktreeFileCache,
             )
 
             s
@@ -571,6 +578,47 @@ class AcpChatModel(
         }
     }
 
+    /**
+     * Spawns the agent process and runs everything before `newSession` that does not depend on
+     * the session: protocol start, authentication and `initialize`.
+     */
+    private suspend fun startAcpProcess(spec: AcpProcessPool.AcpProcessSpec): AcpProcessPool.AcpProcess {
+        val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+        val process = startProcess(spec.command.toTypedArray(), spec.env, Path.of(spec.workingDirectory))
+        try {
+            val transport = stdioTransport(scope, process)
+            val protocol = Protocol(scope, transport)
+            val client = Client(protocol)
+
+            protocol.start()
+
+            spec.authMethod?.let {
+                val authenticationResult = client.authenticate(AuthMethodId(it))
+                log.info("Authenticated with ACP {}", authenticationResult)
+            }
+
+            val initialized = client.initialize(
+                ClientInfo(
+                    capabilities = ClientCapabilities(
+                        fs = FileSystemCapability(
+                            readTextFile = true,
+                            writeTextFile = true
+                        ),
+                        terminal = true
+                    )
+                )
+            )
+
+            log.info("Agent info: ${initialized.implementation.toString()}")
+
+            return AcpProcessPool.AcpProcess(spec, process, scope, transport, protocol, client)
+        } catch (ex: Exception) {
+            scope.cancel()
+            process.destroy()
+            throw ex
+        }
+    }
+
     private fun workingDirectoryOrNull(sandboxTranslation: SandboxTranslation): String? {
         return if (sandboxTranslation.workingDirectory() == null)
             null
@@ -779,10 +827,11 @@ class AcpChatModel(
         private val permissionGate: IPermissionGate,
         private val originNodeId: String,
         private val streamWindows: AcpStreamWindowBuffer,
-        private val addMessage: AddMessage? = null
+        private val addMessage: AddMessage? = null,
+        private val fileCache: AcpFileCache.WorktreeCache? = null
     ) : ClientSessionOperations {
 
-        private val activeTerminals = ConcurrentHashMap<String, Process>()
+        private val activeTerminals = ConcurrentHashMap<String, AcpTerminal>()
 
         override suspend fun requestPermissions(
             toolCall: SessionUpdate.ToolCallUpdate,
@@ -811,6 +860,10 @@ class AcpChatModel(
 
             val p = Paths.get(path)
 
+            if (fileCache != null) {
+                return ReadTextFileResponse(fileCache.read(p, line?.toIntOrMax(), limit?.toIntOrMax()))
+            }
+
             if (line == null && limit == null && p.toFile().exists()) {
                 return ReadTextFileResponse(p.readText())
             }
@@ -833,9 +886,12 @@ class AcpChatModel(
             _meta: JsonElement?
         ): WriteTextFileResponse {
             Paths.get(path).writeText(content)
+            fileCache?.invalidate(Paths.get(path))
             return WriteTextFileResponse()
         }
 
+        private fun UInt.toIntOrMax(): Int = coerceAtMost(Int.MAX_VALUE.toUInt()).toInt()
+
         override suspend fun notify(notification: SessionUpdate, _meta: JsonElement?) {
         }
 
@@ -853,9 +909,8 @@ class AcpChatModel(
             }
             env.forEach { processBuilder.environment()[it.name] = it.value }
 
-            val process = processBuilder.start()
             val terminalId = UUID.randomUUID().toString()
-            activeTerminals[terminalId] = process
+            activeTerminals[terminalId] = AcpTerminal.start(terminalId, processBuilder, outputByteLimit)
 
             return CreateTerminalResponse(terminalId)
         }
@@ -864,19 +919,17 @@ class AcpChatModel(
             terminalId: String,
             _meta: JsonElement?,
         ): TerminalOutputResponse {
-            val process = activeTerminals[terminalId] ?: error("Terminal not found: $terminalId")
-            val stdout = process.inputStream.bufferedReader().readText()
-            val stderr = process.errorStream.bufferedReader().readText()
-            val output = if (stderr.isNotEmpty()) "$stdout\nSTDERR:\n$stderr" else stdout
+            val terminal = activeTerminals[terminalId] ?: error("Terminal not found: $terminalId")
+            val output = terminal.output()
 
-            return TerminalOutputResponse(output, truncated = false)
+            return TerminalOutputResponse(output.text, truncated = output.truncated)
         }
 
         override suspend fun terminalRelease(
             terminalId: String,
             _meta: JsonElement?,
         ): ReleaseTerminalResponse {
-            activeTerminals.remove(terminalId)
+            activeTerminals.remove(terminalId)?.close()
             return ReleaseTerminalResponse()
         }
 
@@ -884,8 +937,8 @@ class AcpChatModel(
             terminalId: String,
             _meta: JsonElement?,
         ): WaitForTerminalExitResponse {
-            val process = activeTerminals[terminalId] ?: error("Terminal not found: $terminalId")
-            val exitCode = process.waitFor()
+            val terminal = activeTerminals[terminalId] ?: error("Terminal not found: $terminalId")
+            val exitCode = withContext(Dispatchers.IO) { terminal.waitForExit() }
             return WaitForTerminalExitResponse(exitCode.toUInt())
         }
 
@@ -893,8 +946,7 @@ class AcpChatModel(
             terminalId: String,
             _meta: JsonElement?,
         ): KillTerminalCommandResponse {
-            val process = activeTerminals[terminalId]
-            process?.destroy()
+            activeTerminals[terminalId]?.kill()
             return KillTerminalCommandResponse()
         }
     }
@@ -0,0 +1,259 @@
+package com.hayden.acp_cdc_ai.acp
+
+import com.hayden.acp_cdc_ai.acp.config.AcpFileCacheProperties
+import org.springframework.stereotype.Component
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * File reads for the ACP `fsReadTextFile` callback, cached per worktree.
+ *
+ * Each file read through a [WorktreeCache] gets a line-offset index, built in one pass and
+ * validated against size and mtime on every read, so a `line`/`limit` slice is a positioned
+ * read of just those bytes. Small files also keep their full text for whole-file reads.
+ * `fsWriteTextFile` invalidates the written file; the mtime check catches edits made any
+ * other way.
+ *
+ * Slices match the previous `readLines()` behaviour: `\n`, `\r\n` and `\r` all end a line,
+ * lines are joined with `\n`, and a trailing terminator does not add an empty line.
+ */
+@Component
+class AcpFileCache(private val properties: AcpFileCacheProperties) {
+
+    data class Stats(
+        val worktree: String,
+        val files: Int,
+        val cachedContentBytes: Long,
+        val hits: Long,
+        val misses: Long,
+        val invalidations: Long,
+        val bytesRead: Long
+    ) {
+        val hitRate: Double
+            get() = if (hits + misses == 0L) 0.0 else hits / (hits + misses).toDouble()
+    }
+
+    private val worktrees = object : LinkedHashMap<String, WorktreeCache>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, WorktreeCache>?): Boolean =
+            size > properties.maxWorktrees
+    }
+
+    fun forWorktree(root: String?): WorktreeCache {
+        val key = root?.takeIf { it.isNotBlank() }?.let { Path.of(it).toAbsolutePath().normalize().toString() } ?: ""
+        return synchronized(worktrees) { worktrees.getOrPut(key) { WorktreeCache(key) } }
+    }
+
+    fun stats(): List<Stats> = synchronized(worktrees) { worktrees.values.toList() }.map { it.stats() }
+
+    inner class WorktreeCache internal constructor(val root: String) {
+
+        private inner class Entry(
+            val size: Long,
+            val modified: FileTime,
+            val lineStarts: LongArray
+        ) {
+            var content: String? = null
+        }
+
+        private val entries = object : LinkedHashMap<Path, Entry>(16, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Path, Entry>): Boolean {
+                if (size <= properties.maxFilesPerWorktree) {
+                    return false
+                }
+                eldest.value.content?.let { contentBytes -= it.length.toLong() }
+                return true
+            }
+        }
+
+        private var contentBytes = 0L
+        private val hits = AtomicLong()
+        private val misses = AtomicLong()
+        private val invalidations = AtomicLong()
+        private val bytesRead = AtomicLong()
+
+        /**
+         * The whole file when [line] and [limit] are both null, otherwise [limit] lines starting
+         * at 1-based [line].
+         */
+        fun read(path: Path, line: Int?, limit: Int?): String {
+            if (!properties.isEnabled) {
+                return readUncached(path, line, limit)
+            }
+            val key = path.toAbsolutePath().normalize()
+            val entry = entryFor(key)
+            if (line == null && limit == null) {
+                return wholeFile(key, entry)
+            }
+
+            val lineCount = entry.lineStarts.size
+            val startIndex = ((line ?: 1).coerceAtLeast(1) - 1)
+            if (startIndex >= lineCount) {
+                return ""
+            }
+            val endExclusive = limit?.let { (startIndex.toLong() + it).coerceAtMost(lineCount.toLong()).toInt() } ?: lineCount
+            if (endExclusive <= startIndex) {
+                return ""
+            }
+            val from = entry.lineStarts[startIndex]
+            val to = if (endExclusive < lineCount) entry.lineStarts[endExclusive] else entry.size
+            return normalizeLines(String(readRange(key, from, to), Charsets.UTF_8))
+        }
+
+        fun invalidate(path: Path) {
+            val key = path.toAbsolutePath().normalize()
+            synchronized(this) {
+                entries.remove(key)?.content?.let { contentBytes -= it.length.toLong() }
+            }
+            invalidations.incrementAndGet()
+        }
+
+        fun stats(): Stats = Stats(
+            worktree = root,
+            files = synchronized(this) { entries.size },
+            cachedContentBytes = synchronized(this) { contentBytes },
+            hits = hits.get(),
+            misses = misses.get(),
+            invalidations = invalidations.get(),
+            bytesRead = bytesRead.get()
+        )
+
+        private fun entryFor(key: Path): Entry {
+            val attributes = Files.readAttributes(key, BasicFileAttributes::class.java)
+            val cached = synchronized(this) { entries[key] }
+            if (cached != null && cached.size == attributes.size() && cached.modified == attributes.lastModifiedTime()) {
+                hits.incrementAndGet()
+                return cached
+            }
+            misses.incrementAndGet()
+            val built = Entry(attributes.size(), attributes.lastModifiedTime(), indexLines(key))
+            val after = Files.readAttributes(key, BasicFileAttributes::class.java)
+            if (after.size() == built.size && after.lastModifiedTime() == built.modified) {
+                synchronized(this) {
+                    entries.put(key, built)?.content?.let { contentBytes -= it.length.toLong() }
+                }
+            }
+            return built
+        }
+
+        private fun wholeFile(key: Path, entry: Entry): String {
+            entry.content?.let { return it }
+            val text = String(readRange(key, 0, entry.size), Charsets.UTF_8)
+            if (entry.size <= properties.maxCachedFileBytes) {
+                synchronized(this) {
+                    if (entries[key] === entry && entry.content == null) {
+                        entry.content = text
+                        contentBytes += text.length.toLong()
+                        trimContent()
+                    }
+                }
+            }
+            return text
+        }
+
+        /**
+         * Drops cached text, least recently read first, until under the per-worktree budget.
+         * Must hold this monitor.
+         */
+        private fun trimContent() {
+            val iterator = entries.values.iterator()
+            while (contentBytes > properties.maxContentBytesPerWorktree && iterator.hasNext()) {
+                val entry = iterator.next()
+                entry.content?.let {
+                    contentBytes -= it.length.toLong()
+                    entry.content = null
+                }
+            }
+        }
+
+        private fun indexLines(path: Path): LongArray {
+            var starts = LongArray(1024)
+            var count = 0
+            FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                val buffer = ByteBuffer.allocate(64 * 1024)
+                var position = 0L
+                var lineStart = true
+                var previousCr = false
+                while (true) {
+                    buffer.clear()
+                    val read = channel.read(buffer)
+                    if (read < 0) {
+                        break
+                    }
+                    bytesRead.addAndGet(read.toLong())
+                    for (i in 0 until read) {
+                        val b = buffer.get(i)
+                        if (previousCr && b == '\n'.code.toByte()) {
+                            previousCr = false
+                            position++
+                            continue
+                        }
+                        previousCr = false
+                        if (lineStart) {
+                            if (count == starts.size) {
+                                starts = starts.copyOf(count * 2)
+                            }
+                            starts[count++] = position
+                            lineStart = false
+                        }
+                        if (b == '\n'.code.toByte()) {
+                            lineStart = true
+                        } else if (b == '\r'.code.toByte()) {
+                            lineStart = true
+                            previousCr = true
+                        }
+                        position++
+                    }
+                }
+            }
+            return starts.copyOf(count)
+        }
+
+        private fun readRange(path: Path, from: Long, to: Long): ByteArray {
+            val length = (to - from).toInt()
+            val buffer = ByteBuffer.allocate(length)
+            FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                var position = from
+                while (buffer.hasRemaining()) {
+                    val read = channel.read(buffer, position)
+                    if (read < 0) {
+                        break
+                    }
+                    position += read
+                }
+            }
+            bytesRead.addAndGet(buffer.position().toLong())
+            return if (buffer.hasRemaining()) buffer.array().copyOf(buffer.position()) else buffer.array()
+        }
+
+        private fun readUncached(path: Path, line: Int?, limit: Int?): String {
+            val text = Files.readString(path)
+            if (line == null && limit == null) {
+                return text
+            }
+            val lines = normalizeLines(text).let { if (it.isEmpty()) emptyList() else it.split("\n") }
+            val startIndex = (line ?: 1).coerceAtLeast(1) - 1
+            if (startIndex >= lines.size) {
+                return ""
+            }
+            val endExclusive = limit?.let { (startIndex.toLong() + it).coerceAtMost(lines.size.toLong()).toInt() } ?: lines.size
+            return lines.subList(startIndex, endExclusive.coerceAtLeast(startIndex)).joinToString("\n")
+        }
+    }
+
+    companion object {
+
+        /**
+         * `\r\n` and `\r` become `\n`, and one trailing terminator is dropped.
+         */
+        internal fun normalizeLines(text: String): String {
+            val normalized = text.replace("\r\n", "\n").replace('\r', '\n')
+            return if (normalized.endsWith("\n")) normalized.substring(0, normalized.length - 1) else normalized
+        }
+    }
+}
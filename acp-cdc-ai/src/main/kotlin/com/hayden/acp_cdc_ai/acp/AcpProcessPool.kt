@@ -0,0 +1,343 @@
+package com.hayden.acp_cdc_ai.acp
+
+import com.agentclientprotocol.client.Client
+import com.agentclientprotocol.protocol.Protocol
+import com.agentclientprotocol.transport.Transport
+import com.hayden.acp_cdc_ai.acp.config.AcpProcessPoolProperties
+import jakarta.annotation.PreDestroy
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Component
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Started, handshaken ACP agent processes ready to be handed to a new session.
+ *
+ * Everything up to and including `initialize` (process spawn, protocol start, authentication)
+ * does not depend on the session, so it is done ahead of time. Processes are keyed by
+ * [AcpProcessSpec]; when a session takes one, a replacement is started in the background to
+ * keep [AcpProcessPoolProperties.warmSizeFor] ready. `newSession` stays on demand because the
+ * session parameters (MCP servers, tool headers) are per call.
+ *
+ * Specs include the working directory, so there is a pool per worktree. A background reaper
+ * destroys warm processes older than [AcpProcessPoolProperties.maxIdle] and drops a spec's
+ * pool once it holds nothing, so worktrees that are no longer used do not keep processes alive.
+ *
+ * Startup and acquire latencies are recorded whether or not pooling is enabled, so the two
+ * modes can be compared.
+ */
+@Component
+class AcpProcessPool(private val properties: AcpProcessPoolProperties) {
+
+    private val log: Logger = LoggerFactory.getLogger(AcpProcessPool::class.java)
+
+    /**
+     * Everything that determines how an agent process is launched.
+     */
+    data class AcpProcessSpec(
+        val provider: String,
+        val command: List<String>,
+        val env: Map<String, String>,
+        val workingDirectory: String,
+        val authMethod: String?
+    )
+
+    class AcpProcess(
+        val spec: AcpProcessSpec,
+        val process: Process,
+        val scope: CoroutineScope,
+        val transport: Transport,
+        val protocol: Protocol,
+        val client: Client,
+    ) {
+        val startedAt: Long = System.nanoTime()
+
+        fun isAlive(): Boolean = process.isAlive
+
+        fun destroy() {
+            try {
+                transport.close()
+            } finally {
+                scope.cancel()
+                process.destroy()
+            }
+        }
+    }
+
+    data class PoolStats(
+        val provider: String,
+        val workingDirectory: String,
+        val warm: Int,
+        val starting: Int,
+        val warmHits: Long,
+        val coldStarts: Long
+    )
+
+    data class Stats(
+        val pools: List<PoolStats>,
+        val startup: LatencyHistogram.Snapshot,
+        val warmAcquire: LatencyHistogram.Snapshot,
+        val coldAcquire: LatencyHistogram.Snapshot
+    )
+
+    /**
+     * Fixed-bucket latency histogram. Percentiles are reported as the upper bound of the bucket
+     * they fall in, or the max for the overflow bucket.
+     */
+    class LatencyHistogram {
+
+        data class Snapshot(
+            val count: Long,
+            val meanMillis: Double,
+            val maxMillis: Double,
+            val p50Millis: Double,
+            val p95Millis: Double,
+            val buckets: Map<String, Long>
+        )
+
+        private val counts = AtomicLongArray(BOUNDS_MILLIS.size + 1)
+        private val count = AtomicLong()
+        private val sumNanos = AtomicLong()
+        private val maxNanos = AtomicLong()
+
+        fun record(nanos: Long) {
+            val millis = nanos / 1_000_000
+            var bucket = BOUNDS_MILLIS.indexOfFirst { millis <= it }
+            if (bucket < 0) {
+                bucket = BOUNDS_MILLIS.size
+            }
+            counts.incrementAndGet(bucket)
+            count.incrementAndGet()
+            sumNanos.addAndGet(nanos)
+            maxNanos.accumulateAndGet(nanos) { a, b -> maxOf(a, b) }
+        }
+
+        fun snapshot(): Snapshot {
+            val bucketCounts = LongArray(counts.length()) { counts.get(it) }
+            val total = bucketCounts.sum()
+            val max = maxNanos.get() / 1_000_000.0
+            val buckets = LinkedHashMap<String, Long>()
+            bucketCounts.forEachIndexed { i, c ->
+                buckets[if (i < BOUNDS_MILLIS.size) "le_${BOUNDS_MILLIS[i]}ms" else "gt_${BOUNDS_MILLIS.last()}ms"] = c
+            }
+            return Snapshot(
+                count = total,
+                meanMillis = if (count.get() == 0L) 0.0 else sumNanos.get() / count.get().toDouble() / 1_000_000.0,
+                maxMillis = max,
+                p50Millis = percentile(bucketCounts, total, 0.50, max),
+                p95Millis = percentile(bucketCounts, total, 0.95, max),
+                buckets = buckets
+            )
+        }
+
+        private fun percentile(bucketCounts: LongArray, total: Long, q: Double, max: Double): Double {
+            if (total == 0L) {
+                return 0.0
+            }
+            val rank = Math.ceil(q * total).toLong()
+            var seen = 0L
+            bucketCounts.forEachIndexed { i, c ->
+                seen += c
+                if (seen >= rank) {
+                    return if (i < BOUNDS_MILLIS.size) minOf(BOUNDS_MILLIS[i].toDouble(), max) else max
+                }
+            }
+            return max
+        }
+
+        companion object {
+            val BOUNDS_MILLIS = longArrayOf(50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000)
+        }
+    }
+
+    private inner class SpecPool(val spec: AcpProcessSpec, val starter: suspend (AcpProcessSpec) -> AcpProcess) {
+        val warm = ConcurrentLinkedDeque<AcpProcess>()
+        val starting = AtomicInteger()
+        val warmHits = AtomicLong()
+        val coldStarts = AtomicLong()
+
+        @Volatile
+        var lastFailureAt: Long = 0L
+
+        /**
+         * Set when the reaper removes this pool from [pools]; a start that completes afterwards
+         * destroys its process instead of leaving it warm in a pool nobody can reach.
+         */
+        @Volatile
+        var retired: Boolean = false
+
+        fun takeWarm(): AcpProcess? {
+            while (true) {
+                val candidate = warm.pollFirst() ?: return null
+                if (!isStale(candidate)) {
+                    return candidate
+                }
+                log.info("Discarding stale warm ACP process for {}", spec.provider)
+                destroyQuietly(candidate)
+            }
+        }
+
+        fun reapStale() {
+            for (candidate in warm) {
+                if (isStale(candidate) && warm.remove(candidate)) {
+                    log.info("Reaping idle warm ACP process for {}", spec.provider)
+                    destroyQuietly(candidate)
+                }
+            }
+        }
+
+        private fun isStale(process: AcpProcess): Boolean =
+            !process.isAlive() || System.nanoTime() - process.startedAt > properties.maxIdle.toNanos()
+    }
+
+    private val pools = ConcurrentHashMap<AcpProcessSpec, SpecPool>()
+
+    private val refillScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private val startupLatency = LatencyHistogram()
+    private val warmAcquireLatency = LatencyHistogram()
+    private val coldAcquireLatency = LatencyHistogram()
+
+    init {
+        if (properties.isEnabled) {
+            val periodMillis = maxOf(1L, properties.maxIdle.toMillis() / 2)
+            refillScope.launch {
+                while (isActive) {
+                    delay(periodMillis)
+                    reap()
+                }
+            }
+        }
+    }
+
+    /**
+     * A started and initialized process for [spec]: a warm one if available, otherwise one
+     * started now with [starter]. The caller owns the returned process.
+     */
+    suspend fun acquire(spec: AcpProcessSpec, starter: suspend (AcpProcessSpec) -> AcpProcess): AcpProcess {
+        val start = System.nanoTime()
+        if (!properties.isEnabled) {
+            return timedStart(spec, starter).also { coldAcquireLatency.record(System.nanoTime() - start) }
+        }
+
+        val pool = pools.computeIfAbsent(spec) { SpecPool(spec, starter) }
+        val warm = pool.takeWarm()
+        val acquired = if (warm != null) {
+            pool.warmHits.incrementAndGet()
+            warm.also { warmAcquireLatency.record(System.nanoTime() - start) }
+        } else {
+            pool.coldStarts.incrementAndGet()
+            timedStart(spec, starter).also { coldAcquireLatency.record(System.nanoTime() - start) }
+        }
+        log.info(
+            "Acquired {} ACP process for {} in {} ms",
+            if (warm != null) "warm" else "cold",
+            spec.provider,
+            (System.nanoTime() - start) / 1_000_000
+        )
+        refill(pool)
+        return acquired
+    }
+
+    fun stats(): Stats = Stats(
+        pools = pools.values.map {
+            PoolStats(
+                provider = it.spec.provider,
+                workingDirectory = it.spec.workingDirectory,
+                warm = it.warm.size,
+                starting = it.starting.get(),
+                warmHits = it.warmHits.get(),
+                coldStarts = it.coldStarts.get()
+            )
+        },
+        startup = startupLatency.snapshot(),
+        warmAcquire = warmAcquireLatency.snapshot(),
+        coldAcquire = coldAcquireLatency.snapshot()
+    )
+
+    @PreDestroy
+    fun shutdown() {
+        refillScope.cancel()
+        pools.values.forEach { pool ->
+            while (true) {
+                destroyQuietly(pool.warm.pollFirst() ?: break)
+            }
+        }
+        pools.clear()
+    }
+
+    /**
+     * Destroys warm processes past [AcpProcessPoolProperties.maxIdle] and removes pools left
+     * with no warm or starting process.
+     */
+    internal fun reap() {
+        pools.values.forEach { pool ->
+            pool.reapStale()
+            pools.computeIfPresent(pool.spec) { _, current ->
+                if (current === pool && pool.warm.isEmpty() && pool.starting.get() == 0) {
+                    pool.retired = true
+                    null
+                } else {
+                    current
+                }
+            }
+        }
+    }
+
+    private fun refill(pool: SpecPool) {
+        if (pool.retired) {
+            return
+        }
+        val target = properties.warmSizeFor(pool.spec.provider)
+        if (pool.lastFailureAt != 0L && System.nanoTime() - pool.lastFailureAt < properties.refillBackoff.toNanos()) {
+            return
+        }
+        while (true) {
+            val starting = pool.starting.get()
+            if (pool.warm.size + starting >= target) {
+                return
+            }
+            if (!pool.starting.compareAndSet(starting, starting + 1)) {
+                continue
+            }
+            refillScope.launch {
+                try {
+                    val started = timedStart(pool.spec, pool.starter)
+                    pool.warm.addLast(started)
+                    if (pool.retired && pool.warm.remove(started)) {
+                        destroyQuietly(started)
+                    }
+                } catch (e: Exception) {
+                    pool.lastFailureAt = System.nanoTime()
+                    log.warn("Failed to pre-start ACP process for {}: {}", pool.spec.provider, e.message)
+                } finally {
+                    pool.starting.decrementAndGet()
+                }
+            }
+        }
+    }
+
+    private suspend fun timedStart(spec: AcpProcessSpec, starter: suspend (AcpProcessSpec) -> AcpProcess): AcpProcess {
+        val start = System.nanoTime()
+        return starter(spec).also { startupLatency.record(System.nanoTime() - start) }
+    }
+
+    private fun destroyQuietly(process: AcpProcess) {
+        try {
+            process.destroy()
+        } catch (e: Exception) {
+            log.debug("Error destroying ACP process for {}: {}", process.spec.provider, e.message)
+        }
+    }
+}
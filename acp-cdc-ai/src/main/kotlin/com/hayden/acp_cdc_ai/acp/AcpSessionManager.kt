@@ -60,7 +60,8 @@ class AcpSessionManager {
         val chatKey: ArtifactKey,
         val chatOptions: String,
         val sandbox: SandboxTranslation,
-        val resolvedCall: AcpResolvedCall
+        val resolvedCall: AcpResolvedCall,
+        val fileCache: AcpFileCache.WorktreeCache? = null
     ) {
 
         @OptIn(UnstableApi::class)
@@ -78,7 +79,7 @@ class AcpSessionManager {
                 }
             }
             session = client.newSession(sessionCreationParameters)
-            { _, _ -> AcpSessionOperations(permissionGate, chatKey.value, streamWindows, freshAddMessage) }
+            { _, _ -> AcpSessionOperations(permissionGate, chatKey.value, streamWindows, freshAddMessage, fileCache) }
             val modelToSet = sandbox.model ?: resolvedCall.effectiveModel()
             modelToSet?.takeIf { it.isNotBlank() }?.let {
                 log.info("Setting ACP session model to {}", it)
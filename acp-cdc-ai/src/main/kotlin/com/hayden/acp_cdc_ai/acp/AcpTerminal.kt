@@ -0,0 +1,150 @@
+package com.hayden.acp_cdc_ai.acp
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * A command started by the ACP `terminal/create` callback.
+ *
+ * Output is drained continuously on a virtual thread into a fixed-size [OutputBuffer], so a
+ * chatty command never blocks on a full pipe and `terminal/output` only copies what is
+ * buffered. stderr is merged into stdout at the process level, which keeps the two in the
+ * order the command wrote them.
+ */
+class AcpTerminal private constructor(
+    val id: String,
+    val process: Process,
+    private val output: OutputBuffer
+) : AutoCloseable {
+
+    data class Output(val text: String, val truncated: Boolean)
+
+    /**
+     * Keeps the last `capacity` bytes written. Reading skips any partial UTF-8 sequence left at
+     * the start by truncation, as the ACP spec asks for truncation at a character boundary.
+     */
+    class OutputBuffer(private val capacity: Int) {
+
+        private val bytes = ByteArray(capacity)
+        private var head = 0
+        private var size = 0
+        private var total = 0L
+
+        @Synchronized
+        fun write(src: ByteArray, offset: Int, length: Int) {
+            total += length
+            if (capacity == 0 || length == 0) {
+                return
+            }
+            if (length >= capacity) {
+                System.arraycopy(src, offset + length - capacity, bytes, 0, capacity)
+                head = 0
+                size = capacity
+                return
+            }
+            val first = minOf(length, capacity - head)
+            System.arraycopy(src, offset, bytes, head, first)
+            System.arraycopy(src, offset + first, bytes, 0, length - first)
+            head = (head + length) % capacity
+            size = minOf(size + length, capacity)
+        }
+
+        @Synchronized
+        fun read(): Output {
+            val copy = ByteArray(size)
+            if (size > 0) {
+                val start = (head - size + capacity) % capacity
+                val first = minOf(size, capacity - start)
+                System.arraycopy(bytes, start, copy, 0, first)
+                System.arraycopy(bytes, 0, copy, first, size - first)
+            }
+            val truncated = total > size
+            var skip = 0
+            if (truncated) {
+                while (skip < copy.size && (copy[skip].toInt() and 0xC0) == 0x80) {
+                    skip++
+                }
+            }
+            return Output(String(copy, skip, copy.size - skip, Charsets.UTF_8), truncated)
+        }
+
+        @Synchronized
+        fun totalBytes(): Long = total
+    }
+
+    private val drainer: Thread = Thread.ofVirtual().name("acp-terminal-$id").start { drain() }
+
+    fun output(): Output = output.read()
+
+    /**
+     * Waits for the process to exit and for its remaining output to be buffered.
+     */
+    fun waitForExit(): Int {
+        val exitCode = process.waitFor()
+        drainer.join(DRAIN_JOIN_MILLIS)
+        return exitCode
+    }
+
+    fun kill() {
+        process.destroy()
+    }
+
+    /**
+     * Kills the command if it is still running; the drainer stops when the pipe closes.
+     */
+    override fun close() {
+        if (process.isAlive) {
+            process.destroy()
+            if (!process.waitFor(DESTROY_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly()
+            }
+        }
+    }
+
+    private fun drain() {
+        val chunk = ByteArray(8 * 1024)
+        try {
+            process.inputStream.use { stream ->
+                while (true) {
+                    val read = stream.read(chunk)
+                    if (read < 0) {
+                        break
+                    }
+                    output.write(chunk, 0, read)
+                }
+            }
+        } catch (e: IOException) {
+            log.debug("Terminal {} output closed: {}", id, e.message)
+        }
+    }
+
+    companion object {
+
+        private val log: Logger = LoggerFactory.getLogger(AcpTerminal::class.java)
+
+        /**
+         * Used when the agent does not pass `outputByteLimit`.
+         */
+        const val DEFAULT_OUTPUT_BYTE_LIMIT = 1024 * 1024
+
+        /**
+         * Upper bound on a requested `outputByteLimit`, so memory per terminal stays fixed.
+         */
+        const val MAX_OUTPUT_BYTE_LIMIT = 16 * 1024 * 1024
+
+        private const val DRAIN_JOIN_MILLIS = 5_000L
+
+        private const val DESTROY_GRACE_MILLIS = 2_000L
+
+        fun start(id: String, processBuilder: ProcessBuilder, outputByteLimit: ULong?): AcpTerminal {
+            val capacity = outputByteLimit
+                ?.coerceAtMost(MAX_OUTPUT_BYTE_LIMIT.toULong())
+                ?.toInt()
+                ?: DEFAULT_OUTPUT_BYTE_LIMIT
+            processBuilder.redirectErrorStream(true)
+            return AcpTerminal(id, processBuilder.start(), OutputBuffer(capacity))
+        }
+    }
+}
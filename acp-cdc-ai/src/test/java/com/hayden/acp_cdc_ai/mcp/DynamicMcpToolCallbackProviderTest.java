@@ -2,6 +2,7 @@ package com.hayden.acp_cdc_ai.mcp;
 
 import com.hayden.utilitymodule.concurrent.striped.StripedLockAspect;
 import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
@@ -13,6 +14,10 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest(classes = {StripedLockAspect.class, DynamicMcpToolCallbackProvider.class, RequiredProtocolProperties.class})
 @EnableAspectJAutoProxy
 @ExtendWith(SpringExtension.class)
@@ -37,4 +42,20 @@ class DynamicMcpToolCallbackProviderTest {
         });
     }
 
+    @Test
+    public void poolKeysFollowTheCustomizedServer() {
+        var params = ServerParameters.builder("docker").args("run", "--name", "server").build();
+        var base = new DynamicMcpToolCallbackProvider.McpServerMetadata.StdioServerMetadata("server", params);
+        DynamicMcpToolCallbackProvider.ServerCustomizer.StdioServerCustomizer withEnv = m ->
+                new DynamicMcpToolCallbackProvider.McpServerMetadata.StdioServerMetadata(m.name(),
+                        ServerParameters.builder("docker").args("run", "--name", "server")
+                                .env(Map.of("WORKTREE", "/tmp/a")).build());
+
+        assertThat(DynamicMcpToolCallbackProvider.PoolKey.of("server", base, false))
+                .isEqualTo(DynamicMcpToolCallbackProvider.PoolKey.of("server",
+                        new DynamicMcpToolCallbackProvider.McpServerMetadata.StdioServerMetadata("server", params), false));
+        assertThat(DynamicMcpToolCallbackProvider.PoolKey.of("server", withEnv.apply(base), true))
+                .isNotEqualTo(DynamicMcpToolCallbackProvider.PoolKey.of("server", base, false));
+    }
+
 }
@@ -0,0 +1,141 @@
+package com.hayden.acp_cdc_ai.mcp;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StdioMcpClientPoolTest {
+
+    private final List<McpSyncClient> created = new ArrayList<>();
+
+    private McpSyncClient newClient() {
+        McpSyncClient client = mock(McpSyncClient.class);
+        when(client.isInitialized()).thenReturn(true);
+        created.add(client);
+        return client;
+    }
+
+    @Test
+    void concurrentLeasesGetDistinctClientsUpToMaxSize() throws Exception {
+        StdioMcpClientPool pool = new StdioMcpClientPool("server", this::newClient, 2, 1,
+                Duration.ofMinutes(5), Duration.ofMinutes(5));
+        pool.prewarm();
+        assertThat(created).hasSize(1);
+
+        StdioMcpClientPool.Lease first = pool.lease(Duration.ofSeconds(1));
+        StdioMcpClientPool.Lease second = pool.lease(Duration.ofSeconds(1));
+        assertThat(first.client()).isNotSameAs(second.client());
+        assertThatThrownBy(() -> pool.lease(Duration.ofMillis(10))).isInstanceOf(TimeoutException.class);
+
+        first.close();
+        StdioMcpClientPool.Lease third = pool.lease(Duration.ofSeconds(1));
+        assertThat(third.client()).isSameAs(first.client());
+        assertThat(created).hasSize(2);
+
+        StdioMcpClientPool.Stats stats = pool.stats();
+        assertThat(stats.open()).isEqualTo(2);
+        assertThat(stats.leased()).isEqualTo(2);
+        assertThat(stats.leases()).isEqualTo(3);
+        second.close();
+        third.close();
+        pool.close();
+    }
+
+    @Test
+    void replacesClientsThatFailHealthCheck() throws Exception {
+        StdioMcpClientPool pool = new StdioMcpClientPool("server", this::newClient, 1, 1,
+                Duration.ofMinutes(5), Duration.ZERO);
+        pool.prewarm();
+        McpSyncClient stale = created.getFirst();
+        when(stale.ping()).thenThrow(new IllegalStateException("process exited"));
+
+        try (StdioMcpClientPool.Lease lease = pool.lease(Duration.ofSeconds(1))) {
+            assertThat(lease.client()).isNotSameAs(stale);
+        }
+
+        verify(stale).closeGracefully();
+        assertThat(pool.stats().healthCheckFailures()).isEqualTo(1);
+        assertThat(pool.stats().open()).isEqualTo(1);
+        pool.close();
+    }
+
+    @Test
+    void invalidatedLeaseClosesClientInsteadOfReturningIt() throws Exception {
+        StdioMcpClientPool pool = new StdioMcpClientPool("server", this::newClient, 1, 0,
+                Duration.ofMinutes(5), Duration.ofMinutes(5));
+
+        StdioMcpClientPool.Lease lease = pool.lease(Duration.ofSeconds(1));
+        lease.invalidate();
+        lease.close();
+        lease.close();
+
+        verify(created.getFirst()).closeGracefully();
+        assertThat(pool.stats().open()).isZero();
+        try (StdioMcpClientPool.Lease next = pool.lease(Duration.ofSeconds(1))) {
+            assertThat(next.client()).isNotSameAs(created.getFirst());
+        }
+        pool.close();
+    }
+
+    @Test
+    void evictsIdleClientsDownToMinIdle() throws Exception {
+        StdioMcpClientPool pool = new StdioMcpClientPool("server", this::newClient, 3, 1,
+                Duration.ZERO, Duration.ofMinutes(5));
+        StdioMcpClientPool.Lease a = pool.lease(Duration.ofSeconds(1));
+        StdioMcpClientPool.Lease b = pool.lease(Duration.ofSeconds(1));
+        StdioMcpClientPool.Lease c = pool.lease(Duration.ofSeconds(1));
+        a.close();
+        b.close();
+        c.close();
+        Thread.sleep(5);
+        pool.evictIdle();
+
+        StdioMcpClientPool.Stats stats = pool.stats();
+        assertThat(stats.open()).isEqualTo(1);
+        assertThat(stats.idle()).isEqualTo(1);
+        assertThat(stats.evicted()).isEqualTo(2);
+        pool.close();
+    }
+
+    @Test
+    void retiresOnlyWhenNothingIsLeasedForTheIdleTimeout() throws Exception {
+        StdioMcpClientPool pool = new StdioMcpClientPool("server", this::newClient, 2, 1,
+                Duration.ZERO, Duration.ofMinutes(5));
+        StdioMcpClientPool.Lease lease = pool.lease(Duration.ofSeconds(1));
+        Thread.sleep(5);
+        assertThat(pool.retireIfUnused()).isFalse();
+
+        lease.close();
+        Thread.sleep(5);
+        assertThat(pool.retireIfUnused()).isTrue();
+        assertThat(pool.isClosed()).isTrue();
+        assertThatThrownBy(() -> pool.lease(Duration.ofSeconds(1))).isInstanceOf(IllegalStateException.class);
+        pool.close();
+    }
+
+    @Test
+    void prewarmReportsAProcessThatFailsToStart() {
+        StdioMcpClientPool failing = new StdioMcpClientPool("server", () -> {
+            throw new IllegalStateException("command not found");
+        }, 2, 1, Duration.ofMinutes(5), Duration.ofMinutes(5));
+        StdioMcpClientPool healthy = new StdioMcpClientPool("server", this::newClient, 2, 1,
+                Duration.ofMinutes(5), Duration.ofMinutes(5));
+
+        assertThat(failing.prewarm()).isFalse();
+        assertThat(failing.stats().open()).isZero();
+        assertThat(healthy.prewarm()).isTrue();
+        assertThat(healthy.stats().open()).isEqualTo(1);
+        failing.close();
+        healthy.close();
+    }
+}
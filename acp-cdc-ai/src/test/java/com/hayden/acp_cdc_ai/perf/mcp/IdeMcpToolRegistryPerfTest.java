@@ -0,0 +1,108 @@
+package com.hayden.acp_cdc_ai.perf.mcp;
+
+import io.modelcontextprotocol.server.IdeMcpAsyncServer;
+import io.modelcontextprotocol.server.IdeMcpToolRegistry;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code tools/list} and {@code tools/call} lookup latency, scanning the spec list and
+ * re-parsing headers per tool versus {@link IdeMcpToolRegistry}. Only runs with
+ * {@code -Pprofile=perf}.
+ */
+@Slf4j
+class IdeMcpToolRegistryPerfTest {
+
+    private static final int ITERATIONS = 2_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {50, 500, 5_000})
+    void listAndCallLatency(int toolCount) {
+        List<McpServerFeatures.AsyncToolSpecification> specs = new ArrayList<>(toolCount);
+        for (int i = 0; i < toolCount; i++) {
+            specs.add(McpServerFeatures.AsyncToolSpecification.builder()
+                    .tool(McpSchema.Tool.builder().name("tool_" + i).description("tool " + i).build())
+                    .callHandler((exchange, request) -> Mono.just(McpSchema.CallToolResult.builder().build()))
+                    .build());
+        }
+        IdeMcpToolRegistry registry = new IdeMcpToolRegistry();
+        registry.addAll(specs);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(IdeMcpAsyncServer.TOOL_BLOCKLIST_HEADER, "tool_1,tool_2,tool_3");
+        String target = "tool_" + (toolCount - 1);
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += specs.stream().filter(spec -> scanVisible(headers, spec)).count();
+        }
+        long scanList = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += registry.visibleTools(headers).size();
+        }
+        long indexedList = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Optional<McpServerFeatures.AsyncToolSpecification> found = specs.stream()
+                    .filter(spec -> target.equals(spec.tool().name()))
+                    .filter(spec -> scanVisible(headers, spec))
+                    .findAny();
+            sink += found.isPresent() ? 1 : 0;
+        }
+        long scanCall = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += registry.findVisible(target, headers).isPresent() ? 1 : 0;
+        }
+        long indexedCall = (System.nanoTime() - start) / ITERATIONS;
+
+        log.info("{} tools: tools/list scan={} ns indexed={} ns; tools/call scan={} ns indexed={} ns (sink={})",
+                toolCount, scanList, indexedList, scanCall, indexedCall, sink);
+
+        assertThat(registry.visibleTools(headers)).hasSize(toolCount - 3);
+        assertThat(indexedCall).isLessThan(Math.max(scanCall, 1));
+    }
+
+    /**
+     * The per-tool visibility check the server used before the registry.
+     */
+    private static boolean scanVisible(HttpHeaders headers, McpServerFeatures.AsyncToolSpecification spec) {
+        String name = spec.tool().name().toLowerCase();
+        Set<String> allow = parse(headers.getFirst(IdeMcpAsyncServer.TOOL_ALLOWLIST_HEADER));
+        if (!allow.isEmpty() && !allow.contains(name)) {
+            return false;
+        }
+        Set<String> block = parse(headers.getFirst(IdeMcpAsyncServer.TOOL_BLOCKLIST_HEADER));
+        return !block.contains(name);
+    }
+
+    private static Set<String> parse(String header) {
+        if (header == null || header.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(header.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,86 @@
+package io.modelcontextprotocol.server;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdeMcpToolRegistryTest {
+
+    @Test
+    void filtersByAllowAndBlockHeadersCaseInsensitively() {
+        IdeMcpToolRegistry registry = new IdeMcpToolRegistry();
+        registry.addAll(List.of(spec("read"), spec("write"), spec("exec")));
+
+        assertThat(names(registry.visibleTools(null))).containsExactly("read", "write", "exec");
+        assertThat(names(registry.visibleTools(headers(" READ , write", null)))).containsExactly("read", "write");
+        assertThat(names(registry.visibleTools(headers(null, "Exec")))).containsExactly("read", "write");
+        assertThat(names(registry.visibleTools(headers("read,exec", "exec")))).containsExactly("read");
+    }
+
+    @Test
+    void findsVisibleToolByName() {
+        IdeMcpToolRegistry registry = new IdeMcpToolRegistry();
+        registry.addAll(List.of(spec("read"), spec("write")));
+
+        assertThat(registry.findVisible("write", null)).isPresent();
+        assertThat(registry.findVisible("write", headers("read", null))).isEmpty();
+        assertThat(registry.findVisible("write", headers(null, "WRITE"))).isEmpty();
+        assertThat(registry.findVisible("missing", null)).isEmpty();
+    }
+
+    @Test
+    void addAndRemoveInvalidateCachedLists() {
+        IdeMcpToolRegistry registry = new IdeMcpToolRegistry();
+        registry.addAll(List.of(spec("read")));
+        HttpHeaders exclude = headers(null, "exec");
+
+        assertThat(names(registry.visibleTools(exclude))).containsExactly("read");
+        assertThat(registry.visibleTools(exclude)).isSameAs(registry.visibleTools(exclude));
+
+        assertThat(registry.add(spec("write"))).isTrue();
+        assertThat(registry.add(spec("write"))).isFalse();
+        assertThat(registry.cachedToolLists()).isZero();
+        assertThat(names(registry.visibleTools(exclude))).containsExactly("read", "write");
+
+        assertThat(registry.remove("read")).isTrue();
+        assertThat(registry.remove("read")).isFalse();
+        assertThat(names(registry.visibleTools(exclude))).containsExactly("write");
+        assertThat(registry.findVisible("read", null)).isEmpty();
+    }
+
+    @Test
+    void equivalentHeaderSpellingsShareOneFilter() {
+        IdeMcpToolRegistry registry = new IdeMcpToolRegistry();
+
+        assertThat(registry.filterFor(headers("a,B", null)))
+                .isEqualTo(registry.filterFor(headers(" b , a ", "")));
+        assertThat(registry.filterFor(headers("", " "))).isSameAs(IdeMcpToolRegistry.ToolFilter.NONE);
+    }
+
+    private static McpServerFeatures.AsyncToolSpecification spec(String name) {
+        return McpServerFeatures.AsyncToolSpecification.builder()
+                .tool(McpSchema.Tool.builder().name(name).description(name).build())
+                .callHandler((exchange, request) -> Mono.just(McpSchema.CallToolResult.builder().build()))
+                .build();
+    }
+
+    private static HttpHeaders headers(String allow, String block) {
+        HttpHeaders headers = new HttpHeaders();
+        if (allow != null) {
+            headers.add(IdeMcpAsyncServer.TOOL_ALLOWLIST_HEADER, allow);
+        }
+        if (block != null) {
+            headers.add(IdeMcpAsyncServer.TOOL_BLOCKLIST_HEADER, block);
+        }
+        return headers;
+    }
+
+    private static List<String> names(List<McpSchema.Tool> tools) {
+        return tools.stream().map(McpSchema.Tool::name).toList();
+    }
+}
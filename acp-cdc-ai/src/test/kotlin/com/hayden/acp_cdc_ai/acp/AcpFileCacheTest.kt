@@ -0,0 +1,106 @@
+package com.hayden.acp_cdc_ai.acp
+
+import com.hayden.acp_cdc_ai.acp.config.AcpFileCacheProperties
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import kotlin.io.path.readLines
+import kotlin.io.path.writeText
+
+class AcpFileCacheTest {
+
+    @TempDir
+    lateinit var worktree: Path
+
+    @Test
+    fun slicesMatchReadLines() {
+        val file = worktree.resolve("mixed.txt")
+        file.writeText("one\r\ntwo\nthree\rfour\n\nsix\n")
+        val cache = AcpFileCache(AcpFileCacheProperties()).forWorktree(worktree.toString())
+        val lines = file.readLines()
+
+        for (line in 1..lines.size + 1) {
+            for (limit in 0..lines.size + 1) {
+                val expected = lines.drop(line - 1).take(limit).joinToString("\n")
+                assertEquals(expected, cache.read(file, line, limit), "line=$line limit=$limit")
+            }
+        }
+        assertEquals(lines.drop(2).joinToString("\n"), cache.read(file, 3, null))
+        assertEquals(lines.take(2).joinToString("\n"), cache.read(file, null, 2))
+    }
+
+    @Test
+    fun wholeFileReadReturnsRawTextAndIsCached() {
+        val file = worktree.resolve("whole.txt")
+        file.writeText("a\r\nb\n")
+        val cache = AcpFileCache(AcpFileCacheProperties()).forWorktree(worktree.toString())
+
+        assertEquals("a\r\nb\n", cache.read(file, null, null))
+        assertEquals("a\r\nb\n", cache.read(file, null, null))
+        assertEquals("b", cache.read(file, 2, 1))
+
+        val stats = cache.stats()
+        assertEquals(1L, stats.misses)
+        assertEquals(2L, stats.hits)
+        assertEquals(5L, stats.cachedContentBytes)
+    }
+
+    @Test
+    fun invalidateDropsIndexAfterWrite() {
+        val file = worktree.resolve("written.txt")
+        file.writeText("first\nsecond\n")
+        val cache = AcpFileCache(AcpFileCacheProperties()).forWorktree(worktree.toString())
+        assertEquals("second", cache.read(file, 2, 1))
+
+        val modified = Files.getLastModifiedTime(file)
+        file.writeText("FIRST\nSECOND\n")
+        Files.setLastModifiedTime(file, modified)
+        cache.invalidate(file)
+
+        assertEquals("SECOND", cache.read(file, 2, 1))
+        assertEquals(1L, cache.stats().invalidations)
+        assertEquals(2L, cache.stats().misses)
+    }
+
+    @Test
+    fun externalEditIsDetectedByMtime() {
+        val file = worktree.resolve("edited.txt")
+        file.writeText("a\nb\n")
+        val cache = AcpFileCache(AcpFileCacheProperties()).forWorktree(worktree.toString())
+        assertEquals("a\nb\n", cache.read(file, null, null))
+
+        file.writeText("a\nb\nc\n")
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5_000))
+
+        assertEquals("c", cache.read(file, 3, 1))
+        assertEquals("a\nb\nc\n", cache.read(file, null, null))
+        assertEquals(2L, cache.stats().misses)
+    }
+
+    @Test
+    fun disabledCacheReadsFromDisk() {
+        val file = worktree.resolve("plain.txt")
+        file.writeText("x\ny\nz\n")
+        val properties = AcpFileCacheProperties()
+        properties.isEnabled = false
+        val cache = AcpFileCache(properties).forWorktree(worktree.toString())
+
+        assertEquals("y\nz", cache.read(file, 2, 5))
+        assertEquals(0L, cache.stats().hits + cache.stats().misses)
+    }
+
+    @Test
+    fun worktreesAreCachedSeparately() {
+        val fileCache = AcpFileCache(AcpFileCacheProperties())
+
+        val first = fileCache.forWorktree(worktree.toString())
+        fileCache.forWorktree(null)
+
+        assertSame(first, fileCache.forWorktree(worktree.resolve(".").toString()))
+        assertEquals(2, fileCache.stats().size)
+    }
+}
@@ -0,0 +1,143 @@
+package com.hayden.acp_cdc_ai.acp
+
+import com.agentclientprotocol.client.Client
+import com.agentclientprotocol.protocol.Protocol
+import com.agentclientprotocol.transport.Transport
+import com.hayden.acp_cdc_ai.acp.config.AcpProcessPoolProperties
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when`
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+
+class AcpProcessPoolTest {
+
+    private val spec = AcpProcessPool.AcpProcessSpec("codex", listOf("codex-acp"), emptyMap(), "/tmp", null)
+
+    private val started = CopyOnWriteArrayList<AcpProcessPool.AcpProcess>()
+
+    private val pools = mutableListOf<AcpProcessPool>()
+
+    @AfterEach
+    fun tearDown() {
+        pools.forEach { it.shutdown() }
+    }
+
+    @Test
+    fun disabledPoolStartsEveryProcessOnDemand() = runBlocking {
+        val pool = pool(enabled = false)
+
+        val first = pool.acquire(spec, ::start)
+        val second = pool.acquire(spec, ::start)
+
+        assertNotSame(first, second)
+        assertEquals(2, started.size)
+        val stats = pool.stats()
+        assertTrue(stats.pools.isEmpty())
+        assertEquals(2L, stats.coldAcquire.count)
+        assertEquals(2L, stats.startup.count)
+    }
+
+    @Test
+    fun enabledPoolHandsOutPreStartedProcessAndRefills() = runBlocking {
+        val pool = pool(enabled = true)
+
+        val first = pool.acquire(spec, ::start)
+        awaitWarm(pool, 1)
+
+        val second = pool.acquire(spec, ::start)
+        assertSame(started[1], second)
+        assertNotSame(first, second)
+        awaitWarm(pool, 1)
+
+        val stats = pool.stats()
+        assertEquals(1L, stats.pools.single().warmHits)
+        assertEquals(1L, stats.pools.single().coldStarts)
+        assertEquals(1L, stats.warmAcquire.count)
+        assertEquals(1L, stats.coldAcquire.count)
+        assertEquals(3L, stats.startup.count)
+    }
+
+    @Test
+    fun deadWarmProcessIsReplacedByColdStart() = runBlocking {
+        val pool = pool(enabled = true)
+
+        pool.acquire(spec, ::start)
+        awaitWarm(pool, 1)
+        `when`(started[1].process.isAlive).thenReturn(false)
+
+        val acquired = pool.acquire(spec, ::start)
+
+        assertNotSame(started[1], acquired)
+        assertEquals(2L, pool.stats().pools.single().coldStarts)
+    }
+
+    @Test
+    fun reaperDestroysIdleWarmProcessesAndDropsEmptyPools() = runBlocking {
+        val pool = pool(enabled = true, maxIdle = Duration.ofMillis(100))
+
+        pool.acquire(spec, ::start)
+        awaitWarm(pool, 1)
+
+        val deadline = System.currentTimeMillis() + 5_000
+        while (pool.stats().pools.isNotEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertTrue(pool.stats().pools.isEmpty())
+        verify(started[1].process).destroy()
+    }
+
+    @Test
+    fun histogramReportsBucketUpperBoundsAsPercentiles() {
+        val histogram = AcpProcessPool.LatencyHistogram()
+        repeat(9) { histogram.record(80_000_000L) }
+        histogram.record(4_000_000_000L)
+
+        val snapshot = histogram.snapshot()
+
+        assertEquals(10L, snapshot.count)
+        assertEquals(100.0, snapshot.p50Millis)
+        assertEquals(4_000.0, snapshot.maxMillis)
+        assertEquals(4_000.0, snapshot.p95Millis)
+        assertEquals(9L, snapshot.buckets["le_100ms"])
+    }
+
+    private fun pool(enabled: Boolean, maxIdle: Duration = Duration.ofMinutes(15)): AcpProcessPool {
+        val properties = AcpProcessPoolProperties()
+        properties.isEnabled = enabled
+        properties.warmSize = 1
+        properties.maxIdle = maxIdle
+        return AcpProcessPool(properties).also { pools.add(it) }
+    }
+
+    private suspend fun start(spec: AcpProcessPool.AcpProcessSpec): AcpProcessPool.AcpProcess {
+        val process = mock(Process::class.java)
+        `when`(process.isAlive).thenReturn(true)
+        return AcpProcessPool.AcpProcess(
+            spec,
+            process,
+            CoroutineScope(SupervisorJob() + Dispatchers.IO),
+            mock(Transport::class.java),
+            mock(Protocol::class.java),
+            mock(Client::class.java)
+        ).also { started.add(it) }
+    }
+
+    private fun awaitWarm(pool: AcpProcessPool, warm: Int) {
+        val deadline = System.currentTimeMillis() + 5_000
+        while (pool.stats().pools.single().warm < warm && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertEquals(warm, pool.stats().pools.single().warm)
+    }
+}
@@ -0,0 +1,93 @@
+package com.hayden.acp_cdc_ai.acp
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class AcpTerminalTest {
+
+    @Test
+    fun bufferKeepsEverythingUnderCapacity() {
+        val buffer = AcpTerminal.OutputBuffer(16)
+        write(buffer, "hello ")
+        write(buffer, "world")
+
+        assertEquals(AcpTerminal.Output("hello world", false), buffer.read())
+    }
+
+    @Test
+    fun bufferKeepsTailAcrossWrapAround() {
+        val buffer = AcpTerminal.OutputBuffer(8)
+        write(buffer, "abcdef")
+        write(buffer, "ghij")
+        write(buffer, "kl")
+
+        assertEquals(AcpTerminal.Output("efghijkl", true), buffer.read())
+        assertEquals(12L, buffer.totalBytes())
+    }
+
+    @Test
+    fun bufferKeepsTailOfOversizedWrite() {
+        val buffer = AcpTerminal.OutputBuffer(4)
+        write(buffer, "ab")
+        write(buffer, "0123456789")
+
+        assertEquals(AcpTerminal.Output("6789", true), buffer.read())
+    }
+
+    @Test
+    fun truncationStartsAtCharacterBoundary() {
+        val buffer = AcpTerminal.OutputBuffer(5)
+        write(buffer, "aé€b")
+
+        assertEquals(AcpTerminal.Output("€b", true), buffer.read())
+    }
+
+    @Test
+    fun zeroLimitReportsTruncatedOnlyOnceOutputArrives() {
+        val buffer = AcpTerminal.OutputBuffer(0)
+        assertEquals(AcpTerminal.Output("", false), buffer.read())
+
+        write(buffer, "x")
+
+        assertEquals(AcpTerminal.Output("", true), buffer.read())
+    }
+
+    @Test
+    fun terminalDrainsLargeOutputWithinLimit() {
+        val terminal = AcpTerminal.start(
+            "test",
+            ProcessBuilder("sh", "-c", "i=0; while [ \$i -lt 20000 ]; do echo line-\$i; i=\$((i+1)); done; echo done >&2"),
+            1_024uL
+        )
+
+        terminal.use {
+            assertEquals(0, it.waitForExit())
+            val output = it.output()
+            assertTrue(output.truncated)
+            assertTrue(output.text.length <= 1_024)
+            assertTrue(output.text.endsWith("line-19999\ndone\n"))
+        }
+    }
+
+    @Test
+    fun outputIsAvailableWhileCommandRuns() {
+        val terminal = AcpTerminal.start("test", ProcessBuilder("sh", "-c", "echo started; sleep 30"), null)
+
+        terminal.use {
+            val deadline = System.currentTimeMillis() + 5_000
+            while (it.output().text.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10)
+            }
+            assertEquals(AcpTerminal.Output("started\n", false), it.output())
+            assertTrue(it.process.isAlive)
+        }
+        assertFalse(terminal.process.isAlive)
+    }
+
+    private fun write(buffer: AcpTerminal.OutputBuffer, text: String) {
+        val bytes = text.toByteArray(Charsets.UTF_8)
+        buffer.write(bytes, 0, bytes.size)
+    }
+}
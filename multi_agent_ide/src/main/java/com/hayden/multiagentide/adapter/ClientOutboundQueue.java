@@ -0,0 +1,126 @@
+package com.hayden.multiagentide.adapter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded per-client outbound queue drained on its own virtual thread.
+ *
+ * <p>{@link #offer} never blocks: the publisher hands the item over and moves on. When the
+ * queue is full the client is considered too slow, the queue is closed and {@code onOverflow}
+ * runs, so a stalled browser or socket cannot hold up event publishing. Items are handed to
+ * the sender in order, in batches of whatever has queued up, after an optional backlog
+ * (catch-up history) passed to {@link #start}.
+ */
+@Slf4j
+final class ClientOutboundQueue<T> {
+
+    @FunctionalInterface
+    interface Sender<T> {
+        void send(List<T> batch) throws Exception;
+    }
+
+    private static final int MAX_BATCH = 256;
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final Sender<T> sender;
+    private final Consumer<Exception> onFailure;
+    private final Runnable onOverflow;
+    private final Thread drainer;
+    private volatile boolean closed;
+    private List<T> backlog = List.of();
+
+    ClientOutboundQueue(String name, int capacity, Sender<T> sender, Runnable onOverflow, Consumer<Exception> onFailure) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.sender = sender;
+        this.onOverflow = onOverflow;
+        this.onFailure = onFailure;
+        this.drainer = Thread.ofVirtual().name(name).unstarted(this::drainLoop);
+    }
+
+    /**
+     * Starts draining. {@code backlog} is sent before anything offered to the queue.
+     */
+    void start(List<T> backlog) {
+        this.backlog = backlog == null ? List.of() : backlog;
+        drainer.start();
+    }
+
+    /**
+     * @return false if the item was not queued because the queue is closed or just overflowed
+     */
+    boolean offer(T item) {
+        if (closed) {
+            return false;
+        }
+        if (queue.offer(item)) {
+            return true;
+        }
+        log.warn("Outbound queue {} is full ({} items); dropping slow client", name, queue.size());
+        close();
+        onOverflow.run();
+        return false;
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        drainer.interrupt();
+    }
+
+    private void drainLoop() {
+        try {
+            for (int from = 0; from < backlog.size() && !closed; from += MAX_BATCH) {
+                sender.send(backlog.subList(from, Math.min(backlog.size(), from + MAX_BATCH)));
+            }
+        } catch (Exception e) {
+            fail(e);
+            return;
+        } finally {
+            backlog = List.of();
+        }
+
+        List<T> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed) {
+            try {
+                T first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                sender.send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                fail(e);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fail(Exception e) {
+        if (!closed) {
+            closed = true;
+            onFailure.accept(e);
+        }
+    }
+}
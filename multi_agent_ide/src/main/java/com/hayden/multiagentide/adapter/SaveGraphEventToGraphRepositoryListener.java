@@ -157,6 +157,10 @@ public class SaveGraphEventToGraphRepositoryListener implements EventListener {
             }
             case Events.AgentExecutorCompleteEvent ignored -> {
             }
+            case Events.DispatchChildStartedEvent ignored -> {
+            }
+            case Events.DispatchChildCompletedEvent ignored -> {
+            }
             case Events.NullResultEvent ignored -> {
             }
             case Events.IncompleteJsonEvent ignored -> {
@@ -167,6 +171,8 @@ public class SaveGraphEventToGraphRepositoryListener implements EventListener {
             }
             case Events.ParseErrorEvent ignored -> {
             }
+            case Events.ArtifactsPersistedEvent ignored -> {
+            }
         }
     }
 
@@ -16,15 +16,47 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
+/**
+ * Streams graph events to SSE clients.
+ *
+ * <p>Every event gets a sequence number, sent as the SSE {@code id} together with the
+ * process epoch ({@code <epoch>-<sequence>}), and the most recent
+ * {@link SseStreamProperties#getReplayBufferSize()} events are kept in memory. A client that
+ * reconnects with {@code Last-Event-ID} gets exactly the events it missed from that buffer;
+ * a new client (or one too far behind, or holding an id from before a restart) gets the
+ * stored history, limited to its scope node when it has one.
+ *
+ * <p>The publishing thread only numbers the event and offers it to each matching client's
+ * bounded queue. Each client drains its queue on its own virtual thread; a client whose queue
+ * fills up is disconnected and can resume with {@code Last-Event-ID}. Its emitter is completed
+ * on another thread, since completing waits for the send its drainer may be stuck in. Serialization happens
+ * once per event and filter layer, and the result is shared by every client on that layer.
+ */
 @Slf4j
 @Component
 public class SseEventAdapter extends EventAdapter {
 
-    private final List<RegisteredEmitter> emitters = new CopyOnWriteArrayList<>();
+    private static final String EVENT_NAME = "ag-ui";
+    private static final String NO_LAYER = "";
+
+    private final List<SseClient> clients = new CopyOnWriteArrayList<>();
+    private final Object sequenceLock = new Object();
+    private final ArrayDeque<SequencedEvent> replayBuffer = new ArrayDeque<>();
+    private final AtomicLong clientIds = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private long sequence;
 
     private AgUiSerdes serdes;
 
@@ -36,6 +68,8 @@ public class SseEventAdapter extends EventAdapter {
     private ControllerEventFilterIntegration controllerEventFilterIntegration;
     @Autowired
     private PathFilterIntegration pathFilterIntegration;
+    @Autowired
+    private SseStreamProperties sseStreamProperties;
 
     public SseEventAdapter() {
         super("sse-adapter");
@@ -55,53 +89,63 @@ public class SseEventAdapter extends EventAdapter {
     }
 
     public SseEmitter registerEmitter(Predicate<Events.GraphEvent> filter, String controllerId) {
-        SseEmitter emitter = new SseEmitter(0L);
-        RegisteredEmitter registered = new RegisteredEmitter(
+        return registerEmitter(filter, controllerId, null, null);
+    }
+
+    /**
+     * @param scopeNodeId only events for this node and its descendants; null for all events
+     * @param lastEventId the {@code Last-Event-ID} (or cursor) the client last saw; null for a new client
+     */
+    public SseEmitter registerEmitter(Predicate<Events.GraphEvent> filter,
+                                      String controllerId,
+                                      String scopeNodeId,
+                                      String lastEventId) {
+        SseEmitter emitter = newEmitter();
+        SseClient client = new SseClient(
                 emitter,
                 filter == null ? event -> true : filter,
-                controllerId
+                controllerId,
+                scopeNodeId == null || scopeNodeId.isBlank() ? null : scopeNodeId
         );
-        emitters.add(registered);
-        emitter.onCompletion(() -> emitters.remove(registered));
-        emitter.onTimeout(() -> emitters.remove(registered));
-        emitter.onError((err) -> emitters.remove(registered));
-
-//      catch-up
-        for (Events.GraphEvent event : graphRepository.list()) {
-            if (!registered.filter().test(event)) {
-                continue;
-            }
-            String payload = serializeEventForScope(event, registered.controllerId());
-            if (payload == null) {
-                continue;
-            }
-            try {
-                emitter.send(SseEmitter.event().name("ag-ui").data(payload));
-            } catch (IOException e) {
-                handleAdapterError(event, e);
-                emitters.remove(registered);
+        emitter.onCompletion(() -> unregister(client));
+        emitter.onTimeout(() -> unregister(client));
+        emitter.onError((err) -> unregister(client));
+
+        Long resumeAfter = parseSequence(lastEventId);
+        List<SequencedEvent> backlog = null;
+        long cursor;
+        synchronized (sequenceLock) {
+            cursor = sequence;
+            if (resumeAfter != null && canResumeFrom(resumeAfter)) {
+                backlog = new ArrayList<>();
+                for (SequencedEvent sequenced : replayBuffer) {
+                    if (sequenced.sequence() > resumeAfter && client.accepts(sequenced.event())) {
+                        backlog.add(sequenced);
+                    }
+                }
             }
+            clients.add(client);
         }
+
+        if (backlog == null) {
+            backlog = history(client, cursor);
+        }
+        client.queue().start(backlog);
         return emitter;
     }
 
     @Override
     protected void adaptEvent(Events.GraphEvent event) {
-        for (RegisteredEmitter registered : emitters) {
-            if (!registered.filter().test(event)) {
-                continue;
-            }
-            String payload = serializeEventForScope(event, registered.controllerId());
-            if (payload == null) {
-                continue;
+        synchronized (sequenceLock) {
+            SequencedEvent sequenced = new SequencedEvent(++sequence, event, false);
+            replayBuffer.addLast(sequenced);
+            while (replayBuffer.size() > Math.max(1, sseStreamProperties.getReplayBufferSize())) {
+                replayBuffer.removeFirst();
             }
-            try {
-                log.info("Writing next event - {}", event);
-                registered.emitter().send(SseEmitter.event().name("ag-ui").data(payload));
-            } catch (IOException e) {
-                log.error("Failed writing next event - {}", event);
-                handleAdapterError(event, e);
-                emitters.remove(registered);
+            for (SseClient client : clients) {
+                if (client.accepts(event)) {
+                    client.queue().offer(sequenced);
+                }
             }
         }
     }
@@ -116,15 +160,82 @@ public class SseEventAdapter extends EventAdapter {
         return "sse";
     }
 
-    private String serializeEventForScope(Events.GraphEvent event, String controllerId) {
-        if (event == null) {
-            return null;
+    int clientCount() {
+        return clients.size();
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(0L);
+    }
+
+    /**
+     * The SSE id of a sequence number in this process.
+     */
+    String sseId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private boolean canResumeFrom(long resumeAfter) {
+        if (resumeAfter > sequence) {
+            return false;
         }
+        SequencedEvent oldest = replayBuffer.peekFirst();
+        return oldest == null ? resumeAfter == sequence : oldest.sequence() <= resumeAfter + 1;
+    }
 
-        String layerId = layerIdResolver == null
+    /**
+     * Stored events for a new client. Only the last one carries an id (the current sequence),
+     * so a client that drops mid-history starts over, and one that drops after resumes from here.
+     */
+    private List<SequencedEvent> history(SseClient client, long cursor) {
+        List<Events.GraphEvent> stored = client.scopeNodeId() == null
+                ? graphRepository.list()
+                : graphRepository.listScoped(client.scopeNodeId());
+        List<SequencedEvent> history = new ArrayList<>(stored.size());
+        Set<String> historyIds = new HashSet<>();
+        for (Events.GraphEvent event : stored) {
+            if (event != null && client.filter().test(event)) {
+                history.add(new SequencedEvent(0, event, true));
+                historyIds.add(event.eventId());
+            }
+        }
+        if (!history.isEmpty()) {
+            SequencedEvent last = history.removeLast();
+            history.add(new SequencedEvent(cursor, last.event(), true));
+        }
+        client.skipAlreadySent(historyIds);
+        return history;
+    }
+
+    private void unregister(SseClient client) {
+        clients.remove(client);
+        client.queue().close();
+    }
+
+    private void send(SseClient client, List<SequencedEvent> batch) throws IOException {
+        for (SequencedEvent sequenced : batch) {
+            if (client.alreadySent(sequenced)) {
+                continue;
+            }
+            String payload = sequenced.payload(client.controllerId(), this);
+            if (payload == null) {
+                continue;
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(EVENT_NAME).data(payload);
+            if (sequenced.sequence() > 0) {
+                builder.id(sseId(sequenced.sequence()));
+            }
+            client.emitter().send(builder);
+        }
+    }
+
+    private String resolveLayer(String controllerId, Events.GraphEvent event) {
+        return layerIdResolver == null
                 ? null
                 : layerIdResolver.resolveForGraphEvent(controllerId, event).orElse(null);
+    }
 
+    private String serializeForLayer(Events.GraphEvent event, String layerId) {
         Events.GraphEvent filteredEvent = event;
         if (layerId != null && controllerEventFilterIntegration != null) {
             filteredEvent = controllerEventFilterIntegration.applyFilters(layerId, event)
@@ -147,9 +258,148 @@ public class SseEventAdapter extends EventAdapter {
         return payload;
     }
 
-    private record RegisteredEmitter(
-            SseEmitter emitter,
-            Predicate<Events.GraphEvent> filter,
-            String controllerId) {
+    /**
+     * The sequence of an id this process issued, or null for any other id, including ids from
+     * before a restart, whose sequence numbers would point at unrelated events.
+     */
+    private Long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        String id = lastEventId.trim();
+        int sep = id.lastIndexOf('-');
+        if (sep < 0 || !epoch.equals(id.substring(0, sep))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean inScope(String scopeNodeId, String nodeId) {
+        if (scopeNodeId == null) {
+            return true;
+        }
+        if (nodeId == null) {
+            return false;
+        }
+        return nodeId.equals(scopeNodeId)
+                || (nodeId.length() > scopeNodeId.length()
+                    && nodeId.startsWith(scopeNodeId)
+                    && nodeId.charAt(scopeNodeId.length()) == '/');
+    }
+
+    /**
+     * An event with its stream sequence number and its serialized form per filter layer,
+     * computed by whichever client needs it first.
+     */
+    private static final class SequencedEvent {
+        private final long sequence;
+        private final Events.GraphEvent event;
+        private final boolean historical;
+        private final Map<String, Optional<String>> layerByController = new ConcurrentHashMap<>(2);
+        private final Map<String, Optional<String>> payloadByLayer = new ConcurrentHashMap<>(2);
+
+        private SequencedEvent(long sequence, Events.GraphEvent event, boolean historical) {
+            this.sequence = sequence;
+            this.event = event;
+            this.historical = historical;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+
+        Events.GraphEvent event() {
+            return event;
+        }
+
+        String payload(String controllerId, SseEventAdapter adapter) {
+            String layerId = layerByController
+                    .computeIfAbsent(controllerId == null ? NO_LAYER : controllerId,
+                            ignored -> Optional.ofNullable(adapter.resolveLayer(controllerId, event)))
+                    .orElse(null);
+            return payloadByLayer
+                    .computeIfAbsent(layerId == null ? NO_LAYER : layerId,
+                            ignored -> Optional.ofNullable(adapter.serializeForLayer(event, layerId)))
+                    .orElse(null);
+        }
+    }
+
+    private final class SseClient {
+        private final SseEmitter emitter;
+        private final Predicate<Events.GraphEvent> filter;
+        private final String controllerId;
+        private final String scopeNodeId;
+        private final ClientOutboundQueue<SequencedEvent> queue;
+        private volatile Set<String> historyIds = Set.of();
+
+        private SseClient(SseEmitter emitter, Predicate<Events.GraphEvent> filter, String controllerId, String scopeNodeId) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.controllerId = controllerId;
+            this.scopeNodeId = scopeNodeId;
+            this.queue = new ClientOutboundQueue<>(
+                    "sse-client-" + clientIds.incrementAndGet(),
+                    sseStreamProperties.getClientQueueCapacity(),
+                    batch -> send(this, batch),
+                    () -> {
+                        // Runs on the publisher under sequenceLock; completing would wait on the stuck send.
+                        clients.remove(this);
+                        Thread.ofVirtual().name("sse-overflow-close").start(() ->
+                                emitter.completeWithError(new IOException("SSE client fell too far behind")));
+                    },
+                    error -> {
+                        log.debug("SSE client send failed: {}", error.getMessage());
+                        unregister(this);
+                        emitter.completeWithError(error);
+                    });
+        }
+
+        boolean accepts(Events.GraphEvent event) {
+            return inScope(scopeNodeId, event.nodeId()) && filter.test(event);
+        }
+
+        /**
+         * Live events already covered by the history snapshot are skipped. They can only be
+         * the first few queued, so the set is dropped at the first live event not in it.
+         */
+        void skipAlreadySent(Set<String> ids) {
+            historyIds = ids.isEmpty() ? Set.of() : ids;
+        }
+
+        boolean alreadySent(SequencedEvent sequenced) {
+            Set<String> ids = historyIds;
+            if (ids.isEmpty() || sequenced.historical) {
+                return false;
+            }
+            if (ids.contains(sequenced.event().eventId())) {
+                return true;
+            }
+            historyIds = Set.of();
+            return false;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        Predicate<Events.GraphEvent> filter() {
+            return filter;
+        }
+
+        String controllerId() {
+            return controllerId;
+        }
+
+        String scopeNodeId() {
+            return scopeNodeId;
+        }
+
+        ClientOutboundQueue<SequencedEvent> queue() {
+            return queue;
+        }
     }
 }
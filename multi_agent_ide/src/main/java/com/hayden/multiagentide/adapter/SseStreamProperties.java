@@ -0,0 +1,26 @@
+package com.hayden.multiagentide.adapter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Buffer sizes for {@link SseEventAdapter}.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.sse")
+@Data
+public class SseStreamProperties {
+
+    /**
+     * Most recent events kept for clients resuming with {@code Last-Event-ID}. A client that
+     * has fallen further behind than this gets the full history again.
+     */
+    int replayBufferSize = 10_000;
+
+    /**
+     * Events queued per client before it is treated as too slow and disconnected.
+     */
+    int clientQueueCapacity = 4_096;
+
+}
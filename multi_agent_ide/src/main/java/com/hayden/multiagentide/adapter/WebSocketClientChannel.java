@@ -0,0 +1,299 @@
+package com.hayden.multiagentide.adapter;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.infrastructure.StreamDeltaCoalescing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Outbound buffer for one websocket session, drained by its own virtual thread so that
+ * {@link #offer} never waits on the network.
+ *
+ * <p>Below the high-water mark every frame is queued. At or above it, a stream delta is
+ * merged into the queued tail when {@link StreamDeltaCoalescing#canMerge} allows. Once the
+ * queue reaches its hard limit the oldest queued delta is dropped to make room; if there is no
+ * delta to drop the client is too far behind and the session is closed right away on a
+ * separate virtual thread, since the drainer may be stuck in a send to that very client and the
+ * close frame goes through the same blocking send path. Closing the session fails the stuck
+ * send, which lets the drainer exit.
+ */
+@Slf4j
+public final class WebSocketClientChannel {
+
+    public record Stats(
+            String sessionId,
+            String remoteAddress,
+            int queueDepth,
+            int highWaterMark,
+            long sent,
+            long dropped,
+            long coalesced,
+            double avgSendMillis,
+            double maxSendMillis
+    ) {}
+
+    /**
+     * A frame to send. Event frames are serialized lazily, once, by whichever channel
+     * reaches them first; the same frame instance is shared by every channel it was offered to.
+     */
+    static final class Frame {
+        private final Events.GraphEvent event;
+        private String payload;
+        private boolean serialized;
+
+        private Frame(Events.GraphEvent event, String payload, boolean serialized) {
+            this.event = event;
+            this.payload = payload;
+            this.serialized = serialized;
+        }
+
+        static Frame of(Events.GraphEvent event) {
+            return new Frame(event, null, false);
+        }
+
+        static Frame text(String payload) {
+            return new Frame(null, payload, true);
+        }
+
+        synchronized String payload(Function<Events.GraphEvent, String> serializer) {
+            if (!serialized) {
+                payload = serializer.apply(event);
+                serialized = true;
+            }
+            return payload;
+        }
+    }
+
+    private static final int MAX_BATCH = 128;
+
+    private final WebSocketSession session;
+    private final Function<Events.GraphEvent, String> serializer;
+    private final Runnable onClosed;
+    private final int highWaterMark;
+    private final int maxQueued;
+
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Thread drainer;
+
+    private boolean closed;
+    private CloseStatus closeStatus;
+    private boolean sessionCloseClaimed;
+    private long sent;
+    private long dropped;
+    private long coalesced;
+    private long sendNanosTotal;
+    private long sendNanosMax;
+
+    WebSocketClientChannel(WebSocketSession session,
+                           Function<Events.GraphEvent, String> serializer,
+                           int highWaterMark,
+                           int maxQueued,
+                           Runnable onClosed) {
+        this.session = session;
+        this.serializer = serializer;
+        this.maxQueued = Math.max(1, maxQueued);
+        this.highWaterMark = Math.max(1, Math.min(highWaterMark, this.maxQueued));
+        this.onClosed = onClosed;
+        this.drainer = Thread.ofVirtual()
+                .name("websocket-" + session.getId())
+                .start(this::drainLoop);
+    }
+
+    /**
+     * @return false if the channel is closed, or was just closed because the client fell too far behind
+     */
+    boolean offer(Frame frame) {
+        boolean overflowed = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= highWaterMark && frame.event != null) {
+                Frame tail = queue.peekLast();
+                if (tail != null && tail.event != null && StreamDeltaCoalescing.canMerge(tail.event, frame.event)) {
+                    queue.pollLast();
+                    queue.addLast(Frame.of(StreamDeltaCoalescing.merge(tail.event, frame.event)));
+                    coalesced++;
+                    return true;
+                }
+            }
+            if (queue.size() >= maxQueued && !dropOldestDelta()) {
+                log.warn("Websocket client {} is {} frames behind; closing", session.getId(), queue.size());
+                closeLocked(CloseStatus.SESSION_NOT_RELIABLE);
+                overflowed = true;
+                return false;
+            }
+            queue.addLast(frame);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+            if (overflowed) {
+                Thread.ofVirtual()
+                        .name("websocket-close-" + session.getId())
+                        .start(() -> closeSession(CloseStatus.SESSION_NOT_RELIABLE));
+            }
+        }
+    }
+
+    Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(
+                    session.getId(),
+                    String.valueOf(session.getRemoteAddress()),
+                    queue.size(),
+                    highWaterMark,
+                    sent,
+                    dropped,
+                    coalesced,
+                    sent == 0 ? 0.0 : sendNanosTotal / (double) sent / 1_000_000.0,
+                    sendNanosMax / 1_000_000.0
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the drainer and drops anything still queued. Does not close the session.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closeLocked(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeLocked(CloseStatus status) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeStatus = status;
+        queue.clear();
+        notEmpty.signalAll();
+    }
+
+    private boolean dropOldestDelta() {
+        Iterator<Frame> it = queue.iterator();
+        while (it.hasNext()) {
+            Frame queued = it.next();
+            if (queued.event != null && StreamDeltaCoalescing.isDelta(queued.event)) {
+                it.remove();
+                dropped++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        List<Frame> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (queue.isEmpty() && !closed) {
+                        notEmpty.await(1, TimeUnit.SECONDS);
+                    }
+                    if (closed) {
+                        break;
+                    }
+                    for (int i = 0; i < MAX_BATCH && !queue.isEmpty(); i++) {
+                        batch.add(queue.pollFirst());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                for (Frame frame : batch) {
+                    send(frame);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.debug("Websocket send to {} failed: {}", session.getId(), e.getMessage());
+            lock.lock();
+            try {
+                closeLocked(CloseStatus.SERVER_ERROR);
+            } finally {
+                lock.unlock();
+            }
+        }
+        finishClose();
+    }
+
+    private void send(Frame frame) throws Exception {
+        String payload = frame.payload(serializer);
+        if (payload == null || !session.isOpen()) {
+            return;
+        }
+        long start = System.nanoTime();
+        session.sendMessage(new TextMessage(payload));
+        long elapsed = System.nanoTime() - start;
+        lock.lock();
+        try {
+            sent++;
+            sendNanosTotal += elapsed;
+            sendNanosMax = Math.max(sendNanosMax, elapsed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finishClose() {
+        CloseStatus status;
+        lock.lock();
+        try {
+            status = closeStatus;
+        } finally {
+            lock.unlock();
+        }
+        if (status != null) {
+            closeSession(status);
+        }
+        onClosed.run();
+    }
+
+    /**
+     * Close the session at most once, from whichever of the overflow close thread or the
+     * drainer gets here first. Called without holding the lock.
+     */
+    private void closeSession(CloseStatus status) {
+        lock.lock();
+        try {
+            if (sessionCloseClaimed) {
+                return;
+            }
+            sessionCloseClaimed = true;
+        } finally {
+            lock.unlock();
+        }
+        if (!session.isOpen()) {
+            return;
+        }
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            log.debug("Failed closing websocket {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
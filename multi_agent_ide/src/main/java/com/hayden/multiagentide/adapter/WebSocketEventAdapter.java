@@ -12,20 +12,25 @@ import com.hayden.multiagentide.filter.model.layer.DefaultPathFilterContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import java.io.IOException;
-import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket event adapter that streams events to connected clients in real-time.
+ *
+ * <p>Each session gets a {@link WebSocketClientChannel}: publishing only offers the event to
+ * every channel's buffer, and each channel sends on its own virtual thread, so a slow or
+ * half-closed socket cannot block the agents emitting events. Events are serialized once and
+ * the payload is shared by all sessions.
  */
 @Slf4j
 @Component
 public class WebSocketEventAdapter extends EventAdapter {
 
-    private final List<WebSocketSession> connectedClients = new CopyOnWriteArrayList<>();
+    private final Map<String, WebSocketClientChannel> channels = new ConcurrentHashMap<>();
 
     private AgUiSerdes serdes;
     @Autowired
@@ -34,6 +39,8 @@ public class WebSocketEventAdapter extends EventAdapter {
     private ControllerEventFilterIntegration controllerEventFilterIntegration;
     @Autowired
     private PathFilterIntegration pathFilterIntegration;
+    @Autowired
+    private WebSocketStreamProperties webSocketStreamProperties;
 
     public WebSocketEventAdapter() {
         super("websocket-adapter");
@@ -49,7 +56,13 @@ public class WebSocketEventAdapter extends EventAdapter {
      */
     public void registerClient(WebSocketSession session) {
         log.info("Registering websocket client {}.", session.getRemoteAddress());
-        connectedClients.add(session);
+        channels.computeIfAbsent(session.getId(), ignored -> new WebSocketClientChannel(
+                session,
+                this::serializeEvent,
+                webSocketStreamProperties.getHighWaterMark(),
+                webSocketStreamProperties.getMaxQueuedFrames(),
+                () -> channels.remove(session.getId())
+        ));
     }
 
     /**
@@ -57,38 +70,51 @@ public class WebSocketEventAdapter extends EventAdapter {
      */
     public void unregisterClient(WebSocketSession session) {
         log.info("Deregistering websocket client {}.", session.getRemoteAddress());
-        connectedClients.remove(session);
+        WebSocketClientChannel channel = channels.remove(session.getId());
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Queue a text frame for a client behind any events already buffered for it. Use this
+     * instead of {@link WebSocketSession#sendMessage}, which must not race the channel's sender.
+     */
+    public boolean sendText(WebSocketSession session, String text) {
+        WebSocketClientChannel channel = channels.get(session.getId());
+        return channel != null && channel.offer(WebSocketClientChannel.Frame.text(text));
     }
 
     /**
      * Get count of connected clients.
      */
     public int getConnectedClientCount() {
-        return connectedClients.size();
+        return channels.size();
+    }
+
+    /**
+     * Per-client queue depth, dropped and coalesced frames, and send latency.
+     */
+    public List<WebSocketClientChannel.Stats> clientStats() {
+        return channels.values().stream()
+                .map(WebSocketClientChannel::stats)
+                .toList();
     }
 
     @Override
     protected void adaptEvent(Events.GraphEvent event) {
-        String eventJson = serializeEvent(event);
-        if (eventJson == null) {
+        if (event == null || channels.isEmpty()) {
             return;
         }
-
-        for (WebSocketSession session : connectedClients) {
-            if (session.isOpen()) {
-                try {
-                    session.sendMessage(new TextMessage(eventJson));
-                } catch (IOException e) {
-                    // If send fails, remove the client
-                    unregisterClient(session);
-                }
-            }
+        WebSocketClientChannel.Frame frame = WebSocketClientChannel.Frame.of(event);
+        for (WebSocketClientChannel channel : channels.values()) {
+            channel.offer(frame);
         }
     }
 
     @Override
     protected void handleAdapterError(Events.GraphEvent event, Exception error) {
-        System.err.println("WebSocket adapter error for event " + event.eventType() + ": " + error.getMessage());
+        log.error("WebSocket adapter error for event {}: {}", event.eventType(), error.getMessage());
     }
 
     @Override
@@ -0,0 +1,26 @@
+package com.hayden.multiagentide.adapter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-session buffer limits for {@link WebSocketEventAdapter}.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.websocket")
+@Data
+public class WebSocketStreamProperties {
+
+    /**
+     * Queued frames at which stream deltas start being merged into the queued tail.
+     */
+    int highWaterMark = 256;
+
+    /**
+     * Queued frames at which the oldest deltas are dropped, and the session is closed if
+     * there are none left to drop.
+     */
+    int maxQueuedFrames = 4_096;
+
+}
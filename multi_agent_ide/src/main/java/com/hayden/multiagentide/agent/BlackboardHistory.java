@@ -292,7 +292,7 @@ public class BlackboardHistory implements EventListener, EventSubscriber<Events.
 
         BlackboardHistory listener = new BlackboardHistory(new History(), resolveNodeId(context), factory.get());
         context.getAgentProcess().addObject(listener);
-        eventBus.subscribe(listener);
+        eventBus.subscribe(listener.nodeId, listener);
         return listener;
     }
 
@@ -840,6 +840,7 @@ public class BlackboardHistory implements EventListener, EventSubscriber<Events.
         if (event == null) {
             return;
         }
+        // Already guaranteed by a node-routing bus; still needed when the bus delivers everything.
         if (nodeId != null && !nodeId.isBlank() && !isDescendantOrEqual(event.nodeId(), nodeId)) {
             return;
         }
@@ -936,11 +937,14 @@ public class BlackboardHistory implements EventListener, EventSubscriber<Events.
             case Events.PromptReceivedEvent ignored -> buildTargets(event.nodeId(), null);
             case Events.AgentExecutorStartEvent e -> buildTargets(e.nodeId(), e.sessionKey());
             case Events.AgentExecutorCompleteEvent e -> buildTargets(e.nodeId(), e.sessionKey());
+            case Events.DispatchChildStartedEvent e -> buildTargets(e.nodeId(), e.dispatchNodeId());
+            case Events.DispatchChildCompletedEvent e -> buildTargets(e.nodeId(), e.dispatchNodeId());
             case Events.NullResultEvent e -> buildTargets(e.nodeId(), e.sessionKey());
             case Events.IncompleteJsonEvent e -> buildTargets(e.nodeId(), e.sessionKey());
             case Events.UnparsedToolCallEvent e -> buildTargets(e.nodeId(), e.sessionKey());
             case Events.TimeoutEvent e -> buildTargets(e.nodeId(), e.sessionKey());
             case Events.ParseErrorEvent e -> buildTargets(e.nodeId(), e.sessionKey());
+            case Events.ArtifactsPersistedEvent ignored -> new ArrayList<>();
         };
     }
 
@@ -33,6 +33,8 @@ public class ArtifactEventListener implements EventListener {
     private final ArtifactTreeBuilder treeBuilder;
     private final EventArtifactMapper eventArtifactMapper;
     private final ArtifactService artifactService;
+    private final StreamArtifactCoalescer streamArtifactCoalescer;
+    private final ArtifactPersistenceProperties artifactPersistenceProperties;
 
     @Value("${artifacts.persistence.enabled:true}")
     private boolean persistenceEnabled;
@@ -52,6 +54,10 @@ public class ArtifactEventListener implements EventListener {
             return;
         }
 
+        if (artifactPersistenceProperties.isStreamCoalescingEnabled()) {
+            streamArtifactCoalescer.drainIdle().forEach(this::addStreamArtifact);
+        }
+
         switch (event) {
             case Events.ArtifactEvent artifactEvent -> handleArtifactEvent(artifactEvent);
             case Events.NodeStreamDeltaEvent streamDeltaEvent -> handleStreamEvent(streamDeltaEvent);
@@ -120,6 +126,10 @@ public class ArtifactEventListener implements EventListener {
             }
             case Events.AgentExecutorCompleteEvent ignored -> {
             }
+            case Events.DispatchChildStartedEvent ignored -> {
+            }
+            case Events.DispatchChildCompletedEvent ignored -> {
+            }
             case Events.NullResultEvent ignored -> {
             }
             case Events.IncompleteJsonEvent ignored -> {
@@ -130,6 +140,8 @@ public class ArtifactEventListener implements EventListener {
             }
             case Events.ParseErrorEvent ignored -> {
             }
+            case Events.ArtifactsPersistedEvent ignored -> {
+            }
         }
     }
 
@@ -193,11 +205,14 @@ public class ArtifactEventListener implements EventListener {
             case Events.PromptReceivedEvent ignored -> true;
             case Events.AgentExecutorStartEvent ignored -> false;
             case Events.AgentExecutorCompleteEvent ignored -> false;
+            case Events.DispatchChildStartedEvent ignored -> false;
+            case Events.DispatchChildCompletedEvent ignored -> false;
             case Events.NullResultEvent ignored -> false;
             case Events.IncompleteJsonEvent ignored -> false;
             case Events.UnparsedToolCallEvent ignored -> false;
             case Events.TimeoutEvent ignored -> false;
             case Events.ParseErrorEvent ignored -> false;
+            case Events.ArtifactsPersistedEvent ignored -> false;
         };
     }
 
@@ -220,6 +235,7 @@ public class ArtifactEventListener implements EventListener {
      * This persists all artifacts and returns the root with children populated.
      */
     public Optional<Artifact> finishPersistRemove(String executionKey) {
+        closeStreamSegments(executionKey);
         Optional<Artifact> finished;
         if (persistenceEnabled) {
             finished = treeBuilder.persistRemoveExecution(executionKey);
@@ -237,6 +253,7 @@ public class ArtifactEventListener implements EventListener {
      */
     public void flushExecution(String executionKey) {
         if (persistenceEnabled) {
+            closeStreamSegments(executionKey);
             treeBuilder.persistExecutionTree(executionKey);
         }
     }
@@ -259,17 +276,33 @@ public class ArtifactEventListener implements EventListener {
 
     /**
      * Handles stream-related events by converting them to MessageStreamArtifact nodes.
+     * Deltas are merged into segments by {@link StreamArtifactCoalescer} when enabled; open
+     * segments are closed when they go idle (checked on every event) and before the
+     * execution is persisted.
      */
     private void handleStreamEvent(Events.GraphEvent event) {
         try {
-            MessageStreamArtifact streamArtifact = eventArtifactMapper.mapToStreamArtifact(event);
-            String executionKey = extractExecutionKey(streamArtifact.artifactKey());
-            addOrQueueArtifact(executionKey, streamArtifact);
+            if (artifactPersistenceProperties.isStreamCoalescingEnabled()) {
+                streamArtifactCoalescer.offer(event).forEach(this::addStreamArtifact);
+                return;
+            }
+            addStreamArtifact(eventArtifactMapper.mapToStreamArtifact(event));
         } catch (Exception e) {
             log.error("Failed to handle stream event: {}", event, e);
         }
     }
 
+    private void addStreamArtifact(MessageStreamArtifact streamArtifact) {
+        String executionKey = extractExecutionKey(streamArtifact.artifactKey());
+        addOrQueueArtifact(executionKey, streamArtifact);
+    }
+
+    private void closeStreamSegments(String executionKey) {
+        if (persistenceEnabled && artifactPersistenceProperties.isStreamCoalescingEnabled()) {
+            streamArtifactCoalescer.drainExecution(executionKey).forEach(this::addStreamArtifact);
+        }
+    }
+
     /**
      * Handles semantic graph events by capturing them as EventArtifact nodes.
      */
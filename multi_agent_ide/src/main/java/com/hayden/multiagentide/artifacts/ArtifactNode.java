@@ -8,13 +8,17 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +41,13 @@ public class ArtifactNode {
     private final Map<String, ArtifactNode> children = new ConcurrentHashMap<>();
     private final Set<String> childContentHashes = ConcurrentHashMap.newKeySet();
 
+    /**
+     * Last time anything in this subtree was added or replaced, and the value of that
+     * clock when the subtree was last written behind. Used by write-behind persistence.
+     */
+    private volatile long subtreeModifiedNanos = System.nanoTime();
+    private volatile long subtreeFlushedNanos = Long.MIN_VALUE;
+
     public ArtifactNode(ArtifactKey artifactKey, Artifact artifact) {
         this(artifactKey, artifact, null);
     }
@@ -124,6 +135,7 @@ public class ArtifactNode {
         children.put(keyValue, childNode);
         contentHash.ifPresent(childContentHashes::add);
         syncChildrenToArtifact();
+        touchSubtree();
 
         log.trace("Added artifact: {} (hash: {})", keyValue, contentHash.orElse("none"));
         return AddResult.ADDED;
@@ -210,6 +222,14 @@ public class ArtifactNode {
         if (parent != null) {
             parent.syncChildrenToArtifact();
         }
+        touchSubtree();
+    }
+
+    private void touchSubtree() {
+        long now = System.nanoTime();
+        for (ArtifactNode node = this; node != null; node = node.parent) {
+            node.subtreeModifiedNanos = now;
+        }
     }
 
     public synchronized @Nullable ArtifactNode findNode(ArtifactKey targetKey) {
@@ -264,6 +284,111 @@ public class ArtifactNode {
         }
     }
 
+    /**
+     * Pre-order walk of the tree that locks one node at a time instead of copying the whole
+     * tree up front like {@link #collectAll()}, so large trees can be consumed in chunks.
+     */
+    public Iterator<Artifact> walk() {
+        Iterator<ArtifactNode> nodes = walkNodes();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public Artifact next() {
+                return nodes.next().getArtifactSnapshot();
+            }
+        };
+    }
+
+    private Iterator<ArtifactNode> walkNodes() {
+        Deque<ArtifactNode> pending = new ArrayDeque<>();
+        pending.push(this);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public ArtifactNode next() {
+                if (pending.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                ArtifactNode node = pending.pop();
+                node.children.values().forEach(pending::push);
+                return node;
+            }
+        };
+    }
+
+    synchronized Artifact getArtifactSnapshot() {
+        return artifact;
+    }
+
+    /**
+     * Finds the largest subtrees below this node that have not changed since
+     * {@code idleCutoffNanos} and have something not yet written behind. Busy subtrees
+     * are descended into so their idle branches can still be flushed; this node itself
+     * is never returned.
+     */
+    synchronized List<FlushCandidate> collectFlushableSubtrees(long idleCutoffNanos) {
+        List<FlushCandidate> candidates = new ArrayList<>();
+        collectFlushableSubtrees(idleCutoffNanos, candidates);
+        return candidates;
+    }
+
+    private synchronized void collectFlushableSubtrees(long idleCutoffNanos, List<FlushCandidate> candidates) {
+        for (ArtifactNode child : children.values()) {
+            long modified = child.subtreeModifiedNanos;
+            if (modified - idleCutoffNanos > 0) {
+                child.collectFlushableSubtrees(idleCutoffNanos, candidates);
+            } else if (modified != child.subtreeFlushedNanos) {
+                candidates.add(new FlushCandidate(child, modified, child.unpersistedNodes()));
+            }
+        }
+    }
+
+    /**
+     * Pre-order list of the nodes in this subtree that still hold their full artifact.
+     * Placeholders are left for the final persist once their real artifact arrives.
+     */
+    private synchronized List<ArtifactNode> unpersistedNodes() {
+        List<ArtifactNode> nodes = new ArrayList<>();
+        for (Iterator<ArtifactNode> it = walkNodes(); it.hasNext(); ) {
+            ArtifactNode node = it.next();
+            if (!(node.artifact instanceof Artifact.PersistedArtifactStub)
+                    && !(node.artifact instanceof Artifact.IntermediateArtifact)) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Swaps the written nodes of a flushed subtree for stubs, deepest first so each stub's
+     * children are stubs too, then re-links ancestors so nothing keeps the old content reachable.
+     */
+    synchronized void evictFlushed(FlushCandidate flushed) {
+        List<ArtifactNode> nodes = flushed.nodes();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            ArtifactNode node = nodes.get(i);
+            synchronized (node) {
+                node.artifact = Artifact.PersistedArtifactStub.of(node.artifact)
+                        .withChildren(node.sortedChildArtifacts());
+            }
+        }
+        ArtifactNode subtreeRoot = flushed.subtreeRoot();
+        subtreeRoot.subtreeFlushedNanos = flushed.modifiedNanos();
+        for (ArtifactNode node = subtreeRoot; node != null; node = node.parent) {
+            node.syncChildrenToArtifact();
+        }
+    }
+
+    record FlushCandidate(ArtifactNode subtreeRoot, long modifiedNanos, List<ArtifactNode> nodes) {}
+
     public synchronized int size() {
         int count = 1;
         for (ArtifactNode child : children.values()) {
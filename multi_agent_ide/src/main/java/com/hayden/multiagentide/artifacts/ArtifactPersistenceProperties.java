@@ -0,0 +1,64 @@
+package com.hayden.multiagentide.artifacts;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for how {@link ArtifactService} writes execution trees to the database.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.artifact-persistence")
+@Data
+public class ArtifactPersistenceProperties {
+
+    /**
+     * Artifacts handled per round trip: one content-hash lookup and one batched insert per chunk.
+     */
+    int chunkSize = 500;
+
+    /**
+     * Write finished subtrees of a running execution to the database in the background and
+     * replace them in memory with stubs, instead of holding the whole tree until it completes.
+     */
+    boolean writeBehindEnabled = false;
+
+    /**
+     * Longest time an execution goes without a write-behind pass.
+     */
+    Duration writeBehindMaxInterval = Duration.ofSeconds(10);
+
+    /**
+     * Artifacts added to an execution since its last pass that trigger a pass early.
+     */
+    int writeBehindMaxNodes = 1_000;
+
+    /**
+     * How long a subtree must go without new artifacts before it counts as finished.
+     */
+    Duration writeBehindQuietPeriod = Duration.ofSeconds(5);
+
+    /**
+     * Merge consecutive stream deltas for a node into segment artifacts instead of writing one
+     * artifact per token chunk.
+     */
+    boolean streamCoalescingEnabled = true;
+
+    /**
+     * Characters of merged text after which a stream segment is closed.
+     */
+    int streamSegmentMaxChars = 8_192;
+
+    /**
+     * Deltas merged into one stream segment before it is closed.
+     */
+    int streamSegmentMaxChunks = 512;
+
+    /**
+     * How long a stream segment stays open without a new delta.
+     */
+    Duration streamSegmentIdleTimeout = Duration.ofSeconds(2);
+
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hayden.acp_cdc_ai.acp.events.EventBus;
 import com.hayden.acp_cdc_ai.acp.events.Events;
 import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
+import com.hayden.multiagentide.artifacts.repository.ArtifactBatchWriter;
 import com.hayden.multiagentide.artifacts.repository.ArtifactRepository;
 import com.hayden.acp_cdc_ai.acp.events.Artifact;
 import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
@@ -28,6 +29,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -45,6 +47,10 @@ public class ArtifactService {
 
     private final ArtifactRepository artifactRepository;
 
+    private final ArtifactBatchWriter artifactBatchWriter;
+
+    private final ArtifactPersistenceProperties artifactPersistenceProperties;
+
     private ObjectMapper objectMapper;
 
     private EventBus eventBus;
@@ -64,82 +70,179 @@ public class ArtifactService {
     }
 
 
+    /**
+     * Persists an execution tree in chunks of {@link ArtifactPersistenceProperties#getChunkSize()}.
+     * Each chunk costs one content-hash {@code IN} lookup and one batched insert: the first
+     * artifact of a new hash is stored as the original, every other artifact with that hash
+     * (in this tree or already in the database) is stored as a DbRef to it. Nodes already
+     * written behind are stubs and are skipped.
+     */
     @Transactional
     public void doPersist(String executionKey, ArtifactNode root) {
-        var collected = new ArrayList<>(root.collectAll());
-
-        var groupedByKey = collected.stream()
-                .filter(a -> a.artifactKey() != null && StringUtils.isNotBlank(a.artifactKey().value()))
-                .collect(Collectors.groupingBy(Artifact::artifactKey));
+        doPersist(executionKey, root.getArtifactKey(), root::walk);
+    }
 
-        // records are special
-        Map<Artifact, Artifact> updates = new IdentityHashMap<>();
+    /**
+     * Persists the artifacts produced by {@code artifacts}, which is iterated twice: once
+     * for keys and once in chunks for the rows themselves.
+     */
+    @Transactional
+    public void doPersist(String executionKey, ArtifactKey scopeKey, Supplier<Iterator<Artifact>> artifacts) {
+        long started = System.nanoTime();
+        Set<ArtifactKey> mixedHashKeys = new HashSet<>();
+        Set<ArtifactKey> repeatedKeys = collectRepeatedKeys(artifacts.get(), mixedHashKeys);
+        Set<ArtifactKey> emittedRepeatedKeys = new HashSet<>();
+
+        int chunkSize = Math.max(1, artifactPersistenceProperties.getChunkSize());
+        PersistTally tally = new PersistTally();
+        List<Artifact> chunk = new ArrayList<>(chunkSize);
+
+        for (Iterator<Artifact> it = artifacts.get(); it.hasNext(); ) {
+            Artifact artifact = it.next();
+            if (!isPersistable(artifact)) {
+                continue;
+            }
+            ArtifactKey key = artifact.artifactKey();
+            if (repeatedKeys.contains(key) && !emittedRepeatedKeys.add(key)) {
+                // records are special: a repeated key with differing hashes is kept under a child key
+                if (!mixedHashKeys.contains(key)) {
+                    continue;
+                }
+                artifact = artifact.withArtifactKey(key.createChild());
+            }
+            chunk.add(artifact.contentHash().filter(StringUtils::isNotBlank).isPresent()
+                    ? artifact
+                    : artifact.withHash(UUID.randomUUID().toString()));
+            if (chunk.size() >= chunkSize) {
+                persistChunk(executionKey, chunk, tally);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            persistChunk(executionKey, chunk, tally);
+        }
 
-        for (var entry : groupedByKey.entrySet()) {
-            var list = entry.getValue();
-            updates.put(list.getFirst(), list.getFirst());
+        publishPersisted(executionKey, scopeKey, tally, started);
+    }
 
-            if (list.size() <= 1)
+    /**
+     * First pass over the tree that only retains keys: which keys occur more than once and,
+     * of those, which carry more than one content hash.
+     */
+    private Set<ArtifactKey> collectRepeatedKeys(Iterator<Artifact> artifacts, Set<ArtifactKey> mixedHashKeys) {
+        Map<ArtifactKey, String> firstHashByKey = new HashMap<>();
+        Set<ArtifactKey> repeated = new HashSet<>();
+        while (artifacts.hasNext()) {
+            Artifact artifact = artifacts.next();
+            if (!isPersistable(artifact)) {
                 continue;
-
-            // decide allSameHash using “present+nonblank” logic
-            if (!entry.getValue().stream().allMatch(art -> art.contentHash().orElse("").equals(list.getFirst().contentHash().orElse("")))) {
-                for (int i = 1; i < list.size(); i++) {
-                    var e = list.get(i);
-                    updates.put(e, e.withArtifactKey(e.artifactKey().createChild()));
+            }
+            String hash = artifact.contentHash().orElse("");
+            String firstHash = firstHashByKey.putIfAbsent(artifact.artifactKey(), hash);
+            if (firstHash != null) {
+                repeated.add(artifact.artifactKey());
+                if (!firstHash.equals(hash)) {
+                    mixedHashKeys.add(artifact.artifactKey());
                 }
             }
         }
+        return repeated;
+    }
 
-        var allArtifacts = new ArrayList<>(updates.values());
+    private static boolean isPersistable(Artifact artifact) {
+        return !(artifact instanceof Artifact.PersistedArtifactStub)
+                && artifact.artifactKey() != null
+                && StringUtils.isNotBlank(artifact.artifactKey().value());
+    }
 
-        // Group by content hash to find duplicates
-        var groupedByHash = allArtifacts.stream()
-                .map(a -> {
-                    if (a.contentHash().isPresent() && StringUtils.isNotBlank(a.contentHash().get()))
-                        return a;
+    private void persistChunk(String executionKey, List<Artifact> chunk, PersistTally tally) {
+        Map<String, List<Artifact>> byHash = chunk.stream()
+                .collect(Collectors.groupingBy(a -> a.contentHash().orElseThrow(), LinkedHashMap::new, Collectors.toList()));
 
-                    return a.withHash(UUID.randomUUID().toString());
-                })
-                .collect(Collectors.groupingBy(a -> a.contentHash().orElseThrow()));
+        Set<String> storedHashes = new HashSet<>();
+        Map<String, Artifact> storedOriginals = new HashMap<>();
+        for (ArtifactEntity entity : artifactRepository.findByContentHashIn(byHash.keySet())) {
+            storedHashes.add(entity.getContentHash());
+            deserializeArtifact(entity).ifPresent(a -> storedOriginals.put(entity.getContentHash(), a));
+        }
 
-        var refsToSave = new ArrayList<Artifact>();
+        List<ArtifactEntity> originals = new ArrayList<>();
+        List<ArtifactEntity> refs = new ArrayList<>();
 
-        for (var entry : groupedByHash.entrySet()) {
+        for (var entry : byHash.entrySet()) {
             var contentHash = entry.getKey();
             var artifacts = entry.getValue();
-            if (artifacts.isEmpty())
-                continue;
 
-
-            // Check if this hash already exists in the DB
-            var existingOpt = artifactRepository.findByContentHash(contentHash);
-
-            if (existingOpt.isPresent()) {
+            if (storedHashes.contains(contentHash)) {
                 // Original already in DB - decorateDuplicate all of them
+                tally.existingHashHits += artifacts.size();
+                Artifact original = storedOriginals.get(contentHash);
+                if (original == null) {
+                    continue;
+                }
                 for (var artifact : artifacts) {
-                    decorateDuplicate(contentHash, artifact.artifactKey())
-                            .ifPresent(refsToSave::add);
+                    toDbRef(original, artifact.artifactKey())
+                            .flatMap(ref -> toEntity(executionKey, ref))
+                            .ifPresent(refs::add);
                 }
             } else {
-                // Save the first as the original (no refs yet)
+                // Save the first as the original, decorateDuplicate the rest against it
                 var original = artifacts.getFirst();
-                toEntity(executionKey, original)
-                        .ifPresent(this::save);
-
-                // decorateDuplicate the rest
+                toEntity(executionKey, original).ifPresent(originals::add);
                 for (int i = 1; i < artifacts.size(); i++) {
-                    var duplicate = artifacts.get(i);
-                    decorateDuplicate(contentHash, duplicate.artifactKey())
-                            .ifPresent(refsToSave::add);
+                    toDbRef(original, artifacts.get(i).artifactKey())
+                            .flatMap(ref -> toEntity(executionKey, ref))
+                            .ifPresent(refs::add);
                 }
             }
         }
 
-        artifactRepository.saveAllAndFlush(
-                refsToSave.stream()
-                        .flatMap(a -> toEntity(executionKey, a).stream())
-                        .toList());
+        List<ArtifactEntity> rows = new ArrayList<>(originals.size() + refs.size());
+        rows.addAll(originals);
+        rows.addAll(refs);
+        try {
+            artifactBatchWriter.insertAll(rows);
+        } catch (RuntimeException e) {
+            publishPersistenceError(
+                    "Failed to batch insert %d artifacts for execution %s".formatted(rows.size(), executionKey),
+                    safeArtifactKey(executionKey),
+                    e);
+            throw e;
+        }
+
+        tally.artifacts += chunk.size();
+        tally.originals += originals.size();
+        tally.refs += refs.size();
+        tally.chunks++;
+    }
+
+    private void publishPersisted(String executionKey, ArtifactKey rootKey, PersistTally tally, long startedNanos) {
+        long durationMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        log.debug("Persisted execution {}: {} artifacts, {} originals, {} refs, {} existing hashes in {} chunks ({} ms)",
+                executionKey, tally.artifacts, tally.originals, tally.refs, tally.existingHashHits, tally.chunks, durationMs);
+        if (eventBus == null) {
+            return;
+        }
+        eventBus.publish(Events.ArtifactsPersistedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .timestamp(Instant.now())
+                .nodeId(rootKey == null ? executionKey : rootKey.value())
+                .executionKey(executionKey)
+                .artifactCount(tally.artifacts)
+                .originalsInserted(tally.originals)
+                .refsInserted(tally.refs)
+                .existingHashHits(tally.existingHashHits)
+                .chunkCount(tally.chunks)
+                .durationMs(durationMs)
+                .build());
+    }
+
+    private static final class PersistTally {
+        int artifacts;
+        int originals;
+        int refs;
+        int existingHashHits;
+        int chunks;
     }
 
 
@@ -152,33 +255,46 @@ public class ArtifactService {
         try {
             return artifactRepository.findByContentHash(contentHash)
                     .flatMap(this::deserializeArtifact)
-                    .flatMap(a -> switch (a) {
-                        case Templated t -> {
-                            ArtifactKey refKey = a.artifactKey().equals(artifact)
-                                    ? artifact.createChild()
-                                    : artifact;
-                            yield Optional.of(new Artifact.TemplateDbRef(
-                                    refKey,
-                                    t.templateStaticId(),
-                                    UUID.randomUUID().toString(),
-                                    t,
-                                    remapChildren(t, refKey),
-                                    safeMetadata(t.metadata()),
-                                    t.artifactType()));
-                        }
-                        case Artifact t -> {
-                            ArtifactKey refKey = t.artifactKey().equals(artifact)
-                                    ? artifact.createChild()
-                                    : artifact;
-                            yield Optional.of(new Artifact.ArtifactDbRef(
-                                    refKey,
-                                    UUID.randomUUID().toString(),
-                                    t,
-                                    remapChildren(t, refKey),
-                                    safeMetadata(t.metadata()),
-                                    t.artifactType()));
-                        }
-                    });
+                    .flatMap(a -> toDbRef(a, artifact));
+        } catch (Exception e) {
+            publishPersistenceError("Failed to decorate duplicate artifact for key " + artifact.value(), artifact, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Wraps {@code original} as a DbRef stored under {@code artifact}, or under a child of it
+     * when the original already occupies that key.
+     */
+    private Optional<Artifact> toDbRef(Artifact original, ArtifactKey artifact) {
+        try {
+            return Optional.of(switch (original) {
+                case Templated t -> {
+                    ArtifactKey refKey = original.artifactKey().equals(artifact)
+                            ? artifact.createChild()
+                            : artifact;
+                    yield new Artifact.TemplateDbRef(
+                            refKey,
+                            t.templateStaticId(),
+                            UUID.randomUUID().toString(),
+                            t,
+                            remapChildren(t, refKey),
+                            safeMetadata(t.metadata()),
+                            t.artifactType());
+                }
+                case Artifact t -> {
+                    ArtifactKey refKey = t.artifactKey().equals(artifact)
+                            ? artifact.createChild()
+                            : artifact;
+                    yield new Artifact.ArtifactDbRef(
+                            refKey,
+                            UUID.randomUUID().toString(),
+                            t,
+                            remapChildren(t, refKey),
+                            safeMetadata(t.metadata()),
+                            t.artifactType());
+                }
+            });
         } catch (Exception e) {
             publishPersistenceError("Failed to decorate duplicate artifact for key " + artifact.value(), artifact, e);
             return Optional.empty();
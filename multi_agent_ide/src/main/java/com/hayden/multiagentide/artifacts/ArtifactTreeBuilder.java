@@ -5,13 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hayden.acp_cdc_ai.acp.events.Artifact;
 import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
 import com.hayden.multiagentide.artifacts.repository.ArtifactRepository;
+import com.hayden.utilitymodule.stream.StreamUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Builds and persists artifact trees from artifact events.
@@ -20,7 +24,8 @@ import java.util.concurrent.ConcurrentHashMap;
  * - Artifacts are inserted at positions determined by their hierarchical key
  * - Deduplication happens automatically via content hash comparison among siblings
  * - Messages come in order (no level skipping), so no splitting required
- * - Nodes are never removed
+ * - Nodes are never removed; with write-behind enabled, finished subtrees are persisted
+ *   early and their nodes' artifacts replaced by {@link com.hayden.acp_cdc_ai.acp.events.Artifact.PersistedArtifactStub}s
  *
  * Responsibilities:
  * - Maintains in-memory trie structure during execution
@@ -39,6 +44,18 @@ public class ArtifactTreeBuilder {
 
     private final Map<String, ArtifactNode> executionTrees = new ConcurrentHashMap<>();
 
+    /**
+     * Per-execution write-behind bookkeeping. The lock keeps a background flush and a
+     * full persist of the same execution from writing the same nodes twice.
+     */
+    private final Map<String, WriteBehindState> writeBehindStates = new ConcurrentHashMap<>();
+
+    private static final class WriteBehindState {
+        final ReentrantLock lock = new ReentrantLock();
+        final AtomicInteger addedSinceFlush = new AtomicInteger();
+        volatile long lastFlushNanos = System.nanoTime();
+    }
+
     /**
      * Adds an artifact to the tree using trie-based insertion with hash deduplication.
      *
@@ -71,6 +88,7 @@ public class ArtifactTreeBuilder {
             if (key.isRoot() || key.depth() == 1) {
                 root = ArtifactNode.createRoot(artifact);
                 executionTrees.put(executionKey, root);
+                writeBehindStates.computeIfAbsent(executionKey, k -> new WriteBehindState());
                 log.debug("Created execution tree root: {}", key);
                 return ArtifactNode.AddResult.ADDED;
             } else {
@@ -85,6 +103,8 @@ public class ArtifactTreeBuilder {
         switch (result) {
             case ADDED -> {
                 log.debug("Added artifact: {} (type: {})", key, artifact.artifactType());
+                writeBehindStates.computeIfAbsent(executionKey, k -> new WriteBehindState())
+                        .addedSinceFlush.incrementAndGet();
                 return ArtifactNode.AddResult.ADDED;
             }
             case DUPLICATE_KEY -> {
@@ -152,6 +172,7 @@ public class ArtifactTreeBuilder {
 
     public Optional<com.hayden.acp_cdc_ai.acp.events.Artifact> buildRemoveArtifactTree(String executionKey) {
         ArtifactNode root = executionTrees.remove(executionKey);
+        writeBehindStates.remove(executionKey);
         if (root == null) {
             return Optional.empty();
         }
@@ -194,6 +215,7 @@ public class ArtifactTreeBuilder {
         var toRemove = persistExecutionTree(executionKey);
         if (toRemove.isPresent()) {
             this.executionTrees.remove(executionKey);
+            this.writeBehindStates.remove(executionKey);
         }
         return toRemove;
     }
@@ -213,7 +235,7 @@ public class ArtifactTreeBuilder {
             return Optional.empty();
         }
 
-        artifactService.doPersist(executionKey, root);
+        withWriteBehindLock(executionKey, () -> artifactService.doPersist(executionKey, root));
         return Optional.of(root.buildArtifactTree());
     }
 
@@ -228,7 +250,78 @@ public class ArtifactTreeBuilder {
             return;
         }
 
-        artifactService.doPersist(executionKey, root);
+        withWriteBehindLock(executionKey, () -> artifactService.doPersist(executionKey, root));
+    }
+
+    /**
+     * Executions that currently have an in-memory tree.
+     */
+    public Set<String> activeExecutionKeys() {
+        return Set.copyOf(executionTrees.keySet());
+    }
+
+    /**
+     * True when the execution has gone {@code maxInterval} without a write-behind pass,
+     * or has had at least {@code maxNodes} artifacts added since the last one.
+     */
+    public boolean writeBehindDue(String executionKey, Duration maxInterval, int maxNodes) {
+        WriteBehindState state = writeBehindStates.get(executionKey);
+        if (state == null) {
+            return false;
+        }
+        return state.addedSinceFlush.get() >= maxNodes
+                || System.nanoTime() - state.lastFlushNanos >= maxInterval.toNanos();
+    }
+
+    /**
+     * Persists every subtree of the execution that has had no additions for
+     * {@code quietPeriod} and evicts it to stubs. Skips the pass if the execution is
+     * being persisted by another caller.
+     *
+     * @return number of artifacts written
+     */
+    public int writeBehind(String executionKey, Duration quietPeriod) {
+        ArtifactNode root = executionTrees.get(executionKey);
+        WriteBehindState state = writeBehindStates.get(executionKey);
+        if (root == null || state == null || !state.lock.tryLock()) {
+            return 0;
+        }
+        try {
+            long now = System.nanoTime();
+            state.addedSinceFlush.set(0);
+            state.lastFlushNanos = now;
+
+            List<ArtifactNode.FlushCandidate> flushable = root.collectFlushableSubtrees(now - quietPeriod.toNanos());
+            List<com.hayden.acp_cdc_ai.acp.events.Artifact> artifacts = flushable.stream()
+                    .flatMap(c -> c.nodes().stream())
+                    .map(ArtifactNode::getArtifactSnapshot)
+                    .toList();
+            if (artifacts.isEmpty()) {
+                return 0;
+            }
+
+            artifactService.doPersist(executionKey, root.getArtifactKey(), artifacts::iterator);
+            flushable.forEach(root::evictFlushed);
+            log.debug("Wrote behind {} artifacts in {} subtrees for execution {}",
+                    artifacts.size(), flushable.size(), executionKey);
+            return artifacts.size();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private void withWriteBehindLock(String executionKey, Runnable action) {
+        WriteBehindState state = writeBehindStates.get(executionKey);
+        if (state == null) {
+            action.run();
+            return;
+        }
+        state.lock.lock();
+        try {
+            action.run();
+        } finally {
+            state.lock.unlock();
+        }
     }
 
 
@@ -238,6 +331,7 @@ public class ArtifactTreeBuilder {
      */
     public void clearExecution(String executionKey) {
         executionTrees.remove(executionKey);
+        writeBehindStates.remove(executionKey);
         log.debug("Cleared execution state for: {}", executionKey);
     }
 
@@ -283,7 +377,36 @@ public class ArtifactTreeBuilder {
         // Find root (depth 1)
         return artifactMap.values().stream()
                 .filter(a -> a.artifactKey().isRoot())
-                .findFirst();
+                .findFirst()
+                .map(root -> resolveStubs(root, artifactMap));
+    }
+
+    /**
+     * Subtrees written behind appear in their ancestors' content as stubs; swap each stub for
+     * its own stored row, keeping any children that attached to the stub after it was written.
+     */
+    private com.hayden.acp_cdc_ai.acp.events.Artifact resolveStubs(
+            com.hayden.acp_cdc_ai.acp.events.Artifact artifact,
+            Map<String, com.hayden.acp_cdc_ai.acp.events.Artifact> artifactMap) {
+        com.hayden.acp_cdc_ai.acp.events.Artifact resolved = artifact;
+        List<com.hayden.acp_cdc_ai.acp.events.Artifact> children = new ArrayList<>(StreamUtil.toStream(artifact.children()).toList());
+        if (artifact instanceof com.hayden.acp_cdc_ai.acp.events.Artifact.PersistedArtifactStub stub
+                && artifactMap.get(stub.artifactKey().value()) instanceof com.hayden.acp_cdc_ai.acp.events.Artifact stored) {
+            resolved = stored;
+            List<com.hayden.acp_cdc_ai.acp.events.Artifact> storedChildren = new ArrayList<>(StreamUtil.toStream(stored.children()).toList());
+            Set<String> storedKeys = new HashSet<>();
+            storedChildren.forEach(c -> storedKeys.add(c.artifactKey().value()));
+            children.stream()
+                    .filter(c -> !storedKeys.contains(c.artifactKey().value()))
+                    .forEach(storedChildren::add);
+            children = storedChildren;
+        }
+        if (children.isEmpty()) {
+            return resolved;
+        }
+        return resolved.withChildren(children.stream()
+                .map(c -> resolveStubs(c, artifactMap))
+                .toList());
     }
 
     private com.hayden.acp_cdc_ai.acp.events.Artifact deserializeArtifact(ArtifactEntity entity) {
@@ -0,0 +1,88 @@
+package com.hayden.multiagentide.artifacts;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Drives write-behind persistence of running executions when
+ * {@link ArtifactPersistenceProperties#isWriteBehindEnabled()} is set.
+ *
+ * <p>A single virtual thread polls the active execution trees and runs a
+ * {@link ArtifactTreeBuilder#writeBehind} pass for any execution that has reached its
+ * maximum interval or node count. The final persist in
+ * {@link ArtifactEventListener#finishPersistRemove} still writes whatever is left.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArtifactWriteBehindScheduler {
+
+    private static final long MAX_POLL_MILLIS = 250;
+
+    private final ArtifactTreeBuilder treeBuilder;
+    private final ArtifactPersistenceProperties properties;
+
+    @Value("${artifacts.persistence.enabled:true}")
+    private boolean persistenceEnabled;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        if (!persistenceEnabled || !properties.isWriteBehindEnabled()) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofVirtual()
+                .name("artifact-write-behind")
+                .start(this::runLoop);
+        log.info("Artifact write-behind enabled: maxInterval={} maxNodes={} quietPeriod={}",
+                properties.getWriteBehindMaxInterval(),
+                properties.getWriteBehindMaxNodes(),
+                properties.getWriteBehindQuietPeriod());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void runLoop() {
+        long pollMillis = Math.max(10, Math.min(MAX_POLL_MILLIS, properties.getWriteBehindMaxInterval().toMillis()));
+        while (running) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            flushDueExecutions();
+        }
+    }
+
+    void flushDueExecutions() {
+        Duration maxInterval = properties.getWriteBehindMaxInterval();
+        int maxNodes = Math.max(1, properties.getWriteBehindMaxNodes());
+        Duration quietPeriod = properties.getWriteBehindQuietPeriod();
+        for (String executionKey : treeBuilder.activeExecutionKeys()) {
+            if (!treeBuilder.writeBehindDue(executionKey, maxInterval, maxNodes)) {
+                continue;
+            }
+            try {
+                treeBuilder.writeBehind(executionKey, quietPeriod);
+            } catch (Exception e) {
+                log.error("Write-behind failed for execution {}; will retry on the next pass", executionKey, e);
+            }
+        }
+    }
+}
@@ -85,6 +85,51 @@ public class EventArtifactMapper {
                 .build();
     }
     
+    /**
+     * Maps a coalesced run of stream deltas to a single MessageStreamArtifact keyed under the
+     * execution root, like event artifacts. The payload carries the merged text plus per-chunk
+     * offsets and event ids; it is hashed once for the whole segment.
+     */
+    public MessageStreamArtifact mapToStreamSegment(StreamArtifactCoalescer.StreamSegment segment) {
+        Events.GraphEvent first = segment.first();
+        ArtifactKey artifactKey = eventArtifactKey(first)
+                .orElseThrow(() -> new IllegalArgumentException("Event nodeId is not a valid ArtifactKey: " + first.nodeId()));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("eventType", first.eventType());
+        payload.put("eventId", first.eventId());
+        payload.put("nodeId", first.nodeId());
+        chatKey(first).ifPresent(chatKey -> payload.put("chatKey", chatKey.value()));
+        payload.put(StreamArtifactCoalescer.CONTENT, segment.content());
+        payload.put(StreamArtifactCoalescer.CHUNK_OFFSETS, segment.chunkOffsets());
+        payload.put(StreamArtifactCoalescer.CHUNK_EVENT_IDS, segment.chunkEventIds());
+        payload.put("chunkCount", segment.chunkOffsets().size());
+        payload.put("tokenCount", segment.tokenCount());
+        payload.put("firstTimestamp", first.timestamp() == null ? null : first.timestamp().toString());
+        payload.put("lastTimestamp", segment.lastTimestamp() == null ? null : segment.lastTimestamp().toString());
+        payload.put("isFinal", segment.isFinal());
+        String contentHash = ArtifactHashing.hashJson(payload);
+
+        return MessageStreamArtifact.builder()
+                .artifactKey(artifactKey)
+                .streamType(mapStreamType(first))
+                .nodeId(first.nodeId())
+                .eventTimestamp(first.timestamp())
+                .payloadJson(payload)
+                .hash(contentHash)
+                .metadata(Collections.synchronizedMap(new HashMap<>()))
+                .children(Collections.synchronizedList(new ArrayList<>()))
+                .build();
+    }
+
+    private Optional<ArtifactKey> chatKey(Events.GraphEvent event) {
+        return switch (event) {
+            case Events.NodeStreamDeltaEvent e -> Optional.ofNullable(e.chatKey());
+            case Events.NodeThoughtDeltaEvent e -> Optional.ofNullable(e.chatKey());
+            default -> Optional.empty();
+        };
+    }
+
     /**
      * Checks if the event is a stream-related event that should be mapped to MessageStreamArtifact.
      */
@@ -0,0 +1,235 @@
+package com.hayden.multiagentide.artifacts;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.acp_cdc_ai.acp.events.MessageStreamArtifact;
+import com.hayden.multiagentide.infrastructure.StreamDeltaCoalescing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges consecutive stream deltas for a node into windowed {@link MessageStreamArtifact}
+ * segments, so a streamed response becomes a handful of artifacts instead of one per token chunk.
+ *
+ * <p>Each node has at most one open segment. A delta extends it when
+ * {@link StreamDeltaCoalescing#canMerge} allows (same type, same chat, previous delta not final);
+ * otherwise the open segment is closed and a new one started. A segment is also closed once it
+ * reaches {@link ArtifactPersistenceProperties#getStreamSegmentMaxChars()} or
+ * {@link ArtifactPersistenceProperties#getStreamSegmentMaxChunks()}, or after
+ * {@link ArtifactPersistenceProperties#getStreamSegmentIdleTimeout()} without a delta.
+ *
+ * <p>Segments record the start offset and event id of every chunk they absorbed, so the
+ * original chunk sequence can be recovered with {@link #chunks(MessageStreamArtifact)}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StreamArtifactCoalescer {
+
+    public static final String CONTENT = "content";
+    public static final String CHUNK_OFFSETS = "chunkOffsets";
+    public static final String CHUNK_EVENT_IDS = "chunkEventIds";
+
+    private final EventArtifactMapper eventArtifactMapper;
+    private final ArtifactPersistenceProperties properties;
+
+    private final Map<String, OpenSegment> openByNode = new LinkedHashMap<>();
+
+    private long deltasReceived;
+    private long segmentsEmitted;
+
+    /**
+     * A closed run of merged deltas, ready to be mapped to an artifact.
+     */
+    public record StreamSegment(
+            Events.GraphEvent first,
+            String content,
+            List<Integer> chunkOffsets,
+            List<String> chunkEventIds,
+            int tokenCount,
+            Instant lastTimestamp,
+            boolean isFinal
+    ) {
+    }
+
+    /**
+     * Delta and segment counts since startup. Each segment is one artifact row and one content
+     * hash where each delta used to be one of each.
+     */
+    public record CoalescingStats(long deltasReceived, long segmentsEmitted) {
+        public double reduction() {
+            return deltasReceived == 0 ? 0.0 : 1.0 - (double) segmentsEmitted / deltasReceived;
+        }
+    }
+
+    /**
+     * Accepts a stream event and returns any artifacts it closed, in order. Deltas are buffered;
+     * other stream events (such as {@link Events.AddMessageEvent}) close the node's open segment
+     * and pass through as a single artifact, as do deltas whose node id is not an artifact key.
+     */
+    public synchronized List<MessageStreamArtifact> offer(Events.GraphEvent event) {
+        List<MessageStreamArtifact> closed = new ArrayList<>(2);
+        if (!StreamDeltaCoalescing.isDelta(event) || executionKeyOf(event.nodeId()) == null) {
+            closeNode(event.nodeId(), closed);
+            closed.add(eventArtifactMapper.mapToStreamArtifact(event));
+            return closed;
+        }
+
+        deltasReceived++;
+        OpenSegment open = openByNode.get(event.nodeId());
+        if (open != null && !StreamDeltaCoalescing.canMerge(open.last, event)) {
+            closeNode(event.nodeId(), closed);
+            open = null;
+        }
+        if (open == null) {
+            open = new OpenSegment(event);
+            openByNode.put(event.nodeId(), open);
+        }
+        open.append(event);
+
+        if (open.isFull() || StreamDeltaCoalescing.isFinal(event)) {
+            closeNode(event.nodeId(), closed);
+        }
+        return closed;
+    }
+
+    /**
+     * Closes every segment that has gone the idle timeout without a delta.
+     */
+    public List<MessageStreamArtifact> drainIdle() {
+        return drainIdle(System.nanoTime());
+    }
+
+    synchronized List<MessageStreamArtifact> drainIdle(long nowNanos) {
+        if (openByNode.isEmpty()) {
+            return List.of();
+        }
+        long cutoff = nowNanos - properties.getStreamSegmentIdleTimeout().toNanos();
+        List<MessageStreamArtifact> closed = new ArrayList<>();
+        Iterator<OpenSegment> it = openByNode.values().iterator();
+        while (it.hasNext()) {
+            OpenSegment open = it.next();
+            if (open.lastAppendNanos <= cutoff) {
+                it.remove();
+                closed.add(emit(open));
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Closes every open segment belonging to the execution, e.g. before it is persisted.
+     */
+    public synchronized List<MessageStreamArtifact> drainExecution(String executionKey) {
+        if (openByNode.isEmpty()) {
+            return List.of();
+        }
+        List<MessageStreamArtifact> closed = new ArrayList<>();
+        Iterator<OpenSegment> it = openByNode.values().iterator();
+        while (it.hasNext()) {
+            OpenSegment open = it.next();
+            if (executionKey.equals(open.executionKey)) {
+                it.remove();
+                closed.add(emit(open));
+            }
+        }
+        if (!closed.isEmpty()) {
+            CoalescingStats stats = stats();
+            log.debug("Closed {} stream segments for {}; {} deltas -> {} artifacts so far ({}% fewer rows and hashes)",
+                    closed.size(), executionKey, stats.deltasReceived(), stats.segmentsEmitted(),
+                    Math.round(stats.reduction() * 100));
+        }
+        return closed;
+    }
+
+    public synchronized CoalescingStats stats() {
+        return new CoalescingStats(deltasReceived, segmentsEmitted);
+    }
+
+    /**
+     * Splits a coalesced artifact back into the chunks it was built from.
+     */
+    public static List<String> chunks(MessageStreamArtifact artifact) {
+        Map<String, Object> payload = artifact.payloadJson();
+        Object content = payload == null ? null : payload.get(CONTENT);
+        Object offsets = payload == null ? null : payload.get(CHUNK_OFFSETS);
+        if (!(content instanceof String text) || !(offsets instanceof List<?> starts)) {
+            return List.of();
+        }
+        List<String> chunks = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            int start = ((Number) starts.get(i)).intValue();
+            int end = i + 1 < starts.size() ? ((Number) starts.get(i + 1)).intValue() : text.length();
+            chunks.add(text.substring(start, end));
+        }
+        return chunks;
+    }
+
+    private void closeNode(String nodeId, List<MessageStreamArtifact> closed) {
+        OpenSegment open = openByNode.remove(nodeId);
+        if (open != null) {
+            closed.add(emit(open));
+        }
+    }
+
+    private MessageStreamArtifact emit(OpenSegment open) {
+        segmentsEmitted++;
+        return eventArtifactMapper.mapToStreamSegment(new StreamSegment(
+                open.first,
+                open.content.toString(),
+                List.copyOf(open.offsets),
+                new ArrayList<>(open.eventIds),
+                open.tokenCount,
+                open.last.timestamp(),
+                StreamDeltaCoalescing.isFinal(open.last)));
+    }
+
+    private final class OpenSegment {
+        private final Events.GraphEvent first;
+        private final String executionKey;
+        private final StringBuilder content = new StringBuilder();
+        private final List<Integer> offsets = new ArrayList<>();
+        private final List<String> eventIds = new ArrayList<>();
+        private Events.GraphEvent last;
+        private int tokenCount;
+        private long lastAppendNanos;
+
+        private OpenSegment(Events.GraphEvent first) {
+            this.first = first;
+            this.executionKey = executionKeyOf(first.nodeId());
+        }
+
+        private void append(Events.GraphEvent event) {
+            offsets.add(content.length());
+            eventIds.add(event.eventId());
+            String text = StreamDeltaCoalescing.content(event);
+            if (text != null) {
+                content.append(text);
+            }
+            tokenCount += StreamDeltaCoalescing.tokenCount(event);
+            last = event;
+            lastAppendNanos = System.nanoTime();
+        }
+
+        private boolean isFull() {
+            return content.length() >= properties.getStreamSegmentMaxChars()
+                    || offsets.size() >= properties.getStreamSegmentMaxChunks();
+        }
+    }
+
+    private static String executionKeyOf(String nodeId) {
+        if (nodeId == null || !ArtifactKey.isValid(nodeId)) {
+            return null;
+        }
+        ArtifactKey key = new ArtifactKey(nodeId);
+        return key.isRoot() ? key.value() : key.root().value();
+    }
+}
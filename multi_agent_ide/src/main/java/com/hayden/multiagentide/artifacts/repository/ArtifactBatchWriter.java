@@ -0,0 +1,162 @@
+package com.hayden.multiagentide.artifacts.repository;
+
+import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC batch inserts for {@link ArtifactEntity}.
+ *
+ * <p>The artifact table uses an identity key, which stops Hibernate from batching inserts,
+ * so bulk writes of an execution tree go through here instead of {@link ArtifactRepository#saveAll}.
+ * Rows are inserted with one {@code executeBatch} per call, the generated ids are read back,
+ * and the child id collection is written with a second batch. Runs on the caller's transaction.
+ *
+ * <p>Table and column names are read from the Hibernate mapping of {@link ArtifactEntity} on
+ * first use, so the statements follow the entity and its naming strategy.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ArtifactBatchWriter {
+
+    /**
+     * Inserted properties, in the order their parameters are bound in {@link #insertArtifacts}.
+     */
+    private static final List<String> ARTIFACT_PROPERTIES = List.of(
+            "createdTime", "updatedTime", "artifactKey", "referencedArtifactKey", "parentKey",
+            "executionKey", "artifactType", "contentHash", "contentJson", "depth",
+            "templateStaticId", "shared", "schemaVersion");
+
+    private static final String CHILD_IDS_ROLE = ArtifactEntity.class.getName() + ".childIds";
+
+    record Statements(String insertArtifact, String idColumn, String insertChildId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Statements statements;
+
+    /**
+     * Inserts all entities and their child ids.
+     *
+     * @return number of artifact rows inserted
+     */
+    public int insertAll(List<ArtifactEntity> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        Statements sql = statements();
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            List<Long> ids = insertArtifacts(connection, sql, entities);
+            insertChildIds(connection, sql, entities, ids);
+            return ids.size();
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    private Statements statements() {
+        Statements current = statements;
+        if (current == null) {
+            current = statements(entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel());
+            statements = current;
+        }
+        return current;
+    }
+
+    static Statements statements(MappingMetamodel metamodel) {
+        var artifact = (AbstractEntityPersister) metamodel.getEntityDescriptor(ArtifactEntity.class);
+        String columns = ARTIFACT_PROPERTIES.stream()
+                .map(property -> artifact.getPropertyColumnNames(property)[0])
+                .collect(Collectors.joining(", "));
+        String parameters = ARTIFACT_PROPERTIES.stream()
+                .map(property -> "?")
+                .collect(Collectors.joining(", "));
+        var childIds = (AbstractCollectionPersister) metamodel.getCollectionDescriptor(CHILD_IDS_ROLE);
+        return new Statements(
+                "INSERT INTO %s (%s) VALUES (%s)".formatted(artifact.getTableName(), columns, parameters),
+                artifact.getIdentifierColumnNames()[0],
+                "INSERT INTO %s (%s, %s, %s) VALUES (?, ?, ?)".formatted(
+                        childIds.getTableName(),
+                        childIds.getKeyColumnNames()[0],
+                        childIds.getElementColumnNames()[0],
+                        childIds.getIndexColumnNames()[0]));
+    }
+
+    private List<Long> insertArtifacts(Connection connection, Statements sql,
+                                       List<ArtifactEntity> entities) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement ps = connection.prepareStatement(sql.insertArtifact(), new String[]{sql.idColumn()})) {
+            for (ArtifactEntity e : entities) {
+                ps.setTimestamp(1, now);
+                ps.setTimestamp(2, now);
+                ps.setString(3, e.getArtifactKey());
+                ps.setString(4, e.getReferencedArtifactKey());
+                ps.setString(5, e.getParentKey());
+                ps.setString(6, e.getExecutionKey());
+                ps.setString(7, e.getArtifactType());
+                ps.setString(8, e.getContentHash());
+                ps.setString(9, e.getContentJson());
+                ps.setInt(10, e.getDepth());
+                ps.setString(11, e.getTemplateStaticId());
+                ps.setBoolean(12, Boolean.TRUE.equals(e.getShared()));
+                ps.setString(13, e.getSchemaVersion());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            List<Long> ids = new ArrayList<>(entities.size());
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                while (keys.next()) {
+                    ids.add(keys.getLong(1));
+                }
+            }
+            if (ids.size() != entities.size()) {
+                throw new DataRetrievalFailureException(
+                        "Expected %d generated artifact ids but got %d".formatted(entities.size(), ids.size()));
+            }
+            return ids;
+        }
+    }
+
+    private void insertChildIds(Connection connection, Statements sql, List<ArtifactEntity> entities,
+                                List<Long> ids) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql.insertChildId())) {
+            int rows = 0;
+            for (int i = 0; i < entities.size(); i++) {
+                List<String> childIds = entities.get(i).getChildIds();
+                if (childIds == null) {
+                    continue;
+                }
+                for (int order = 0; order < childIds.size(); order++) {
+                    ps.setLong(1, ids.get(i));
+                    ps.setString(2, childIds.get(order));
+                    ps.setInt(3, order);
+                    ps.addBatch();
+                    rows++;
+                }
+            }
+            if (rows > 0) {
+                ps.executeBatch();
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,11 @@ public interface ArtifactRepository extends JpaRepository<ArtifactEntity, Long>,
      */
     Optional<ArtifactEntity> findByArtifactKey(String artifactKey);
     
+    /**
+     * Finds the artifacts with any of the given keys.
+     */
+    List<ArtifactEntity> findByArtifactKeyIn(Collection<String> artifactKeys);
+    
     /**
      * Checks if an artifact exists with the given key.
      */
@@ -50,6 +56,11 @@ public interface ArtifactRepository extends JpaRepository<ArtifactEntity, Long>,
      * Finds artifacts by content hash (for deduplication).
      */
     Optional<ArtifactEntity> findByContentHash(String contentHash);
+
+    /**
+     * Finds all artifacts whose content hash is in the given set (bulk deduplication lookup).
+     */
+    List<ArtifactEntity> findByContentHashIn(Collection<String> contentHashes);
     
     /**
      * Finds shared template artifacts by static ID and content hash.
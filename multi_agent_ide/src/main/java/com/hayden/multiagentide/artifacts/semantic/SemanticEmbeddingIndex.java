@@ -0,0 +1,466 @@
+package com.hayden.multiagentide.artifacts.semantic;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
+import com.hayden.multiagentide.artifacts.repository.ArtifactRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory cosine-similarity index over embedding {@link SemanticRepresentationEntity}s.
+ *
+ * <p>Embeddings are partitioned by model and dimension, since vectors from different models are
+ * not comparable. Each partition stores its vectors L2-normalized in one contiguous row-major
+ * {@code float[]}, so a search is a single linear scan of dot products with a bounded top-k.
+ * That stays in the low milliseconds for the tens of thousands of embeddings a workspace
+ * accumulates, without an external vector store.
+ *
+ * <p>Loaded from {@link SemanticRepresentationRepository} on startup (or on first search), then
+ * kept current by {@link SemanticRepresentationService}: attaches are indexed and deletes removed
+ * after commit. Artifact types are looked up from {@link ArtifactRepository}; artifacts that are
+ * not yet written (write-behind) are resolved on the next search that filters by type.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SemanticEmbeddingIndex {
+
+    /**
+     * Optional restrictions on search results. {@code executionKey} matches that artifact key
+     * and everything below it.
+     */
+    public record Filter(@Nullable String executionKey, @Nullable String artifactType) {
+
+        public static final Filter NONE = new Filter(null, null);
+
+        public static Filter execution(String executionKey) {
+            return new Filter(executionKey, null);
+        }
+
+        public static Filter artifactType(String artifactType) {
+            return new Filter(null, artifactType);
+        }
+    }
+
+    public record Match(String semanticKey, ArtifactKey targetArtifactKey, @Nullable String artifactType, float score) {}
+
+    public record Stats(int partitions, int vectors, long searches, double avgSearchMillis, double maxSearchMillis) {}
+
+    private record PartitionKey(String modelRef, int dimension) {}
+
+    /**
+     * Rows of one model's embeddings. Removal swaps the last row into the gap.
+     */
+    private static final class Partition {
+        private final int dimension;
+        private float[] vectors;
+        private String[] semanticKeys;
+        private String[] targetKeys;
+        private String[] artifactTypes;
+        private int size;
+        private final Map<String, Integer> rowBySemanticKey = new HashMap<>();
+
+        private Partition(int dimension) {
+            this.dimension = dimension;
+            int capacity = 16;
+            this.vectors = new float[capacity * dimension];
+            this.semanticKeys = new String[capacity];
+            this.targetKeys = new String[capacity];
+            this.artifactTypes = new String[capacity];
+        }
+
+        private void add(String semanticKey, String targetKey, @Nullable String artifactType, float[] normalized) {
+            if (size == semanticKeys.length) {
+                int capacity = size * 2;
+                vectors = Arrays.copyOf(vectors, capacity * dimension);
+                semanticKeys = Arrays.copyOf(semanticKeys, capacity);
+                targetKeys = Arrays.copyOf(targetKeys, capacity);
+                artifactTypes = Arrays.copyOf(artifactTypes, capacity);
+            }
+            System.arraycopy(normalized, 0, vectors, size * dimension, dimension);
+            semanticKeys[size] = semanticKey;
+            targetKeys[size] = targetKey;
+            artifactTypes[size] = artifactType;
+            rowBySemanticKey.put(semanticKey, size);
+            size++;
+        }
+
+        private void remove(int row) {
+            rowBySemanticKey.remove(semanticKeys[row]);
+            int last = size - 1;
+            if (row != last) {
+                System.arraycopy(vectors, last * dimension, vectors, row * dimension, dimension);
+                semanticKeys[row] = semanticKeys[last];
+                targetKeys[row] = targetKeys[last];
+                artifactTypes[row] = artifactTypes[last];
+                rowBySemanticKey.put(semanticKeys[row], row);
+            }
+            semanticKeys[last] = null;
+            targetKeys[last] = null;
+            artifactTypes[last] = null;
+            size = last;
+        }
+    }
+
+    private final SemanticRepresentationRepository repository;
+    private final ArtifactRepository artifactRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<PartitionKey, Partition> partitions = new HashMap<>();
+    private final Map<String, PartitionKey> partitionBySemanticKey = new HashMap<>();
+    private final Set<String> unresolvedTypes = new HashSet<>();
+    private volatile boolean loaded;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private final AtomicLong maxSearchNanos = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureLoaded();
+    }
+
+    /**
+     * Indexes an embedding; a no-op if {@code semanticKey} is already indexed.
+     */
+    public void add(String semanticKey, ArtifactKey targetArtifactKey, @Nullable String modelRef, float[] embedding) {
+        if (embedding == null || embedding.length == 0) {
+            return;
+        }
+        String artifactType = artifactRepository.findByArtifactKey(targetArtifactKey.value())
+                .map(ArtifactEntity::getArtifactType)
+                .orElse(null);
+        lock.writeLock().lock();
+        try {
+            addLocked(semanticKey, targetArtifactKey.value(), modelRef, artifactType, embedding);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the embedding once the current transaction commits, or now if there is none.
+     */
+    public void addAfterCommit(String semanticKey, ArtifactKey targetArtifactKey, @Nullable String modelRef, float[] embedding) {
+        afterCommit(() -> add(semanticKey, targetArtifactKey, modelRef, embedding));
+    }
+
+    /**
+     * Drops every embedding attached to the artifact once the current transaction commits, or
+     * now if there is none.
+     */
+    public void removeTargetAfterCommit(ArtifactKey targetArtifactKey) {
+        afterCommit(() -> removeTarget(targetArtifactKey));
+    }
+
+    public void removeTarget(ArtifactKey targetArtifactKey) {
+        String target = targetArtifactKey.value();
+        lock.writeLock().lock();
+        try {
+            for (Partition partition : partitions.values()) {
+                for (int row = partition.size - 1; row >= 0; row--) {
+                    if (target.equals(partition.targetKeys[row])) {
+                        partitionBySemanticKey.remove(partition.semanticKeys[row]);
+                        partition.remove(row);
+                    }
+                }
+            }
+            unresolvedTypes.remove(target);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code k} embeddings of {@code modelRef} most similar to {@code query}, best first.
+     */
+    public List<Match> search(@Nullable String modelRef, float[] query, int k, Filter filter) {
+        ensureLoaded();
+        if (query == null || query.length == 0 || k <= 0) {
+            return List.of();
+        }
+        if (filter.artifactType() != null) {
+            resolveArtifactTypes();
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(new PartitionKey(modelRef, query.length));
+            if (partition == null) {
+                return List.of();
+            }
+            float[] normalized = normalize(query);
+            return normalized == null ? List.of() : topK(partition, normalized, k, filter, null);
+        } finally {
+            lock.readLock().unlock();
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The {@code k} embeddings most similar to the latest indexed embedding of
+     * {@code targetArtifactKey}, excluding the artifact itself.
+     */
+    public List<Match> similarTo(ArtifactKey targetArtifactKey, int k, Filter filter) {
+        Optional<SemanticRepresentationEntity> latest = repository.findLatestByTargetAndType(
+                targetArtifactKey.value(), SemanticRepresentationEntity.PayloadType.EMBEDDING);
+        if (latest.isEmpty() || latest.get().getPayloadBinary() == null) {
+            return List.of();
+        }
+        ensureLoaded();
+        if (filter.artifactType() != null) {
+            resolveArtifactTypes();
+        }
+        float[] query = toFloats(latest.get().getPayloadBinary());
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(new PartitionKey(latest.get().getModelRef(), query.length));
+            float[] normalized = normalize(query);
+            if (partition == null || normalized == null) {
+                return List.of();
+            }
+            return topK(partition, normalized, k, filter, targetArtifactKey.value());
+        } finally {
+            lock.readLock().unlock();
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public Stats stats() {
+        int vectors;
+        int partitionCount;
+        lock.readLock().lock();
+        try {
+            partitionCount = partitions.size();
+            vectors = partitions.values().stream().mapToInt(p -> p.size).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = searches.get();
+        return new Stats(
+                partitionCount,
+                vectors,
+                count,
+                count == 0 ? 0.0 : searchNanos.get() / (double) count / 1_000_000.0,
+                maxSearchNanos.get() / 1_000_000.0);
+    }
+
+    void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<SemanticRepresentationEntity> embeddings =
+                    repository.findByPayloadType(SemanticRepresentationEntity.PayloadType.EMBEDDING);
+            Map<String, String> types = artifactTypes(embeddings.stream()
+                    .map(SemanticRepresentationEntity::getTargetArtifactKey)
+                    .toList());
+            lock.writeLock().lock();
+            try {
+                for (SemanticRepresentationEntity entity : embeddings) {
+                    if (entity.getPayloadBinary() == null) {
+                        continue;
+                    }
+                    addLocked(entity.getSemanticKey(), entity.getTargetArtifactKey(), entity.getModelRef(),
+                            types.get(entity.getTargetArtifactKey()), toFloats(entity.getPayloadBinary()));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = true;
+            log.info("Loaded {} embeddings into the semantic index in {} ms",
+                    embeddings.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void addLocked(String semanticKey, String targetKey, @Nullable String modelRef,
+                           @Nullable String artifactType, float[] embedding) {
+        if (partitionBySemanticKey.containsKey(semanticKey)) {
+            return;
+        }
+        float[] normalized = normalize(embedding);
+        if (normalized == null) {
+            return;
+        }
+        PartitionKey key = new PartitionKey(modelRef, embedding.length);
+        partitions.computeIfAbsent(key, k -> new Partition(k.dimension()))
+                .add(semanticKey, targetKey, artifactType, normalized);
+        partitionBySemanticKey.put(semanticKey, key);
+        if (artifactType == null) {
+            unresolvedTypes.add(targetKey);
+        }
+    }
+
+    private void resolveArtifactTypes() {
+        List<String> pending;
+        lock.readLock().lock();
+        try {
+            if (unresolvedTypes.isEmpty()) {
+                return;
+            }
+            pending = List.copyOf(unresolvedTypes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, String> types = artifactTypes(pending);
+        if (types.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Partition partition : partitions.values()) {
+                for (int row = 0; row < partition.size; row++) {
+                    if (partition.artifactTypes[row] == null) {
+                        partition.artifactTypes[row] = types.get(partition.targetKeys[row]);
+                    }
+                }
+            }
+            unresolvedTypes.removeAll(types.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<String, String> artifactTypes(Collection<String> targetKeys) {
+        if (targetKeys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> types = new HashMap<>();
+        for (ArtifactEntity artifact : artifactRepository.findByArtifactKeyIn(new HashSet<>(targetKeys))) {
+            if (artifact.getArtifactType() != null) {
+                types.put(artifact.getArtifactKey(), artifact.getArtifactType());
+            }
+        }
+        return types;
+    }
+
+    private static List<Match> topK(Partition partition, float[] query, int k, Filter filter, @Nullable String excludeTarget) {
+        String execution = filter.executionKey();
+        String executionPrefix = execution == null ? null : execution + "/";
+        String type = filter.artifactType();
+        int dimension = partition.dimension;
+
+        int[] rows = new int[k];
+        float[] scores = new float[k];
+        int found = 0;
+        for (int row = 0; row < partition.size; row++) {
+            String target = partition.targetKeys[row];
+            if (execution != null && !target.equals(execution) && !target.startsWith(executionPrefix)) {
+                continue;
+            }
+            if (type != null && !type.equals(partition.artifactTypes[row])) {
+                continue;
+            }
+            if (excludeTarget != null && excludeTarget.equals(target)) {
+                continue;
+            }
+            float score = dot(partition.vectors, row * dimension, query, dimension);
+            if (found == k && score <= scores[k - 1]) {
+                continue;
+            }
+            int i = found < k ? found++ : k - 1;
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                rows[i] = rows[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            rows[i] = row;
+        }
+
+        List<Match> matches = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            int row = rows[i];
+            matches.add(new Match(partition.semanticKeys[row], new ArtifactKey(partition.targetKeys[row]),
+                    partition.artifactTypes[row], scores[i]));
+        }
+        return matches;
+    }
+
+    /**
+     * Four independent accumulators so the JIT can keep several multiply-adds in flight and
+     * vectorize the loop.
+     */
+    static float dot(float[] vectors, int offset, float[] query, int dimension) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += vectors[offset + i] * query[i];
+            s1 += vectors[offset + i + 1] * query[i + 1];
+            s2 += vectors[offset + i + 2] * query[i + 2];
+            s3 += vectors[offset + i + 3] * query[i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += vectors[offset + i] * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * @return the unit vector, or null for a zero vector
+     */
+    static float @Nullable [] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * Same big-endian layout as {@link SemanticRepresentationService} writes.
+     */
+    private static float[] toFloats(byte[] bytes) {
+        FloatBuffer buffer = ByteBuffer.wrap(bytes).asFloatBuffer();
+        float[] floats = new float[buffer.remaining()];
+        buffer.get(floats);
+        return floats;
+    }
+
+    private void record(long nanos) {
+        searches.incrementAndGet();
+        searchNanos.addAndGet(nanos);
+        maxSearchNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -33,6 +33,11 @@ public interface SemanticRepresentationRepository extends JpaRepository<Semantic
             SemanticRepresentationEntity.PayloadType payloadType
     );
     
+    /**
+     * Find all representations of a payload type, e.g. every embedding for the vector index.
+     */
+    List<SemanticRepresentationEntity> findByPayloadType(SemanticRepresentationEntity.PayloadType payloadType);
+    
     /**
      * Find representations for artifacts with a specific key prefix.
      * Useful for finding all semantics within an execution tree.
@@ -28,6 +28,7 @@ public class SemanticRepresentationService {
     
     private final SemanticRepresentationRepository repository;
     private final ObjectMapper objectMapper;
+    private final SemanticEmbeddingIndex embeddingIndex;
     
     /**
      * Attaches a semantic representation to an artifact.
@@ -47,6 +48,11 @@ public class SemanticRepresentationService {
         
         SemanticRepresentationEntity entity = toEntity(representation);
         repository.save(entity);
+        if (representation.payloadType() == SemanticRepresentation.PayloadType.EMBEDDING
+                && representation.payload() instanceof float[] embedding) {
+            embeddingIndex.addAfterCommit(representation.semanticKey(), representation.targetArtifactKey(),
+                    representation.modelRef(), embedding);
+        }
         
         log.info("Attached SemanticRepresentation {} to artifact {}", 
                 representation.semanticKey(), 
@@ -157,6 +163,29 @@ public class SemanticRepresentationService {
                 .toList();
     }
     
+    /**
+     * Embeddings of the same model most similar to {@code embedding}, best first.
+     */
+    public List<SemanticEmbeddingIndex.Match> findSimilar(
+            String modelRef,
+            float[] embedding,
+            int k,
+            SemanticEmbeddingIndex.Filter filter
+    ) {
+        return embeddingIndex.search(modelRef, embedding, k, filter);
+    }
+    
+    /**
+     * Artifacts whose embeddings are most similar to the artifact's latest embedding.
+     */
+    public List<SemanticEmbeddingIndex.Match> findSimilar(
+            ArtifactKey artifactKey,
+            int k,
+            SemanticEmbeddingIndex.Filter filter
+    ) {
+        return embeddingIndex.similarTo(artifactKey, k, filter);
+    }
+    
     /**
      * Checks if a representation already exists for an artifact with a specific recipe.
      */
@@ -178,6 +207,7 @@ public class SemanticRepresentationService {
     @Transactional
     public void deleteForArtifact(ArtifactKey artifactKey) {
         repository.deleteByTargetArtifactKey(artifactKey.value());
+        embeddingIndex.removeTargetAfterCommit(artifactKey);
         log.info("Deleted all SemanticRepresentations for artifact {}", artifactKey);
     }
     
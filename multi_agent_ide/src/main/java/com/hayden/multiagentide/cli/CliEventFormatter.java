@@ -151,6 +151,15 @@ public class CliEventFormatter {
                         "action=" + summarize(normalizedArgs, e.actionName()) + " session=" + summarize(normalizedArgs, e.sessionKey())
                                 + " requestCtx=" + summarize(normalizedArgs, e.requestContextId())
                                 + " startNodeId=" + summarize(normalizedArgs, e.startNodeId()));
+                case Events.DispatchChildStartedEvent e -> format(normalizedArgs, "DISPATCH", e,
+                        "agent=" + summarize(normalizedArgs, e.dispatchAgentName())
+                                + " child=" + e.childIndex() + "/" + e.childCount()
+                                + " parallel=" + e.parallel());
+                case Events.DispatchChildCompletedEvent e -> format(normalizedArgs, "DISPATCH", e,
+                        "agent=" + summarize(normalizedArgs, e.dispatchAgentName())
+                                + " child=" + e.childIndex()
+                                + " outcome=" + e.outcome()
+                                + " durationMs=" + e.durationMs());
                 case Events.NullResultEvent e -> format(normalizedArgs, "NULL_RESULT", e,
                         "session=" + summarize(normalizedArgs, e.sessionKey()) + " retry=" + e.retryCount() + "/" + e.maxRetries());
                 case Events.IncompleteJsonEvent e -> format(normalizedArgs, "INCOMPLETE_JSON", e,
@@ -163,6 +172,12 @@ public class CliEventFormatter {
                         "session=" + summarize(normalizedArgs, e.sessionKey())
                                 + " action=" + summarize(normalizedArgs, e.actionName())
                                 + " rawOutput=" + summarize(normalizedArgs, e.rawOutput()));
+                case Events.ArtifactsPersistedEvent e -> format(normalizedArgs, "ARTIFACTS", e,
+                        "execution=" + summarize(normalizedArgs, e.executionKey())
+                                + " artifacts=" + e.artifactCount()
+                                + " originals=" + e.originalsInserted()
+                                + " refs=" + e.refsInserted()
+                                + " durationMs=" + e.durationMs());
             };
     }
 
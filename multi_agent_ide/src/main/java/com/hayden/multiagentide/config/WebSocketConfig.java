@@ -76,7 +76,7 @@ public class WebSocketConfig implements WebSocketConfigurer {
         @Override
         protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
             // Echo back for now; can implement command handling here
-            session.sendMessage(new TextMessage("Event stream connected"));
+            eventAdapter.sendText(session, "Event stream connected");
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.hayden.multiagentide.controller;
 
+import com.hayden.acp_cdc_ai.acp.AcpFileCache;
+import com.hayden.acp_cdc_ai.acp.AcpProcessPool;
 import jakarta.validation.Valid;
 import com.hayden.multiagentide.service.AgentControlService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -8,6 +10,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/agents")
 @RequiredArgsConstructor
@@ -15,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 public class AgentControlController {
 
     private final AgentControlService agentControlService;
+    private final AcpProcessPool acpProcessPool;
+    private final AcpFileCache acpFileCache;
 
     @Schema(description = "Request targeting an agent node for a control action.")
     public record ControlActionRequest(
@@ -94,4 +100,20 @@ public class AgentControlController {
         return new ControlActionResponse(actionId, "queued");
     }
 
+    @GetMapping("/acp-processes/stats")
+    @Operation(summary = "ACP agent process pool state and startup latency histograms",
+            description = "Warm and starting processes per launch profile, warm hits versus cold starts, "
+                    + "and histograms of process startup and of the time sessions waited for a process.")
+    public AcpProcessPool.Stats acpProcessStats() {
+        return acpProcessPool.stats();
+    }
+
+    @GetMapping("/acp-file-cache/stats")
+    @Operation(summary = "ACP file read cache statistics per worktree",
+            description = "Indexed files, cached content bytes, hit/miss/invalidation counts, hit rate, "
+                    + "and bytes read from disk for fsReadTextFile calls made by ACP agents.")
+    public List<AcpFileCache.Stats> acpFileCacheStats() {
+        return acpFileCache.stats();
+    }
+
 }
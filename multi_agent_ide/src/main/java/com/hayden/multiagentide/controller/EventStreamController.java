@@ -1,15 +1,24 @@
 package com.hayden.multiagentide.controller;
 
+import com.hayden.acp_cdc_ai.acp.events.EventBus;
 import com.hayden.multiagentide.adapter.SseEventAdapter;
+import com.hayden.multiagentide.adapter.WebSocketClientChannel;
+import com.hayden.multiagentide.adapter.WebSocketEventAdapter;
+import com.hayden.multiagentide.infrastructure.AsyncListenerQueue;
+import com.hayden.multiagentide.infrastructure.DefaultEventBus;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/events")
 @RequiredArgsConstructor
@@ -19,10 +28,37 @@ public class EventStreamController {
     private static final String CONTROLLER_ID = "EventStreamController";
 
     private final SseEventAdapter sseEventAdapter;
+    private final EventBus eventBus;
+    private final WebSocketEventAdapter webSocketEventAdapter;
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    @Operation(summary = "Stream all graph events via SSE")
-    public SseEmitter streamEvents() {
-        return sseEventAdapter.registerEmitter(event -> true, CONTROLLER_ID);
+    @Operation(summary = "Stream all graph events via SSE",
+            description = "Each event carries its server epoch and sequence number as its SSE id. Reconnecting "
+                    + "clients send it back as Last-Event-ID (or the cursor parameter) to receive only the events "
+                    + "they missed; an id from before a server restart gets the full history instead. "
+                    + "Pass nodeId to limit the stream, including the initial history, to that node and its descendants.")
+    public SseEmitter streamEvents(
+            @RequestParam(required = false) String nodeId,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return sseEventAdapter.registerEmitter(
+                event -> true,
+                CONTROLLER_ID,
+                nodeId,
+                lastEventId != null ? lastEventId : cursor);
+    }
+
+    @GetMapping("/bus/stats")
+    @Operation(summary = "Queue depth and lag for listeners receiving events asynchronously")
+    public List<AsyncListenerQueue.Stats> busStats() {
+        return eventBus instanceof DefaultEventBus defaultEventBus
+                ? defaultEventBus.asyncListenerStats()
+                : List.of();
+    }
+
+    @GetMapping("/ws/stats")
+    @Operation(summary = "Queue depth, dropped and coalesced frames, and send latency per websocket client")
+    public List<WebSocketClientChannel.Stats> webSocketStats() {
+        return webSocketEventAdapter.clientStats();
     }
 }
@@ -12,6 +12,7 @@ import com.hayden.multiagentide.filter.service.LayerIdResolver;
 import com.hayden.multiagentide.propagation.service.PropagationItemService;
 import com.hayden.multiagentide.repository.EventStreamRepository;
 import com.hayden.multiagentide.repository.GraphRepository;
+import com.hayden.multiagentide.repository.WorkflowRevisions;
 import com.hayden.multiagentide.transformation.integration.ControllerEndpointTransformationIntegration;
 import com.hayden.multiagentide.ui.shared.SharedUiInteractionService;
 import com.hayden.multiagentide.ui.shared.UiActionCommand;
@@ -21,7 +22,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
@@ -36,6 +39,7 @@ import java.util.Objects;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 
 @RestController
 @RequestMapping("/api/ui")
@@ -56,6 +60,7 @@ public class LlmDebugUiController {
     private final OrchestrationController orchestrationController;
     private final ControllerEndpointTransformationIntegration controllerEndpointTransformationIntegration;
     private final PropagationItemService propagationItemService;
+    private final WorkflowRevisions workflowRevisions;
 
     @PostMapping("/nodes/state")
     @Operation(summary = "Get current UI state snapshot for a node",
@@ -180,23 +185,9 @@ public class LlmDebugUiController {
         int safeTruncate = truncate < 0 ? truncate : Math.max(80, Math.min(10_000, truncate));
         String controllerLayerId = controllerLayerId();
 
-        List<Events.GraphEvent> scopedEvents = eventStreamRepository.list().stream()
-                .filter(Objects::nonNull)
-                .filter(event -> matchesNodeScope(nodeId, event.nodeId()))
-                .sorted(Comparator.comparing(Events.GraphEvent::timestamp)
-                        .thenComparing(Events.GraphEvent::eventId, Comparator.nullsLast(String::compareTo)))
-                .toList();
-
-        int offset;
-        if ("desc".equalsIgnoreCase(sort) && cursor == null) {
-            offset = Math.max(0, scopedEvents.size() - safeLimit);
-        } else {
-            offset = parseCursor(cursor);
-        }
-
-        int toIndex = Math.min(scopedEvents.size(), offset + safeLimit);
-        List<Events.GraphEvent> pageEvents = offset >= scopedEvents.size() ? List.of() : scopedEvents.subList(offset, toIndex);
-        List<UiEventSummary> items = pageEvents.stream()
+        EventStreamRepository.EventPage page = eventStreamRepository.pageScoped(
+                nodeId, cursor, safeLimit, "desc".equalsIgnoreCase(sort));
+        List<UiEventSummary> items = page.events().stream()
                 .map(event -> new UiEventSummary(
                         event.eventId(),
                         event.nodeId(),
@@ -206,11 +197,11 @@ public class LlmDebugUiController {
                 ))
                 .toList();
 
-        String nextCursor = toIndex < scopedEvents.size() ? Integer.toString(toIndex) : null;
+        String nextCursor = page.nextCursor();
         return new UiEventPage(
                 items,
                 new PageMeta(safeLimit, cursor, nextCursor, nextCursor != null),
-                scopedEvents.size()
+                page.total()
         );
     }
 
@@ -259,11 +250,14 @@ public class LlmDebugUiController {
                     + "nodeId scope (node and all descendants) in real time. Events are delivered as-is (not formatted). "
                     + "The SSE connection stays open until the client disconnects. "
                     + "See SseEventAdapter for connection management and keep-alive behavior.")
-    public SseEmitter stream(@RequestBody @Valid NodeIdRequest request) {
+    public SseEmitter stream(@RequestBody @Valid NodeIdRequest request,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         String nodeId = request.nodeId();
         return sseEventAdapter.registerEmitter(
                 event -> matchesNodeScope(nodeId, event.nodeId()),
-                CONTROLLER_ID
+                CONTROLLER_ID,
+                nodeId,
+                lastEventId
         );
     }
 
@@ -273,8 +267,13 @@ public class LlmDebugUiController {
                     + "with per-node metrics (event counts, pending items, route-back counts). "
                     + "metrics.pendingItems surfaces PERMISSION, INTERRUPT, REVIEW, and PROPAGATION blocked states. "
                     + "The response may be transformed by active ControllerEndpointTransformationIntegration policies. "
-                    + "Use errorWindowSeconds to control the recent-error time window (default 180s, range [30, 3600]).")
-    public Object workflowGraph(@RequestBody @Valid WorkflowGraphRequest request) {
+                    + "Use errorWindowSeconds to control the recent-error time window (default 180s, range [30, 3600]). "
+                    + "Every response carries the run's epoch and revision and an ETag; send the ETag as If-None-Match "
+                    + "to get 304 when nothing changed, or send epoch and sinceRevision to get only the nodes changed "
+                    + "since then.")
+    public ResponseEntity<Object> workflowGraph(
+            @RequestBody @Valid WorkflowGraphRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         String nodeId = request.nodeId();
         int errorWindowSeconds = request.errorWindowSeconds() <= 0 ? 180 : request.errorWindowSeconds();
 
@@ -283,11 +282,37 @@ public class LlmDebugUiController {
         Instant now = Instant.now();
         Instant errorWindowStart = now.minusSeconds(safeErrorWindowSeconds);
 
-        Map<String, GraphNode> allNodes = graphRepository.findSubtree(rootNodeId);
+        // Read the revision before anything else: changes made while this response is built
+        // are stamped after it and show up in the next delta.
+        WorkflowRevisions.Revision current = workflowRevisions.revision(rootNodeId);
+        long revision = current.revision();
 
         EventStreamRepository.ScopedEventStats globalStats =
                 eventStreamRepository.computeScopedStats(rootNodeId, errorWindowStart);
 
+        // Recent errors age out of the window without a new revision, so they are part of the tag.
+        String etag = "\"" + rootNodeId + ":" + current.epoch() + ":" + revision + ":" + safeErrorWindowSeconds
+                + ":" + globalStats.recentErrorCount() + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(NOT_MODIFIED).eTag(etag).build();
+        }
+
+        if (request.sinceRevision() != null) {
+            WorkflowRevisions.Changes changes =
+                    workflowRevisions.changedSince(rootNodeId, request.epoch(), request.sinceRevision());
+            if (changes.complete() && changes.epoch().equals(current.epoch())) {
+                WorkflowGraphDelta delta = workflowGraphDelta(
+                        nodeId, rootNodeId, now, current.epoch(), request.sinceRevision(), revision, changes,
+                        graphStats(globalStats, null, safeErrorWindowSeconds, null));
+                // Same endpoint id as the full tree, so its filter and redaction policies cover deltas.
+                return ResponseEntity.ok().eTag(etag).body(controllerEndpointTransformationIntegration
+                        .maybeTransform(CONTROLLER_ID, "workflowGraph", delta)
+                        .body());
+            }
+        }
+
+        Map<String, GraphNode> allNodes = graphRepository.findSubtree(rootNodeId);
+
         Map<String, EventStreamRepository.NodeEventMetrics> metricsMap = new LinkedHashMap<>();
         for (String nid : allNodes.keySet()) {
             eventStreamRepository.computeMetrics(nid).ifPresent(m -> metricsMap.put(nid, m));
@@ -302,13 +327,67 @@ public class LlmDebugUiController {
             }
         }
 
-        WorkflowNode root = buildWorkflowNode(rootNodeId, allNodes, metricsMap);
+        WorkflowNode root = buildWorkflowNode(rootNodeId, allNodes, metricsMap, true);
+
+        WorkflowGraphStats stats = graphStats(globalStats, allNodes.size(), safeErrorWindowSeconds, errorsByAction);
+
+        WorkflowGraphResponse response =
+                new WorkflowGraphResponse(nodeId, rootNodeId, now, current.epoch(), revision, stats, root);
+        return ResponseEntity.ok().eTag(etag).body(controllerEndpointTransformationIntegration
+                .maybeTransform(CONTROLLER_ID, "workflowGraph", response)
+                .body());
+    }
+
+    /**
+     * Changed nodes are built without their subtrees, from the node, its direct children and
+     * its own metrics, so the cost follows the number of changed nodes.
+     */
+    private WorkflowGraphDelta workflowGraphDelta(String requestedNodeId,
+                                                  String rootNodeId,
+                                                  Instant now,
+                                                  String epoch,
+                                                  long sinceRevision,
+                                                  long revision,
+                                                  WorkflowRevisions.Changes changes,
+                                                  WorkflowGraphStats stats) {
+        List<WorkflowNode> changedNodes = new ArrayList<>();
+        for (String changedId : changes.changedNodeIds()) {
+            GraphNode gn = graphRepository.findById(changedId).orElse(null);
+            if (gn == null) {
+                // Event scopes that are not graph nodes, e.g. chat sessions.
+                continue;
+            }
+            Map<String, GraphNode> nodes = new LinkedHashMap<>();
+            nodes.put(changedId, gn);
+            for (String childId : gn.childNodeIds()) {
+                graphRepository.findById(childId).ifPresent(child -> nodes.put(childId, child));
+            }
+            Map<String, EventStreamRepository.NodeEventMetrics> metricsMap = new LinkedHashMap<>();
+            eventStreamRepository.computeMetrics(changedId).ifPresent(m -> metricsMap.put(changedId, m));
+            changedNodes.add(buildWorkflowNode(changedId, nodes, metricsMap, false));
+        }
+        return new WorkflowGraphDelta(
+                requestedNodeId,
+                rootNodeId,
+                now,
+                epoch,
+                sinceRevision,
+                revision,
+                stats,
+                changedNodes,
+                List.copyOf(changes.removedNodeIds())
+        );
+    }
 
-        WorkflowGraphStats stats = new WorkflowGraphStats(
+    private static WorkflowGraphStats graphStats(EventStreamRepository.ScopedEventStats globalStats,
+                                                 Integer totalNodes,
+                                                 int errorWindowSeconds,
+                                                 Map<String, Integer> errorsByAction) {
+        return new WorkflowGraphStats(
                 globalStats.totalEvents(),
-                allNodes.size(),
+                totalNodes,
                 globalStats.eventTypeCounts(),
-                safeErrorWindowSeconds,
+                errorWindowSeconds,
                 globalStats.recentErrorCount(),
                 globalStats.recentErrorsByNodeType(),
                 errorsByAction,
@@ -317,11 +396,6 @@ public class LlmDebugUiController {
                 globalStats.totalThoughtTokens(),
                 globalStats.totalStreamTokens()
         );
-
-        WorkflowGraphResponse response = new WorkflowGraphResponse(nodeId, rootNodeId, now, stats, root);
-        return controllerEndpointTransformationIntegration
-                .maybeTransform(CONTROLLER_ID, "workflowGraph", response)
-                .body();
     }
 
     @PostMapping("/workflow-graph/status")
@@ -354,10 +428,15 @@ public class LlmDebugUiController {
             long totalEvents
     ) {}
 
+    /**
+     * @param includeChildren false to leave {@code children} empty; pending items still come
+     *                        from the direct children, which {@code allNodes} must contain
+     */
     private WorkflowNode buildWorkflowNode(
             String nid,
             Map<String, GraphNode> allNodes,
-            Map<String, EventStreamRepository.NodeEventMetrics> metricsMap
+            Map<String, EventStreamRepository.NodeEventMetrics> metricsMap,
+            boolean includeChildren
     ) {
         GraphNode gn = allNodes.get(nid);
         if (gn == null) return null;
@@ -379,7 +458,7 @@ public class LlmDebugUiController {
                         "Permission requested for tool call " + perm.toolCallId()
                                 + ". Resolve with: resolve-permission --id " + perm.toolCallId() + " --option-type ALLOW_ONCE"
                 ));
-                children.add(buildWorkflowNode(childId, allNodes, metricsMap));
+                children.add(childNode(childId, allNodes, metricsMap, includeChildren));
             } else if (child instanceof InterruptNode interrupt) {
                 InterruptContext ctx = interrupt.interruptContext();
                 if (ctx.status() == InterruptContext.InterruptStatus.RESOLVED
@@ -391,7 +470,7 @@ public class LlmDebugUiController {
                                 + ". Resolve with: resolve-interrupt --id " + interrupt.nodeId()
                                 + " --origin-node-id " + ctx.originNodeId()
                 ));
-                children.add(buildWorkflowNode(childId, allNodes, metricsMap));
+                children.add(childNode(childId, allNodes, metricsMap, includeChildren));
             } else if (child instanceof ReviewNode review) {
                 InterruptContext ctx = review.interruptContext();
                 if (ctx != null && ctx.status() != InterruptContext.InterruptStatus.RESOLVED
@@ -402,9 +481,9 @@ public class LlmDebugUiController {
                                     + "). Review content at node " + review.nodeId()
                     ));
                 }
-                children.add(buildWorkflowNode(childId, allNodes, metricsMap));
+                children.add(childNode(childId, allNodes, metricsMap, includeChildren));
             } else {
-                children.add(buildWorkflowNode(childId, allNodes, metricsMap));
+                children.add(childNode(childId, allNodes, metricsMap, includeChildren));
             }
         }
 
@@ -448,6 +527,13 @@ public class LlmDebugUiController {
         );
     }
 
+    private WorkflowNode childNode(String childId,
+                                   Map<String, GraphNode> allNodes,
+                                   Map<String, EventStreamRepository.NodeEventMetrics> metricsMap,
+                                   boolean includeChildren) {
+        return includeChildren ? buildWorkflowNode(childId, allNodes, metricsMap, true) : null;
+    }
+
     private static String actionName(GraphNode gn) {
         return switch (gn) {
             case OrchestratorNode ignored -> "orchestrator";
@@ -481,17 +567,6 @@ public class LlmDebugUiController {
         return layerIdResolver.resolveForController(CONTROLLER_ID).orElse(null);
     }
 
-    private int parseCursor(String cursor) {
-        if (cursor == null || cursor.isBlank()) {
-            return 0;
-        }
-        try {
-            return Math.max(0, Integer.parseInt(cursor));
-        } catch (NumberFormatException ignored) {
-            return 0;
-        }
-    }
-
     private boolean matchesNodeScope(String scopeNodeId, String eventNodeId) {
         if (scopeNodeId == null || scopeNodeId.isBlank() || eventNodeId == null || eventNodeId.isBlank()) {
             return false;
@@ -581,11 +656,12 @@ public class LlmDebugUiController {
     public record NodeEventsRequest(
             @Schema(description = "ArtifactKey scoping the query to this node and all descendants") String nodeId,
             @Schema(description = "Max events per page (default 50, clamped to [1, 500])") int limit,
-            @Schema(description = "Opaque cursor from previous page's nextCursor for forward pagination") String cursor,
+            @Schema(description = "Opaque cursor from previous page's nextCursor; continues in the same sort order "
+                    + "and is unaffected by events arriving between pages") String cursor,
             @Schema(description = "Max characters for each event summary field (default 180, positive values clamped to [80, 10000]). "
                     + "Pass any negative value (e.g. -1) to disable truncation and return full event text. "
                     + "0 is treated as the default (180). Controls CliEventFormatter.summarize() truncation length.") int truncate,
-            @Schema(description = "Sort order: 'asc' (default) or 'desc'. Desc without cursor starts from latest events.") String sort
+            @Schema(description = "Sort order: 'asc' (default, oldest first) or 'desc' (newest first, paging towards older events).") String sort
     ) {
     }
 
@@ -606,8 +682,16 @@ public class LlmDebugUiController {
     @Schema(description = "Request for the workflow graph tree. This is the primary polling endpoint.")
     public record WorkflowGraphRequest(
             @Schema(description = "ArtifactKey — automatically resolved to the root node for tree construction") String nodeId,
-            @Schema(description = "Seconds to look back for recent errors (default 180, range [30, 3600])") int errorWindowSeconds
+            @Schema(description = "Seconds to look back for recent errors (default 180, range [30, 3600])") int errorWindowSeconds,
+            @Schema(description = "Revision from a previous response. When set together with that response's epoch, "
+                    + "returns a WorkflowGraphDelta with only the nodes changed since then; falls back to the full "
+                    + "tree if the epoch or revision is unknown to this server (e.g. after a restart, or once the "
+                    + "run was compacted).") Long sinceRevision,
+            @Schema(description = "Epoch from the response sinceRevision was taken from") String epoch
     ) {
+        public WorkflowGraphRequest(String nodeId, int errorWindowSeconds) {
+            this(nodeId, errorWindowSeconds, null, null);
+        }
     }
 
     public record UiEventSummary(String eventId, String nodeId, String eventType, Instant timestamp, String summary) {
@@ -633,14 +717,32 @@ public class LlmDebugUiController {
             String requestedNodeId,
             String rootNodeId,
             Instant capturedAt,
+            String epoch,
+            long revision,
             WorkflowGraphStats stats,
             WorkflowNode root
     ) {
     }
 
+    @Schema(description = "Nodes changed since sinceRevision. Each changed node is sent without its children "
+            + "(children is empty) and replaces the node with the same nodeId under its parentNodeId. "
+            + "stats.totalNodes and stats.errorsByAction are null; they are only computed for the full tree.")
+    public record WorkflowGraphDelta(
+            String requestedNodeId,
+            String rootNodeId,
+            Instant capturedAt,
+            String epoch,
+            long sinceRevision,
+            long revision,
+            WorkflowGraphStats stats,
+            List<WorkflowNode> changedNodes,
+            List<String> removedNodeIds
+    ) {
+    }
+
     public record WorkflowGraphStats(
             int totalEvents,
-            int totalNodes,
+            Integer totalNodes,
             Map<String, Integer> eventTypeCounts,
             int errorWindowSeconds,
             int recentErrorCount,
@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import com.hayden.multiagentide.filter.controller.dto.*;
 import com.hayden.multiagentide.filter.repository.LayerEntity;
 import com.hayden.multiagentide.filter.repository.PolicyRegistrationEntity;
+import com.hayden.multiagentide.filter.service.CompiledPolicyIndex;
 import com.hayden.multiagentide.filter.service.FilterAttachableCatalogService;
 import com.hayden.multiagentide.filter.service.LayerService;
 import com.hayden.multiagentide.filter.service.PolicyDiscoveryService;
@@ -34,6 +35,7 @@ public class FilterPolicyController {
     private final FilterDecisionQueryService filterDecisionQueryService;
     private final LayerService layerService;
     private final FilterAttachableCatalogService filterAttachableCatalogService;
+    private final CompiledPolicyIndex compiledPolicyIndex;
 
     // ── US1: Discovery ───────────────────────────────────────────────
 
@@ -110,6 +112,14 @@ public class FilterPolicyController {
         return ResponseEntity.ok(filterAttachableCatalogService.readAttachableTargets());
     }
 
+    @GetMapping("/policies/index/stats")
+    @Operation(summary = "Read policy index statistics",
+            description = "Returns hit/miss/rebuild counters for the in-memory layer-keyed policy index "
+                    + "used by filter execution, plus the number of indexed policies and layers.")
+    public ResponseEntity<CompiledPolicyIndex.IndexStats> getPolicyIndexStats() {
+        return ResponseEntity.ok(compiledPolicyIndex.stats());
+    }
+
     @PostMapping("/json-path-filters/policies")
     @Operation(summary = "Register a JSON path filter policy",
             description = "Registers a filter using JSON_PATH expressions (JsonPath syntax, root is $). "
@@ -0,0 +1,268 @@
+package com.hayden.multiagentide.filter.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hayden.acp_cdc_ai.acp.filter.FilterEnums;
+import com.hayden.multiagentide.filter.model.policy.PolicyLayerBinding;
+import com.hayden.multiagentide.filter.repository.LayerEntity;
+import com.hayden.multiagentide.filter.repository.LayerRepository;
+import com.hayden.multiagentide.filter.repository.PolicyRegistrationEntity;
+import com.hayden.multiagentide.filter.repository.PolicyRegistrationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * In-memory index of ACTIVE policies keyed by layerId.
+ *
+ * <p>Built from one load of all layers and all ACTIVE policy registrations. Layer
+ * inheritance is resolved once per layer (same walk as {@link LayerService#getEffectiveLayers}),
+ * layer bindings are parsed once per policy and REGEX matchers are precompiled, so the
+ * filter hot path does no DB round-trips or JSON parsing.
+ *
+ * <p>Any policy or layer mutation must call {@link #invalidate()}; when called inside a
+ * transaction the index is invalidated again after commit so a concurrent rebuild cannot
+ * cache pre-commit state.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CompiledPolicyIndex {
+
+    /**
+     * A layer binding with its matcher pre-compiled. {@code pattern} is only set for
+     * REGEX matchers with a valid expression.
+     */
+    public record CompiledBinding(PolicyLayerBinding binding, @Nullable Pattern pattern) {
+
+        public boolean matchesRegex(String value) {
+            return pattern != null && pattern.matcher(value).matches();
+        }
+    }
+
+    public record CompiledPolicy(
+            PolicyRegistrationEntity policy,
+            FilterEnums.FilterKind kind,
+            int priority,
+            List<CompiledBinding> bindings
+    ) {
+
+        public String registrationId() {
+            return policy.getRegistrationId();
+        }
+
+        public boolean hasEnabledBindingFor(String layerId) {
+            return bindings.stream().anyMatch(b -> b.binding().enabled() && Objects.equals(b.binding().layerId(), layerId));
+        }
+    }
+
+    public record IndexStats(long hits, long misses, long rebuilds, int indexedPolicies, int indexedLayers) {}
+
+    private record Snapshot(
+            long generation,
+            List<CompiledPolicy> activePolicies,
+            Map<String, List<CompiledPolicy>> effectiveByLayer,
+            Map<String, List<CompiledPolicy>> directByLayer
+    ) {}
+
+    private static final Comparator<CompiledPolicy> ORDERING =
+            Comparator.comparingInt(CompiledPolicy::priority).thenComparing(CompiledPolicy::registrationId);
+
+    private final PolicyRegistrationRepository policyRegistrationRepository;
+    private final LayerRepository layerRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    /**
+     * Active policies that apply to the layer, including those bound to inheritable
+     * ancestors, ordered by priority then registrationId.
+     */
+    public List<CompiledPolicy> effectivePolicies(String layerId) {
+        return current().effectiveByLayer().getOrDefault(layerId, List.of());
+    }
+
+    /**
+     * Active policies with an enabled binding on exactly this layer.
+     */
+    public List<CompiledPolicy> directlyBoundPolicies(String layerId) {
+        return current().directByLayer().getOrDefault(layerId, List.of());
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    snapshot.set(null);
+                }
+            });
+        }
+    }
+
+    public IndexStats stats() {
+        Snapshot s = snapshot.get();
+        return new IndexStats(
+                hits.get(),
+                misses.get(),
+                rebuilds.get(),
+                s == null ? 0 : s.activePolicies().size(),
+                s == null ? 0 : s.effectiveByLayer().size());
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        if (s != null) {
+            hits.incrementAndGet();
+            return s;
+        }
+        misses.incrementAndGet();
+        return rebuild();
+    }
+
+    private synchronized Snapshot rebuild() {
+        Snapshot existing = snapshot.get();
+        if (existing != null && existing.generation() == generation.get()) {
+            return existing;
+        }
+
+        long startedGeneration = generation.get();
+        Snapshot built = build(startedGeneration);
+        rebuilds.incrementAndGet();
+
+        // Only publish if nothing was invalidated while we were loading.
+        if (generation.get() == startedGeneration) {
+            snapshot.set(built);
+        }
+        log.debug("Rebuilt policy index: {} active policies across {} layers (generation {})",
+                built.activePolicies().size(), built.effectiveByLayer().size(), startedGeneration);
+        return built;
+    }
+
+    private Snapshot build(long gen) {
+        Map<String, LayerEntity> layersById = new HashMap<>();
+        for (LayerEntity layer : layerRepository.findAll()) {
+            layersById.put(layer.getLayerId(), layer);
+        }
+
+        List<CompiledPolicy> active = policyRegistrationRepository
+                .findByStatus(FilterEnums.PolicyStatus.ACTIVE.name())
+                .stream()
+                .map(this::compile)
+                .sorted(ORDERING)
+                .toList();
+
+        Map<String, List<CompiledPolicy>> directByLayer = new HashMap<>();
+        for (CompiledPolicy policy : active) {
+            policy.bindings().stream()
+                    .map(CompiledBinding::binding)
+                    .filter(PolicyLayerBinding::enabled)
+                    .map(PolicyLayerBinding::layerId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(layerId -> directByLayer.computeIfAbsent(layerId, k -> new ArrayList<>()).add(policy));
+        }
+
+        Map<String, List<CompiledPolicy>> effectiveByLayer = new HashMap<>();
+        for (String layerId : layersById.keySet()) {
+            Set<String> effectiveLayerIds = effectiveLayerIds(layerId, layersById);
+            List<CompiledPolicy> effective = active.stream()
+                    .filter(p -> effectiveLayerIds.stream().anyMatch(p::hasEnabledBindingFor))
+                    .toList();
+            if (!effective.isEmpty()) {
+                effectiveByLayer.put(layerId, effective);
+            }
+        }
+
+        Map<String, List<CompiledPolicy>> direct = new HashMap<>();
+        directByLayer.forEach((k, v) -> direct.put(k, List.copyOf(v)));
+        return new Snapshot(gen, active, Map.copyOf(effectiveByLayer), Map.copyOf(direct));
+    }
+
+    /**
+     * In-memory equivalent of {@link LayerService#getEffectiveLayers}: the layer itself plus
+     * each ancestor for as long as the ancestor is inheritable.
+     */
+    private static Set<String> effectiveLayerIds(String layerId, Map<String, LayerEntity> layersById) {
+        Set<String> ids = new LinkedHashSet<>();
+        LayerEntity current = layersById.get(layerId);
+        while (current != null && ids.add(current.getLayerId())) {
+            if (current.getParentLayerId() == null) {
+                break;
+            }
+            current = layersById.get(current.getParentLayerId());
+            if (current != null && !current.isInheritable()) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private CompiledPolicy compile(PolicyRegistrationEntity policy) {
+        List<CompiledBinding> bindings = parseBindings(policy).stream()
+                .map(b -> new CompiledBinding(b, compilePattern(policy, b)))
+                .toList();
+        return new CompiledPolicy(policy, parseFilterKind(policy), parsePriority(policy), bindings);
+    }
+
+    private List<PolicyLayerBinding> parseBindings(PolicyRegistrationEntity policy) {
+        try {
+            List<PolicyLayerBinding> bindings = objectMapper.readValue(policy.getLayerBindingsJson(), new TypeReference<>() {});
+            return bindings == null ? List.of() : bindings;
+        } catch (Exception e) {
+            log.error("Failed to parse bindings for policy {}", policy.getRegistrationId(), e);
+            return List.of();
+        }
+    }
+
+    private static @Nullable Pattern compilePattern(PolicyRegistrationEntity policy, PolicyLayerBinding binding) {
+        if (binding.matcherType() != FilterEnums.MatcherType.REGEX || binding.matcherText() == null) {
+            return null;
+        }
+        try {
+            return Pattern.compile(binding.matcherText());
+        } catch (PatternSyntaxException e) {
+            log.warn("Invalid regex in matcher for policy {}: {}", policy.getRegistrationId(), binding.matcherText());
+            return null;
+        }
+    }
+
+    private static FilterEnums.FilterKind parseFilterKind(PolicyRegistrationEntity policy) {
+        String filterKind = policy.getFilterKind();
+        if (filterKind == null || filterKind.isBlank()) {
+            return null;
+        }
+        try {
+            return FilterEnums.FilterKind.valueOf(filterKind);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown filter kind on policy {}: {}", policy.getRegistrationId(), filterKind);
+            return null;
+        }
+    }
+
+    private int parsePriority(PolicyRegistrationEntity policy) {
+        try {
+            var node = objectMapper.readTree(policy.getFilterJson());
+            return node.has("priority") ? node.get("priority").asInt(0) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
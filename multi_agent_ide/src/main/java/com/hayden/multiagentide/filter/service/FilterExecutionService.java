@@ -3,7 +3,6 @@ package com.hayden.multiagentide.filter.service;
 import com.embabel.agent.api.common.OperationContext;
 import com.embabel.agent.core.AgentPlatform;
 import com.hayden.acp_cdc_ai.acp.config.AcpChatOptionsString;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hayden.acp_cdc_ai.acp.events.*;
 import com.hayden.acp_cdc_ai.acp.filter.FilterEnums;
@@ -91,17 +90,17 @@ public class FilterExecutionService {
             return new FilterResult<>(payload, new FilterDescriptor.NoOpFilterDescriptor());
         }
 
-        List<PolicyRegistrationEntity> policies = policyDiscoveryService.getActivePoliciesByLayer(layerId);
-
-        policies.sort(Comparator.comparingInt(this::extractPriority).thenComparing(PolicyRegistrationEntity::getRegistrationId));
+        // Already ordered by priority ascending, then registrationId.
+        List<CompiledPolicyIndex.CompiledPolicy> policies = policyDiscoveryService.getCompiledPoliciesByLayer(layerId);
 
         FilterResult<T> current = new FilterResult<>(payload, new FilterDescriptor.NoOpFilterDescriptor());
 
-        for (PolicyRegistrationEntity policy : policies) {
+        for (CompiledPolicyIndex.CompiledPolicy compiled : policies) {
             if (current.t() == null) {
                 break;
             }
-            FilterEnums.FilterKind kind = parseFilterKind(policy);
+            PolicyRegistrationEntity policy = compiled.policy();
+            FilterEnums.FilterKind kind = compiled.kind();
 
             if (kind == null) {
                 continue;
@@ -111,7 +110,7 @@ public class FilterExecutionService {
                 continue;
             }
 
-            if (!matchesBinding(policy, layerId, source)) {
+            if (!matchesBinding(compiled, layerId, source)) {
                 continue;
             }
 
@@ -784,44 +783,42 @@ public class FilterExecutionService {
         return left.equals(right) || String.valueOf(left).equals(String.valueOf(right));
     }
 
-    private FilterEnums.FilterKind parseFilterKind(PolicyRegistrationEntity policy) {
-        String filterKind = policy.getFilterKind();
-        if (filterKind == null || filterKind.isBlank()) {
-            return null;
-        }
-        try {
-            return FilterEnums.FilterKind.valueOf(filterKind);
-        } catch (IllegalArgumentException e) {
-            log.warn("Unknown filter kind on policy {}: {}", policy.getRegistrationId(), filterKind);
-            return null;
+    private boolean matchesBinding(CompiledPolicyIndex.CompiledPolicy compiled, String layerId, FilterSource source) {
+        for (CompiledPolicyIndex.CompiledBinding compiledBinding : compiled.bindings()) {
+            PolicyLayerBinding binding = compiledBinding.binding();
+            if (!binding.enabled() || !layerId.equals(binding.layerId())) {
+                continue;
+            }
+            if (binding.matchOn() == null || binding.matchOn() != source.matchOn()) {
+                continue;
+            }
+
+            boolean bindingMatched = matchesSource(compiledBinding, source);
+            logPromptBindingEvaluation(compiled.policy(), layerId, source, binding, bindingMatched);
+            if (bindingMatched) {
+                return true;
+            }
         }
+        return false;
     }
 
-    private boolean matchesBinding(PolicyRegistrationEntity policy, String layerId, FilterSource source) {
-        try {
-            List<PolicyLayerBinding> bindings = objectMapper.readValue(policy.getLayerBindingsJson(), new TypeReference<>() {});
+    private boolean matchesSource(CompiledPolicyIndex.CompiledBinding compiledBinding, FilterSource source) {
+        PolicyLayerBinding binding = compiledBinding.binding();
+        if (binding.matcherType() != FilterEnums.MatcherType.REGEX) {
+            return matchesSource(binding, source);
+        }
 
-            boolean matched = false;
-            for (PolicyLayerBinding binding : bindings) {
-                if (!binding.enabled() || !binding.layerId().equals(layerId)) {
-                    continue;
-                }
-                if (binding.matchOn() == null || binding.matchOn() != source.matchOn()) {
-                    continue;
-                }
+        if (source instanceof FilterSource.GraphEventSource graphEventSource
+                && binding.matcherKey() == FilterEnums.MatcherKey.NAME) {
+            List<String> candidates = graphEventSource.nameCandidates();
+            return candidates.isEmpty() || candidates.stream().anyMatch(compiledBinding::matchesRegex);
+        }
 
-                boolean bindingMatched = matchesSource(binding, source);
-                logPromptBindingEvaluation(policy, layerId, source, binding, bindingMatched);
-                if (bindingMatched) {
-                    matched = true;
-                    break;
-                }
-            }
-            return matched;
-        } catch (Exception e) {
-            log.error("Failed to parse bindings for policy {}", policy.getRegistrationId(), e);
-            return false;
+        String valueToMatch = source.matcherValue(binding.matcherKey());
+        if (valueToMatch == null) {
+            return true;
         }
+        return compiledBinding.matchesRegex(valueToMatch);
     }
 
     private boolean matchesSource(PolicyLayerBinding binding, FilterSource source) {
@@ -965,15 +962,6 @@ public class FilterExecutionService {
         }
     }
 
-    private int extractPriority(PolicyRegistrationEntity policy) {
-        try {
-            var node = objectMapper.readTree(policy.getFilterJson());
-            return node.has("priority") ? node.get("priority").asInt(0) : 0;
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
     private boolean isAllowedKind(FilterEnums.FilterKind kind, Set<FilterEnums.FilterKind> allowedKinds) {
         if (allowedKinds == null || allowedKinds.isEmpty()) {
             return true;
@@ -36,6 +36,7 @@ import java.util.Map;
 public class LayerHierarchyBootstrap {
 
     private final LayerRepository layerRepository;
+    private final CompiledPolicyIndex compiledPolicyIndex;
 
     @Bean
     public ApplicationRunner bootstrapFilterLayers() {
@@ -76,6 +77,7 @@ public class LayerHierarchyBootstrap {
         }
 
         layerRepository.saveAll(layersById.values());
+        compiledPolicyIndex.invalidate();
         log.info("Ensured {} filter layers.", layersById.size());
     }
 
@@ -28,6 +28,7 @@ public class PolicyRegistrationService {
     private final LayerService layerService;
     private final ObjectMapper objectMapper;
     private final PolicyLifecycleArtifactService policyLifecycleArtifactService;
+    private final CompiledPolicyIndex compiledPolicyIndex;
 
     @Transactional
     public PolicyRegistrationResponse registerPolicy(FilterEnums.FilterKind filterKind,
@@ -84,6 +85,7 @@ public class PolicyRegistrationService {
                     .activatedAt(request.isActivate() ? now : null)
                     .build();
             policyRegistrationRepository.save(entity);
+            compiledPolicyIndex.invalidate();
             policyLifecycleArtifactService.recordRegistration(filterKind, request, entity, now);
 
             return PolicyRegistrationResponse.builder()
@@ -118,6 +120,7 @@ public class PolicyRegistrationService {
         entity.setStatus(FilterEnums.PolicyStatus.INACTIVE.name());
         entity.setDeactivatedAt(now);
         policyRegistrationRepository.save(entity);
+        compiledPolicyIndex.invalidate();
         policyLifecycleArtifactService.recordDeactivation(entity, now);
 
         return DeactivatePolicyResponse.builder()
@@ -178,6 +181,7 @@ public class PolicyRegistrationService {
 
             entity.setLayerBindingsJson(objectMapper.writeValueAsString(updated));
             policyRegistrationRepository.save(entity);
+            compiledPolicyIndex.invalidate();
             policyLifecycleArtifactService.recordLayerToggle(
                     entity, layerId, enabled, includeDescendants, affectedDescendants, now);
 
@@ -261,6 +265,7 @@ public class PolicyRegistrationService {
 
             entity.setLayerBindingsJson(objectMapper.writeValueAsString(bindings));
             policyRegistrationRepository.save(entity);
+            compiledPolicyIndex.invalidate();
             policyLifecycleArtifactService.recordLayerBindingUpdate(entity, lb, now);
 
             return PutPolicyLayerResponse.builder()
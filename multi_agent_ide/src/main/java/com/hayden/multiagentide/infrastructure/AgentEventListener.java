@@ -206,6 +206,14 @@ public class AgentEventListener implements EventListener {
             case Events.AgentExecutorCompleteEvent e -> {
                 log.debug("Agent executor complete: action={} session={}", e.actionName(), e.sessionKey());
             }
+            case Events.DispatchChildStartedEvent e -> {
+                log.debug("Dispatch child started: agent={} child={}/{} parallel={}",
+                        e.dispatchAgentName(), e.childIndex(), e.childCount(), e.parallel());
+            }
+            case Events.DispatchChildCompletedEvent e -> {
+                log.debug("Dispatch child completed: agent={} child={} outcome={} durationMs={}",
+                        e.dispatchAgentName(), e.childIndex(), e.outcome(), e.durationMs());
+            }
             case Events.NullResultEvent e -> {
                 log.warn("Null result: session={} retry={}/{}", e.sessionKey(), e.retryCount(), e.maxRetries());
             }
@@ -221,6 +229,10 @@ public class AgentEventListener implements EventListener {
             case Events.ParseErrorEvent e -> {
                 log.warn("Parse error: session={} action={} rawOutput={}", e.sessionKey(), e.actionName(), e.rawOutput());
             }
+            case Events.ArtifactsPersistedEvent e -> {
+                log.debug("Artifacts persisted: execution={} artifacts={} originals={} refs={} durationMs={}",
+                        e.executionKey(), e.artifactCount(), e.originalsInserted(), e.refsInserted(), e.durationMs());
+            }
         }
     }
 
@@ -0,0 +1,233 @@
+package com.hayden.multiagentide.infrastructure;
+
+import com.hayden.acp_cdc_ai.acp.events.EventListener;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue in front of one ASYNC {@link EventListener}, drained by a dedicated
+ * virtual thread that hands events to {@link EventListener#onEvents} in batches.
+ *
+ * <p>When the queue is full, {@link #offer} applies the listener's
+ * {@link EventListener.BackpressurePolicy}. Only stream deltas are ever dropped or
+ * merged; any other event waits for room. The exception is an event the listener publishes
+ * to itself from {@link EventListener#onEvents}: the drainer is the only thread that can make
+ * room, so it is enqueued past capacity instead of waiting.
+ */
+@Slf4j
+public class AsyncListenerQueue implements AutoCloseable {
+
+    public record Stats(
+            String listenerId,
+            EventListener.BackpressurePolicy policy,
+            int queueDepth,
+            int capacity,
+            long delivered,
+            long dropped,
+            long coalesced,
+            long oldestQueuedMillis,
+            long lastBatchLagMillis
+    ) {}
+
+    private record Entry(Events.GraphEvent event, long enqueuedNanos) {}
+
+    private final EventListener listener;
+    private final EventListener.BackpressurePolicy policy;
+    private final int capacity;
+    private final int maxBatchSize;
+
+    private final ArrayDeque<Entry> queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final Thread consumer;
+
+    private boolean closed;
+    private boolean delivering;
+    private long delivered;
+    private long dropped;
+    private long coalesced;
+    private long lastBatchLagNanos;
+
+    AsyncListenerQueue(EventListener listener, EventListener.BackpressurePolicy policy, int capacity, int maxBatchSize) {
+        this.listener = listener;
+        this.policy = policy;
+        this.capacity = Math.max(1, capacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.queue = new ArrayDeque<>(this.capacity);
+        this.consumer = Thread.ofVirtual()
+                .name("event-bus-" + listener.listenerId())
+                .start(this::drainLoop);
+    }
+
+    EventListener listener() {
+        return listener;
+    }
+
+    /**
+     * Enqueue an event, applying the backpressure policy if the queue is full.
+     * Events offered after {@link #close()} are discarded.
+     */
+    void offer(Events.GraphEvent event) {
+        boolean fromDrainer = Thread.currentThread() == consumer;
+        lock.lock();
+        try {
+            while (!closed && queue.size() >= capacity) {
+                if (relieve(event)) {
+                    return;
+                }
+                if (fromDrainer) {
+                    break;
+                }
+                notFull.await();
+            }
+            if (closed) {
+                return;
+            }
+            queue.addLast(new Entry(event, System.nanoTime()));
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting to enqueue {} for listener {}.", event.eventType(), listener.listenerId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Try to make room (or absorb the event) without blocking.
+     *
+     * @return true if the incoming event was merged into the tail and must not be enqueued
+     */
+    private boolean relieve(Events.GraphEvent incoming) {
+        if (policy == EventListener.BackpressurePolicy.COALESCE) {
+            Entry tail = queue.peekLast();
+            if (tail != null && StreamDeltaCoalescing.canMerge(tail.event(), incoming)) {
+                queue.pollLast();
+                queue.addLast(new Entry(StreamDeltaCoalescing.merge(tail.event(), incoming), tail.enqueuedNanos()));
+                coalesced++;
+                return true;
+            }
+        }
+        // COALESCE falls back to blocking; only DROP_OLDEST_DELTAS ever discards.
+        if (policy == EventListener.BackpressurePolicy.DROP_OLDEST_DELTAS) {
+            Iterator<Entry> it = queue.iterator();
+            while (it.hasNext()) {
+                if (StreamDeltaCoalescing.isDelta(it.next().event())) {
+                    it.remove();
+                    dropped++;
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        List<Events.GraphEvent> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            lock.lock();
+            try {
+                delivering = false;
+                while (queue.isEmpty() && !closed) {
+                    idle.signalAll();
+                    notEmpty.await();
+                }
+                if (queue.isEmpty()) {
+                    idle.signalAll();
+                    return;
+                }
+                lastBatchLagNanos = System.nanoTime() - queue.peekFirst().enqueuedNanos();
+                while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+                    batch.add(queue.pollFirst().event());
+                }
+                delivering = true;
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                listener.onEvents(batch);
+            } catch (Exception e) {
+                log.error("Error handling batch of {} events in listener {}.", batch.size(), listener.listenerId(), e);
+            }
+
+            lock.lock();
+            try {
+                delivered += batch.size();
+            } finally {
+                lock.unlock();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Wait until every queued event has been handed to the listener.
+     *
+     * @return false if the timeout elapsed first
+     */
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!queue.isEmpty() || delivering) {
+                if (remaining <= 0 || !consumer.isAlive()) {
+                    return queue.isEmpty() && !delivering;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Stats stats() {
+        lock.lock();
+        try {
+            Entry head = queue.peekFirst();
+            long oldest = head == null ? 0L : System.nanoTime() - head.enqueuedNanos();
+            return new Stats(
+                    listener.listenerId(),
+                    policy,
+                    queue.size(),
+                    capacity,
+                    delivered,
+                    dropped,
+                    coalesced,
+                    TimeUnit.NANOSECONDS.toMillis(oldest),
+                    TimeUnit.NANOSECONDS.toMillis(lastBatchLagNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting events. Events already queued are still delivered.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -3,82 +3,282 @@ package com.hayden.multiagentide.infrastructure;
 import com.hayden.acp_cdc_ai.acp.events.EventBus;
 import com.hayden.acp_cdc_ai.acp.events.EventListener;
 import com.hayden.acp_cdc_ai.acp.events.Events;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Default implementation of EventBus using CopyOnWriteArrayList for thread-safe
- * concurrent iteration while allowing concurrent modifications.
+ * Default implementation of EventBus.
+ *
+ * <p>Subscribers are held in an immutable, order-sorted snapshot that is replaced on
+ * subscribe/unsubscribe, so publishing iterates without copying or locking.
+ *
+ * <p>When {@link EventBusProperties#isAsyncDeliveryEnabled()} is set, listeners that
+ * declare {@link EventListener.DeliveryMode#ASYNC} are fed through an
+ * {@link AsyncListenerQueue} instead of being called on the publishing thread. All other
+ * listeners are still called synchronously, in order.
+ *
+ * <p>Listeners subscribed with {@link #subscribe(String, EventListener)} are kept in a
+ * {@link NodeSubscriptionTrie} instead of the global snapshot. A publish only looks up the
+ * event's ancestor chain and merges the matches into the global listeners by
+ * {@link EventListener#order()}, so node-scoped listeners cost nothing for events elsewhere
+ * in the graph.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class DefaultEventBus implements EventBus {
 
-    private List<EventListener> subscribers;
+    private record Subscription(EventListener listener, AsyncListenerQueue queue) {}
+
+    private record NodeSubscription(String nodeId, Subscription subscription) {}
+
+    private record Snapshot(List<EventListener> listeners, List<Subscription> subscriptions) {
+        static final Snapshot EMPTY = new Snapshot(List.of(), List.of());
+    }
+
+    private final EventBusProperties eventBusProperties;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private final NodeSubscriptionTrie<Subscription> nodeSubscriptions = new NodeSubscriptionTrie<>();
+
+    private final Map<EventListener, NodeSubscription> nodeSubscriptionsByListener = new LinkedHashMap<>();
 
     @Autowired
     @Lazy
-    public void setSubscribers(List<EventListener> subscribers) {
-        this.subscribers = new ArrayList<>(subscribers);
-        this.subscribers.sort(Comparator.comparingInt(EventListener::order));
+    public synchronized void setSubscribers(List<EventListener> subscribers) {
+        List<Subscription> previous = snapshot.subscriptions();
+        List<Subscription> next = new ArrayList<>();
+        for (EventListener listener : subscribers) {
+            next.add(reuseOrCreate(listener, previous));
+        }
+        previous.stream()
+                .filter(s -> s.queue() != null && next.stream().noneMatch(n -> n.queue() == s.queue()))
+                .forEach(s -> s.queue().close());
+        replaceSnapshot(next);
     }
 
     @Override
     public void subscribe(EventListener listener) {
-        boolean exists = subscribers.stream()
-                .anyMatch(existing -> existing.listenerId().equals(listener.listenerId()));
-        if (exists) {
+        synchronized (this) {
+            if (isSubscribed(listener)) {
+                return;
+            }
+            List<Subscription> next = new ArrayList<>(snapshot.subscriptions());
+            next.add(new Subscription(listener, queueFor(listener)));
+            replaceSnapshot(next);
+        }
+        listener.onSubscribed();
+    }
+
+    /**
+     * Routes only events for {@code nodeId} and its descendants to {@code listener}. A blank
+     * {@code nodeId} subscribes to every event.
+     */
+    @Override
+    public void subscribe(String nodeId, EventListener listener) {
+        if (nodeId == null || nodeId.isBlank()) {
+            subscribe(listener);
             return;
         }
-        subscribers.add(listener);
-        subscribers.sort(Comparator.comparingInt(EventListener::order));
+        synchronized (this) {
+            if (isSubscribed(listener)) {
+                return;
+            }
+            Subscription subscription = new Subscription(listener, queueFor(listener));
+            nodeSubscriptions.add(nodeId, subscription);
+            nodeSubscriptionsByListener.put(listener, new NodeSubscription(nodeId, subscription));
+        }
         listener.onSubscribed();
     }
 
     @Override
     public void unsubscribe(EventListener listener) {
-        if (subscribers.remove(listener)) {
-            listener.onUnsubscribed();
+        Subscription removed = null;
+        synchronized (this) {
+            NodeSubscription scoped = nodeSubscriptionsByListener.remove(listener);
+            if (scoped != null) {
+                nodeSubscriptions.remove(scoped.nodeId(), scoped.subscription());
+                removed = scoped.subscription();
+            }
+        }
+        if (removed == null) {
+            removed = unsubscribeGlobal(listener);
         }
+        if (removed == null) {
+            return;
+        }
+        if (removed.queue() != null) {
+            removed.queue().close();
+        }
+        listener.onUnsubscribed();
+    }
+
+    private Subscription unsubscribeGlobal(EventListener listener) {
+        Subscription removed = null;
+        synchronized (this) {
+            List<Subscription> next = new ArrayList<>(snapshot.subscriptions());
+            for (int i = 0; i < next.size(); i++) {
+                if (next.get(i).listener().equals(listener)) {
+                    removed = next.remove(i);
+                    break;
+                }
+            }
+            if (removed != null) {
+                replaceSnapshot(next);
+            }
+        }
+        return removed;
     }
 
     @Override
     public void publish(Events.GraphEvent event) {
-        for (EventListener listener : getSubscribers()) {
-            if (listener.isInterestedIn(event)) {
-                try {
-                    listener.onEvent(event);
-                } catch (Exception e) {
-                    // Log error but continue publishing to other listeners
-                    log.error("Error handling event in listener " + listener.listenerId() + ": " + e.getMessage());
-                    e.printStackTrace();
-                }
+        List<Subscription> global = snapshot.subscriptions();
+        List<Subscription> scoped = event == null ? List.of() : nodeSubscriptions.match(event.nodeId());
+        if (scoped.isEmpty()) {
+            for (Subscription subscription : global) {
+                deliver(subscription, event);
             }
+            return;
+        }
+        if (scoped.size() > 1) {
+            scoped.sort(Comparator.comparingInt(s -> s.listener().order()));
+        }
+        int g = 0;
+        int n = 0;
+        while (g < global.size() || n < scoped.size()) {
+            boolean takeGlobal = n == scoped.size()
+                    || (g < global.size() && global.get(g).listener().order() <= scoped.get(n).listener().order());
+            deliver(takeGlobal ? global.get(g++) : scoped.get(n++), event);
         }
     }
 
     @Override
     public List<EventListener> getSubscribers() {
-        return Collections.unmodifiableList(new ArrayList<>(subscribers));
+        List<EventListener> listeners = snapshot.listeners();
+        synchronized (this) {
+            if (nodeSubscriptionsByListener.isEmpty()) {
+                return listeners;
+            }
+            List<EventListener> all = new ArrayList<>(listeners);
+            all.addAll(nodeSubscriptionsByListener.keySet());
+            return List.copyOf(all);
+        }
     }
 
     @Override
     public void clear() {
-        for (EventListener listener : subscribers) {
+        for (EventListener listener : getSubscribers()) {
             listener.onUnsubscribed();
         }
     }
 
     @Override
     public boolean hasSubscribers() {
-        return !subscribers.isEmpty();
+        return !snapshot.listeners().isEmpty() || nodeSubscriptions.size() > 0;
+    }
+
+    /**
+     * Queue depth, drop/coalesce counts and lag for every listener receiving events asynchronously.
+     */
+    public List<AsyncListenerQueue.Stats> asyncListenerStats() {
+        return allSubscriptions().stream()
+                .map(Subscription::queue)
+                .filter(q -> q != null)
+                .map(AsyncListenerQueue::stats)
+                .toList();
+    }
+
+    /**
+     * Wait until every async listener has consumed everything published so far.
+     *
+     * @return false if any queue was still busy when the timeout elapsed
+     */
+    public boolean awaitAsyncDelivery(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Subscription subscription : allSubscriptions()) {
+            if (subscription.queue() != null
+                    && !subscription.queue().awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        allSubscriptions().stream()
+                .map(Subscription::queue)
+                .filter(q -> q != null)
+                .forEach(AsyncListenerQueue::close);
+    }
+
+    private void deliver(Subscription subscription, Events.GraphEvent event) {
+        EventListener listener = subscription.listener();
+        if (!listener.isInterestedIn(event)) {
+            return;
+        }
+        if (subscription.queue() != null) {
+            subscription.queue().offer(event);
+            return;
+        }
+        try {
+            listener.onEvent(event);
+        } catch (Exception e) {
+            // Log error but continue publishing to other listeners
+            log.error("Error handling event in listener " + listener.listenerId() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isSubscribed(EventListener listener) {
+        return snapshot.listeners().stream()
+                .anyMatch(existing -> existing.listenerId().equals(listener.listenerId()))
+                || nodeSubscriptionsByListener.keySet().stream()
+                .anyMatch(existing -> existing.listenerId().equals(listener.listenerId()));
+    }
+
+    private synchronized List<Subscription> allSubscriptions() {
+        List<Subscription> all = new ArrayList<>(snapshot.subscriptions());
+        nodeSubscriptionsByListener.values().forEach(s -> all.add(s.subscription()));
+        return all;
+    }
+
+    private Subscription reuseOrCreate(EventListener listener, List<Subscription> previous) {
+        return previous.stream()
+                .filter(s -> s.listener() == listener)
+                .findFirst()
+                .orElseGet(() -> new Subscription(listener, queueFor(listener)));
+    }
+
+    private AsyncListenerQueue queueFor(EventListener listener) {
+        if (eventBusProperties == null
+                || !eventBusProperties.isAsyncDeliveryEnabled()
+                || listener.deliveryMode() != EventListener.DeliveryMode.ASYNC) {
+            return null;
+        }
+        EventListener.BackpressurePolicy policy = eventBusProperties.getBackpressure()
+                .getOrDefault(listener.listenerId(), listener.backpressurePolicy());
+        return new AsyncListenerQueue(listener, policy,
+                eventBusProperties.getQueueCapacity(), eventBusProperties.getMaxBatchSize());
+    }
+
+    private void replaceSnapshot(List<Subscription> subscriptions) {
+        List<Subscription> sorted = new ArrayList<>(subscriptions);
+        sorted.sort(Comparator.comparingInt(s -> s.listener().order()));
+        snapshot = new Snapshot(
+                sorted.stream().map(Subscription::listener).toList(),
+                List.copyOf(sorted));
     }
 }
@@ -0,0 +1,41 @@
+package com.hayden.multiagentide.infrastructure;
+
+import com.hayden.acp_cdc_ai.acp.events.EventListener;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controls how {@link DefaultEventBus} delivers events.
+ *
+ * <p>When {@code asyncDeliveryEnabled} is false (the default) every listener is called
+ * synchronously on the publishing thread, exactly as before. When true, listeners whose
+ * {@link EventListener#deliveryMode()} is ASYNC get their own bounded queue drained in
+ * batches by a virtual thread.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.event-bus")
+@Data
+public class EventBusProperties {
+
+    boolean asyncDeliveryEnabled = false;
+
+    /**
+     * Queue capacity for each async listener.
+     */
+    int queueCapacity = 4096;
+
+    /**
+     * Maximum number of events handed to an async listener in one batch.
+     */
+    int maxBatchSize = 256;
+
+    /**
+     * Per-listener overrides of {@link EventListener#backpressurePolicy()}, keyed by listenerId.
+     */
+    Map<String, EventListener.BackpressurePolicy> backpressure = new HashMap<>();
+
+}
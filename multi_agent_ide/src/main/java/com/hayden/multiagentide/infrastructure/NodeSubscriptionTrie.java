@@ -0,0 +1,123 @@
+package com.hayden.multiagentide.infrastructure;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values registered on {@link ArtifactKey} node ids, keyed by path segment.
+ *
+ * <p>A value registered on a node matches that node and every descendant, so a lookup walks the
+ * looked-up id from its root segment down and collects values on its ancestor-or-self chain. The
+ * cost is proportional to the depth of the id, not to the number of registrations.
+ *
+ * <p>Lookups are lock-free. Callers must serialize {@link #add} and {@link #remove}.
+ */
+final class NodeSubscriptionTrie<T> {
+
+    private static final char SEPARATOR = '/';
+
+    private static final class Node<T> {
+        private final ConcurrentHashMap<String, Node<T>> children = new ConcurrentHashMap<>();
+        private volatile List<T> values = List.of();
+    }
+
+    private final Node<T> root = new Node<>();
+
+    private volatile int size;
+
+    void add(String nodeId, T value) {
+        Node<T> node = root;
+        for (String segment : segments(nodeId)) {
+            node = node.children.computeIfAbsent(segment, k -> new Node<>());
+        }
+        List<T> next = new ArrayList<>(node.values);
+        next.add(value);
+        node.values = List.copyOf(next);
+        size++;
+    }
+
+    /**
+     * Removes one registration of {@code value} on {@code nodeId}, pruning nodes left empty.
+     *
+     * @return false if it was not registered there
+     */
+    boolean remove(String nodeId, T value) {
+        Deque<Node<T>> path = new ArrayDeque<>();
+        List<String> segments = segments(nodeId);
+        Node<T> node = root;
+        for (String segment : segments) {
+            path.push(node);
+            node = node.children.get(segment);
+            if (node == null) {
+                return false;
+            }
+        }
+        List<T> next = new ArrayList<>(node.values);
+        if (!next.remove(value)) {
+            return false;
+        }
+        node.values = List.copyOf(next);
+        size--;
+
+        for (int i = segments.size() - 1; i >= 0 && node.values.isEmpty() && node.children.isEmpty(); i--) {
+            Node<T> parent = path.pop();
+            parent.children.remove(segments.get(i), node);
+            node = parent;
+        }
+        return true;
+    }
+
+    /**
+     * Values registered on {@code nodeId} or any of its ancestors, root first.
+     */
+    List<T> match(String nodeId) {
+        if (nodeId == null || nodeId.isEmpty() || size == 0) {
+            return List.of();
+        }
+        List<T> matched = null;
+        Node<T> node = root;
+        int start = 0;
+        while (start <= nodeId.length()) {
+            int end = nodeId.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = nodeId.length();
+            }
+            node = node.children.get(nodeId.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            List<T> values = node.values;
+            if (!values.isEmpty()) {
+                if (matched == null) {
+                    matched = new ArrayList<>(values.size());
+                }
+                matched.addAll(values);
+            }
+            start = end + 1;
+        }
+        return matched == null ? List.of() : matched;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static List<String> segments(String nodeId) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (start <= nodeId.length()) {
+            int end = nodeId.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = nodeId.length();
+            }
+            segments.add(nodeId.substring(start, end));
+            start = end + 1;
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hayden.multiagentide.infrastructure;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+
+import java.util.Objects;
+
+/**
+ * Helpers for recognising and merging token-level stream deltas
+ * ({@link Events.NodeStreamDeltaEvent}, {@link Events.NodeThoughtDeltaEvent},
+ * {@link Events.UserMessageChunkEvent}).
+ *
+ * <p>Two deltas can be merged when they are the same event type for the same node
+ * (and chat, where the type carries one). The merged event keeps the earlier event's id
+ * and timestamp, concatenates content and sums token counts.
+ */
+public final class StreamDeltaCoalescing {
+
+    private StreamDeltaCoalescing() {
+    }
+
+    public static boolean isDelta(Events.GraphEvent event) {
+        return event instanceof Events.NodeStreamDeltaEvent
+                || event instanceof Events.NodeThoughtDeltaEvent
+                || event instanceof Events.UserMessageChunkEvent;
+    }
+
+    public static boolean canMerge(Events.GraphEvent earlier, Events.GraphEvent later) {
+        return switch (earlier) {
+            case Events.NodeStreamDeltaEvent e when later instanceof Events.NodeStreamDeltaEvent l ->
+                    !e.isFinal() && Objects.equals(e.nodeId(), l.nodeId()) && Objects.equals(e.chatKey(), l.chatKey());
+            case Events.NodeThoughtDeltaEvent e when later instanceof Events.NodeThoughtDeltaEvent l ->
+                    !e.isFinal() && Objects.equals(e.nodeId(), l.nodeId()) && Objects.equals(e.chatKey(), l.chatKey());
+            case Events.UserMessageChunkEvent e when later instanceof Events.UserMessageChunkEvent l ->
+                    Objects.equals(e.nodeId(), l.nodeId());
+            default -> false;
+        };
+    }
+
+    /**
+     * Merge {@code later} into {@code earlier}. Callers must check {@link #canMerge} first.
+     */
+    public static Events.GraphEvent merge(Events.GraphEvent earlier, Events.GraphEvent later) {
+        return switch (earlier) {
+            case Events.NodeStreamDeltaEvent e when later instanceof Events.NodeStreamDeltaEvent l ->
+                    new Events.NodeStreamDeltaEvent(e.eventId(), e.timestamp(), e.nodeId(), e.chatKey(),
+                            concat(e.deltaContent(), l.deltaContent()), e.tokenCount() + l.tokenCount(), l.isFinal());
+            case Events.NodeThoughtDeltaEvent e when later instanceof Events.NodeThoughtDeltaEvent l ->
+                    new Events.NodeThoughtDeltaEvent(e.eventId(), e.timestamp(), e.nodeId(), e.chatKey(),
+                            concat(e.deltaContent(), l.deltaContent()), e.tokenCount() + l.tokenCount(), l.isFinal());
+            case Events.UserMessageChunkEvent e when later instanceof Events.UserMessageChunkEvent l ->
+                    new Events.UserMessageChunkEvent(e.eventId(), e.timestamp(), e.nodeId(),
+                            concat(e.content(), l.content()));
+            default -> throw new IllegalArgumentException(
+                    "Cannot merge %s into %s".formatted(later.eventType(), earlier.eventType()));
+        };
+    }
+
+    /**
+     * Text carried by a delta, or {@code null} for any other event.
+     */
+    public static String content(Events.GraphEvent event) {
+        return switch (event) {
+            case Events.NodeStreamDeltaEvent e -> e.deltaContent();
+            case Events.NodeThoughtDeltaEvent e -> e.deltaContent();
+            case Events.UserMessageChunkEvent e -> e.content();
+            default -> null;
+        };
+    }
+
+    public static int tokenCount(Events.GraphEvent event) {
+        return switch (event) {
+            case Events.NodeStreamDeltaEvent e -> e.tokenCount();
+            case Events.NodeThoughtDeltaEvent e -> e.tokenCount();
+            default -> 0;
+        };
+    }
+
+    public static boolean isFinal(Events.GraphEvent event) {
+        return switch (event) {
+            case Events.NodeStreamDeltaEvent e -> e.isFinal();
+            case Events.NodeThoughtDeltaEvent e -> e.isFinal();
+            default -> false;
+        };
+    }
+
+    private static String concat(String a, String b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a + b;
+    }
+}
@@ -9,9 +9,12 @@ import com.hayden.multiagentide.propagation.repository.PropagationItemRepository
 import org.springframework.data.domain.PageRequest;
 import com.hayden.multiagentide.propagation.repository.PropagationRecordEntity;
 import com.hayden.multiagentide.propagation.repository.PropagationRecordRepository;
+import com.hayden.multiagentide.repository.WorkflowRevisions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.util.List;
@@ -24,6 +27,7 @@ public class PropagationItemService {
 
     private final PropagationItemRepository repository;
     private final PropagationRecordRepository recordRepository;
+    private final WorkflowRevisions workflowRevisions;
 
     public Optional<PropagationItemEntity> createItemIfNeeded(String registrationId,
                                                               String layerId,
@@ -55,7 +59,9 @@ public class PropagationItemService {
                 .createdAt(now)
                 .updatedAt(now)
                 .build();
-        return Optional.of(repository.save(entity));
+        PropagationItemEntity saved = repository.save(entity);
+        touchAfterCommit(sourceNodeId);
+        return Optional.of(saved);
     }
 
     public List<PropagationItemEntity> findPendingItems() {
@@ -106,6 +112,7 @@ public class PropagationItemService {
                 .correlationKey(entity.getCorrelationKey())
                 .createdAt(now)
                 .build());
+        touchAfterCommit(entity.getSourceNodeId());
 
         return ResolvePropagationItemResponse.builder()
                 .ok(true)
@@ -116,4 +123,23 @@ public class PropagationItemService {
                 .message("Propagation item resolved")
                 .build();
     }
+
+    /**
+     * Pending items show on the workflow graph, so changing them is a change to the source node.
+     */
+    private void touchAfterCommit(String sourceNodeId) {
+        if (sourceNodeId == null || sourceNodeId.isBlank()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    workflowRevisions.touch(sourceNodeId);
+                }
+            });
+        } else {
+            workflowRevisions.touch(sourceNodeId);
+        }
+    }
 }
@@ -0,0 +1,241 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained event counters for every node and its subtree.
+ *
+ * <p>Each saved event is added to the aggregate of its own nodeId and of every ancestor
+ * on its {@code ArtifactKey} path ({@code ak:A}, {@code ak:A/B}, ...), so the aggregate
+ * stored under a key always covers that node and all of its descendants. Metrics for a
+ * scope are then a single map lookup rather than a scan of every stored event.
+ *
+ * <p>Recent errors are kept in one-second buckets spanning {@link #ERROR_HORIZON_SECONDS},
+ * allocated only for seconds that saw an error; error-window queries are answered to
+ * one-second resolution and anything older than the horizon is not counted.
+ */
+class EventAggregateIndex {
+
+    static final int ERROR_HORIZON_SECONDS = 3600;
+
+    private static final String KEY_PREFIX = "ak:";
+    private static final char SEPARATOR = '/';
+
+    private final Map<String, Aggregate> bySubtree = new ConcurrentHashMap<>();
+
+    void add(Events.GraphEvent event) {
+        String nodeId = canonical(event.nodeId());
+        if (nodeId == null) {
+            return;
+        }
+        for (String scope : selfAndAncestors(nodeId)) {
+            bySubtree.computeIfAbsent(scope, k -> new Aggregate()).add(event);
+        }
+    }
+
+    EventStreamRepository.NodeEventMetrics metrics(String scopeNodeId) {
+        Aggregate aggregate = lookup(scopeNodeId);
+        return aggregate == null ? null : aggregate.metrics();
+    }
+
+    EventStreamRepository.ScopedEventStats scopedStats(String scopeNodeId, Instant errorWindowStart) {
+        Aggregate aggregate = lookup(scopeNodeId);
+        if (aggregate == null) {
+            return new EventStreamRepository.ScopedEventStats(0, Map.of(), 0, Map.of(), 0L, 0L, 0, 0);
+        }
+        return aggregate.scopedStats(errorWindowStart);
+    }
+
+    private Aggregate lookup(String scopeNodeId) {
+        String scope = canonical(scopeNodeId);
+        return scope == null ? null : bySubtree.get(scope);
+    }
+
+    /**
+     * Same normalisation {@code ArtifactKey} applies, so "X" and "ak:X" address the same scope.
+     */
+    static String canonical(String nodeId) {
+        if (nodeId == null || nodeId.isBlank()) {
+            return null;
+        }
+        return KEY_PREFIX + nodeId.replace(KEY_PREFIX, "");
+    }
+
+    /**
+     * The root of the node's ArtifactKey path, i.e. the workflow run it belongs to.
+     */
+    static String runId(String nodeId) {
+        String canonical = canonical(nodeId);
+        if (canonical == null) {
+            return null;
+        }
+        int sep = canonical.indexOf(SEPARATOR, KEY_PREFIX.length());
+        return sep < 0 ? canonical : canonical.substring(0, sep);
+    }
+
+    /**
+     * True when {@code nodeId} is the scope node or one of its descendants.
+     */
+    static boolean inScope(String scopeNodeId, String nodeId) {
+        String scope = canonical(scopeNodeId);
+        String candidate = canonical(nodeId);
+        if (scope == null || candidate == null) {
+            return false;
+        }
+        return candidate.equals(scope)
+                || (candidate.length() > scope.length()
+                    && candidate.startsWith(scope)
+                    && candidate.charAt(scope.length()) == SEPARATOR);
+    }
+
+    static List<String> selfAndAncestors(String canonicalNodeId) {
+        List<String> chain = new ArrayList<>(4);
+        for (int i = canonicalNodeId.indexOf(SEPARATOR, KEY_PREFIX.length());
+             i >= 0;
+             i = canonicalNodeId.indexOf(SEPARATOR, i + 1)) {
+            chain.add(canonicalNodeId.substring(0, i));
+        }
+        chain.add(canonicalNodeId);
+        return chain;
+    }
+
+    private static final class Aggregate {
+
+        private int totalEvents;
+        private int nodeErrorCount;
+        private int chatSessionEvents;
+        private int chatMessageEvents;
+        private int thoughtDeltas;
+        private long thoughtTokens;
+        private int streamDeltas;
+        private long streamTokens;
+        private int toolEvents;
+        private int otherEvents;
+        private final Map<String, Integer> eventTypeCounts = new LinkedHashMap<>();
+        private ErrorBuckets recentErrors;
+
+        synchronized void add(Events.GraphEvent event) {
+            totalEvents++;
+            eventTypeCounts.merge(event.eventType(), 1, Integer::sum);
+            switch (event) {
+                case Events.NodeErrorEvent error -> {
+                    nodeErrorCount++;
+                    if (error.timestamp() != null) {
+                        if (recentErrors == null) {
+                            recentErrors = new ErrorBuckets();
+                        }
+                        recentErrors.add(error.timestamp(), error.nodeType() == null ? "UNKNOWN" : error.nodeType().name());
+                    }
+                }
+                case Events.ChatSessionCreatedEvent ignored -> chatSessionEvents++;
+                case Events.AddMessageEvent ignored -> chatMessageEvents++;
+                case Events.NodeThoughtDeltaEvent t -> { thoughtDeltas++; thoughtTokens += t.tokenCount(); }
+                case Events.NodeStreamDeltaEvent s -> { streamDeltas++; streamTokens += s.tokenCount(); }
+                case Events.ToolCallEvent ignored -> toolEvents++;
+                default -> otherEvents++;
+            }
+        }
+
+        synchronized EventStreamRepository.NodeEventMetrics metrics() {
+            return new EventStreamRepository.NodeEventMetrics(
+                    totalEvents, nodeErrorCount, chatSessionEvents, chatMessageEvents,
+                    thoughtDeltas, thoughtTokens, streamDeltas, streamTokens,
+                    toolEvents, otherEvents
+            );
+        }
+
+        synchronized EventStreamRepository.ScopedEventStats scopedStats(Instant errorWindowStart) {
+            Map<String, Integer> recentErrorsByNodeType = new LinkedHashMap<>();
+            int recentErrorCount = 0;
+            if (recentErrors != null && errorWindowStart != null) {
+                recentErrorCount = recentErrors.countSince(errorWindowStart, recentErrorsByNodeType);
+            }
+            return new EventStreamRepository.ScopedEventStats(
+                    totalEvents, new LinkedHashMap<>(eventTypeCounts),
+                    recentErrorCount, recentErrorsByNodeType,
+                    thoughtTokens, streamTokens,
+                    chatSessionEvents, chatMessageEvents
+            );
+        }
+    }
+
+    /**
+     * One-second buckets of errors, oldest first, holding only the seconds that saw an error
+     * and trimmed to the horizon on every add. A late timestamp is inserted by setting the
+     * newer buckets aside, which are few when events arrive roughly in order.
+     */
+    private static final class ErrorBuckets {
+
+        private static final class Bucket {
+            private final long second;
+            private int count;
+            private final Map<String, Integer> byNodeType = new LinkedHashMap<>(2);
+
+            private Bucket(long second) {
+                this.second = second;
+            }
+        }
+
+        private final ArrayDeque<Bucket> buckets = new ArrayDeque<>();
+
+        void add(Instant timestamp, String nodeType) {
+            long second = timestamp.getEpochSecond();
+            Bucket newest = buckets.peekLast();
+            if (newest != null && second <= newest.second - ERROR_HORIZON_SECONDS) {
+                return;
+            }
+            Bucket bucket = bucketFor(second);
+            bucket.count++;
+            bucket.byNodeType.merge(nodeType, 1, Integer::sum);
+            long expired = buckets.getLast().second - ERROR_HORIZON_SECONDS;
+            while (buckets.getFirst().second <= expired) {
+                buckets.removeFirst();
+            }
+        }
+
+        int countSince(Instant windowStart, Map<String, Integer> byNodeType) {
+            Bucket newest = buckets.peekLast();
+            if (newest == null) {
+                return 0;
+            }
+            long from = Math.max(windowStart.getEpochSecond(), newest.second - ERROR_HORIZON_SECONDS + 1);
+            int count = 0;
+            for (Iterator<Bucket> it = buckets.descendingIterator(); it.hasNext(); ) {
+                Bucket bucket = it.next();
+                if (bucket.second < from) {
+                    break;
+                }
+                count += bucket.count;
+                bucket.byNodeType.forEach((nodeType, n) -> byNodeType.merge(nodeType, n, Integer::sum));
+            }
+            return count;
+        }
+
+        private Bucket bucketFor(long second) {
+            Bucket newest = buckets.peekLast();
+            if (newest != null && newest.second == second) {
+                return newest;
+            }
+            ArrayDeque<Bucket> newer = new ArrayDeque<>();
+            while (!buckets.isEmpty() && buckets.getLast().second > second) {
+                newer.push(buckets.removeLast());
+            }
+            Bucket bucket = buckets.peekLast();
+            if (bucket == null || bucket.second != second) {
+                bucket = new Bucket(second);
+                buckets.addLast(bucket);
+            }
+            buckets.addAll(newer);
+            return bucket;
+        }
+    }
+}
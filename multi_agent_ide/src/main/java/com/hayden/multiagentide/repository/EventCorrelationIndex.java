@@ -0,0 +1,226 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Secondary indexes for the permission and interrupt lookups, maintained on save.
+ *
+ * <p>Tool calls, interrupt requests and permission requests are indexed by the ids callers
+ * resolve them by. Each of those, plus review requests, is also recorded against every
+ * ancestor-or-self scope of its node, so "in scope" lookups read one bucket instead of
+ * filtering the whole event history. Scope buckets keep at most
+ * {@value #MAX_TOOL_CALLS_PER_SCOPE} tool calls, the most recent; the other kinds are rare
+ * enough to keep in full.
+ *
+ * <p>Results are ordered by timestamp; events without one sort first.
+ */
+class EventCorrelationIndex {
+
+    static final int MAX_TOOL_CALLS_PER_SCOPE = 256;
+
+    private static final Comparator<Events.GraphEvent> OLDEST_FIRST = Comparator.comparing(
+            Events.GraphEvent::timestamp, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()));
+
+    private static final class ScopeBucket {
+        private final ArrayDeque<Events.ToolCallEvent> toolCalls = new ArrayDeque<>();
+        private final List<Events.InterruptRequestEvent> interrupts = new ArrayList<>();
+        private final List<Events.NodeReviewRequestedEvent> reviews = new ArrayList<>();
+        private final List<Events.PermissionRequestedEvent> permissions = new ArrayList<>();
+        private final List<Events.PermissionRequestedEvent> permissionsByOrigin = new ArrayList<>();
+    }
+
+    private final Map<String, List<Events.ToolCallEvent>> toolCallsById = new ConcurrentHashMap<>();
+    private final Map<String, List<Events.InterruptRequestEvent>> interruptsById = new ConcurrentHashMap<>();
+    private final Map<String, List<Events.PermissionRequestedEvent>> permissionsById = new ConcurrentHashMap<>();
+    private final Map<String, ScopeBucket> scopes = new ConcurrentHashMap<>();
+
+    void add(Events.GraphEvent event) {
+        switch (event) {
+            case Events.ToolCallEvent toolCall -> {
+                addById(toolCallsById, toolCall.toolCallId(), toolCall);
+                forEachScope(toolCall.nodeId(), bucket -> {
+                    bucket.toolCalls.addLast(toolCall);
+                    if (bucket.toolCalls.size() > MAX_TOOL_CALLS_PER_SCOPE) {
+                        bucket.toolCalls.pollFirst();
+                    }
+                });
+            }
+            case Events.InterruptRequestEvent interrupt -> {
+                addById(interruptsById, interrupt.requestId(), interrupt);
+                addById(interruptsById, interrupt.nodeId(), interrupt);
+                forEachScope(interrupt.nodeId(), bucket -> bucket.interrupts.add(interrupt));
+            }
+            case Events.NodeReviewRequestedEvent review ->
+                    forEachScope(review.nodeId(), bucket -> bucket.reviews.add(review));
+            case Events.PermissionRequestedEvent permission -> {
+                addById(permissionsById, permission.requestId(), permission);
+                addById(permissionsById, permission.toolCallId(), permission);
+                addById(permissionsById, permission.nodeId(), permission);
+                forEachScope(permission.nodeId(), bucket -> bucket.permissions.add(permission));
+                forEachScope(permission.originNodeId(), bucket -> bucket.permissionsByOrigin.add(permission));
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Remove the given events (matched by identity), e.g. when a completed run is spilled.
+     * Runs that have not completed never spill indexed events, so their pending requests
+     * stay resolvable.
+     */
+    void removeAll(Collection<Events.GraphEvent> removed) {
+        Set<Events.GraphEvent> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Events.GraphEvent event : removed) {
+            if (event instanceof Events.ToolCallEvent
+                    || event instanceof Events.InterruptRequestEvent
+                    || event instanceof Events.NodeReviewRequestedEvent
+                    || event instanceof Events.PermissionRequestedEvent) {
+                identities.add(event);
+            }
+        }
+        if (identities.isEmpty()) {
+            return;
+        }
+        removeFrom(toolCallsById, identities);
+        removeFrom(interruptsById, identities);
+        removeFrom(permissionsById, identities);
+        // Buckets are never removed, so a concurrent add cannot land in a detached one.
+        scopes.values().forEach(bucket -> {
+            synchronized (bucket) {
+                bucket.toolCalls.removeIf(identities::contains);
+                bucket.interrupts.removeIf(identities::contains);
+                bucket.reviews.removeIf(identities::contains);
+                bucket.permissions.removeIf(identities::contains);
+                bucket.permissionsByOrigin.removeIf(identities::contains);
+            }
+        });
+    }
+
+    List<Events.ToolCallEvent> toolCalls(String toolCallId) {
+        return oldestFirst(byId(toolCallsById, toolCallId));
+    }
+
+    List<Events.InterruptRequestEvent> interrupts(String requestIdOrNodeId) {
+        return oldestFirst(byId(interruptsById, requestIdOrNodeId));
+    }
+
+    List<Events.PermissionRequestedEvent> permissions(String id) {
+        return oldestFirst(byId(permissionsById, id));
+    }
+
+    /**
+     * At most {@code limit} of the most recent tool calls in scope, newest first.
+     */
+    List<Events.ToolCallEvent> recentToolCallsInScope(String scopeNodeId, int limit) {
+        List<Events.ToolCallEvent> newestFirst = newestFirst(inScope(scopeNodeId, b -> b.toolCalls));
+        return newestFirst.size() <= limit ? newestFirst : List.copyOf(newestFirst.subList(0, Math.max(limit, 0)));
+    }
+
+    List<Events.InterruptRequestEvent> interruptsInScope(String scopeNodeId) {
+        return newestFirst(inScope(scopeNodeId, b -> b.interrupts));
+    }
+
+    List<Events.NodeReviewRequestedEvent> reviewsInScope(String scopeNodeId) {
+        return newestFirst(inScope(scopeNodeId, b -> b.reviews));
+    }
+
+    /**
+     * Permission requests whose node, or with {@code includeOrigin} whose origin node, is in
+     * scope, newest first.
+     */
+    List<Events.PermissionRequestedEvent> permissionsInScope(String scopeNodeId, boolean includeOrigin) {
+        String scope = EventAggregateIndex.canonical(scopeNodeId);
+        ScopeBucket bucket = scope == null ? null : scopes.get(scope);
+        if (bucket == null) {
+            return List.of();
+        }
+        Set<Events.PermissionRequestedEvent> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (bucket) {
+            matched.addAll(bucket.permissions);
+            if (includeOrigin) {
+                matched.addAll(bucket.permissionsByOrigin);
+            }
+        }
+        return newestFirst(new ArrayList<>(matched));
+    }
+
+    private <T extends Events.GraphEvent> List<T> inScope(String scopeNodeId,
+                                                          Function<ScopeBucket, Collection<T>> entries) {
+        String scope = EventAggregateIndex.canonical(scopeNodeId);
+        ScopeBucket bucket = scope == null ? null : scopes.get(scope);
+        if (bucket == null) {
+            return List.of();
+        }
+        synchronized (bucket) {
+            return new ArrayList<>(entries.apply(bucket));
+        }
+    }
+
+    private void forEachScope(String nodeId, Consumer<ScopeBucket> action) {
+        String canonical = EventAggregateIndex.canonical(nodeId);
+        if (canonical == null) {
+            return;
+        }
+        for (String scope : EventAggregateIndex.selfAndAncestors(canonical)) {
+            ScopeBucket bucket = scopes.computeIfAbsent(scope, k -> new ScopeBucket());
+            synchronized (bucket) {
+                action.accept(bucket);
+            }
+        }
+    }
+
+    private static <T> void addById(Map<String, List<T>> index, String id, T event) {
+        if (id == null || id.isBlank()) {
+            return;
+        }
+        index.compute(id, (k, existing) -> {
+            List<T> events = existing == null ? new ArrayList<>(1) : existing;
+            if (events.stream().noneMatch(e -> e == event)) {
+                events.add(event);
+            }
+            return events;
+        });
+    }
+
+    private static <T> List<T> byId(Map<String, List<T>> index, String id) {
+        if (id == null || id.isBlank()) {
+            return List.of();
+        }
+        List<T> copy = new ArrayList<>();
+        index.computeIfPresent(id, (k, events) -> {
+            copy.addAll(events);
+            return events;
+        });
+        return copy;
+    }
+
+    private static <T> void removeFrom(Map<String, List<T>> index, Set<Events.GraphEvent> identities) {
+        for (String id : List.copyOf(index.keySet())) {
+            index.computeIfPresent(id, (k, events) -> {
+                events.removeIf(identities::contains);
+                return events.isEmpty() ? null : events;
+            });
+        }
+    }
+
+    private static <T extends Events.GraphEvent> List<T> oldestFirst(List<T> events) {
+        if (events.size() > 1) {
+            events.sort(OLDEST_FIRST);
+        }
+        return events;
+    }
+
+    private static <T extends Events.GraphEvent> List<T> newestFirst(List<T> events) {
+        if (events.size() > 1) {
+            events.sort(OLDEST_FIRST.reversed());
+        }
+        return events;
+    }
+}
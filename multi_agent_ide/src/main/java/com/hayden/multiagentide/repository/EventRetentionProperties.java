@@ -0,0 +1,46 @@
+package com.hayden.multiagentide.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Memory budgets for {@link InMemoryEventStreamRepository}.
+ *
+ * <p>When {@code enabled} is false (the default) every event is kept in memory for the
+ * life of the process, exactly as before. When true, a run (all events under one root
+ * ArtifactKey) that exceeds its budget, or any run chosen while the repository exceeds
+ * the global budget, first has its stream deltas coalesced and is then spilled to an
+ * append-only segment log under {@code spillDirectory}. Byte figures are estimates of
+ * retained heap, not serialized size.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.event-retention")
+@Data
+public class EventRetentionProperties {
+
+    boolean enabled = false;
+
+    int maxEventsPerRun = 100_000;
+
+    long maxBytesPerRun = 64L * 1024 * 1024;
+
+    int maxEventsTotal = 500_000;
+
+    long maxBytesTotal = 256L * 1024 * 1024;
+
+    /**
+     * Fraction of a budget to free down to once the budget is exceeded.
+     */
+    double lowWaterMark = 0.75;
+
+    /**
+     * Coalesce the stream deltas of a run as soon as its goal completes, regardless of budget.
+     */
+    boolean compactCompletedRuns = true;
+
+    String spillDirectory = System.getProperty("java.io.tmpdir") + "/multi-agent-ide/event-spill";
+
+    long segmentBytes = 64L * 1024 * 1024;
+
+}
@@ -0,0 +1,167 @@
+package com.hayden.multiagentide.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Append-only on-disk log of spilled events.
+ *
+ * <p>Records are a 4-byte length followed by the event's timeline sequence and its JSON,
+ * written to numbered segment files that roll over at {@code segmentBytes}. A batch is
+ * written contiguously, so callers keep one {@link Extent} per batch and segment rather
+ * than a position per event, and read the whole extent back. The log lives in a fresh
+ * per-instance directory that is deleted on {@link #close()}; nothing is recovered
+ * across restarts, matching the in-memory repository it backs.
+ */
+@Slf4j
+class EventSegmentLog implements AutoCloseable {
+
+    /**
+     * {@code count} records in {@code [offset, end)} of one segment.
+     */
+    record Extent(int segment, long offset, long end, int count) {}
+
+    /**
+     * A spilled event with the {@link EventTimelineIndex} sequence it had when spilled.
+     */
+    record Spilled(Events.GraphEvent event, long sequence) {}
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ObjectMapper objectMapper;
+
+    private final List<FileChannel> segments = new ArrayList<>();
+    private long currentSize;
+    private long bytesWritten;
+
+    EventSegmentLog(Path baseDirectory, long segmentBytes, ObjectMapper objectMapper) {
+        this.directory = baseDirectory.resolve(UUID.randomUUID().toString());
+        this.segmentBytes = Math.max(1024, segmentBytes);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Serialize outside the log's lock; the result is passed to {@link #append}.
+     */
+    byte[] serialize(Events.GraphEvent event, long sequence) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(event);
+        return ByteBuffer.allocate(Long.BYTES + json.length).putLong(sequence).put(json).array();
+    }
+
+    /**
+     * Write the records back to back, rolling segments as needed.
+     *
+     * @return one extent per segment the batch was written to, in order
+     */
+    synchronized List<Extent> append(List<byte[]> records) throws IOException {
+        List<Extent> extents = new ArrayList<>();
+        long start = -1L;
+        int count = 0;
+        for (byte[] record : records) {
+            if (segments.isEmpty() || currentSize + record.length + Integer.BYTES > segmentBytes) {
+                if (count > 0) {
+                    extents.add(new Extent(segments.size() - 1, start, currentSize, count));
+                }
+                roll();
+                start = -1L;
+                count = 0;
+            }
+            if (start < 0) {
+                start = currentSize;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length);
+            buffer.putInt(record.length).put(record).flip();
+            FileChannel channel = segments.getLast();
+            long position = currentSize;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            currentSize = position;
+            bytesWritten += buffer.limit();
+            count++;
+        }
+        if (count > 0) {
+            extents.add(new Extent(segments.size() - 1, start, currentSize, count));
+        }
+        return extents;
+    }
+
+    List<Spilled> read(Extent extent) throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            channel = segments.get(extent.segment());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(extent.end() - extent.offset()));
+        long position = extent.offset();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Truncated extent " + extent);
+            }
+            position += read;
+        }
+        buffer.flip();
+        List<Spilled> spilled = new ArrayList<>(extent.count());
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            long sequence = buffer.getLong();
+            int jsonLength = length - Long.BYTES;
+            spilled.add(new Spilled(
+                    objectMapper.readValue(buffer.array(), buffer.position(), jsonLength, Events.GraphEvent.class),
+                    sequence));
+            buffer.position(buffer.position() + jsonLength);
+        }
+        return spilled;
+    }
+
+    synchronized long bytesWritten() {
+        return bytesWritten;
+    }
+
+    private void roll() throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("segment-%05d.log".formatted(segments.size()));
+        segments.add(FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        currentSize = 0L;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : segments) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close event segment: {}", e.getMessage());
+            }
+        }
+        segments.clear();
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    log.warn("Failed to delete {}: {}", p, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to clean up event spill directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
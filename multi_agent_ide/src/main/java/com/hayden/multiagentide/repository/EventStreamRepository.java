@@ -3,11 +3,18 @@ package com.hayden.multiagentide.repository;
 import com.hayden.acp_cdc_ai.acp.events.Events;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface EventStreamRepository {
 
@@ -17,18 +24,158 @@ public interface EventStreamRepository {
 
     Optional<Events.GraphEvent> findById(String eventId);
 
+    /**
+     * Events whose nodeId is equal to or a descendant of the given nodeId, oldest first.
+     * Unlike {@link #list()}, this includes events a retention policy has moved out of memory.
+     */
+    default List<Events.GraphEvent> listScoped(String scopeNodeId) {
+        return list().stream()
+                .filter(e -> e != null && EventAggregateIndex.inScope(scopeNodeId, e.nodeId()))
+                .sorted(Comparator.comparing(Events.GraphEvent::timestamp, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    /**
+     * One page of {@link #listScoped}, oldest first, or newest first with {@code newestFirst}.
+     * {@code cursor} is the previous page's {@link EventPage#nextCursor()}, or null for the
+     * first page. The default pages {@link #listScoped} by offset;
+     * InMemoryEventStreamRepository seeks in an index with cursors that stay valid while
+     * events are appended.
+     */
+    default EventPage pageScoped(String scopeNodeId, String cursor, int limit, boolean newestFirst) {
+        List<Events.GraphEvent> scoped = listScoped(scopeNodeId);
+        int size = scoped.size();
+        int skipped = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                skipped = Math.max(0, Integer.parseInt(cursor));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        int pageSize = Math.max(limit, 0);
+        if (!newestFirst) {
+            int from = Math.min(size, skipped);
+            int to = Math.min(size, from + pageSize);
+            return new EventPage(scoped.subList(from, to), to < size && to > from ? Integer.toString(to) : null, size, from);
+        }
+        int to = Math.max(0, size - skipped);
+        int from = Math.max(0, to - pageSize);
+        List<Events.GraphEvent> page = new ArrayList<>(scoped.subList(from, to));
+        Collections.reverse(page);
+        return new EventPage(page, from > 0 && to > from ? Integer.toString(size - from) : null, size, from);
+    }
+
+    /**
+     * Most recent event (by timestamp) of the given type or a subtype that matches.
+     */
     <T extends Events.GraphEvent> Optional<T> getLastMatching(Class<T> v, Predicate<T> toMatch);
 
+    /**
+     * Events of the given type or a subtype that match, oldest first.
+     */
     <T extends Events.GraphEvent> Stream<T> getAllMatching(Class<T> v, Predicate<T> toMatch);
 
+    /**
+     * Events of the given type or a subtype, newest first. Lazy: callers that stop early
+     * never visit older events.
+     */
+    <T extends Events.GraphEvent> Iterator<T> reverseIterator(Class<T> v);
+
+    /**
+     * Stream form of {@link #reverseIterator(Class)}.
+     */
+    default <T extends Events.GraphEvent> Stream<T> streamNewestFirst(Class<T> v, Predicate<T> toMatch) {
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(reverseIterator(v), Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .filter(toMatch);
+    }
+
+    // ── Correlation lookups ───────────────────────────────────────────────
+    //
+    // The defaults scan list(); InMemoryEventStreamRepository answers these from indexes
+    // maintained on save. Scope matching is EventAggregateIndex.inScope.
+
+    /**
+     * Tool call events with this toolCallId, oldest first.
+     */
+    default List<Events.ToolCallEvent> findToolCalls(String toolCallId) {
+        return matching(Events.ToolCallEvent.class, e -> toolCallId != null && toolCallId.equals(e.toolCallId()), false);
+    }
+
+    /**
+     * Up to {@code limit} of the most recent tool calls at or below the scope node, newest first.
+     */
+    default List<Events.ToolCallEvent> findRecentToolCalls(String scopeNodeId, int limit) {
+        return matching(Events.ToolCallEvent.class, e -> EventAggregateIndex.inScope(scopeNodeId, e.nodeId()), true)
+                .stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Most recent interrupt request whose requestId or nodeId is the given id.
+     */
+    default Optional<Events.InterruptRequestEvent> findInterruptRequest(String requestIdOrNodeId) {
+        return matching(Events.InterruptRequestEvent.class,
+                e -> requestIdOrNodeId != null
+                        && (requestIdOrNodeId.equals(e.requestId()) || requestIdOrNodeId.equals(e.nodeId())),
+                true).stream().findFirst();
+    }
+
+    /**
+     * Interrupt requests at or below the scope node, newest first.
+     */
+    default List<Events.InterruptRequestEvent> findInterruptRequestsInScope(String scopeNodeId) {
+        return matching(Events.InterruptRequestEvent.class, e -> EventAggregateIndex.inScope(scopeNodeId, e.nodeId()), true);
+    }
+
+    /**
+     * Review requests at or below the scope node, newest first.
+     */
+    default List<Events.NodeReviewRequestedEvent> findReviewRequestsInScope(String scopeNodeId) {
+        return matching(Events.NodeReviewRequestedEvent.class, e -> EventAggregateIndex.inScope(scopeNodeId, e.nodeId()), true);
+    }
+
+    /**
+     * Most recent permission request whose requestId, toolCallId or nodeId is the given id.
+     */
+    default Optional<Events.PermissionRequestedEvent> findPermissionRequest(String id) {
+        return matching(Events.PermissionRequestedEvent.class,
+                e -> id != null && (id.equals(e.requestId()) || id.equals(e.toolCallId()) || id.equals(e.nodeId())),
+                true).stream().findFirst();
+    }
+
+    /**
+     * Permission requests whose node, or with {@code includeOrigin} whose origin node, is at or
+     * below the scope node, newest first.
+     */
+    default List<Events.PermissionRequestedEvent> findPermissionRequestsInScope(String scopeNodeId, boolean includeOrigin) {
+        return matching(Events.PermissionRequestedEvent.class,
+                e -> EventAggregateIndex.inScope(scopeNodeId, e.nodeId())
+                        || (includeOrigin && EventAggregateIndex.inScope(scopeNodeId, e.originNodeId())),
+                true);
+    }
+
+    private <T extends Events.GraphEvent> List<T> matching(Class<T> type, Predicate<T> toMatch, boolean newestFirst) {
+        Comparator<T> byTime = Comparator.comparing(Events.GraphEvent::timestamp, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()));
+        return list().stream()
+                .filter(type::isInstance)
+                .map(type::cast)
+                .filter(toMatch)
+                .sorted(newestFirst ? byTime.reversed() : byTime)
+                .toList();
+    }
+
     /**
      * Compute event-based metrics for a single graph node.
-     * Scans events where event.nodeId() is equal to or a descendant of the given nodeId.
+     * Covers events where event.nodeId() is equal to or a descendant of the given nodeId.
      */
     Optional<NodeEventMetrics> computeMetrics(String nodeId);
 
     /**
      * Compute aggregate statistics for all events under a root scope.
+     * Recent errors are counted from errorWindowStart, to one-second resolution.
      */
     ScopedEventStats computeScopedStats(String rootNodeId, Instant errorWindowStart);
 
@@ -45,6 +192,17 @@ public interface EventStreamRepository {
             int otherEvents
     ) {}
 
+    /**
+     * @param total  events in the scope
+     * @param offset position of the page's oldest event among them, oldest first
+     */
+    record EventPage(
+            List<Events.GraphEvent> events,
+            String nextCursor,
+            int total,
+            int offset
+    ) {}
+
     record ScopedEventStats(
             int totalEvents,
             Map<String, Integer> eventTypeCounts,
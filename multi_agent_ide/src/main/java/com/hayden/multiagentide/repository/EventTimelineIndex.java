@@ -0,0 +1,219 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event ids of every scope, in (timestamp, sequence) order, for seek pagination.
+ *
+ * <p>Each saved event gets a sequence number and is recorded against every ancestor-or-self
+ * scope of its node, like the aggregates. Events mostly arrive in timestamp order, so adding
+ * one is an append; a late event is inserted at its place. A page is a binary search for the
+ * cursor followed by a copy of at most {@code limit} ids, and the scope total is the size of
+ * its list.
+ *
+ * <p>Cursors encode the (timestamp, sequence) of the last entry returned rather than a
+ * position, so events appended after a page was read do not shift the next one. Events
+ * without an id cannot be resolved later and are not indexed.
+ *
+ * <p>A run that has been spilled in full is dropped with {@link #removeRun}. Its events keep
+ * their sequence in the segment log, and {@link #page(String, Collection, String, int, boolean)}
+ * merges them back in, so cursors handed out before the drop stay valid.
+ */
+class EventTimelineIndex {
+
+    record Slice(List<String> eventIds, String nextCursor, int total, int offset) {
+    }
+
+    private record Entry(Instant timestamp, long sequence, String eventId) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::timestamp)
+            .thenComparingLong(Entry::sequence);
+
+    private static final Slice EMPTY = new Slice(List.of(), null, 0, 0);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, List<Entry>> scopes = new ConcurrentHashMap<>();
+
+    void add(Events.GraphEvent event) {
+        String nodeId = EventAggregateIndex.canonical(event.nodeId());
+        if (nodeId == null || event.eventId() == null) {
+            return;
+        }
+        Instant timestamp = event.timestamp() == null ? Instant.MIN : event.timestamp();
+        Entry entry = new Entry(timestamp, sequence.incrementAndGet(), event.eventId());
+        if (entries.putIfAbsent(event.eventId(), entry) != null) {
+            return;
+        }
+        for (String scope : EventAggregateIndex.selfAndAncestors(nodeId)) {
+            List<Entry> ordered = scopes.computeIfAbsent(scope, k -> new ArrayList<>());
+            synchronized (ordered) {
+                int size = ordered.size();
+                if (size == 0 || ORDER.compare(ordered.get(size - 1), entry) <= 0) {
+                    ordered.add(entry);
+                } else {
+                    ordered.add(-(Collections.binarySearch(ordered, entry, ORDER) + 1), entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the given events, e.g. when compaction replaces them with an aggregate.
+     */
+    void removeAll(Collection<Events.GraphEvent> removed) {
+        for (Events.GraphEvent event : removed) {
+            Entry entry = event.eventId() == null ? null : entries.remove(event.eventId());
+            String nodeId = EventAggregateIndex.canonical(event.nodeId());
+            if (entry == null || nodeId == null) {
+                continue;
+            }
+            for (String scope : EventAggregateIndex.selfAndAncestors(nodeId)) {
+                List<Entry> ordered = scopes.get(scope);
+                if (ordered == null) {
+                    continue;
+                }
+                synchronized (ordered) {
+                    int index = Collections.binarySearch(ordered, entry, ORDER);
+                    if (index >= 0) {
+                        ordered.remove(index);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sequence the event was indexed under, or 0 if it is not indexed.
+     */
+    long sequenceOf(String eventId) {
+        Entry entry = eventId == null ? null : entries.get(eventId);
+        return entry == null ? 0L : entry.sequence();
+    }
+
+    /**
+     * Drop every entry of the run, e.g. once all of its events have been spilled.
+     */
+    void removeRun(String runId) {
+        List<Entry> all = runId == null ? null : scopes.get(runId);
+        if (all == null) {
+            return;
+        }
+        synchronized (all) {
+            for (Entry entry : all) {
+                entries.remove(entry.eventId(), entry);
+            }
+        }
+        scopes.keySet().removeIf(scope -> runId.equals(EventAggregateIndex.runId(scope)));
+    }
+
+    /**
+     * At most {@code limit} ids after the cursor, oldest first, or before it, newest first.
+     * A missing or unreadable cursor starts from the oldest or the newest event respectively.
+     */
+    Slice page(String scopeNodeId, String cursor, int limit, boolean newestFirst) {
+        String scope = EventAggregateIndex.canonical(scopeNodeId);
+        List<Entry> ordered = scope == null ? null : scopes.get(scope);
+        if (ordered == null) {
+            return EMPTY;
+        }
+        synchronized (ordered) {
+            return slice(ordered, decode(cursor), Math.max(limit, 0), newestFirst);
+        }
+    }
+
+    /**
+     * Like {@link #page(String, String, int, boolean)}, over the indexed entries of the scope
+     * merged with spilled events of a dropped run. The spilled events must be in scope; one
+     * that is also still indexed is counted once.
+     */
+    Slice page(String scopeNodeId, Collection<EventSegmentLog.Spilled> spilled, String cursor, int limit,
+               boolean newestFirst) {
+        String scope = EventAggregateIndex.canonical(scopeNodeId);
+        Map<String, Entry> merged = new HashMap<>();
+        for (EventSegmentLog.Spilled s : spilled) {
+            Events.GraphEvent event = s.event();
+            if (event.eventId() != null) {
+                Instant timestamp = event.timestamp() == null ? Instant.MIN : event.timestamp();
+                merged.put(event.eventId(), new Entry(timestamp, s.sequence(), event.eventId()));
+            }
+        }
+        List<Entry> indexed = scope == null ? null : scopes.get(scope);
+        if (indexed != null) {
+            synchronized (indexed) {
+                for (Entry entry : indexed) {
+                    merged.put(entry.eventId(), entry);
+                }
+            }
+        }
+        List<Entry> ordered = new ArrayList<>(merged.values());
+        ordered.sort(ORDER);
+        return slice(ordered, decode(cursor), Math.max(limit, 0), newestFirst);
+    }
+
+    private static Slice slice(List<Entry> ordered, Entry after, int pageSize, boolean newestFirst) {
+        int size = ordered.size();
+        if (!newestFirst) {
+            int from = after == null ? 0 : seek(ordered, after, true);
+            int to = Math.min(size, from + pageSize);
+            String next = to < size && to > from ? encode(ordered.get(to - 1)) : null;
+            return new Slice(ids(ordered, from, to, false), next, size, from);
+        }
+        int to = after == null ? size : seek(ordered, after, false);
+        int from = Math.max(0, to - pageSize);
+        String next = from > 0 && to > from ? encode(ordered.get(from)) : null;
+        return new Slice(ids(ordered, from, to, true), next, size, from);
+    }
+
+    /**
+     * Index of the first entry after {@code key}, or with {@code after} false of the first
+     * entry not before it. The key need not be present.
+     */
+    private static int seek(List<Entry> ordered, Entry key, boolean after) {
+        int index = Collections.binarySearch(ordered, key, ORDER);
+        if (index < 0) {
+            return -(index + 1);
+        }
+        return after ? index + 1 : index;
+    }
+
+    private static List<String> ids(List<Entry> ordered, int from, int to, boolean reversed) {
+        List<String> ids = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            ids.add(ordered.get(i).eventId());
+        }
+        if (reversed) {
+            Collections.reverse(ids);
+        }
+        return ids;
+    }
+
+    private static String encode(Entry entry) {
+        String raw = entry.timestamp().getEpochSecond() + ":" + entry.timestamp().getNano() + ":" + entry.sequence();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                return null;
+            }
+            Instant timestamp = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new Entry(timestamp, Long.parseLong(parts[2]), null);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Secondary index of saved events by concrete event class, each kept in timestamp order.
+ *
+ * <p>A query for a type resolves, once per queried class, the set of concrete classes
+ * assignable to it, then merges just those per-class logs. Iterating newest-first lets
+ * "last event of type X matching P" stop at the first match instead of scanning and
+ * sorting every stored event.
+ *
+ * <p>Events with equal timestamps are ordered by insertion; events without a timestamp
+ * sort first.
+ */
+class EventTypeIndex {
+
+    private record Position(Instant timestamp, long seq) implements Comparable<Position> {
+
+        private static final Comparator<Position> ORDER =
+                Comparator.comparing(Position::timestamp).thenComparingLong(Position::seq);
+
+        @Override
+        public int compareTo(Position o) {
+            return ORDER.compare(this, o);
+        }
+    }
+
+    private final Map<Class<?>, ConcurrentSkipListMap<Position, Events.GraphEvent>> byConcreteClass = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<ConcurrentSkipListMap<Position, Events.GraphEvent>>> resolved = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    void add(Events.GraphEvent event) {
+        Instant timestamp = event.timestamp() == null ? Instant.MIN : event.timestamp();
+        logFor(event.getClass()).put(new Position(timestamp, sequence.incrementAndGet()), event);
+    }
+
+    /**
+     * Remove the given events (matched by identity).
+     */
+    void removeAll(Collection<Events.GraphEvent> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        Set<Events.GraphEvent> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        identities.addAll(removed);
+        identities.stream()
+                .map(Object::getClass)
+                .distinct()
+                .map(byConcreteClass::get)
+                .filter(Objects::nonNull)
+                .forEach(log -> log.values().removeIf(identities::contains));
+    }
+
+    <T extends Events.GraphEvent> Iterator<T> newestFirst(Class<T> type) {
+        return merge(type, true);
+    }
+
+    <T extends Events.GraphEvent> Iterator<T> oldestFirst(Class<T> type) {
+        return merge(type, false);
+    }
+
+    private ConcurrentSkipListMap<Position, Events.GraphEvent> logFor(Class<?> concreteClass) {
+        var log = byConcreteClass.get(concreteClass);
+        if (log != null) {
+            return log;
+        }
+        synchronized (resolved) {
+            log = byConcreteClass.computeIfAbsent(concreteClass, k -> new ConcurrentSkipListMap<>());
+            // A class we have not seen before may be assignable to types already resolved.
+            resolved.clear();
+            return log;
+        }
+    }
+
+    private List<ConcurrentSkipListMap<Position, Events.GraphEvent>> logsFor(Class<?> type) {
+        var logs = resolved.get(type);
+        if (logs != null) {
+            return logs;
+        }
+        synchronized (resolved) {
+            return resolved.computeIfAbsent(type, t -> byConcreteClass.entrySet().stream()
+                    .filter(e -> t.isAssignableFrom(e.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toList());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Events.GraphEvent> Iterator<T> merge(Class<T> type, boolean newestFirst) {
+        List<ConcurrentSkipListMap<Position, Events.GraphEvent>> logs = logsFor(type);
+        if (logs.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        if (logs.size() == 1) {
+            var log = logs.getFirst();
+            return (Iterator<T>) (newestFirst ? log.descendingMap() : log).values().iterator();
+        }
+        return (Iterator<T>) new MergingIterator(logs, newestFirst);
+    }
+
+    /**
+     * Lazy k-way merge of several per-class logs by position.
+     */
+    private static final class MergingIterator implements Iterator<Events.GraphEvent> {
+
+        private record Head(Map.Entry<Position, Events.GraphEvent> entry,
+                            Iterator<Map.Entry<Position, Events.GraphEvent>> source) {}
+
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<ConcurrentSkipListMap<Position, Events.GraphEvent>> logs, boolean newestFirst) {
+            Comparator<Head> byPosition = Comparator.comparing(h -> h.entry().getKey());
+            this.heads = new PriorityQueue<>(logs.size(), newestFirst ? byPosition.reversed() : byPosition);
+            for (var log : logs) {
+                advance((newestFirst ? log.descendingMap() : log).entrySet().iterator());
+            }
+        }
+
+        private void advance(Iterator<Map.Entry<Position, Events.GraphEvent>> source) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Events.GraphEvent next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.source());
+            return head.entry().getValue();
+        }
+    }
+}
@@ -1,22 +1,133 @@
 package com.hayden.multiagentide.repository;
 
-import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.filter.config.ContextObjectMapperProvider;
+import com.hayden.multiagentide.infrastructure.StreamDeltaCoalescing;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * In-memory event store.
+ *
+ * <p>With {@link EventRetentionProperties#isEnabled()} set, resident events are held to
+ * per-run and global budgets: a run is first compacted (consecutive stream deltas of a
+ * node merged into one aggregate delta) and, if still over budget, its resident events
+ * are spilled to an {@link EventSegmentLog}. Crossing a budget frees down to its low-water
+ * mark, so a repository near its limit does not compact or spill on every save, and a run is
+ * only compacted again once new stream deltas have arrived. A run that has not completed only
+ * spills its stream deltas: its other events stay resident, so a live workflow can still find its chat
+ * sessions and resolve pending permissions and interrupts. Metrics and scoped stats are
+ * unaffected since they come from counters maintained on save. {@link #findById},
+ * {@link #listScoped} and {@link #pageScoped} also read spilled events; {@link #list()}, the
+ * type lookups and the correlation lookups only see resident events.
+ *
+ * <p>What stays on heap for spilled events is per run, not per event: the extents of the
+ * run in the segment log. While a run is live its spilled deltas keep their
+ * {@link EventTimelineIndex} entries, which stay counted against the budget. A run whose
+ * events are all spilled after it completed drops its bookkeeping and its timeline entries,
+ * and its pages are read from the segment log. Ids of deltas merged away by compaction no longer resolve; the aggregate
+ * keeps the id of the first delta. {@link #findById} of a spilled event scans the spilled
+ * extents, which is meant for occasional detail lookups.
+ *
+ * <p>Each saved event touches its node in {@link WorkflowRevisions}, and a completed run's
+ * revision log is forgotten once the run is compacted or spilled.
+ */
 @Slf4j
 @Component
 public class InMemoryEventStreamRepository implements EventStreamRepository {
 
+    public record RetentionStats(
+            long residentEvents,
+            long residentBytes,
+            long spilledEvents,
+            long spilledBytes,
+            long compactedEvents,
+            int runs
+    ) {}
+
+    private static final class RunState {
+        final String runId;
+        final Set<String> nodeIds = ConcurrentHashMap.newKeySet();
+        final AtomicLong residentEvents = new AtomicLong();
+        final AtomicLong residentBytes = new AtomicLong();
+        final AtomicLong residentDeltas = new AtomicLong();
+        final AtomicLong deltasSaved = new AtomicLong();
+        volatile long lastActivity;
+        volatile boolean completed;
+        long deltasAtLastCompaction = -1;
+
+        RunState(String runId) {
+            this.runId = runId;
+        }
+    }
+
+    private static final class SpilledRun {
+        final List<EventSegmentLog.Extent> extents = Collections.synchronizedList(new ArrayList<>());
+        /**
+         * Set once the run's timeline entries are dropped; pages then merge in the spilled events.
+         */
+        volatile boolean unindexed;
+    }
+
+    /**
+     * Rough retained heap of a timeline entry: the entry, its id, and a reference per scope.
+     */
+    private static final long TIMELINE_ENTRY_BYTES = 128L;
+
     private final Map<String, List<Events.GraphEvent>> events = new ConcurrentHashMap<>();
     private final Map<String, Events.GraphEvent> byId = new ConcurrentHashMap<>();
+    private final EventAggregateIndex aggregates = new EventAggregateIndex();
+    private final EventTypeIndex typeIndex = new EventTypeIndex();
+    private final EventCorrelationIndex correlations = new EventCorrelationIndex();
+    private final EventTimelineIndex timeline = new EventTimelineIndex();
+
+    private final WorkflowRevisions revisions;
+    private final EventRetentionProperties retention;
+    private final ObjectMapper spillMapper;
+    private final Map<String, RunState> runs = new ConcurrentHashMap<>();
+    private final Map<String, SpilledRun> spilledRuns = new ConcurrentHashMap<>();
+    private final AtomicLong spilledEvents = new AtomicLong();
+    private final AtomicLong residentEvents = new AtomicLong();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicLong compactedEvents = new AtomicLong();
+    private final AtomicLong activityClock = new AtomicLong();
+    private final Object retentionLock = new Object();
+    private volatile EventSegmentLog segmentLog;
+
+    public InMemoryEventStreamRepository() {
+        this(null, null);
+    }
+
+    public InMemoryEventStreamRepository(EventRetentionProperties retention,
+                                         ContextObjectMapperProvider contextObjectMapperProvider) {
+        this(retention, contextObjectMapperProvider, new WorkflowRevisions());
+    }
+
+    @Autowired
+    public InMemoryEventStreamRepository(EventRetentionProperties retention,
+                                         ContextObjectMapperProvider contextObjectMapperProvider,
+                                         WorkflowRevisions revisions) {
+        this.revisions = revisions;
+        this.retention = retention != null && retention.isEnabled() ? retention : null;
+        this.spillMapper = contextObjectMapperProvider != null
+                ? contextObjectMapperProvider.objectMapper()
+                : new ObjectMapper().findAndRegisterModules()
+                        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
 
     @Override
     public void save(Events.GraphEvent graphEvent) {
@@ -31,6 +142,14 @@ public class InMemoryEventStreamRepository implements EventStreamRepository {
         if (graphEvent != null && graphEvent.eventId() != null) {
             byId.put(graphEvent.eventId(), graphEvent);
         }
+        aggregates.add(graphEvent);
+        typeIndex.add(graphEvent);
+        correlations.add(graphEvent);
+        timeline.add(graphEvent);
+        if (retention != null) {
+            track(graphEvent);
+        }
+        revisions.touch(graphEvent.nodeId());
     }
 
     @Override
@@ -46,119 +165,508 @@ public class InMemoryEventStreamRepository implements EventStreamRepository {
         if (eventId == null) {
             return java.util.Optional.empty();
         }
-        return java.util.Optional.ofNullable(byId.get(eventId));
+        Events.GraphEvent resident = byId.get(eventId);
+        if (resident != null) {
+            return java.util.Optional.of(resident);
+        }
+        for (String runId : spilledRuns.keySet()) {
+            for (EventSegmentLog.Spilled spilled : readSpilled(runId)) {
+                if (eventId.equals(spilled.event().eventId())) {
+                    return java.util.Optional.of(spilled.event());
+                }
+            }
+        }
+        return java.util.Optional.empty();
     }
 
     @Override
-    public <T extends Events.GraphEvent> Optional<T> getLastMatching(Class<T> v, Predicate<T> toMatch) {
-        return events.values().stream()
-                .flatMap(Collection::stream)
-                .filter(gn -> gn.getClass().equals(v) || v.isAssignableFrom(gn.getClass()))
-                .map(ge -> (T) ge)
-                .filter(toMatch)
-                .max(Comparator.comparing(Events.GraphEvent::timestamp))
-                .map(t -> {
-                    log.info("Found last matching {}:{}, {}", t.getClass(), t.nodeId(), t);
-                    return t;
+    public List<Events.GraphEvent> listScoped(String scopeNodeId) {
+        List<Events.GraphEvent> scoped = new ArrayList<>();
+        for (String nodeId : events.keySet()) {
+            if (EventAggregateIndex.inScope(scopeNodeId, nodeId)) {
+                events.computeIfPresent(nodeId, (k, nodeEvents) -> {
+                    scoped.addAll(nodeEvents);
+                    return nodeEvents;
                 });
+            }
+        }
+        Set<String> residentIds = new HashSet<>();
+        for (Events.GraphEvent event : scoped) {
+            residentIds.add(event.eventId());
+        }
+        for (EventSegmentLog.Spilled spilled : readSpilled(EventAggregateIndex.runId(scopeNodeId))) {
+            Events.GraphEvent event = spilled.event();
+            // A spill in progress has published its extents before dropping the resident copies.
+            if (EventAggregateIndex.inScope(scopeNodeId, event.nodeId()) && !residentIds.contains(event.eventId())) {
+                scoped.add(event);
+            }
+        }
+        scoped.sort(Comparator.comparing(Events.GraphEvent::timestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return scoped;
+    }
+
+    /**
+     * Seeks in the timeline index; if the page names spilled events, the run's spilled
+     * extents are read back once for the page. A run whose timeline entries were dropped is
+     * paged over its spilled events merged with whatever is indexed since.
+     */
+    @Override
+    public EventPage pageScoped(String scopeNodeId, String cursor, int limit, boolean newestFirst) {
+        String runId = EventAggregateIndex.runId(scopeNodeId);
+        SpilledRun spilledRun = runId == null ? null : spilledRuns.get(runId);
+        Map<String, Events.GraphEvent> spilled = null;
+        EventTimelineIndex.Slice slice;
+        if (spilledRun != null && spilledRun.unindexed) {
+            List<EventSegmentLog.Spilled> inScope = readSpilled(runId).stream()
+                    .filter(s -> EventAggregateIndex.inScope(scopeNodeId, s.event().nodeId()))
+                    .toList();
+            spilled = byEventId(inScope);
+            slice = timeline.page(scopeNodeId, inScope, cursor, limit, newestFirst);
+        } else {
+            slice = timeline.page(scopeNodeId, cursor, limit, newestFirst);
+        }
+        List<Events.GraphEvent> page = new ArrayList<>(slice.eventIds().size());
+        for (String eventId : slice.eventIds()) {
+            Events.GraphEvent event = byId.get(eventId);
+            if (event == null) {
+                if (spilled == null) {
+                    spilled = byEventId(readSpilled(runId));
+                }
+                event = spilled.get(eventId);
+            }
+            // An id merged away by a concurrent compaction resolves to nothing and is skipped.
+            if (event != null) {
+                page.add(event);
+            }
+        }
+        return new EventPage(page, slice.nextCursor(), slice.total(), slice.offset());
+    }
+
+    private static Map<String, Events.GraphEvent> byEventId(List<EventSegmentLog.Spilled> spilled) {
+        Map<String, Events.GraphEvent> events = new HashMap<>();
+        for (EventSegmentLog.Spilled s : spilled) {
+            events.put(s.event().eventId(), s.event());
+        }
+        return events;
+    }
+
+    @Override
+    public <T extends Events.GraphEvent> Optional<T> getLastMatching(Class<T> v, Predicate<T> toMatch) {
+        Iterator<T> newestFirst = typeIndex.newestFirst(v);
+        while (newestFirst.hasNext()) {
+            T t = newestFirst.next();
+            if (toMatch.test(t)) {
+                log.info("Found last matching {}:{}, {}", t.getClass(), t.nodeId(), t);
+                return Optional.of(t);
+            }
+        }
+        return Optional.empty();
     }
 
     @Override
     public <T extends Events.GraphEvent> Stream<T> getAllMatching(Class<T> v, Predicate<T> toMatch) {
-        return events.values().stream()
-                .flatMap(Collection::stream)
-                .filter(gn -> gn.getClass().equals(v) || v.isAssignableFrom(gn.getClass()))
-                .map(ge -> (T) ge)
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(typeIndex.oldestFirst(v), Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
                 .filter(toMatch);
     }
 
+    @Override
+    public <T extends Events.GraphEvent> Iterator<T> reverseIterator(Class<T> v) {
+        return typeIndex.newestFirst(v);
+    }
+
+    @Override
+    public List<Events.ToolCallEvent> findToolCalls(String toolCallId) {
+        return correlations.toolCalls(toolCallId);
+    }
+
+    @Override
+    public List<Events.ToolCallEvent> findRecentToolCalls(String scopeNodeId, int limit) {
+        return correlations.recentToolCallsInScope(scopeNodeId, limit);
+    }
+
+    @Override
+    public Optional<Events.InterruptRequestEvent> findInterruptRequest(String requestIdOrNodeId) {
+        List<Events.InterruptRequestEvent> matches = correlations.interrupts(requestIdOrNodeId);
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.getLast());
+    }
+
+    @Override
+    public List<Events.InterruptRequestEvent> findInterruptRequestsInScope(String scopeNodeId) {
+        return correlations.interruptsInScope(scopeNodeId);
+    }
+
+    @Override
+    public List<Events.NodeReviewRequestedEvent> findReviewRequestsInScope(String scopeNodeId) {
+        return correlations.reviewsInScope(scopeNodeId);
+    }
+
+    @Override
+    public Optional<Events.PermissionRequestedEvent> findPermissionRequest(String id) {
+        List<Events.PermissionRequestedEvent> matches = correlations.permissions(id);
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.getLast());
+    }
+
+    @Override
+    public List<Events.PermissionRequestedEvent> findPermissionRequestsInScope(String scopeNodeId, boolean includeOrigin) {
+        return correlations.permissionsInScope(scopeNodeId, includeOrigin);
+    }
+
     @Override
     public Optional<NodeEventMetrics> computeMetrics(String nodeId) {
         if (nodeId == null || nodeId.isBlank()) return Optional.empty();
+        return Optional.ofNullable(aggregates.metrics(nodeId));
+    }
+
+    @Override
+    public ScopedEventStats computeScopedStats(String rootNodeId, Instant errorWindowStart) {
+        return aggregates.scopedStats(rootNodeId, errorWindowStart);
+    }
 
-        List<Events.GraphEvent> scoped = scopedEvents(nodeId);
-        if (scoped.isEmpty()) return Optional.empty();
+    public RetentionStats retentionStats() {
+        EventSegmentLog spillLog = segmentLog;
+        return new RetentionStats(
+                residentEvents.get(),
+                residentBytes.get(),
+                spilledEvents.get(),
+                spillLog == null ? 0L : spillLog.bytesWritten(),
+                compactedEvents.get(),
+                runs.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (retentionLock) {
+            if (segmentLog != null) {
+                segmentLog.close();
+                segmentLog = null;
+            }
+        }
+    }
 
-        int totalEvents = 0, errorCount = 0, chatSessions = 0, chatMessages = 0;
-        int thoughtDeltas = 0, streamDeltas = 0, toolEvents = 0, otherEvents = 0;
-        long thoughtTokens = 0L, streamTokens = 0L;
+    // ── Retention ─────────────────────────────────────────────────────────
 
-        for (Events.GraphEvent event : scoped) {
-            totalEvents++;
-            boolean specific = true;
-            switch (event) {
-                case Events.NodeErrorEvent ignored -> errorCount++;
-                case Events.ChatSessionCreatedEvent ignored -> chatSessions++;
-                case Events.AddMessageEvent ignored -> chatMessages++;
-                case Events.NodeThoughtDeltaEvent t -> { thoughtDeltas++; thoughtTokens += t.tokenCount(); }
-                case Events.NodeStreamDeltaEvent s -> { streamDeltas++; streamTokens += s.tokenCount(); }
-                case Events.ToolCallEvent ignored -> toolEvents++;
-                default -> specific = false;
+    private void track(Events.GraphEvent event) {
+        String runId = EventAggregateIndex.runId(event.nodeId());
+        if (runId == null) {
+            return;
+        }
+        long bytes = estimateBytes(event);
+        // Counted inside compute so a spill cannot drop the run's state in between.
+        RunState run = runs.compute(runId, (k, state) -> {
+            RunState r = state == null ? new RunState(k) : state;
+            r.nodeIds.add(event.nodeId());
+            r.lastActivity = activityClock.incrementAndGet();
+            r.residentEvents.incrementAndGet();
+            r.residentBytes.addAndGet(bytes);
+            if (StreamDeltaCoalescing.isDelta(event)) {
+                r.residentDeltas.incrementAndGet();
+                r.deltasSaved.incrementAndGet();
+            }
+            return r;
+        });
+        residentEvents.incrementAndGet();
+        residentBytes.addAndGet(bytes);
+
+        boolean goalCompleted = event instanceof Events.GoalCompletedEvent
+                && runId.equals(EventAggregateIndex.canonical(event.nodeId()));
+        if (goalCompleted) {
+            run.completed = true;
+        }
+        if ((goalCompleted && retention.isCompactCompletedRuns()) || overRunBudget(run) || overGlobalBudget()) {
+            synchronized (retentionLock) {
+                enforceBudgets(run, goalCompleted && retention.isCompactCompletedRuns());
             }
-            if (!specific) otherEvents++;
         }
+    }
 
-        return Optional.of(new NodeEventMetrics(
-                totalEvents, errorCount, chatSessions, chatMessages,
-                thoughtDeltas, thoughtTokens, streamDeltas, streamTokens,
-                toolEvents, otherEvents
-        ));
+    private void enforceBudgets(RunState current, boolean compactCurrent) {
+        boolean overRun = overRunBudget(current);
+        if (compactCurrent || overRun) {
+            compact(current);
+        }
+        if (overRun && overRunBudget(current, retention.getLowWaterMark())) {
+            spill(current);
+        }
+        if (!overGlobalBudget()) {
+            return;
+        }
+        Set<RunState> attempted = new HashSet<>();
+        while (overGlobalBudget(retention.getLowWaterMark())) {
+            RunState victim = pickVictim(current, attempted);
+            if (victim == null) {
+                break;
+            }
+            attempted.add(victim);
+            if (compact(victim) && !overGlobalBudget(retention.getLowWaterMark())) {
+                break;
+            }
+            spill(victim);
+        }
     }
 
-    @Override
-    public ScopedEventStats computeScopedStats(String rootNodeId, Instant errorWindowStart) {
-        List<Events.GraphEvent> scoped = scopedEvents(rootNodeId);
+    /**
+     * Completed runs first, then the least recently active; the run being written to is
+     * only chosen when nothing else is resident.
+     */
+    private RunState pickVictim(RunState current, Set<RunState> attempted) {
+        Comparator<RunState> coldestFirst = Comparator
+                .comparing((RunState r) -> !r.completed)
+                .thenComparingLong(r -> r.lastActivity);
+        return runs.values().stream()
+                .filter(r -> r.residentEvents.get() > 0 && !attempted.contains(r))
+                .min(Comparator.comparing((RunState r) -> r == current).thenComparing(coldestFirst))
+                .orElse(null);
+    }
 
-        Map<String, Integer> eventTypeCounts = new LinkedHashMap<>();
-        Map<String, Integer> recentErrorsByNodeType = new LinkedHashMap<>();
-        int recentErrorCount = 0;
-        long totalThoughtTokens = 0L, totalStreamTokens = 0L;
-        int chatSessions = 0, chatMessages = 0;
+    private boolean overRunBudget(RunState run) {
+        return overRunBudget(run, 1.0);
+    }
 
-        for (Events.GraphEvent event : scoped) {
-            eventTypeCounts.merge(event.eventType(), 1, Integer::sum);
-            switch (event) {
-                case Events.NodeErrorEvent error -> {
-                    if (errorWindowStart != null && !event.timestamp().isBefore(errorWindowStart)) {
-                        recentErrorCount++;
-                        String key = error.nodeType() == null ? "UNKNOWN" : error.nodeType().name();
-                        recentErrorsByNodeType.merge(key, 1, Integer::sum);
+    private boolean overRunBudget(RunState run, double fraction) {
+        return run.residentEvents.get() > (long) (retention.getMaxEventsPerRun() * fraction)
+                || run.residentBytes.get() > (long) (retention.getMaxBytesPerRun() * fraction);
+    }
+
+    private boolean overGlobalBudget() {
+        return overGlobalBudget(1.0);
+    }
+
+    private boolean overGlobalBudget(double fraction) {
+        return residentEvents.get() > (long) (retention.getMaxEventsTotal() * fraction)
+                || residentBytes.get() > (long) (retention.getMaxBytesTotal() * fraction);
+    }
+
+    /**
+     * Merge runs of consecutive, mergeable stream deltas for each node of the run into a
+     * single aggregate delta, which keeps the id of the first. Skipped if no delta has been
+     * saved to the run since the last pass, as there is then nothing new to merge.
+     *
+     * @return true if anything was merged
+     */
+    private boolean compact(RunState run) {
+        long deltasSaved = run.deltasSaved.get();
+        if (deltasSaved == run.deltasAtLastCompaction) {
+            return false;
+        }
+        run.deltasAtLastCompaction = deltasSaved;
+        List<Events.GraphEvent> removed = new ArrayList<>();
+        List<Events.GraphEvent> added = new ArrayList<>();
+        for (String nodeId : run.nodeIds) {
+            events.computeIfPresent(nodeId, (k, nodeEvents) -> coalesce(nodeEvents, removed, added));
+        }
+        typeIndex.removeAll(removed);
+        added.forEach(typeIndex::add);
+        timeline.removeAll(removed);
+        added.forEach(timeline::add);
+
+        long bytesDelta = added.stream().mapToLong(InMemoryEventStreamRepository::estimateBytes).sum()
+                - removed.stream().mapToLong(InMemoryEventStreamRepository::estimateBytes).sum();
+        long eventsDelta = added.size() - removed.size();
+        run.residentEvents.addAndGet(eventsDelta);
+        run.residentDeltas.addAndGet(eventsDelta);
+        run.residentBytes.addAndGet(bytesDelta);
+        residentEvents.addAndGet(eventsDelta);
+        residentBytes.addAndGet(bytesDelta);
+        compactedEvents.addAndGet(-eventsDelta);
+        if (run.completed) {
+            revisions.forget(run.runId);
+        }
+        return !removed.isEmpty();
+    }
+
+    private List<Events.GraphEvent> coalesce(List<Events.GraphEvent> nodeEvents,
+                                             List<Events.GraphEvent> removed,
+                                             List<Events.GraphEvent> added) {
+        List<Events.GraphEvent> result = new ArrayList<>(nodeEvents.size());
+        List<Events.GraphEvent> pending = new ArrayList<>();
+        for (Events.GraphEvent event : nodeEvents) {
+            if (!pending.isEmpty() && StreamDeltaCoalescing.canMerge(pending.getLast(), event)) {
+                pending.add(event);
+                continue;
+            }
+            flush(pending, result, removed, added);
+            pending.clear();
+            if (StreamDeltaCoalescing.isDelta(event)) {
+                pending.add(event);
+            } else {
+                result.add(event);
+            }
+        }
+        flush(pending, result, removed, added);
+        return result;
+    }
+
+    private void flush(List<Events.GraphEvent> pending, List<Events.GraphEvent> result,
+                       List<Events.GraphEvent> removed, List<Events.GraphEvent> added) {
+        if (pending.size() <= 1) {
+            result.addAll(pending);
+            return;
+        }
+        Events.GraphEvent merged = pending.getFirst();
+        for (int i = 1; i < pending.size(); i++) {
+            merged = StreamDeltaCoalescing.merge(merged, pending.get(i));
+        }
+        for (Events.GraphEvent event : pending) {
+            removed.add(event);
+            if (event.eventId() != null && !event.eventId().equals(merged.eventId())) {
+                byId.remove(event.eventId());
+            }
+        }
+        if (merged.eventId() != null) {
+            byId.put(merged.eventId(), merged);
+        }
+        added.add(merged);
+        result.add(merged);
+    }
+
+    /**
+     * Move the run's resident events to the segment log: all of them once the run has
+     * completed, only its stream deltas while it is live. Events are collected from their
+     * bins, written outside the bins' locks, and only then removed from them, so saves to
+     * the run's nodes are not blocked on disk. Events that fail to serialize stay resident.
+     * A completed run with nothing left resident drops its state and its timeline entries.
+     */
+    private void spill(RunState run) {
+        boolean live = !run.completed;
+        if (live && run.residentDeltas.get() == 0) {
+            return;
+        }
+        List<Events.GraphEvent> candidates = new ArrayList<>();
+        for (String nodeId : run.nodeIds) {
+            events.computeIfPresent(nodeId, (k, nodeEvents) -> {
+                for (Events.GraphEvent event : nodeEvents) {
+                    if (!live || StreamDeltaCoalescing.isDelta(event)) {
+                        candidates.add(event);
                     }
                 }
-                case Events.NodeThoughtDeltaEvent t -> totalThoughtTokens += t.tokenCount();
-                case Events.NodeStreamDeltaEvent s -> totalStreamTokens += s.tokenCount();
-                case Events.ChatSessionCreatedEvent ignored -> chatSessions++;
-                case Events.AddMessageEvent ignored -> chatMessages++;
-                default -> {}
+                return nodeEvents;
+            });
+        }
+        EventSegmentLog spillLog = segmentLog();
+        List<Events.GraphEvent> spilledEvents = new ArrayList<>(candidates.size());
+        List<byte[]> records = new ArrayList<>(candidates.size());
+        for (Events.GraphEvent event : candidates) {
+            try {
+                records.add(spillLog.serialize(event, timeline.sequenceOf(event.eventId())));
+                spilledEvents.add(event);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Keeping {} {} resident; could not spill: {}",
+                        event.eventType(), event.eventId(), e.getMessage());
+            }
+        }
+        if (spilledEvents.isEmpty()) {
+            return;
+        }
+        try {
+            List<EventSegmentLog.Extent> extents = spillLog.append(records);
+            spilledRuns.computeIfAbsent(run.runId, k -> new SpilledRun()).extents.addAll(extents);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Keeping run {} resident; could not spill: {}", run.runId, e.getMessage());
+            return;
+        }
+
+        Set<Events.GraphEvent> written = Collections.newSetFromMap(new IdentityHashMap<>());
+        written.addAll(spilledEvents);
+        for (String nodeId : run.nodeIds) {
+            events.computeIfPresent(nodeId, (k, nodeEvents) -> {
+                nodeEvents.removeIf(written::contains);
+                return nodeEvents.isEmpty() ? null : nodeEvents;
+            });
+        }
+        for (Events.GraphEvent event : spilledEvents) {
+            if (event.eventId() != null) {
+                byId.remove(event.eventId());
             }
         }
+        typeIndex.removeAll(spilledEvents);
+        correlations.removeAll(spilledEvents);
+        // Timeline entries of the spilled events stay resident until the run is dropped.
+        long bytes = spilledEvents.stream()
+                .mapToLong(e -> estimateBytes(e) - (e.eventId() == null ? 0L : TIMELINE_ENTRY_BYTES))
+                .sum();
+        long deltas = spilledEvents.stream().filter(StreamDeltaCoalescing::isDelta).count();
+        run.residentEvents.addAndGet(-spilledEvents.size());
+        run.residentBytes.addAndGet(-bytes);
+        run.residentDeltas.addAndGet(-deltas);
+        residentEvents.addAndGet(-spilledEvents.size());
+        residentBytes.addAndGet(-bytes);
+        this.spilledEvents.addAndGet(spilledEvents.size());
+        if (!live) {
+            revisions.forget(run.runId);
+            if (runs.computeIfPresent(run.runId, (k, r) -> r == run && r.residentEvents.get() == 0 ? null : r) == null) {
+                dropTimeline(run);
+            }
+        }
+        log.debug("Spilled {} events of run {}", spilledEvents.size(), run.runId);
+    }
 
-        return new ScopedEventStats(
-                scoped.size(), eventTypeCounts,
-                recentErrorCount, recentErrorsByNodeType,
-                totalThoughtTokens, totalStreamTokens,
-                chatSessions, chatMessages
-        );
+    /**
+     * Release the timeline entries of a completed run that is fully spilled. Pages switch to
+     * the spilled events before the entries go, so none go missing in between.
+     */
+    private void dropTimeline(RunState run) {
+        SpilledRun spilledRun = spilledRuns.get(run.runId);
+        if (spilledRun == null) {
+            return;
+        }
+        spilledRun.unindexed = true;
+        timeline.removeRun(run.runId);
+        long indexBytes = run.residentBytes.getAndSet(0L);
+        residentBytes.addAndGet(-indexBytes);
     }
 
-    private List<Events.GraphEvent> scopedEvents(String scopeNodeId) {
-        return events.entrySet().stream()
-                .filter(e -> matchesNodeScope(scopeNodeId, e.getKey()))
-                .flatMap(e -> e.getValue().stream())
-                .toList();
+    private EventSegmentLog segmentLog() {
+        if (segmentLog == null) {
+            segmentLog = new EventSegmentLog(Path.of(retention.getSpillDirectory()), retention.getSegmentBytes(), spillMapper);
+        }
+        return segmentLog;
     }
 
-    private static boolean matchesNodeScope(String scopeNodeId, String eventNodeId) {
-        if (scopeNodeId == null || scopeNodeId.isBlank() || eventNodeId == null || eventNodeId.isBlank()) {
-            return false;
+    /**
+     * All spilled events of a run, in spill order.
+     */
+    private List<EventSegmentLog.Spilled> readSpilled(String runId) {
+        SpilledRun spilledRun = runId == null ? null : spilledRuns.get(runId);
+        if (spilledRun == null) {
+            return List.of();
         }
-        if (scopeNodeId.equals(eventNodeId)) {
-            return true;
+        List<EventSegmentLog.Extent> extents = spilledRun.extents;
+        EventSegmentLog spillLog = segmentLog;
+        if (spillLog == null) {
+            return List.of();
         }
-        try {
-            return new ArtifactKey(eventNodeId).isDescendantOf(new ArtifactKey(scopeNodeId));
-        } catch (Exception ignored) {
-            return eventNodeId.startsWith(scopeNodeId + "/");
+        List<EventSegmentLog.Extent> snapshot;
+        synchronized (extents) {
+            snapshot = List.copyOf(extents);
+        }
+        List<EventSegmentLog.Spilled> spilled = new ArrayList<>();
+        for (EventSegmentLog.Extent extent : snapshot) {
+            try {
+                spilled.addAll(spillLog.read(extent));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to read spilled events at {}: {}", extent, e.getMessage());
+            }
         }
+        return spilled;
+    }
+
+    /**
+     * Rough retained-heap estimate: fixed record overhead plus UTF-16 text for the
+     * content-bearing delta events, which dominate long runs.
+     */
+    static long estimateBytes(Events.GraphEvent event) {
+        long base = 256L;
+        return switch (event) {
+            case Events.NodeStreamDeltaEvent e -> base + 2L * lengthOf(e.deltaContent());
+            case Events.NodeThoughtDeltaEvent e -> base + 2L * lengthOf(e.deltaContent());
+            case Events.UserMessageChunkEvent e -> base + 2L * lengthOf(e.content());
+            default -> 4 * base;
+        };
+    }
+
+    private static int lengthOf(String s) {
+        return s == null ? 0 : s.length();
     }
 }
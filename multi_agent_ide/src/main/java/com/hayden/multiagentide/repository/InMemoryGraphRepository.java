@@ -4,24 +4,54 @@ import com.hayden.acp_cdc_ai.acp.events.Events;
 import com.hayden.multiagentide.model.nodes.GraphNode;
 import com.hayden.multiagentide.model.nodes.InterruptNode;
 import com.hayden.multiagentide.model.nodes.ReviewNode;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Predicate;
 
 /**
  * In-memory implementation of GraphRepository using ConcurrentHashMap for thread safety.
+ *
+ * <p>Parent, type and interrupt-origin lookups go through secondary indexes of node ids
+ * that are updated inside the same {@code nodes.compute} as the node itself. Index hits
+ * are re-checked against the stored node, so a reader racing a save never sees a node
+ * under a parent/type/origin it no longer has.
+ *
+ * <p>Saves and deletes are reported to {@link WorkflowRevisions} once the node is stored;
+ * deleting a run's root node forgets the run's revisions.
  */
 @Repository
 public class InMemoryGraphRepository implements GraphRepository {
 
     private final ConcurrentHashMap<String, GraphNode> nodes = new ConcurrentHashMap<>();
 
+    private final ConcurrentHashMap<String, Set<String>> childIdsByParent = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Events.NodeType, Set<String>> idsByType = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> interruptIdsByOrigin = new ConcurrentHashMap<>();
+
+    private final WorkflowRevisions revisions;
+
+    public InMemoryGraphRepository() {
+        this(new WorkflowRevisions());
+    }
+
+    @Autowired
+    public InMemoryGraphRepository(WorkflowRevisions revisions) {
+        this.revisions = revisions;
+    }
+
     @Override
     public void save(GraphNode node) {
-        nodes.put(node.nodeId(), node);
+        nodes.compute(node.nodeId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(node);
+            return node;
+        });
+        revisions.touch(node.nodeId());
     }
 
     @Override
@@ -31,19 +61,8 @@ public class InMemoryGraphRepository implements GraphRepository {
 
     @Override
     public Optional<GraphNode> findInterruptByOrigin(String nodeId) {
-        return nodes.entrySet()
+        return resolve(interruptIdsByOrigin.get(nodeId), node -> Objects.equals(nodeId, interruptOrigin(node)))
                 .stream()
-                .flatMap(s -> {
-                    if (s.getValue() instanceof ReviewNode r && Objects.equals(nodeId, r.reviewedNodeId())) {
-                        return Stream.of(s.getValue());
-                    }
-
-                    if (s.getValue() instanceof InterruptNode r && Objects.equals(nodeId, r.interruptOriginNodeId())) {
-                        return Stream.of(s.getValue());
-                    }
-
-                    return Stream.empty();
-                })
                 .findFirst();
     }
 
@@ -54,21 +73,28 @@ public class InMemoryGraphRepository implements GraphRepository {
 
     @Override
     public List<GraphNode> findByParentId(String parentNodeId) {
-        return nodes.values().stream()
-                .filter(node -> parentNodeId.equals(node.parentNodeId()))
-                .collect(Collectors.toList());
+        return resolve(childIdsByParent.get(parentNodeId), node -> parentNodeId.equals(node.parentNodeId()));
     }
 
     @Override
     public List<GraphNode> findByType(Events.NodeType nodeType) {
-        return nodes.values().stream()
-                .filter(node -> node.nodeType() == nodeType)
-                .collect(Collectors.toList());
+        if (nodeType == null) {
+            return new ArrayList<>();
+        }
+        return resolve(idsByType.get(nodeType), node -> node.nodeType() == nodeType);
     }
 
     @Override
     public void delete(String nodeId) {
-        nodes.remove(nodeId);
+        nodes.computeIfPresent(nodeId, (id, previous) -> {
+            unindex(previous);
+            return null;
+        });
+        if (Objects.equals(EventAggregateIndex.runId(nodeId), EventAggregateIndex.canonical(nodeId))) {
+            revisions.forget(nodeId);
+        } else {
+            revisions.remove(nodeId);
+        }
     }
 
     @Override
@@ -84,6 +110,10 @@ public class InMemoryGraphRepository implements GraphRepository {
     @Override
     public void clear() {
         nodes.clear();
+        childIdsByParent.clear();
+        idsByType.clear();
+        interruptIdsByOrigin.clear();
+        revisions.clear();
     }
 
     @Override
@@ -102,4 +132,63 @@ public class InMemoryGraphRepository implements GraphRepository {
             collectSubtree(childId, result);
         }
     }
+
+    private List<GraphNode> resolve(Set<String> ids, Predicate<GraphNode> stillMatches) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<GraphNode> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            GraphNode node = nodes.get(id);
+            if (node != null && stillMatches.test(node)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    private void index(GraphNode node) {
+        String id = node.nodeId();
+        addTo(childIdsByParent, node.parentNodeId(), id);
+        addTo(idsByType, node.nodeType(), id);
+        addTo(interruptIdsByOrigin, interruptOrigin(node), id);
+    }
+
+    private void unindex(GraphNode node) {
+        String id = node.nodeId();
+        removeFrom(childIdsByParent, node.parentNodeId(), id);
+        removeFrom(idsByType, node.nodeType(), id);
+        removeFrom(interruptIdsByOrigin, interruptOrigin(node), id);
+    }
+
+    private static String interruptOrigin(GraphNode node) {
+        return switch (node) {
+            case ReviewNode r -> r.reviewedNodeId();
+            case InterruptNode i -> i.interruptOriginNodeId();
+            default -> null;
+        };
+    }
+
+    private static <K> void addTo(ConcurrentHashMap<K, Set<String>> index, K key, String id) {
+        if (key == null) {
+            return;
+        }
+        // Add inside compute, like removeFrom, so a concurrent removal of the emptied set
+        // cannot detach it between the lookup and the add.
+        index.compute(key, (k, ids) -> {
+            Set<String> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            updated.add(id);
+            return updated;
+        });
+    }
+
+    private static <K> void removeFrom(ConcurrentHashMap<K, Set<String>> index, K key, String id) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
 }
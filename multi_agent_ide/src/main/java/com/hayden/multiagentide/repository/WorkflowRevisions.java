@@ -0,0 +1,155 @@
+package com.hayden.multiagentide.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-run revision counter for the workflow graph view, with the nodes each revision touched.
+ *
+ * <p>Every graph mutation and saved event {@link #touch touches} its node: the run's
+ * revision is incremented and the node and all of its {@code ArtifactKey} ancestors are
+ * stamped with it, since a node's metrics roll up its descendants and its pending items
+ * come from its children. Each run keeps one log entry per node, for its latest stamp, in
+ * revision order, so {@link #changedSince} costs the number of nodes changed rather than
+ * the size of the run.
+ *
+ * <p>Callers touch after the change is visible, so a reader that takes the revision before
+ * reading the graph never misses a change stamped after it.
+ *
+ * <p>Revisions only order changes within one run log, which is identified by its epoch: the
+ * process start plus a per-process generation. A run's log is {@link #forget forgotten} once
+ * the run is compacted or deleted, which frees its stamps and removed nodes; the next touch
+ * starts a new log with a new epoch, as does a restart, and a revision from any other epoch
+ * is reported as incomplete.
+ */
+@Component
+public class WorkflowRevisions {
+
+    public record Revision(String epoch, long revision) {
+    }
+
+    /**
+     * @param complete false if {@code sinceRevision} is not one this run log has issued, e.g.
+     *                 after a restart or once the run was forgotten, and the caller has to
+     *                 reload everything
+     */
+    public record Changes(String epoch, long revision, Set<String> changedNodeIds, Set<String> removedNodeIds,
+                          boolean complete) {
+    }
+
+    private record Stamp(long revision, String nodeId) {
+    }
+
+    private static final Comparator<Stamp> ORDER = Comparator.comparingLong(Stamp::revision)
+            .thenComparing(Stamp::nodeId);
+
+    private static final class RunLog {
+        private final String epoch;
+        private long revision;
+        private final Map<String, Long> stamps = new HashMap<>();
+        private final TreeSet<Stamp> log = new TreeSet<>(ORDER);
+        private final Set<String> removed = new HashSet<>();
+
+        private RunLog(String epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private final String processEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong generations = new AtomicLong();
+    private final Map<String, RunLog> runs = new ConcurrentHashMap<>();
+
+    public long touch(String nodeId) {
+        return stamp(nodeId, false);
+    }
+
+    /**
+     * Like {@link #touch}, and reports the node as removed until it is touched again.
+     */
+    public long remove(String nodeId) {
+        return stamp(nodeId, true);
+    }
+
+    /**
+     * Drops the run's log. Readers holding one of its revisions get an incomplete
+     * {@link #changedSince} from here on.
+     */
+    public void forget(String nodeId) {
+        String runId = EventAggregateIndex.runId(nodeId);
+        if (runId != null) {
+            runs.remove(runId);
+        }
+    }
+
+    public void clear() {
+        runs.clear();
+    }
+
+    public Revision revision(String nodeId) {
+        String runId = EventAggregateIndex.runId(nodeId);
+        RunLog run = runId == null ? null : runs.get(runId);
+        if (run == null) {
+            return new Revision(noRunEpoch(), 0L);
+        }
+        synchronized (run) {
+            return new Revision(run.epoch, run.revision);
+        }
+    }
+
+    public Changes changedSince(String nodeId, String epoch, long sinceRevision) {
+        String runId = EventAggregateIndex.runId(nodeId);
+        RunLog run = runId == null ? null : runs.get(runId);
+        if (run == null) {
+            String current = noRunEpoch();
+            return new Changes(current, 0L, Set.of(), Set.of(), current.equals(epoch) && sinceRevision == 0L);
+        }
+        synchronized (run) {
+            if (!run.epoch.equals(epoch) || sinceRevision < 0 || sinceRevision > run.revision) {
+                return new Changes(run.epoch, run.revision, Set.of(), Set.of(), false);
+            }
+            Set<String> changed = new LinkedHashSet<>();
+            Set<String> removed = new LinkedHashSet<>();
+            for (Stamp stamp : run.log.tailSet(new Stamp(sinceRevision + 1, ""), true)) {
+                if (run.removed.contains(stamp.nodeId())) {
+                    removed.add(stamp.nodeId());
+                } else {
+                    changed.add(stamp.nodeId());
+                }
+            }
+            return new Changes(run.epoch, run.revision, changed, removed, true);
+        }
+    }
+
+    private long stamp(String nodeId, boolean removal) {
+        String canonical = EventAggregateIndex.canonical(nodeId);
+        if (canonical == null) {
+            return 0L;
+        }
+        String runId = EventAggregateIndex.runId(canonical);
+        RunLog run = runs.computeIfAbsent(runId,
+                k -> new RunLog(processEpoch + "." + generations.incrementAndGet()));
+        synchronized (run) {
+            long revision = ++run.revision;
+            for (String scope : EventAggregateIndex.selfAndAncestors(canonical)) {
+                Long previous = run.stamps.put(scope, revision);
+                if (previous != null) {
+                    run.log.remove(new Stamp(previous, scope));
+                }
+                run.log.add(new Stamp(revision, scope));
+            }
+            if (removal) {
+                run.removed.add(canonical);
+            } else {
+                run.removed.remove(canonical);
+            }
+            return revision;
+        }
+    }
+
+    private String noRunEpoch() {
+        return processEpoch + ".0";
+    }
+}
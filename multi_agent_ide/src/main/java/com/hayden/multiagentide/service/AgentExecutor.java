@@ -5,6 +5,7 @@ import com.embabel.agent.api.common.ActionContext;
 import com.embabel.agent.api.common.OperationContext;
 import com.embabel.agent.core.ActionQos;
 import com.embabel.agent.core.AgentPlatform;
+import com.embabel.agent.core.AgentProcess;
 import com.embabel.agent.spi.config.spring.AgentPlatformProperties;
 import com.embabel.agent.spi.support.springai.SpringAiRetryPolicy;
 import com.hayden.acp_cdc_ai.acp.events.Artifact;
@@ -45,6 +46,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Colocates decorator/LLM/interrupt logic so callers don't duplicate the pipeline.
@@ -99,6 +101,7 @@ public class AgentExecutor implements AgentLlmExecutor {
     private final GraphRepository graphRepository;
     private final List<LlmCallDecorator> llmCallDecorators;
     private final ActionQosPropertyProvider propertyProvider;
+    private final SubagentDispatchExecutor subagentDispatchExecutor;
 
 
     public <T extends AgentModels.AgentRequest, U extends AgentModels.AgentRouting, V extends AgentModels.AgentResult> U run(
@@ -221,28 +224,33 @@ public class AgentExecutor implements AgentLlmExecutor {
         log.info("runDiscoveryDispatch: container contextId={} | requestCount={}",
                 input.contextId() != null ? input.contextId().value() : "null",
                 input.requests() != null ? input.requests().size() : 0);
-        int idx = 0;
-        for (AgentModels.DiscoveryAgentRequest request : StreamUtil.toStream(input.requests()).toList()) {
-            if (request == null) {
-                continue;
-            }
-
-            log.info("runDiscoveryDispatch: DISPATCHING child[{}] | childContextId={} | subdomain={}",
-                    idx, request.contextId() != null ? request.contextId().value() : "null",
-                    request.subdomainFocus());
-            idx++;
-
-            context.addObject(input);
-
-            AgentModels.DiscoveryAgentRouting response = runSubProcess(
-                    context, request, discoveryDispatchAgent, AgentModels.DiscoveryAgentRouting.class);
-
-            if (response.interruptRequest() != null) {
-                return decorateRouting(AgentModels.DiscoveryAgentDispatchRouting.builder()
-                        .agentInterruptRequest(response.interruptRequest())
-                        .build(), context, meta, lastRequest);
-            }
+        var dispatchInput = input;
+        var subProcessLock = new ReentrantLock();
+        var outcome = subagentDispatchExecutor.dispatch(
+                SubagentDispatchExecutor.DispatchArgs.<AgentModels.DiscoveryAgentRequest, AgentModels.DiscoveryAgentRouting>builder()
+                        .requests(StreamUtil.toStream(input.requests()).toList())
+                        .runChild(request -> {
+                            log.info("runDiscoveryDispatch: DISPATCHING child | childContextId={} | subdomain={}",
+                                    request.contextId() != null ? request.contextId().value() : "null",
+                                    request.subdomainFocus());
+                            return runSubProcess(
+                                    context, subProcessLock, dispatchInput, request, discoveryDispatchAgent,
+                                    AgentModels.DiscoveryAgentRouting.class);
+                        })
+                        .isInterrupt(response -> response.interruptRequest() != null)
+                        .childNodeId(request -> request.contextId() != null ? request.contextId().value() : null)
+                        .dispatchNodeId(dispatchNodeId(context, input))
+                        .dispatchAgentName(AgentInterfaces.WORKFLOW_DISCOVERY_DISPATCH_SUBAGENT)
+                        .workflowId(workflowId(context))
+                        .build());
+
+        if (outcome.isInterrupted()) {
+            return decorateRouting(AgentModels.DiscoveryAgentDispatchRouting.builder()
+                    .agentInterruptRequest(outcome.interrupted().interruptRequest())
+                    .build(), context, meta, lastRequest);
+        }
 
+        for (AgentModels.DiscoveryAgentRouting response : outcome.results()) {
             if (response.agentResult() != null)
                 discoveryResults.add(response.agentResult());
         }
@@ -290,21 +298,29 @@ public class AgentExecutor implements AgentLlmExecutor {
 
         List<AgentModels.PlanningAgentResult> planningResults = new ArrayList<>();
 
-        for (AgentModels.PlanningAgentRequest request : input.requests()) {
-            if (request == null) {
-                continue;
-            }
-
-            context.addObject(input);
-
-            AgentModels.PlanningAgentRouting response = runSubProcess(
-                    context, request, planningDispatchAgent, AgentModels.PlanningAgentRouting.class);
-
-            if (response.interruptRequest() != null)
-                return decorateRouting(AgentModels.PlanningAgentDispatchRouting.builder()
-                        .agentInterruptRequest(response.interruptRequest())
-                        .build(), context, meta, lastRequest);
-
+        var dispatchInput = input;
+        var subProcessLock = new ReentrantLock();
+        var outcome = subagentDispatchExecutor.dispatch(
+                SubagentDispatchExecutor.DispatchArgs.<AgentModels.PlanningAgentRequest, AgentModels.PlanningAgentRouting>builder()
+                        .requests(input.requests())
+                        .runChild(request -> {
+                            return runSubProcess(
+                                    context, subProcessLock, dispatchInput, request, planningDispatchAgent,
+                                    AgentModels.PlanningAgentRouting.class);
+                        })
+                        .isInterrupt(response -> response.interruptRequest() != null)
+                        .childNodeId(request -> request.contextId() != null ? request.contextId().value() : null)
+                        .dispatchNodeId(dispatchNodeId(context, input))
+                        .dispatchAgentName(AgentInterfaces.WORKFLOW_PLANNING_DISPATCH_SUBAGENT)
+                        .workflowId(workflowId(context))
+                        .build());
+
+        if (outcome.isInterrupted())
+            return decorateRouting(AgentModels.PlanningAgentDispatchRouting.builder()
+                    .agentInterruptRequest(outcome.interrupted().interruptRequest())
+                    .build(), context, meta, lastRequest);
+
+        for (AgentModels.PlanningAgentRouting response : outcome.results()) {
             if (response.agentResult() != null)
                 planningResults.add(response.agentResult());
         }
@@ -357,21 +373,29 @@ public class AgentExecutor implements AgentLlmExecutor {
                 .stream().filter(a -> Objects.equals(a.getName(), AgentInterfaces.WORKFLOW_TICKET_DISPATCH_SUBAGENT))
                 .findAny().orElse(null);
 
-        for (AgentModels.TicketAgentRequest request : input.requests()) {
-            if (request == null) {
-                continue;
-            }
-
-            context.addObject(input);
-
-            AgentModels.TicketAgentRouting agentResult = runSubProcess(
-                    context, request, ticketDispatchAgent, AgentModels.TicketAgentRouting.class);
-
-            if (agentResult.interruptRequest() != null)
-                return decorateRouting(AgentModels.TicketAgentDispatchRouting.builder()
-                        .agentInterruptRequest(agentResult.interruptRequest())
-                        .build(), context, meta, lastRequest);
-
+        var dispatchInput = input;
+        var subProcessLock = new ReentrantLock();
+        var outcome = subagentDispatchExecutor.dispatch(
+                SubagentDispatchExecutor.DispatchArgs.<AgentModels.TicketAgentRequest, AgentModels.TicketAgentRouting>builder()
+                        .requests(input.requests())
+                        .runChild(request -> {
+                            return runSubProcess(
+                                    context, subProcessLock, dispatchInput, request, ticketDispatchAgent,
+                                    AgentModels.TicketAgentRouting.class);
+                        })
+                        .isInterrupt(agentResult -> agentResult.interruptRequest() != null)
+                        .childNodeId(request -> request.contextId() != null ? request.contextId().value() : null)
+                        .dispatchNodeId(dispatchNodeId(context, input))
+                        .dispatchAgentName(AgentInterfaces.WORKFLOW_TICKET_DISPATCH_SUBAGENT)
+                        .workflowId(workflowId(context))
+                        .build());
+
+        if (outcome.isInterrupted())
+            return decorateRouting(AgentModels.TicketAgentDispatchRouting.builder()
+                    .agentInterruptRequest(outcome.interrupted().interruptRequest())
+                    .build(), context, meta, lastRequest);
+
+        for (AgentModels.TicketAgentRouting agentResult : outcome.results()) {
             if (agentResult.agentResult() != null)
                 ticketResults.add(agentResult.agentResult());
         }
@@ -404,8 +428,20 @@ public class AgentExecutor implements AgentLlmExecutor {
                         meta.methodName(), lastRequest));
     }
 
-    private <T> T runSubProcess(
+    /**
+     * Runs one dispatch child as a subprocess of {@code context}.
+     *
+     * <p>The child process spawns its blackboard from the blackboard of the shared
+     * {@link ActionContext}, so adding the inputs and creating the child process happen under
+     * {@code subProcessLock}. Without it parallel siblings could bind each other's request.
+     * The child then runs on its own blackboard outside the lock, so siblings overlap.
+     * A child cancelled while waiting for the lock or while running returns null with the
+     * thread's interrupt flag set.
+     */
+    <T> T runSubProcess(
             ActionContext context,
+            ReentrantLock subProcessLock,
+            Object dispatchInput,
             Object request,
             com.embabel.agent.core.Agent agent,
             Class<T> outputClass
@@ -414,17 +450,66 @@ public class AgentExecutor implements AgentLlmExecutor {
             return null;
         }
         try {
-            context.addObject(request);
-            T result = context.asSubProcess(outputClass, agent);
-            context.hide(result);
+            AgentProcess childProcess;
+            subProcessLock.lockInterruptibly();
+            try {
+                context.addObject(dispatchInput);
+                context.addObject(request);
+                childProcess = context.agentPlatform().createChildProcess(agent, context.getAgentProcess());
+            } finally {
+                subProcessLock.unlock();
+            }
+            T result = childProcess.run().resultOfType(outputClass);
+            subProcessLock.lock();
+            try {
+                context.hide(result);
+            } finally {
+                subProcessLock.unlock();
+            }
             return result;
         } catch (Exception e) {
+            if (isCancellation(e)) {
+                // Cancelled by the dispatch executor, not a failure of the child.
+                Thread.currentThread().interrupt();
+                return null;
+            }
             eventBus.publish(Events.NodeErrorEvent.err("Error when running %s: %s"
                     .formatted(outputClass, request), new ArtifactKey(context.getAgentProcess().getId())));
             return null;
         }
     }
 
+    private static boolean isCancellation(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof java.util.concurrent.CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String dispatchNodeId(ActionContext context, AgentModels.AgentRequest input) {
+        return input.contextId() != null
+                ? input.contextId().value()
+                : context.getAgentProcess().getId();
+    }
+
+    /**
+     * Dispatch parallelism is bounded per workflow, keyed by the root of the agent
+     * process's ArtifactKey so nested subprocesses share their workflow's budget.
+     */
+    private static String workflowId(ActionContext context) {
+        String processId = context.getAgentProcess().getId();
+        if (!ArtifactKey.isValid(processId)) {
+            return processId;
+        }
+        ArtifactKey processKey = new ArtifactKey(processId);
+        return processKey.isRoot() ? processKey.value() : processKey.root().value();
+    }
+
     private static String resolveDiscoveryGoal(ActionContext context, AgentModels.DiscoveryAgentRequests input) {
         String resolved = input != null
                 ? input.prettyPrint(new AgentPretty.AgentSerializationCtx.GoalResolutionSerialization())
@@ -70,12 +70,14 @@ public class DebugRunQueryService {
 
     public RunTimelinePage timeline(String runId, int limit, String cursor) {
         int safeLimit = Math.max(1, Math.min(1000, limit));
-        List<RunTimelineEvent> all = collectTimeline(runId);
-        int offset = parseCursor(cursor);
-        int toIndex = Math.min(all.size(), offset + safeLimit);
-        List<RunTimelineEvent> items = offset >= all.size() ? List.of() : all.subList(offset, toIndex);
+        EventStreamRepository.EventPage page = eventStreamRepository.pageScoped(runId, cursor, safeLimit, false);
+        List<RunTimelineEvent> items = new ArrayList<>(page.events().size());
+        long sequence = page.offset();
+        for (Events.GraphEvent event : page.events()) {
+            items.add(toTimelineEvent(runId, event, sequence++));
+        }
 
-        String nextCursor = toIndex < all.size() ? Integer.toString(toIndex) : null;
+        String nextCursor = page.nextCursor();
         return new RunTimelinePage(items, new PageMeta(safeLimit, cursor, nextCursor, nextCursor != null));
     }
 
@@ -109,24 +111,28 @@ public class DebugRunQueryService {
             if (!belongsToRun(event, runId)) {
                 continue;
             }
-            Map<String, Object> payload = new LinkedHashMap<>();
-            payload.put("eventType", event.eventType());
-            payload.put("nodeId", event.nodeId());
-            timeline.add(new RunTimelineEvent(
-                    UUID.randomUUID().toString(),
-                    runId,
-                    sequence++,
-                    event.eventId(),
-                    event.eventType(),
-                    event.nodeId(),
-                    runId,
-                    payload,
-                    event.timestamp()
-            ));
+            timeline.add(toTimelineEvent(runId, event, sequence++));
         }
         return timeline;
     }
 
+    private RunTimelineEvent toTimelineEvent(String runId, Events.GraphEvent event, long sequence) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("eventType", event.eventType());
+        payload.put("nodeId", event.nodeId());
+        return new RunTimelineEvent(
+                UUID.randomUUID().toString(),
+                runId,
+                sequence,
+                event.eventId(),
+                event.eventType(),
+                event.nodeId(),
+                runId,
+                payload,
+                event.timestamp()
+        );
+    }
+
     private void refreshFromEvents() {
         List<Events.GraphEvent> events = eventStreamRepository.list();
         for (DebugRun existing : new ArrayList<>(runs.values())) {
@@ -0,0 +1,35 @@
+package com.hayden.multiagentide.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Controls how dispatch agents fan out to their discovery/planning/ticket subagents.
+ *
+ * <p>When {@code parallel} is false (the default) children run one after another on the
+ * calling thread, exactly as before. When true, children run concurrently on virtual
+ * threads, bounded both per dispatch call and per workflow (root agent process).
+ *
+ * <p>Children of one dispatch share its blackboard, so binding a child's inputs and spawning
+ * its subprocess are serialized per dispatch. Each subprocess then runs on its own spawned
+ * blackboard, concurrently with its siblings.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.dispatch")
+@Data
+public class DispatchConfigProperties {
+
+    boolean parallel = false;
+
+    /**
+     * Maximum number of children of a single dispatch call running at once.
+     */
+    int maxParallelismPerDispatch = 4;
+
+    /**
+     * Maximum number of dispatched children running at once across a whole workflow.
+     */
+    int maxParallelismPerWorkflow = 8;
+
+}
@@ -29,9 +29,11 @@ import java.util.stream.Stream;
  * Resolution strategy (applied uniformly for both permissions and interrupts):
  * <ol>
  *   <li>Try the supplied id as a direct exact match (UUID requestId / interruptId).</li>
- *   <li>If unresolved and the id is a valid ArtifactKey, scan the event stream for matching
- *       events whose nodeId is a descendant of the supplied scope key (most-recent first).</li>
+ *   <li>If unresolved and the id is a valid ArtifactKey, look up matching events whose nodeId
+ *       is a descendant of the supplied scope key (most-recent first).</li>
  * </ol>
+ * Lookups go through the correlation indexes of {@link EventStreamRepository} rather than
+ * scanning the full event history.
  */
 @Service
 @RequiredArgsConstructor
@@ -95,12 +97,10 @@ public class PermissionGateService {
         if (id == null || id.isBlank()) {
             return Optional.empty();
         }
-        return eventStreamRepository.list().stream()
-                .filter(Events.PermissionRequestedEvent.class::isInstance)
-                .map(Events.PermissionRequestedEvent.class::cast)
-                .filter(event -> matchesPermissionIdentifier(id, event))
-                .sorted(Comparator.comparing(Events.PermissionRequestedEvent::timestamp).reversed())
-                .findFirst();
+        if (isArtifactKey(id)) {
+            return eventStreamRepository.findPermissionRequestsInScope(id, true).stream().findFirst();
+        }
+        return eventStreamRepository.findPermissionRequest(id);
     }
 
     /**
@@ -110,12 +110,8 @@ public class PermissionGateService {
      * @return the resolved requestId, or {@code null} if nothing matched.
      */
     public String resolvePermissionFromScope(String scopeNodeId, PermissionOptionKind optionType, String note) {
-        List<Events.PermissionRequestedEvent> candidates = eventStreamRepository.list().stream()
-                .filter(Events.PermissionRequestedEvent.class::isInstance)
-                .map(Events.PermissionRequestedEvent.class::cast)
-                .filter(event -> matchesNodeScope(scopeNodeId, event.nodeId()))
-                .sorted(Comparator.comparing(Events.PermissionRequestedEvent::timestamp).reversed())
-                .toList();
+        List<Events.PermissionRequestedEvent> candidates =
+                eventStreamRepository.findPermissionRequestsInScope(scopeNodeId, false);
 
         for (Events.PermissionRequestedEvent candidate : candidates) {
             if (performPermissionResolution(candidate.requestId(), optionType, note)) {
@@ -141,11 +137,7 @@ public class PermissionGateService {
     public List<ToolCallInfo> findToolCallsForPermission(Events.PermissionRequestedEvent permissionEvent) {
         String toolCallId = permissionEvent.toolCallId();
         if (toolCallId != null && !toolCallId.isBlank()) {
-            List<ToolCallInfo> byToolCallId = eventStreamRepository.list().stream()
-                    .filter(Events.ToolCallEvent.class::isInstance)
-                    .map(Events.ToolCallEvent.class::cast)
-                    .filter(tc -> Objects.equals(tc.toolCallId(), toolCallId))
-                    .sorted(Comparator.comparing(Events.ToolCallEvent::timestamp))
+            List<ToolCallInfo> byToolCallId = eventStreamRepository.findToolCalls(toolCallId).stream()
                     .map(this::toToolCallInfo)
                     .toList();
             if (!byToolCallId.isEmpty()) {
@@ -163,12 +155,10 @@ public class PermissionGateService {
         if (id == null || id.isBlank()) {
             return Optional.empty();
         }
-        return eventStreamRepository.list().stream()
-                .filter(Events.InterruptRequestEvent.class::isInstance)
-                .map(Events.InterruptRequestEvent.class::cast)
-                .filter(event -> matchesInterruptIdentifier(id, event))
-                .sorted(Comparator.comparing(Events.InterruptRequestEvent::timestamp).reversed())
-                .findFirst();
+        if (isArtifactKey(id)) {
+            return eventStreamRepository.findInterruptRequestsInScope(id).stream().findFirst();
+        }
+        return eventStreamRepository.findInterruptRequest(id);
     }
 
     /**
@@ -178,18 +168,19 @@ public class PermissionGateService {
      */
     public List<String> findInterruptIdsInScope(String scopeNodeId) {
         LinkedHashSet<String> candidates = new LinkedHashSet<>();
-        eventStreamRepository.list().stream()
-                .sorted(Comparator.comparing(Events.GraphEvent::timestamp).reversed())
+        Stream.<Events.GraphEvent>concat(
+                        eventStreamRepository.findInterruptRequestsInScope(scopeNodeId).stream(),
+                        eventStreamRepository.findReviewRequestsInScope(scopeNodeId).stream())
+                .sorted(Comparator.comparing(Events.GraphEvent::timestamp,
+                        Comparator.nullsFirst(Comparator.<Instant>naturalOrder())).reversed())
                 .forEach(event -> {
-                    if (event instanceof Events.InterruptRequestEvent interruptEvent
-                            && matchesNodeScope(scopeNodeId, interruptEvent.nodeId())) {
+                    if (event instanceof Events.InterruptRequestEvent interruptEvent) {
                         Stream.of(interruptEvent.requestId(), interruptEvent.nodeId())
                                 .filter(Objects::nonNull)
                                 .filter(s -> !s.isBlank())
                                 .forEach(candidates::add);
                     }
                     if (event instanceof Events.NodeReviewRequestedEvent reviewRequested
-                            && matchesNodeScope(scopeNodeId, reviewRequested.nodeId())
                             && reviewRequested.reviewNodeId() != null
                             && !reviewRequested.reviewNodeId().isBlank()) {
                         candidates.add(reviewRequested.reviewNodeId());
@@ -204,12 +195,7 @@ public class PermissionGateService {
         if (nodeId == null || nodeId.isBlank()) {
             return List.of();
         }
-        return eventStreamRepository.list().stream()
-                .filter(Events.ToolCallEvent.class::isInstance)
-                .map(Events.ToolCallEvent.class::cast)
-                .filter(tc -> matchesNodeScope(nodeId, tc.nodeId()))
-                .sorted(Comparator.comparing(Events.ToolCallEvent::timestamp).reversed())
-                .limit(limit)
+        return eventStreamRepository.findRecentToolCalls(nodeId, limit).stream()
                 .map(this::toToolCallInfo)
                 .toList();
     }
@@ -230,23 +216,4 @@ public class PermissionGateService {
                 event.rawOutput()
         );
     }
-
-    // ─── Private matching helpers ─────────────────────────────────────────────
-
-    private boolean matchesPermissionIdentifier(String id, Events.PermissionRequestedEvent event) {
-        if (isArtifactKey(id)) {
-            return matchesNodeScope(id, event.nodeId())
-                    || matchesNodeScope(id, event.originNodeId());
-        }
-        return id.equals(event.requestId())
-                || id.equals(event.toolCallId())
-                || id.equals(event.nodeId());
-    }
-
-    private boolean matchesInterruptIdentifier(String id, Events.InterruptRequestEvent event) {
-        if (isArtifactKey(id)) {
-            return matchesNodeScope(id, event.nodeId());
-        }
-        return id.equals(event.requestId()) || id.equals(event.nodeId());
-    }
 }
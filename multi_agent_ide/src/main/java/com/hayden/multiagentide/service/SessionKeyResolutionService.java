@@ -45,6 +45,9 @@ public class SessionKeyResolutionService implements EventListener {
     private record ResolvedScope(ArtifactKey sessionParentKey, SessionScopeKey sessionScopeKey) {
     }
 
+    private record SessionRoute(ArtifactKey chatModelId, String nodeId) {
+    }
+
     private final GraphRepository graphRepository;
     private final EventStreamRepository eventStreamRepository;
 
@@ -52,6 +55,12 @@ public class SessionKeyResolutionService implements EventListener {
 
     private final ConcurrentHashMap<SessionScopeKey, ArtifactKey> sessionCache = new ConcurrentHashMap<>();
 
+    /**
+     * Open chat sessions keyed by chat model id, which is also the process id of the messages
+     * streamed into them. Maintained from session lifecycle events.
+     */
+    private final ConcurrentHashMap<String, SessionRoute> sessionRoutes = new ConcurrentHashMap<>();
+
     @Autowired
     @Lazy
     public void setEventBus(EventBus eventBus) {
@@ -230,22 +239,15 @@ public class SessionKeyResolutionService implements EventListener {
     /**
      * Resolves which chat session a MessageOutputChannelEvent should be routed to.
      * Absorbs the inline lambda logic from MultiAgentEmbabelConfig.llmOutputChannel().
+     * A message belongs to the open session whose chat model id equals its process id.
      */
     public @NonNull Optional<ArtifactKey> resolveSessionForMessage(@NonNull MessageOutputChannelEvent evt) {
-        return eventStreamRepository.getAllMatching(
-                        Events.ChatSessionCreatedEvent.class,
-                        n -> matchesThisSession(evt, n))
-                .min(Comparator.comparing(c -> c.chatModelId().value().replace(evt.getProcessId(), "").length()))
-                .map(Events.ChatSessionCreatedEvent::chatModelId);
-    }
-
-    private static boolean matchesThisSession(MessageOutputChannelEvent evt, Events.ChatSessionCreatedEvent n) {
-        try {
-            return evt.getProcessId().equals(n.chatModelId().value());
-        } catch (Exception e) {
-            log.error("Error finding session {}", e.getMessage(), e);
-            return false;
+        String processId = evt.getProcessId();
+        if (processId == null) {
+            return Optional.empty();
         }
+        return Optional.ofNullable(sessionRoutes.get(processId))
+                .map(SessionRoute::chatModelId);
     }
 
     // ── Call chain derivation from workflow graph ──────────────────────────
@@ -367,11 +369,15 @@ public class SessionKeyResolutionService implements EventListener {
      * Resolves a chat session key to its owning agent's nodeId.
      * Some agents use a different chatId than their nodeId (e.g., via AiFilterSessionResolver
      * or PromptContext.chatId()). This method maps the session key back to the nodeId
-     * by looking up ChatSessionCreatedEvent records.
+     * by looking up ChatSessionCreatedEvent records, open sessions first.
      *
      * @return the owning nodeId, or the key's value if no mapping is found
      */
     @NonNull String resolveOwningNodeId(@NonNull ArtifactKey sessionKey) {
+        SessionRoute route = sessionRoutes.get(sessionKey.value());
+        if (route != null && route.nodeId() != null) {
+            return route.nodeId();
+        }
         return eventStreamRepository.getLastMatching(
                 Events.ChatSessionCreatedEvent.class,
                 e -> sessionKey.value().equals(e.chatModelId().value())
@@ -409,14 +415,25 @@ public class SessionKeyResolutionService implements EventListener {
     @Override
     public boolean isInterestedIn(Events.GraphEvent eventType) {
         return eventType instanceof Events.GoalCompletedEvent
-                || eventType instanceof Events.ActionCompletedEvent;
+                || eventType instanceof Events.ActionCompletedEvent
+                || eventType instanceof Events.ChatSessionCreatedEvent
+                || eventType instanceof Events.ChatSessionClosedEvent;
     }
 
     @Override
     public void onEvent(Events.GraphEvent event) {
         switch (event) {
-            case Events.GoalCompletedEvent goal -> evictGoalScopedSessions(goal.nodeId());
+            case Events.GoalCompletedEvent goal -> {
+                evictGoalScopedSessions(goal.nodeId());
+                evictGoalSessionRoutes(goal.nodeId());
+            }
             case Events.ActionCompletedEvent action -> evictActionScopedSessions(action.nodeId());
+            case Events.ChatSessionCreatedEvent created -> addSessionRoute(created);
+            case Events.ChatSessionClosedEvent closed -> {
+                if (closed.sessionId() != null) {
+                    sessionRoutes.remove(closed.sessionId());
+                }
+            }
             default -> {
             }
         }
@@ -448,4 +465,29 @@ public class SessionKeyResolutionService implements EventListener {
             log.debug("Evicted {} session entries for completed action {}", removed, actionNodeId);
         }
     }
+
+    private void addSessionRoute(Events.ChatSessionCreatedEvent created) {
+        ArtifactKey chatModelId = created.chatModelId();
+        if (chatModelId == null || chatModelId.value() == null) {
+            return;
+        }
+        sessionRoutes.put(chatModelId.value(), new SessionRoute(chatModelId, created.nodeId()));
+    }
+
+    /**
+     * Drops routes for sessions at or under a completed goal; their messages have nowhere to go.
+     */
+    private void evictGoalSessionRoutes(String goalNodeId) {
+        if (goalNodeId == null || goalNodeId.isBlank()) {
+            return;
+        }
+        String descendantPrefix = goalNodeId + "/";
+        int before = sessionRoutes.size();
+        sessionRoutes.keySet().removeIf(chatId ->
+                chatId.equals(goalNodeId) || chatId.startsWith(descendantPrefix));
+        int removed = before - sessionRoutes.size();
+        if (removed > 0) {
+            log.debug("Evicted {} session routes for completed goal {}", removed, goalNodeId);
+        }
+    }
 }
@@ -0,0 +1,260 @@
+package com.hayden.multiagentide.service;
+
+import com.hayden.acp_cdc_ai.acp.events.EventBus;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Runs the children of a dispatch agent (discovery/planning/ticket) either sequentially
+ * or concurrently on virtual threads, depending on {@link DispatchConfigProperties}.
+ *
+ * <p>Either way the returned results are in request order, the first interrupt (by
+ * request index) wins, and each child is bracketed by
+ * {@link Events.DispatchChildStartedEvent}/{@link Events.DispatchChildCompletedEvent}.
+ * In parallel mode an interrupt cancels the later siblings (by request index) that are still
+ * queued or running; earlier ones are drained, so their results are kept and an earlier
+ * interrupt still wins, as in a sequential run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubagentDispatchExecutor {
+
+    @Builder
+    public record DispatchArgs<REQ, RES>(
+            List<REQ> requests,
+            Function<REQ, RES> runChild,
+            Predicate<RES> isInterrupt,
+            Function<REQ, String> childNodeId,
+            String dispatchNodeId,
+            String dispatchAgentName,
+            String workflowId
+    ) {}
+
+    /**
+     * @param results     non-null child results in request order, up to (excluding) the interrupt
+     * @param interrupted the child result carrying the interrupt, or null if none interrupted
+     */
+    public record DispatchOutcome<RES>(List<RES> results, RES interrupted) {
+        public boolean isInterrupted() {
+            return interrupted != null;
+        }
+    }
+
+    private record WorkflowPermits(Semaphore semaphore, AtomicInteger users) {}
+
+    private final DispatchConfigProperties dispatchConfigProperties;
+    private final EventBus eventBus;
+
+    private final ConcurrentHashMap<String, WorkflowPermits> workflowPermits = new ConcurrentHashMap<>();
+
+    public <REQ, RES> DispatchOutcome<RES> dispatch(DispatchArgs<REQ, RES> args) {
+        List<REQ> requests = Optional.ofNullable(args.requests()).orElseGet(List::of)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (!dispatchConfigProperties.isParallel() || requests.size() <= 1) {
+            return dispatchSequential(args, requests);
+        }
+        return dispatchParallel(args, requests);
+    }
+
+    private <REQ, RES> DispatchOutcome<RES> dispatchSequential(DispatchArgs<REQ, RES> args, List<REQ> requests) {
+        List<RES> results = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RES response = runTimed(args, requests.get(i), i, requests.size(), false);
+            if (response == null) {
+                continue;
+            }
+            if (args.isInterrupt().test(response)) {
+                return new DispatchOutcome<>(results, response);
+            }
+            results.add(response);
+        }
+        return new DispatchOutcome<>(results, null);
+    }
+
+    private <REQ, RES> DispatchOutcome<RES> dispatchParallel(DispatchArgs<REQ, RES> args, List<REQ> requests) {
+        int childCount = requests.size();
+        Semaphore dispatchPermits = new Semaphore(Math.max(1, dispatchConfigProperties.getMaxParallelismPerDispatch()));
+        AtomicIntegerArray started = new AtomicIntegerArray(childCount);
+        WorkflowPermits workflow = acquireWorkflow(args.workflowId());
+
+        List<Future<RES>> futures = new ArrayList<>(childCount);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<RES> completion = new ExecutorCompletionService<>(executor);
+            Map<Future<RES>, Integer> indexByFuture = new HashMap<>();
+
+            for (int i = 0; i < childCount; i++) {
+                int idx = i;
+                REQ request = requests.get(i);
+                Future<RES> future = completion.submit(() -> {
+                    dispatchPermits.acquire();
+                    try {
+                        workflow.semaphore().acquire();
+                        try {
+                            started.set(idx, 1);
+                            return runTimed(args, request, idx, childCount, true);
+                        } finally {
+                            workflow.semaphore().release();
+                        }
+                    } finally {
+                        dispatchPermits.release();
+                    }
+                });
+                futures.add(future);
+                indexByFuture.put(future, idx);
+            }
+
+            Object[] byIndex = new Object[childCount];
+            int firstInterrupt = Integer.MAX_VALUE;
+
+            for (int done = 0; done < childCount; done++) {
+                Future<RES> next = completion.take();
+                int idx = indexByFuture.get(next);
+                RES response = resultOf(next, args, requests.get(idx), idx, started.get(idx) == 1);
+                if (response == null) {
+                    continue;
+                }
+                byIndex[idx] = response;
+                if (args.isInterrupt().test(response) && idx < firstInterrupt) {
+                    firstInterrupt = idx;
+                    cancelAfter(futures, idx);
+                }
+            }
+
+            return collectOrdered(byIndex, firstInterrupt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new CancellationException("Dispatch %s interrupted while awaiting children"
+                    .formatted(args.dispatchAgentName()));
+        } finally {
+            releaseWorkflow(args.workflowId(), workflow);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <RES> DispatchOutcome<RES> collectOrdered(Object[] byIndex, int firstInterrupt) {
+        List<RES> results = new ArrayList<>();
+        for (int i = 0; i < byIndex.length && i < firstInterrupt; i++) {
+            if (byIndex[i] != null) {
+                results.add((RES) byIndex[i]);
+            }
+        }
+        RES interrupted = firstInterrupt == Integer.MAX_VALUE ? null : (RES) byIndex[firstInterrupt];
+        return new DispatchOutcome<>(results, interrupted);
+    }
+
+    private <REQ, RES> RES resultOf(Future<RES> future, DispatchArgs<REQ, RES> args, REQ request, int idx,
+                                    boolean started) {
+        if (future.isCancelled()) {
+            // Children cancelled mid-run publish their own completion from runTimed.
+            if (!started) {
+                publishComplete(args, request, idx, Events.DispatchChildOutcome.CANCELLED, 0L);
+            }
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.error("Dispatch child[{}] of {} failed.", idx, args.dispatchAgentName(), e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private <REQ, RES> RES runTimed(DispatchArgs<REQ, RES> args, REQ request, int idx, int childCount, boolean parallel) {
+        eventBus.publish(Events.DispatchChildStartedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .timestamp(Instant.now())
+                .nodeId(childNodeId(args, request))
+                .dispatchNodeId(args.dispatchNodeId())
+                .dispatchAgentName(args.dispatchAgentName())
+                .childIndex(idx)
+                .childCount(childCount)
+                .parallel(parallel)
+                .build());
+
+        long started = System.nanoTime();
+        RES response = null;
+        Events.DispatchChildOutcome outcome = Events.DispatchChildOutcome.FAILED;
+        try {
+            response = args.runChild().apply(request);
+            if (response != null) {
+                outcome = args.isInterrupt().test(response)
+                        ? Events.DispatchChildOutcome.INTERRUPTED
+                        : Events.DispatchChildOutcome.COMPLETED;
+            } else if (Thread.currentThread().isInterrupted()) {
+                outcome = Events.DispatchChildOutcome.CANCELLED;
+            }
+            return response;
+        } finally {
+            publishComplete(args, request, idx, outcome,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    private <REQ, RES> void publishComplete(DispatchArgs<REQ, RES> args, REQ request, int idx,
+                                            Events.DispatchChildOutcome outcome, long durationMs) {
+        eventBus.publish(Events.DispatchChildCompletedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .timestamp(Instant.now())
+                .nodeId(childNodeId(args, request))
+                .dispatchNodeId(args.dispatchNodeId())
+                .dispatchAgentName(args.dispatchAgentName())
+                .childIndex(idx)
+                .outcome(outcome)
+                .durationMs(durationMs)
+                .build());
+    }
+
+    private static <REQ, RES> String childNodeId(DispatchArgs<REQ, RES> args, REQ request) {
+        String childNodeId = args.childNodeId() != null ? args.childNodeId().apply(request) : null;
+        return childNodeId != null ? childNodeId : args.dispatchNodeId();
+    }
+
+    private static <RES> void cancelAfter(List<Future<RES>> futures, int interruptedIndex) {
+        for (int i = interruptedIndex + 1; i < futures.size(); i++) {
+            Future<RES> future = futures.get(i);
+            if (!future.isDone()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private WorkflowPermits acquireWorkflow(String workflowId) {
+        String key = workflowId != null ? workflowId : "";
+        return workflowPermits.compute(key, (k, existing) -> {
+            WorkflowPermits permits = existing != null
+                    ? existing
+                    : new WorkflowPermits(
+                            new Semaphore(Math.max(1, dispatchConfigProperties.getMaxParallelismPerWorkflow())),
+                            new AtomicInteger());
+            permits.users().incrementAndGet();
+            return permits;
+        });
+    }
+
+    private void releaseWorkflow(String workflowId, WorkflowPermits permits) {
+        String key = workflowId != null ? workflowId : "";
+        workflowPermits.computeIfPresent(key, (k, existing) ->
+                existing == permits && existing.users().decrementAndGet() <= 0 ? null : existing);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.hayden.multiagentide.tui;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.cli.CliEventFormatter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One-line event previews, formatted and truncated once per event id and width.
+ *
+ * <p>Events are immutable once saved, so a preview only changes when the width does. The
+ * cache is access-ordered and bounded, which keeps the rows around the viewport; events
+ * without an id are formatted every time.
+ */
+class TuiEventPreviewCache {
+
+    private record Key(String eventId, int width) {
+    }
+
+    private final CliEventFormatter formatter;
+    private final Map<Key, String> previews;
+
+    TuiEventPreviewCache(CliEventFormatter formatter, int maxEntries) {
+        this.formatter = formatter;
+        int capacity = Math.max(1, maxEntries);
+        this.previews = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized String preview(Events.GraphEvent event, int width) {
+        if (event.eventId() == null) {
+            return format(event, width);
+        }
+        return previews.computeIfAbsent(new Key(event.eventId(), width), k -> format(event, width));
+    }
+
+    synchronized int size() {
+        return previews.size();
+    }
+
+    private String format(Events.GraphEvent event, int width) {
+        return TuiTextLayout.truncateWithEllipsis(formatter.format(event), width);
+    }
+}
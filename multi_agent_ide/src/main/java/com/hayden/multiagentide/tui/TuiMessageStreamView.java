@@ -1,7 +1,6 @@
 package com.hayden.multiagentide.tui;
 
 import com.hayden.acp_cdc_ai.acp.events.Events;
-import com.hayden.multiagentide.cli.CliEventFormatter;
 import com.hayden.multiagentide.ui.state.UiFocus;
 import com.hayden.multiagentide.ui.state.UiSessionState;
 import com.hayden.multiagentide.ui.state.UiState;
@@ -39,7 +38,7 @@ class TuiMessageStreamView extends GridView {
         LIST_POS_FIELD = pos;
     }
 
-    private final CliEventFormatter formatter;
+    private final TuiEventPreviewCache previews;
     private final ListView<EventLine> eventList;
     private final Path initialRepoPath;
 
@@ -47,8 +46,13 @@ class TuiMessageStreamView extends GridView {
     private UiSessionState sessionState;
     private int visibleRows = 1;
 
-    TuiMessageStreamView(CliEventFormatter formatter, Path initialRepoPath) {
-        this.formatter = formatter;
+    // Event log and width the list items were last built for. The log is immutable, so the
+    // items are only rebuilt when a new version of it, or a new width, reaches the view.
+    private List<Events.GraphEvent> renderedEvents;
+    private int renderedWidth = -1;
+
+    TuiMessageStreamView(TuiEventPreviewCache previews, Path initialRepoPath) {
+        this.previews = previews;
         this.initialRepoPath = initialRepoPath;
         this.eventList = new ListView<>(ListView.ItemStyle.NOCHECK);
         this.sessionState = UiSessionState.initial(initialRepoPath);
@@ -110,19 +114,21 @@ class TuiMessageStreamView extends GridView {
         int width = TuiTextLayout.safeContentWidth(inner.width());
         visibleRows = Math.max(1, inner.height());
 
-        List<EventLine> lines = buildEventLines(width);
-        eventList.setItems(lines);
-        syncListViewport(lines.size(), visibleRows);
+        List<Events.GraphEvent> events = sessionState.events();
+        if (events != renderedEvents || width != renderedWidth) {
+            eventList.setItems(buildEventLines(events, width));
+            renderedEvents = events;
+            renderedWidth = width;
+        }
+        syncListViewport(events.size(), visibleRows);
 
         super.drawInternal(screen);
     }
 
-    private List<EventLine> buildEventLines(int width) {
-        List<EventLine> items = new ArrayList<>(sessionState.events().size());
-        for (Events.GraphEvent event : sessionState.events()) {
-            String preview = formatter.format(event);
-            String display = TuiTextLayout.truncateWithEllipsis(preview, width);
-            items.add(new EventLine(event.eventId(), display));
+    private List<EventLine> buildEventLines(List<Events.GraphEvent> events, int width) {
+        List<EventLine> items = new ArrayList<>(events.size());
+        for (Events.GraphEvent event : events) {
+            items.add(new EventLine(event, width, previews));
         }
         return items;
     }
@@ -168,10 +174,14 @@ class TuiMessageStreamView extends GridView {
         return index;
     }
 
-    private record EventLine(String eventId, String display) {
+    /**
+     * List item whose text is formatted when a cell draws it, so only visible rows are
+     * formatted, each once per width.
+     */
+    private record EventLine(Events.GraphEvent event, int width, TuiEventPreviewCache previews) {
         @Override
         public String toString() {
-            return display;
+            return previews.preview(event, width);
         }
     }
 
@@ -0,0 +1,26 @@
+package com.hayden.multiagentide.tui;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rendering limits for the CLI terminal UI.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.tui")
+@Data
+public class TuiRenderProperties {
+
+    /**
+     * Redraw requests are coalesced into at most this many frames per second. 0 redraws on
+     * every request.
+     */
+    int maxFramesPerSecond = 30;
+
+    /**
+     * Formatted event previews kept by the TUI, keyed by event id and width.
+     */
+    int previewCacheSize = 2_048;
+
+}
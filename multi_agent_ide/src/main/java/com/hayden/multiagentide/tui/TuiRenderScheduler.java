@@ -0,0 +1,90 @@
+package com.hayden.multiagentide.tui;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces redraw requests into at most one frame per frame interval.
+ *
+ * <p>A request made when no frame is pending schedules one, immediately if the last frame is
+ * at least an interval old and otherwise at the end of the interval; requests made while a
+ * frame is pending are absorbed by it. Input therefore renders without delay, and a burst of
+ * stream events costs one frame per interval however many events it holds. The pending flag is
+ * cleared before the frame renders, so state reduced during a frame gets a frame of its own.
+ *
+ * <p>With {@code maxFramesPerSecond} of 0 or less every request renders on the caller's thread.
+ */
+@Slf4j
+class TuiRenderScheduler implements AutoCloseable {
+
+    private final Runnable render;
+    private final long frameIntervalNanos;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile long lastFrameNanos;
+
+    TuiRenderScheduler(int maxFramesPerSecond, Runnable render) {
+        this.render = render;
+        if (maxFramesPerSecond <= 0) {
+            this.frameIntervalNanos = 0L;
+            this.executor = null;
+            return;
+        }
+        this.frameIntervalNanos = TimeUnit.SECONDS.toNanos(1) / maxFramesPerSecond;
+        this.lastFrameNanos = System.nanoTime() - frameIntervalNanos;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tui-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void requestFrame() {
+        if (closed.get()) {
+            return;
+        }
+        if (executor == null) {
+            renderFrame();
+            return;
+        }
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = Math.max(0L, lastFrameNanos + frameIntervalNanos - System.nanoTime());
+        try {
+            executor.schedule(this::renderScheduledFrame, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            pending.set(false);
+        }
+    }
+
+    private void renderScheduledFrame() {
+        pending.set(false);
+        lastFrameNanos = System.nanoTime();
+        renderFrame();
+    }
+
+    private void renderFrame() {
+        if (closed.get()) {
+            return;
+        }
+        try {
+            render.run();
+        } catch (Exception e) {
+            log.debug("TUI frame failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true) && executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
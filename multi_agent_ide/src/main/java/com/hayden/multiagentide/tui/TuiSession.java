@@ -51,6 +51,7 @@ public class TuiSession implements EventListener {
     private final CliEventFormatter eventFormatter;
     private final Terminal terminal;
     private final SharedUiInteractionService sharedUiInteractionService;
+    private final TuiRenderProperties renderProperties;
 
     private final Object stateLock = new Object();
     private final AtomicBoolean running = new AtomicBoolean(false);
@@ -65,8 +66,9 @@ public class TuiSession implements EventListener {
     private String activeSessionId;
     private String activeNodeId;
 
-    private TerminalUI terminalUi;
+    private volatile TerminalUI terminalUi;
     private TuiTerminalView rootView;
+    private volatile TuiRenderScheduler renderScheduler;
     private UiState state;
     private final Map<String, Boolean> startedSessions = new LinkedHashMap<>();
     private volatile int eventListHeight = 10;
@@ -96,9 +98,11 @@ public class TuiSession implements EventListener {
             syncTerminalSizeAtStartup();
 
             this.terminalUi = new TerminalUIBuilder(terminal).build();
+            this.renderScheduler = new TuiRenderScheduler(renderProperties.getMaxFramesPerSecond(), this::redrawNow);
             this.rootView = new TuiTerminalView(
                     this::snapshotState,
                     eventFormatter,
+                    new TuiEventPreviewCache(eventFormatter, renderProperties.getPreviewCacheSize()),
                     eventStreamRepository,
                     resolveDefaultRepoPath(),
                     new ViewController(),
@@ -113,6 +117,10 @@ public class TuiSession implements EventListener {
             terminalUi.run();
         } finally {
             running.set(false);
+            if (renderScheduler != null) {
+                renderScheduler.close();
+            }
+            renderScheduler = null;
             if (terminalUi != null) {
                 terminalUi.setModal(null);
             }
@@ -267,11 +275,24 @@ public class TuiSession implements EventListener {
         terminalUi.configure(view);
     }
 
+    /**
+     * Schedule a frame. Requests are coalesced to at most
+     * {@link TuiRenderProperties#getMaxFramesPerSecond()} frames per second, so token-level
+     * stream events do not each cost a full redraw.
+     */
     private void requestRedraw() {
-        if (terminalUi == null) {
+        TuiRenderScheduler scheduler = renderScheduler;
+        if (terminalUi == null || scheduler == null) {
             return;
         }
-        terminalUi.redraw();
+        scheduler.requestFrame();
+    }
+
+    private void redrawNow() {
+        TerminalUI ui = terminalUi;
+        if (ui != null) {
+            ui.redraw();
+        }
     }
 
     private void ensureInitialState() {
@@ -96,6 +96,7 @@ class TuiTerminalView extends GridView {
 
     private final Supplier<UiState> stateSupplier;
     private final CliEventFormatter formatter;
+    private final TuiEventPreviewCache previews;
     private final EventStreamRepository eventStreamRepository;
     private final Path initialRepoPath;
     private final Controller controller;
@@ -117,6 +118,7 @@ class TuiTerminalView extends GridView {
     TuiTerminalView(
             Supplier<UiState> stateSupplier,
             CliEventFormatter formatter,
+            TuiEventPreviewCache previews,
             EventStreamRepository eventStreamRepository,
             Path initialRepoPath,
             Controller controller,
@@ -125,6 +127,7 @@ class TuiTerminalView extends GridView {
             Consumer<View> dynamicViewConfigurer) {
         this.stateSupplier = stateSupplier;
         this.formatter = formatter;
+        this.previews = previews;
         this.eventStreamRepository = eventStreamRepository;
         this.initialRepoPath = initialRepoPath;
         this.controller = controller;
@@ -213,7 +216,7 @@ class TuiTerminalView extends GridView {
     private TuiSessionView newSessionView(String sessionId) {
         UiState state = stateSupplier.get();
         Path repoPath = resolveRepoPath(state, sessionId);
-        TuiSessionView sessionView = new TuiSessionView(sessionId, repoPath, new TuiMessageStreamView(formatter, repoPath));
+        TuiSessionView sessionView = new TuiSessionView(sessionId, repoPath, new TuiMessageStreamView(previews, repoPath));
         for (View view : sessionView.allViews()) {
             ensureConfigured(view);
         }
@@ -5,6 +5,7 @@ import com.hayden.multiagentide.ui.state.UiSessionState;
 import com.hayden.multiagentide.ui.state.UiState;
 import com.hayden.multiagentide.ui.state.UiStateReducer;
 import com.hayden.multiagentide.ui.state.UiViewport;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -14,11 +15,19 @@ import java.util.Map;
 @Service
 public class SharedUiInteractionServiceImpl implements SharedUiInteractionService {
 
-    private final UiStateReducer reducer = new UiStateReducer();
+    private final UiStateReducer reducer;
     private final UiActionMapper actionMapper;
 
     public SharedUiInteractionServiceImpl(UiActionMapper actionMapper) {
+        this(actionMapper, new UiStateProperties());
+    }
+
+    @Autowired
+    public SharedUiInteractionServiceImpl(UiActionMapper actionMapper, UiStateProperties uiStateProperties) {
         this.actionMapper = actionMapper;
+        this.reducer = new UiStateReducer(
+                uiStateProperties.getMaxEventsPerSession(),
+                uiStateProperties.getEvictionWindow());
     }
 
     @Override
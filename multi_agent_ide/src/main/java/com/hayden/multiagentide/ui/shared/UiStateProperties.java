@@ -0,0 +1,25 @@
+package com.hayden.multiagentide.ui.shared;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits on the per-session event logs held by {@link UiStateStore}.
+ */
+@Component
+@ConfigurationProperties(prefix = "multi-agent-ide.ui-state")
+@Data
+public class UiStateProperties {
+
+    /**
+     * Events kept per UI session; the oldest are evicted past this. 0 keeps everything.
+     */
+    int maxEventsPerSession = 100_000;
+
+    /**
+     * Minimum number of events evicted at once when a session hits the cap.
+     */
+    int evictionWindow = 5_000;
+
+}
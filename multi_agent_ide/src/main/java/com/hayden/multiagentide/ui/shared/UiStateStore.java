@@ -31,6 +31,20 @@ public class UiStateStore implements EventListener {
         return "llm-debug-ui-state-store";
     }
 
+    /**
+     * UI state is read on demand, so the reducer can run behind the publisher; merged
+     * stream deltas reduce to the same transcript as the individual chunks.
+     */
+    @Override
+    public DeliveryMode deliveryMode() {
+        return DeliveryMode.ASYNC;
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.COALESCE;
+    }
+
     @Override
     public void onEvent(Events.GraphEvent event) {
         String eventNodeId = sharedUiInteractionService.resolveNodeId(event, null);
@@ -0,0 +1,155 @@
+package com.hayden.multiagentide.ui.state;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, append-only list of events that shares storage between versions.
+ *
+ * <p>Events live in fixed-size chunks owned by a shared store. Each {@code EventLog} is a
+ * window {@code [start, end)} over that store. {@link #append} writes into the store in place
+ * when the log being appended to is the newest version, which is the normal case for the
+ * reducer, so appending is O(1) amortized and older versions keep seeing only their own prefix.
+ * Appending to an older version copies the partly filled tail chunk and shares the full ones.
+ *
+ * <p>{@link #dropOldest} moves the window start forward without copying. Once most of the
+ * store's chunks are behind the window the live chunks are moved to a new store so the
+ * evicted events can be collected.
+ */
+public final class EventLog extends AbstractList<Events.GraphEvent> implements RandomAccess {
+
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Store store;
+    private final int start;
+    private final int end;
+
+    private EventLog(Store store, int start, int end) {
+        this.store = store;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static EventLog empty() {
+        return new EventLog(new Store(), 0, 0);
+    }
+
+    /**
+     * Returns {@code events} itself when it is already an {@code EventLog}, otherwise a log
+     * holding a copy of it.
+     */
+    public static EventLog copyOf(List<? extends Events.GraphEvent> events) {
+        if (events instanceof EventLog log) {
+            return log;
+        }
+        EventLog log = empty();
+        if (events != null) {
+            for (Events.GraphEvent event : events) {
+                log = log.append(event);
+            }
+        }
+        return log;
+    }
+
+    @Override
+    public Events.GraphEvent get(int index) {
+        Objects.checkIndex(index, size());
+        return store.get(start + index);
+    }
+
+    @Override
+    public int size() {
+        return end - start;
+    }
+
+    public EventLog append(Events.GraphEvent event) {
+        Objects.requireNonNull(event, "event");
+        if (store.tryAppend(end, event)) {
+            return new EventLog(store, start, end + 1);
+        }
+        Store branch = store.branch(start, end);
+        int offset = start & ~CHUNK_MASK;
+        branch.tryAppend(end - offset, event);
+        return new EventLog(branch, start - offset, end - offset + 1);
+    }
+
+    /**
+     * Drops the oldest {@code count} events.
+     */
+    public EventLog dropOldest(int count) {
+        if (count <= 0) {
+            return this;
+        }
+        int newStart = Math.min(end, start + count);
+        int deadChunks = newStart >> CHUNK_SHIFT;
+        int usedChunks = end == 0 ? 0 : ((end - 1) >> CHUNK_SHIFT) + 1;
+        if (deadChunks > 0 && deadChunks * 2 >= usedChunks) {
+            Store rebased = store.branch(newStart, end);
+            int offset = newStart & ~CHUNK_MASK;
+            return new EventLog(rebased, newStart - offset, end - offset);
+        }
+        return new EventLog(store, newStart, end);
+    }
+
+    /**
+     * Chunked backing array. Slots below {@code length} are never written again, so any
+     * number of logs can read them; only a log ending exactly at {@code length} may append.
+     */
+    private static final class Store {
+        private volatile Object[][] chunks = new Object[0][];
+        private volatile int length;
+
+        Events.GraphEvent get(int index) {
+            return (Events.GraphEvent) chunks[index >> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        synchronized boolean tryAppend(int position, Events.GraphEvent event) {
+            if (position != length) {
+                return false;
+            }
+            int chunk = position >> CHUNK_SHIFT;
+            Object[][] current = chunks;
+            if (chunk == current.length) {
+                current = Arrays.copyOf(current, Math.max(4, current.length * 2));
+                chunks = current;
+            }
+            if (current[chunk] == null) {
+                current[chunk] = new Object[CHUNK_SIZE];
+            }
+            current[chunk][position & CHUNK_MASK] = event;
+            length = position + 1;
+            return true;
+        }
+
+        /**
+         * New store holding {@code [from, to)} re-based to the start of {@code from}'s chunk.
+         * Full chunks are shared; the partly filled tail chunk is copied so both stores can
+         * append independently.
+         */
+        Store branch(int from, int to) {
+            Store branch = new Store();
+            Object[][] source = chunks;
+            int firstChunk = from >> CHUNK_SHIFT;
+            int chunkCount = to == 0 ? 0 : ((to - 1) >> CHUNK_SHIFT) + 1 - firstChunk;
+            Object[][] copied = new Object[Math.max(4, chunkCount * 2)][];
+            for (int i = 0; i < chunkCount; i++) {
+                copied[i] = source[firstChunk + i];
+            }
+            int tailFill = to & CHUNK_MASK;
+            if (chunkCount > 0 && tailFill != 0) {
+                copied[chunkCount - 1] = Arrays.copyOf(copied[chunkCount - 1], CHUNK_SIZE);
+                Arrays.fill(copied[chunkCount - 1], tailFill, CHUNK_SIZE, null);
+            }
+            branch.chunks = copied;
+            branch.length = chunkCount == 0 ? 0 : to - (firstChunk << CHUNK_SHIFT);
+            return branch;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.hayden.multiagentide.ui.state;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map of sessions by id that shares storage between versions.
+ *
+ * <p>{@link #with} records the one changed entry on top of the version it came from instead
+ * of copying every session, so the reducer pays for the session an event touched and not
+ * for the number of sessions. Lookups check the recorded changes, newest first, before the
+ * shared base; once {@link #MAX_CHANGES} have piled up the next {@link #with} folds them into
+ * a new base. Iteration is in insertion order, like the {@code LinkedHashMap} it replaces.
+ */
+public final class SessionMap extends AbstractMap<String, UiSessionState> {
+
+    static final int MAX_CHANGES = 32;
+
+    private static final SessionMap EMPTY = new SessionMap(Map.of(), null, 0, 0);
+
+    private record Change(String sessionId, UiSessionState session, Change previous) {
+    }
+
+    private final Map<String, UiSessionState> base;
+    private final Change changes;
+    private final int changeCount;
+    private final int size;
+    private volatile Map<String, UiSessionState> flattened;
+
+    private SessionMap(Map<String, UiSessionState> base, Change changes, int changeCount, int size) {
+        this.base = base;
+        this.changes = changes;
+        this.changeCount = changeCount;
+        this.size = size;
+    }
+
+    public static SessionMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns {@code sessions} itself when it is already a {@code SessionMap}, otherwise a map
+     * holding a copy of it.
+     */
+    public static SessionMap copyOf(Map<String, UiSessionState> sessions) {
+        if (sessions instanceof SessionMap map) {
+            return map;
+        }
+        if (sessions == null || sessions.isEmpty()) {
+            return EMPTY;
+        }
+        return new SessionMap(Collections.unmodifiableMap(new LinkedHashMap<>(sessions)), null, 0, sessions.size());
+    }
+
+    /**
+     * This map with {@code sessionId} mapped to {@code session}; an existing id keeps its
+     * position.
+     */
+    public SessionMap with(String sessionId, UiSessionState session) {
+        if (changeCount >= MAX_CHANGES) {
+            return new SessionMap(flatten(), null, 0, size).with(sessionId, session);
+        }
+        int newSize = containsKey(sessionId) ? size : size + 1;
+        return new SessionMap(base, new Change(sessionId, session, changes), changeCount + 1, newSize);
+    }
+
+    @Override
+    public UiSessionState get(Object key) {
+        for (Change change = changes; change != null; change = change.previous()) {
+            if (Objects.equals(change.sessionId(), key)) {
+                return change.session();
+            }
+        }
+        return base.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (Change change = changes; change != null; change = change.previous()) {
+            if (Objects.equals(change.sessionId(), key)) {
+                return true;
+            }
+        }
+        return base.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, UiSessionState>> entrySet() {
+        return flatten().entrySet();
+    }
+
+    private Map<String, UiSessionState> flatten() {
+        if (changes == null) {
+            return base;
+        }
+        Map<String, UiSessionState> result = flattened;
+        if (result == null) {
+            List<Change> oldestFirst = new ArrayList<>(changeCount);
+            for (Change change = changes; change != null; change = change.previous()) {
+                oldestFirst.add(change);
+            }
+            Map<String, UiSessionState> merged = new LinkedHashMap<>(base);
+            for (Change change : oldestFirst.reversed()) {
+                merged.put(change.sessionId(), change.session());
+            }
+            result = Collections.unmodifiableMap(merged);
+            flattened = result;
+        }
+        return result;
+    }
+}
@@ -23,9 +23,7 @@ public record UiSessionState(
     public UiSessionState {
         if (repo == null)
             throw new IllegalArgumentException("");
-        if (events == null) {
-            events = List.of();
-        }
+        events = EventLog.copyOf(events);
         if (chatInput == null) {
             chatInput = "";
         }
@@ -36,7 +34,7 @@ public record UiSessionState(
 
     public static UiSessionState initial(Path repo) {
         return new UiSessionState(
-                List.of(),
+                EventLog.empty(),
                 0,
                 0,
                 true,
@@ -4,11 +4,27 @@ import com.hayden.acp_cdc_ai.acp.events.Events;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class UiStateReducer {
 
+    private final int maxEventsPerSession;
+    private final int evictionWindow;
+
+    public UiStateReducer() {
+        this(0, 0);
+    }
+
+    /**
+     * @param maxEventsPerSession events kept per session; 0 keeps everything
+     * @param evictionWindow      minimum number of events dropped at once when the cap is hit,
+     *                            so selection and search indices are not shifted on every event
+     */
+    public UiStateReducer(int maxEventsPerSession, int evictionWindow) {
+        this.maxEventsPerSession = Math.max(0, maxEventsPerSession);
+        this.evictionWindow = Math.max(1, evictionWindow);
+    }
+
     public UiState reduce(UiState state, Events.GraphEvent event, UiViewport viewport, String sessionId) {
         if (event instanceof Events.TuiInteractionGraphEvent interaction) {
             return applyInteraction(state, interaction.tuiEvent(), viewport);
@@ -20,13 +36,18 @@ public class UiStateReducer {
     }
 
     private UiState appendGraphEvent(UiState state, Events.GraphEvent event, UiViewport viewport, String sessionId) {
-        Map<String, UiSessionState> sessions = new LinkedHashMap<>(state.sessions());
+        SessionMap sessions = SessionMap.copyOf(state.sessions());
         UiSessionState sessionState = sessions.getOrDefault(sessionId, initialSessionFromState(state));
-        List<Events.GraphEvent> updated = new ArrayList<>(sessionState.events());
-        updated.add(event);
+        EventLog updated = EventLog.copyOf(sessionState.events()).append(event);
+
+        int evicted = 0;
+        if (maxEventsPerSession > 0 && updated.size() > maxEventsPerSession) {
+            evicted = Math.min(updated.size(), Math.max(updated.size() - maxEventsPerSession, evictionWindow));
+            updated = updated.dropOldest(evicted);
+        }
 
-        int newSelected = sessionState.selectedIndex();
-        int newScroll = sessionState.scrollOffset();
+        int newSelected = sessionState.selectedIndex() - evicted;
+        int newScroll = sessionState.scrollOffset() - evicted;
         boolean followTail = sessionState.autoFollow();
         if (followTail) {
             newSelected = updated.size() - 1;
@@ -37,22 +58,42 @@ public class UiStateReducer {
         }
 
         UiSessionState updatedSession = sessionState.toBuilder()
-                .events(List.copyOf(updated))
+                .events(updated)
                 .selectedIndex(clampIndex(newSelected, updated.size()))
                 .scrollOffset(Math.max(0, newScroll))
+                .chatSearch(evicted == 0 ? sessionState.chatSearch() : shiftSearch(sessionState.chatSearch(), evicted))
                 .build();
 
-        sessions.put(sessionId, updatedSession);
-        List<String> order = new ArrayList<>(state.sessionOrder());
+        List<String> order = state.sessionOrder();
         if (sessionId != null && !order.contains(sessionId)) {
-            order.add(sessionId);
+            List<String> extended = new ArrayList<>(order);
+            extended.add(sessionId);
+            order = List.copyOf(extended);
         }
         return state.toBuilder()
-                .sessionOrder(List.copyOf(order))
-                .sessions(sessions)
+                .sessionOrder(order)
+                .sessions(sessions.with(sessionId, updatedSession))
                 .build();
     }
 
+    private UiChatSearch shiftSearch(UiChatSearch search, int evicted) {
+        if (!search.active() || search.resultIndices().isEmpty()) {
+            return search;
+        }
+        List<Integer> shifted = new ArrayList<>(search.resultIndices().size());
+        int removedBeforeSelected = 0;
+        for (int i = 0; i < search.resultIndices().size(); i++) {
+            int index = search.resultIndices().get(i) - evicted;
+            if (index >= 0) {
+                shifted.add(index);
+            } else if (i <= search.selectedResultIndex()) {
+                removedBeforeSelected++;
+            }
+        }
+        int selected = shifted.isEmpty() ? -1 : Math.max(0, search.selectedResultIndex() - removedBeforeSelected);
+        return new UiChatSearch(true, search.query(), List.copyOf(shifted), selected);
+    }
+
     private UiState applySystemEvent(UiState state, Events.UiSystemEvent event) {
         return state;
     }
@@ -61,7 +102,7 @@ public class UiStateReducer {
         if (state.activeSessionId() == null || state.activeSessionId().isBlank()) {
             return state;
         }
-        Map<String, UiSessionState> sessions = new LinkedHashMap<>(state.sessions());
+        Map<String, UiSessionState> sessions = state.sessions();
         UiSessionState sessionState = sessions.getOrDefault(state.activeSessionId(), initialSessionFromState(state));
         return switch (event) {
             case Events.EventStreamMoveSelection e -> {
@@ -90,15 +131,12 @@ public class UiStateReducer {
                             .build()))
                     .build();
             case Events.FocusChatInput e -> state.toBuilder()
-                    .sessions(sessions)
                     .focus(UiFocus.CHAT_INPUT)
                     .build();
             case Events.FocusEventStream e -> state.toBuilder()
-                    .sessions(sessions)
                     .focus(UiFocus.EVENT_STREAM)
                     .build();
             case Events.FocusSessionList e -> state.toBuilder()
-                    .sessions(sessions)
                     .focus(UiFocus.SESSION_LIST)
                     .build();
             case Events.ChatInputChanged e -> state.toBuilder()
@@ -131,10 +169,7 @@ public class UiStateReducer {
                     .sessions(ensureSessionExists(state, sessions, e.sessionId()))
                     .build();
             case Events.SessionCreated e -> {
-                Map<String, UiSessionState> updatedSessions = new LinkedHashMap<>(sessions);
-                if (!updatedSessions.containsKey(e.sessionId())) {
-                    updatedSessions.put(e.sessionId(), initialSessionFromState(state));
-                }
+                Map<String, UiSessionState> updatedSessions = ensureSessionExists(state, sessions, e.sessionId());
                 List<String> order = new ArrayList<>(state.sessionOrder());
                 if (!order.contains(e.sessionId())) {
                     order.add(e.sessionId());
@@ -149,7 +184,7 @@ public class UiStateReducer {
     }
 
     private UiState applySearchQueryChange(UiState state, String query, UiViewport viewport) {
-        Map<String, UiSessionState> sessions = new LinkedHashMap<>(state.sessions());
+        Map<String, UiSessionState> sessions = state.sessions();
         UiSessionState sessionState = sessions.getOrDefault(state.activeSessionId(), initialSessionFromState(state));
         String trimmed = query == null ? "" : query.trim();
         List<Integer> results = new ArrayList<>();
@@ -185,7 +220,7 @@ public class UiStateReducer {
     }
 
     private UiState applySearchNavigation(UiState state, int delta, UiViewport viewport) {
-        Map<String, UiSessionState> sessions = new LinkedHashMap<>(state.sessions());
+        Map<String, UiSessionState> sessions = state.sessions();
         UiSessionState sessionState = sessions.getOrDefault(state.activeSessionId(), initialSessionFromState(state));
         UiChatSearch search = sessionState.chatSearch();
         if (!search.active() || search.resultIndices().isEmpty()) {
@@ -231,11 +266,10 @@ public class UiStateReducer {
     }
 
     private Map<String, UiSessionState> updateSession(Map<String, UiSessionState> sessions, String sessionId, UiSessionState state) {
-        Map<String, UiSessionState> updated = new LinkedHashMap<>(sessions);
-        if (sessionId != null) {
-            updated.put(sessionId, state);
+        if (sessionId == null) {
+            return sessions;
         }
-        return updated;
+        return SessionMap.copyOf(sessions).with(sessionId, state);
     }
 
     private List<String> ensureSessionOrder(List<String> order, String sessionId) {
@@ -247,11 +281,10 @@ public class UiStateReducer {
     }
 
     private Map<String, UiSessionState> ensureSessionExists(UiState state, Map<String, UiSessionState> sessions, String sessionId) {
-        Map<String, UiSessionState> updated = new LinkedHashMap<>(sessions);
-        if (sessionId != null && !updated.containsKey(sessionId)) {
-            updated.put(sessionId, initialSessionFromState(state));
+        if (sessionId == null || sessions.containsKey(sessionId)) {
+            return sessions;
         }
-        return updated;
+        return SessionMap.copyOf(sessions).with(sessionId, initialSessionFromState(state));
     }
 
     private UiSessionState initialSessionFromState(UiState state) {
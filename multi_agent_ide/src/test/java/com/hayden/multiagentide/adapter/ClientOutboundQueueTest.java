@@ -0,0 +1,80 @@
+package com.hayden.multiagentide.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientOutboundQueueTest {
+
+    @Test
+    void sendsBacklogBeforeQueuedItemsInOrder() throws Exception {
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(5);
+        ClientOutboundQueue<Integer> queue = new ClientOutboundQueue<>("test", 16,
+                batch -> batch.forEach(i -> {
+                    sent.add(i);
+                    done.countDown();
+                }),
+                () -> {
+                }, e -> {
+                });
+
+        queue.offer(3);
+        queue.offer(4);
+        queue.start(List.of(0, 1, 2));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sent).containsExactly(0, 1, 2, 3, 4);
+        queue.close();
+    }
+
+    @Test
+    void overflowClosesTheQueueWithoutBlocking() throws Exception {
+        CountDownLatch blockSender = new CountDownLatch(1);
+        AtomicBoolean overflowed = new AtomicBoolean();
+        ClientOutboundQueue<Integer> queue = new ClientOutboundQueue<>("slow", 2,
+                batch -> blockSender.await(),
+                () -> overflowed.set(true), e -> {
+                });
+        queue.start(List.of(0));
+
+        boolean accepted = true;
+        for (int i = 1; i <= 10 && accepted; i++) {
+            accepted = queue.offer(i);
+        }
+
+        assertThat(accepted).isFalse();
+        assertThat(overflowed).isTrue();
+        assertThat(queue.isClosed()).isTrue();
+        assertThat(queue.offer(99)).isFalse();
+        blockSender.countDown();
+    }
+
+    @Test
+    void sendFailureIsReportedOnce() throws Exception {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        ClientOutboundQueue<Integer> queue = new ClientOutboundQueue<>("broken", 4,
+                batch -> {
+                    throw new java.io.IOException("closed");
+                },
+                () -> {
+                }, e -> {
+                    failure.set(e);
+                    failed.countDown();
+                });
+        queue.start(List.of());
+        queue.offer(1);
+
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(failure.get()).hasMessage("closed");
+        assertThat(queue.isClosed()).isTrue();
+    }
+}
@@ -0,0 +1,256 @@
+package com.hayden.multiagentide.adapter;
+
+import com.hayden.acp_cdc_ai.acp.events.AgUiSerdes;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.filter.integration.ControllerEventFilterIntegration;
+import com.hayden.multiagentide.filter.integration.PathFilterIntegration;
+import com.hayden.multiagentide.filter.model.FilterSource;
+import com.hayden.multiagentide.filter.service.FilterResult;
+import com.hayden.multiagentide.filter.service.LayerIdResolver;
+import com.hayden.multiagentide.repository.EventStreamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for SseEventAdapter resume handling.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>A client resuming with a known Last-Event-ID gets exactly the events it missed, then live events</li>
+ *   <li>An unknown, unreadable, expired or pre-restart Last-Event-ID falls back to the full stored history</li>
+ *   <li>Events published while the history is read are sent once, neither duplicated nor lost</li>
+ *   <li>A client whose queue overflows while its send is stuck never blocks the publisher</li>
+ * </ul>
+ */
+class SseEventAdapterTest {
+
+    private static final Pattern ID = Pattern.compile("(?m)^id:(\\S+)$");
+    private static final Pattern DATA = Pattern.compile("(?m)^data:(.*)$");
+
+    private EventStreamRepository graphRepository;
+    private SseStreamProperties properties;
+    private SseEventAdapter adapter;
+    private final List<Events.GraphEvent> published = new ArrayList<>();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        graphRepository = mock(EventStreamRepository.class);
+        properties = new SseStreamProperties();
+
+        LayerIdResolver layerIdResolver = mock(LayerIdResolver.class);
+        when(layerIdResolver.resolveForGraphEvent(any(), any(Events.GraphEvent.class))).thenReturn(Optional.of("layer"));
+        ControllerEventFilterIntegration eventFilters = mock(ControllerEventFilterIntegration.class);
+        when(eventFilters.applyFilters(any(), any()))
+                .thenAnswer(inv -> new FilterResult<>(inv.getArgument(1, Events.GraphEvent.class), null));
+        PathFilterIntegration pathFilters = mock(PathFilterIntegration.class);
+        when(pathFilters.applyJsonPathFilters(any(), any(), any(), any()))
+                .thenAnswer(inv -> new FilterResult<>(
+                        inv.getArgument(1, FilterSource.GraphEventSource.class).event().eventId(), null));
+        AgUiSerdes serdes = mock(AgUiSerdes.class);
+        when(serdes.serializeEvent(any())).thenReturn("{}");
+
+        adapter = new SseEventAdapter() {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        adapter.setSerdes(serdes);
+        ReflectionTestUtils.setField(adapter, "graphRepository", graphRepository);
+        ReflectionTestUtils.setField(adapter, "layerIdResolver", layerIdResolver);
+        ReflectionTestUtils.setField(adapter, "controllerEventFilterIntegration", eventFilters);
+        ReflectionTestUtils.setField(adapter, "pathFilterIntegration", pathFilters);
+        ReflectionTestUtils.setField(adapter, "sseStreamProperties", properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    @Test
+    void knownLastEventIdReplaysExactlyTheMissedEvents() {
+        publish("e1", "e2", "e3", "e4", "e5");
+
+        RecordingEmitter emitter = register(adapter.sseId(2));
+        publish("e6");
+
+        awaitSent(emitter, 4);
+        assertThat(emitter.payloads()).containsExactly("e3", "e4", "e5", "e6");
+        assertThat(emitter.ids()).containsExactly(adapter.sseId(3), adapter.sseId(4), adapter.sseId(5), adapter.sseId(6));
+        verify(graphRepository, never()).list();
+    }
+
+    @Test
+    void unknownOrExpiredLastEventIdFallsBackToFullHistory() {
+        properties.setReplayBufferSize(2);
+        publish("e1", "e2", "e3", "e4", "e5");
+        when(graphRepository.list()).thenReturn(List.copyOf(published));
+
+        for (String lastEventId : List.of(adapter.sseId(1), adapter.sseId(99), "not-a-sequence", "4", "previous-4")) {
+            RecordingEmitter emitter = register(lastEventId);
+
+            awaitSent(emitter, 5);
+            assertThat(emitter.payloads()).as(lastEventId).containsExactly("e1", "e2", "e3", "e4", "e5");
+            assertThat(emitter.ids()).as(lastEventId).containsExactly(null, null, null, null, adapter.sseId(5));
+        }
+    }
+
+    @Test
+    void eventsPublishedDuringHistoryReplayAreSentOnce() {
+        publish("e1", "e2");
+        when(graphRepository.list()).thenAnswer(inv -> {
+            // e3 is saved before it is published, so it is both in the history and queued live.
+            Events.GraphEvent saved = delta("e3");
+            List<Events.GraphEvent> stored = new ArrayList<>(published);
+            stored.add(saved);
+            published.add(saved);
+            adapter.onEvent(saved);
+            return stored;
+        });
+
+        RecordingEmitter emitter = register(null);
+        publish("e4");
+
+        awaitSent(emitter, 4);
+        assertThat(emitter.payloads()).containsExactly("e1", "e2", "e3", "e4");
+        assertThat(emitter.ids()).containsExactly(null, null, adapter.sseId(2), adapter.sseId(4));
+    }
+
+    @Test
+    void overflowWhileASendIsStuckDoesNotBlockThePublisher() throws InterruptedException {
+        properties.setClientQueueCapacity(2);
+        when(graphRepository.list()).thenReturn(List.of());
+        RecordingEmitter emitter = register(null);
+        CountDownLatch release = new CountDownLatch(1);
+        emitter.blockSendsUntil(release);
+
+        publish("e1");
+        await().atMost(Duration.ofSeconds(5)).until(emitter::isSending);
+        Thread publisher = Thread.ofVirtual().start(() -> publish("e2", "e3", "e4", "e5"));
+
+        publisher.join(Duration.ofSeconds(2));
+        assertThat(publisher.isAlive()).isFalse();
+        assertThat(adapter.clientCount()).isZero();
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(emitter::completedWithError);
+    }
+
+    private RecordingEmitter register(String lastEventId) {
+        return (RecordingEmitter) adapter.registerEmitter(event -> true, null, null, lastEventId);
+    }
+
+    private void publish(String... eventIds) {
+        for (String eventId : eventIds) {
+            Events.GraphEvent event = delta(eventId);
+            synchronized (published) {
+                published.add(event);
+            }
+            adapter.onEvent(event);
+        }
+    }
+
+    private static void awaitSent(RecordingEmitter emitter, int count) {
+        // Held for a moment so that a duplicate sent right behind the last event is caught.
+        await().atMost(Duration.ofSeconds(5)).during(Duration.ofMillis(100))
+                .until(() -> emitter.sent.size() == count);
+    }
+
+    private static Events.GraphEvent delta(String eventId) {
+        return new Events.NodeStreamDeltaEvent(eventId, Instant.now(), "ak:root", null, "token", 1, false);
+    }
+
+    private record Sent(String id, String payload) {
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<Sent> sent = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean sending;
+        private volatile boolean completedWithError;
+
+        private RecordingEmitter() {
+            super(0L);
+        }
+
+        void blockSendsUntil(CountDownLatch release) {
+            gate = release;
+        }
+
+        boolean isSending() {
+            return sending;
+        }
+
+        boolean completedWithError() {
+            return completedWithError;
+        }
+
+        /**
+         * Like ResponseBodyEmitter, completing waits for a send in progress; the gate ignores
+         * interrupts, as a write stuck on a socket does.
+         */
+        @Override
+        public synchronized void completeWithError(Throwable ex) {
+            completedWithError = true;
+        }
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) {
+            sending = true;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    gate.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                text.append(part.getData());
+            }
+            Matcher id = ID.matcher(text);
+            Matcher data = DATA.matcher(text);
+            sent.add(new Sent(id.find() ? id.group(1) : null, data.find() ? data.group(1) : null));
+        }
+
+        List<String> payloads() {
+            return sent.stream().map(Sent::payload).toList();
+        }
+
+        List<String> ids() {
+            return sent.stream().map(Sent::id).toList();
+        }
+    }
+}
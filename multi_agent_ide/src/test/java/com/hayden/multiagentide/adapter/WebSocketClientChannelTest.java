@@ -0,0 +1,126 @@
+package com.hayden.multiagentide.adapter;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketClientChannelTest {
+
+    private static final Function<Events.GraphEvent, String> CONTENT =
+            event -> ((Events.NodeStreamDeltaEvent) event).deltaContent();
+
+    @Test
+    void sendsFramesInOrderAndSerializesSharedFramesOnce() throws Exception {
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(6);
+        AtomicInteger serialized = new AtomicInteger();
+        Function<Events.GraphEvent, String> serializer = event -> {
+            serialized.incrementAndGet();
+            return CONTENT.apply(event);
+        };
+
+        WebSocketClientChannel a = new WebSocketClientChannel(recording("a", first, done), serializer, 16, 32, () -> {
+        });
+        WebSocketClientChannel b = new WebSocketClientChannel(recording("b", second, done), serializer, 16, 32, () -> {
+        });
+        for (String text : List.of("x", "y", "z")) {
+            WebSocketClientChannel.Frame frame = WebSocketClientChannel.Frame.of(delta(text, false));
+            assertThat(a.offer(frame)).isTrue();
+            assertThat(b.offer(frame)).isTrue();
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(first).containsExactly("x", "y", "z");
+        assertThat(second).containsExactly("x", "y", "z");
+        assertThat(serialized.get()).isEqualTo(3);
+        assertThat(a.stats().sent()).isEqualTo(3);
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void coalescesAboveHighWaterMarkThenDropsDeltasThenCloses() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("slow");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        // Closing waits on the stuck send, as Tomcat's close frame does, and then fails it.
+        CountDownLatch closing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            closing.countDown();
+            Thread.sleep(200);
+            release.countDown();
+            return null;
+        }).when(session).close(any());
+        CountDownLatch closed = new CountDownLatch(1);
+        WebSocketClientChannel channel = new WebSocketClientChannel(session, CONTENT, 2, 3, closed::countDown);
+
+        channel.offer(WebSocketClientChannel.Frame.text("in flight"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        channel.offer(WebSocketClientChannel.Frame.text("t1"));
+        channel.offer(WebSocketClientChannel.Frame.text("t2"));
+        assertThat(channel.offer(WebSocketClientChannel.Frame.of(delta("a", false)))).isTrue();
+        assertThat(channel.offer(WebSocketClientChannel.Frame.of(delta("b", false)))).isTrue();
+        assertThat(channel.offer(WebSocketClientChannel.Frame.of(delta("c", false)))).isTrue();
+
+        WebSocketClientChannel.Stats stats = channel.stats();
+        assertThat(stats.queueDepth()).isEqualTo(3);
+        assertThat(stats.coalesced()).isEqualTo(2);
+
+        assertThat(channel.offer(WebSocketClientChannel.Frame.text("t3"))).isTrue();
+        assertThat(channel.stats().dropped()).isEqualTo(1);
+        assertThat(channel.stats().queueDepth()).isEqualTo(3);
+
+        long start = System.nanoTime();
+        assertThat(channel.offer(WebSocketClientChannel.Frame.text("t4"))).isFalse();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(150);
+        assertThat(closing.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(channel.offer(WebSocketClientChannel.Frame.text("t5"))).isFalse();
+
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(session, times(1)).close(any());
+    }
+
+    private static WebSocketSession recording(String id, List<String> sent, CountDownLatch done) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sent.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            done.countDown();
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private static Events.NodeStreamDeltaEvent delta(String content, boolean isFinal) {
+        return new Events.NodeStreamDeltaEvent("evt-" + content, Instant.now(), "node-1", null, content, 1, isFinal);
+    }
+}
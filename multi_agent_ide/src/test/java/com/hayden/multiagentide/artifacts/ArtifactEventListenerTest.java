@@ -53,6 +53,9 @@ class ArtifactEventListenerTest {
     @Mock
     private ArtifactService artifactService;
 
+    @Mock
+    private StreamArtifactCoalescer streamArtifactCoalescer;
+
     @Captor
     private ArgumentCaptor<EventListener> listenerCaptor;
     
@@ -66,7 +69,8 @@ class ArtifactEventListenerTest {
     
     @BeforeEach
     void setUp() {
-        listener = new ArtifactEventListener(treeBuilder, eventArtifactMapper, artifactService);
+        listener = new ArtifactEventListener(treeBuilder, eventArtifactMapper, artifactService,
+                streamArtifactCoalescer, new ArtifactPersistenceProperties());
         eventBus.subscribe(listener);
 
         lenient().when(treeBuilder.getExecutionTree(anyString())).thenReturn(java.util.Optional.of(mock(ArtifactNode.class)));
@@ -642,6 +642,49 @@ class ArtifactServiceTest {
         assertThat(original.get().getArtifactKey()).isEqualTo(existingKey.value());
     }
 
+    @Test
+    @DisplayName("doPersist stores one original per hash and refs for repeats within the tree")
+    void doPersist_repeatedHashInTree_storesOriginalAndRefs() {
+        // Given
+        String executionKey = "exec-batch";
+        ArtifactKey rootKey = ArtifactKey.createRoot();
+        String sharedHash = "batch-shared-hash";
+
+        List<Artifact> children = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            children.add(Artifact.ToolCallArtifact.builder()
+                    .artifactKey(rootKey.createChild())
+                    .toolCallId("tool-" + i)
+                    .toolName("sharedTool")
+                    .inputHash(sharedHash)
+                    .metadata(new HashMap<>())
+                    .children(new ArrayList<>())
+                    .build());
+        }
+
+        Artifact.ExecutionArtifact rootArtifact = Artifact.ExecutionArtifact.builder()
+                .artifactKey(rootKey)
+                .workflowRunId("workflow-batch")
+                .status(Artifact.ExecutionStatus.RUNNING)
+                .metadata(new HashMap<>())
+                .children(children)
+                .hash("batch-root-hash")
+                .build();
+
+        // When
+        artifactService.doPersist(executionKey, ArtifactNode.createRoot(rootArtifact));
+
+        // Then
+        List<ArtifactEntity> persisted = artifactRepository.findByExecutionKeyOrderByArtifactKey(executionKey);
+        assertThat(persisted).hasSize(4);
+        assertThat(persisted)
+                .filteredOn(e -> sharedHash.equals(e.getContentHash()))
+                .hasSize(1);
+        assertThat(persisted)
+                .filteredOn(e -> e.getReferencedArtifactKey() != null)
+                .hasSize(2);
+    }
+
     // ========== Round-trip Tests ==========
 
     @Test
@@ -2,6 +2,7 @@ package com.hayden.multiagentide.artifacts;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
+import com.hayden.multiagentide.artifacts.repository.ArtifactBatchWriter;
 import com.hayden.multiagentide.artifacts.repository.ArtifactRepository;
 import com.hayden.multiagentide.config.SerdesConfiguration;
 import com.hayden.multiagentide.artifact.PromptTemplateVersion;
@@ -40,12 +41,15 @@ class ArtifactTreeBuilderTest {
     
     @Mock
     private ArtifactRepository artifactRepository;
+
+    @Mock
+    private ArtifactBatchWriter artifactBatchWriter;
     
     private ObjectMapper objectMapper;
     private ArtifactTreeBuilder treeBuilder;
     
     @Captor
-    private ArgumentCaptor<ArtifactEntity> entityListCaptor;
+    private ArgumentCaptor<List<ArtifactEntity>> entityBatchCaptor;
     
     private String executionKey;
     private ArtifactKey rootKey;
@@ -59,7 +63,7 @@ class ArtifactTreeBuilderTest {
         objectMapper = jacksonObjectMapperBuilder.build();
         objectMapper.findAndRegisterModules();
 
-        ArtifactService artifactService = new ArtifactService(artifactRepository);
+        ArtifactService artifactService = new ArtifactService(artifactRepository, artifactBatchWriter, new ArtifactPersistenceProperties());
         artifactService.configure();
         treeBuilder = new ArtifactTreeBuilder(artifactRepository, objectMapper, artifactService);
 
@@ -67,6 +71,13 @@ class ArtifactTreeBuilderTest {
         executionKey = rootKey.value();
         rootArtifact = createExecutionArtifact(rootKey);
     }
+
+    private List<ArtifactEntity> insertedEntities() {
+        verify(artifactBatchWriter, atLeastOnce()).insertAll(entityBatchCaptor.capture());
+        return entityBatchCaptor.getAllValues().stream()
+                .flatMap(List::stream)
+                .toList();
+    }
     
     @Nested
     @DisplayName("Adding Artifacts")
@@ -237,8 +248,7 @@ class ArtifactTreeBuilderTest {
             
             treeBuilder.persistExecution(executionKey);
             
-            verify(artifactRepository, times(2)).save(entityListCaptor.capture());
-            List<ArtifactEntity> saved = entityListCaptor.getAllValues();
+            List<ArtifactEntity> saved = insertedEntities();
             
             assertThat(saved).hasSize(2);
         }
@@ -295,7 +305,7 @@ class ArtifactTreeBuilderTest {
         void persistExecutionDoesNothingForUnknown() {
             treeBuilder.persistExecution("unknown-execution");
             
-            verify(artifactRepository, never()).saveAll(anyList());
+            verify(artifactBatchWriter, never()).insertAll(anyList());
         }
 
         @Test
@@ -310,8 +320,7 @@ class ArtifactTreeBuilderTest {
             
             treeBuilder.persistExecution(executionKey);
             
-            verify(artifactRepository, times(2)).save(entityListCaptor.capture());
-            List<ArtifactEntity> saved = entityListCaptor.getAllValues();
+            List<ArtifactEntity> saved = insertedEntities();
             
             ArtifactEntity childEntity = saved.stream()
                     .filter(e -> e.getArtifactKey().equals(childKey.value()))
@@ -326,6 +335,60 @@ class ArtifactTreeBuilderTest {
             assertThat(childEntity.getShared()).isFalse();
         }
     }
+
+    @Nested
+    @DisplayName("Write-behind")
+    class WriteBehind {
+
+        @Test
+        @DisplayName("writeBehind persists idle subtrees and replaces them with stubs")
+        void writeBehindPersistsIdleSubtreesAndReplacesWithStubs() {
+            treeBuilder.addArtifact(executionKey, rootArtifact);
+            ArtifactKey childKey = rootKey.createChild();
+            ArtifactKey grandchildKey = childKey.createChild();
+            treeBuilder.addArtifact(executionKey, createGroupArtifact(childKey, "Child"));
+            treeBuilder.addArtifact(executionKey, createGroupArtifact(grandchildKey, "Grandchild"));
+
+            int written = treeBuilder.writeBehind(executionKey, java.time.Duration.ZERO);
+
+            assertThat(written).isEqualTo(2);
+            assertThat(insertedEntities())
+                    .extracting(ArtifactEntity::getArtifactKey)
+                    .containsExactlyInAnyOrder(childKey.value(), grandchildKey.value());
+            assertThat(treeBuilder.getArtifact(executionKey, childKey.value()))
+                    .get()
+                    .isInstanceOf(Artifact.PersistedArtifactStub.class);
+        }
+
+        @Test
+        @DisplayName("persistExecution skips subtrees already written behind")
+        void persistExecutionSkipsWrittenBehindSubtrees() {
+            treeBuilder.addArtifact(executionKey, rootArtifact);
+            ArtifactKey childKey = rootKey.createChild();
+            treeBuilder.addArtifact(executionKey, createGroupArtifact(childKey, "Child"));
+            treeBuilder.writeBehind(executionKey, java.time.Duration.ZERO);
+
+            ArtifactKey lateKey = childKey.createChild();
+            treeBuilder.addArtifact(executionKey, createGroupArtifact(lateKey, "Late"));
+            treeBuilder.persistExecution(executionKey);
+
+            assertThat(insertedEntities())
+                    .extracting(ArtifactEntity::getArtifactKey)
+                    .containsExactlyInAnyOrder(childKey.value(), rootKey.value(), lateKey.value());
+        }
+
+        @Test
+        @DisplayName("writeBehind leaves subtrees inside the quiet period in memory")
+        void writeBehindLeavesBusySubtreesInMemory() {
+            treeBuilder.addArtifact(executionKey, rootArtifact);
+            treeBuilder.addArtifact(executionKey, createGroupArtifact(rootKey.createChild(), "Child"));
+
+            int written = treeBuilder.writeBehind(executionKey, java.time.Duration.ofHours(1));
+
+            assertThat(written).isZero();
+            verify(artifactBatchWriter, never()).insertAll(anyList());
+        }
+    }
     
     @Nested
     @DisplayName("Template Artifacts")
@@ -407,8 +470,7 @@ class ArtifactTreeBuilderTest {
             treeBuilder.addArtifact(executionKey, template);
             treeBuilder.persistExecution(executionKey);
             
-            verify(artifactRepository, times(2)).save(entityListCaptor.capture());
-            List<ArtifactEntity> saved = entityListCaptor.getAllValues();
+            List<ArtifactEntity> saved = insertedEntities();
             
             ArtifactEntity templateEntity = saved.stream()
                     .filter(e -> e.getArtifactKey().equals(templateKey.value()))
@@ -835,8 +897,7 @@ class ArtifactTreeBuilderTest {
             // Persist and capture entities
             treeBuilder.persistExecution(executionKey);
             
-            verify(artifactRepository, times(5)).save(entityListCaptor.capture());
-            List<ArtifactEntity> saved = entityListCaptor.getAllValues();
+            List<ArtifactEntity> saved = insertedEntities();
             
             // Verify entities have correct parent keys
             assertThat(saved).hasSize(5);
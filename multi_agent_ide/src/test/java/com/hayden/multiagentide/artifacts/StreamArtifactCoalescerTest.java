@@ -0,0 +1,111 @@
+package com.hayden.multiagentide.artifacts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.acp_cdc_ai.acp.events.MessageStreamArtifact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamArtifactCoalescerTest {
+
+    private ArtifactPersistenceProperties properties;
+    private StreamArtifactCoalescer coalescer;
+    private ArtifactKey rootKey;
+    private String nodeId;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        properties = new ArtifactPersistenceProperties();
+        coalescer = new StreamArtifactCoalescer(new EventArtifactMapper(objectMapper), properties);
+        rootKey = ArtifactKey.createRoot();
+        nodeId = rootKey.createChild().value();
+    }
+
+    @Test
+    @DisplayName("consecutive deltas merge into one segment closed by the final delta")
+    void consecutiveDeltasMergeUntilFinal() {
+        assertThat(coalescer.offer(delta("Hel", false))).isEmpty();
+        assertThat(coalescer.offer(delta("lo, ", false))).isEmpty();
+        List<MessageStreamArtifact> closed = coalescer.offer(delta("world", true));
+
+        assertThat(closed).hasSize(1);
+        MessageStreamArtifact segment = closed.getFirst();
+        assertThat(segment.streamType()).isEqualTo(MessageStreamArtifact.StreamType.NODE_STREAM_DELTA);
+        assertThat(segment.artifactKey().isChildOf(rootKey)).isTrue();
+        assertThat(segment.payloadJson().get(StreamArtifactCoalescer.CONTENT)).isEqualTo("Hello, world");
+        assertThat(StreamArtifactCoalescer.chunks(segment)).containsExactly("Hel", "lo, ", "world");
+        assertThat(coalescer.stats().deltasReceived()).isEqualTo(3);
+        assertThat(coalescer.stats().segmentsEmitted()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a different stream type for the node closes the open segment")
+    void streamTypeChangeClosesSegment() {
+        coalescer.offer(thought("thinking"));
+        List<MessageStreamArtifact> closed = coalescer.offer(delta("answer", false));
+
+        assertThat(closed).hasSize(1);
+        assertThat(closed.getFirst().streamType()).isEqualTo(MessageStreamArtifact.StreamType.NODE_THOUGHT_DELTA);
+        assertThat(StreamArtifactCoalescer.chunks(closed.getFirst())).containsExactly("thinking");
+    }
+
+    @Test
+    @DisplayName("segments close at the chunk limit")
+    void segmentClosesAtChunkLimit() {
+        properties.setStreamSegmentMaxChunks(3);
+        List<MessageStreamArtifact> closed = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            closed.addAll(coalescer.offer(delta("t" + i, false)));
+        }
+        closed.addAll(coalescer.drainExecution(rootKey.value()));
+
+        assertThat(closed).hasSize(3);
+        assertThat(closed).flatExtracting(StreamArtifactCoalescer::chunks)
+                .containsExactly("t0", "t1", "t2", "t3", "t4", "t5", "t6");
+    }
+
+    @Test
+    @DisplayName("idle segments are closed by drainIdle")
+    void idleSegmentsAreDrained() {
+        properties.setStreamSegmentIdleTimeout(Duration.ofSeconds(1));
+        coalescer.offer(delta("partial", false));
+
+        assertThat(coalescer.drainIdle(System.nanoTime())).isEmpty();
+        assertThat(coalescer.drainIdle(System.nanoTime() + Duration.ofSeconds(2).toNanos())).hasSize(1);
+        assertThat(coalescer.drainExecution(rootKey.value())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("non-delta stream events flush the node and pass through")
+    void addMessagePassesThrough() {
+        coalescer.offer(delta("buffered", false));
+        List<MessageStreamArtifact> closed = coalescer.offer(
+                new Events.AddMessageEvent(UUID.randomUUID().toString(), Instant.now(), nodeId, "hi"));
+
+        assertThat(closed).extracting(MessageStreamArtifact::streamType)
+                .containsExactly(MessageStreamArtifact.StreamType.NODE_STREAM_DELTA,
+                        MessageStreamArtifact.StreamType.ADD_MESSAGE);
+    }
+
+    private Events.NodeStreamDeltaEvent delta(String content, boolean isFinal) {
+        return new Events.NodeStreamDeltaEvent(UUID.randomUUID().toString(), Instant.now(), nodeId,
+                null, content, 1, isFinal);
+    }
+
+    private Events.NodeThoughtDeltaEvent thought(String content) {
+        return new Events.NodeThoughtDeltaEvent(UUID.randomUUID().toString(), Instant.now(), nodeId,
+                null, content, 1, false);
+    }
+}
@@ -0,0 +1,178 @@
+package com.hayden.multiagentide.artifacts.semantic;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
+import com.hayden.multiagentide.artifacts.repository.ArtifactRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SemanticEmbeddingIndexTest {
+
+    private static final String MODEL = "text-embedding-3-small";
+
+    @Mock
+    private SemanticRepresentationRepository repository;
+    @Mock
+    private ArtifactRepository artifactRepository;
+
+    private SemanticEmbeddingIndex index;
+
+    private final ArtifactKey execution = ArtifactKey.createRoot();
+    private final ArtifactKey otherExecution = ArtifactKey.createRoot();
+
+    @BeforeEach
+    void setUp() {
+        index = new SemanticEmbeddingIndex(repository, artifactRepository);
+        lenient().when(repository.findByPayloadType(SemanticRepresentationEntity.PayloadType.EMBEDDING))
+                .thenReturn(List.of());
+        lenient().when(artifactRepository.findByArtifactKey(anyString())).thenReturn(Optional.empty());
+        lenient().when(artifactRepository.findByArtifactKeyIn(anyCollection())).thenReturn(List.of());
+    }
+
+    @Test
+    void searchReturnsTopKByCosineSimilarity() {
+        ArtifactKey x = execution.createChild();
+        ArtifactKey diagonal = execution.createChild();
+        ArtifactKey y = execution.createChild();
+        index.add("emb-x", x, MODEL, new float[]{10f, 0f, 0f});
+        index.add("emb-diag", diagonal, MODEL, new float[]{1f, 1f, 0f});
+        index.add("emb-y", y, MODEL, new float[]{0f, 3f, 0f});
+
+        var matches = index.search(MODEL, new float[]{1f, 0.1f, 0f}, 2, SemanticEmbeddingIndex.Filter.NONE);
+
+        assertThat(matches).extracting(SemanticEmbeddingIndex.Match::semanticKey).containsExactly("emb-x", "emb-diag");
+        assertThat(matches.getFirst().targetArtifactKey()).isEqualTo(x);
+        assertThat(matches.getFirst().score()).isCloseTo(0.995f, within(0.001f));
+    }
+
+    @Test
+    void modelsAndDimensionsAreSearchedSeparately() {
+        index.add("emb-a", execution.createChild(), MODEL, new float[]{1f, 0f});
+        index.add("emb-b", execution.createChild(), "other-model", new float[]{1f, 0f});
+        index.add("emb-c", execution.createChild(), MODEL, new float[]{1f, 0f, 0f});
+
+        assertThat(index.search(MODEL, new float[]{1f, 0f}, 10, SemanticEmbeddingIndex.Filter.NONE))
+                .extracting(SemanticEmbeddingIndex.Match::semanticKey)
+                .containsExactly("emb-a");
+        assertThat(index.stats().partitions()).isEqualTo(3);
+    }
+
+    @Test
+    void filtersByExecutionSubtreeAndArtifactType() {
+        ArtifactKey child = execution.createChild();
+        ArtifactKey grandchild = child.createChild();
+        lenient().when(artifactRepository.findByArtifactKey(grandchild.value()))
+                .thenReturn(Optional.of(artifact(grandchild, "AgentResult")));
+        index.add("emb-child", child, MODEL, new float[]{1f, 0f});
+        index.add("emb-grandchild", grandchild, MODEL, new float[]{0.9f, 0.1f});
+        index.add("emb-other", otherExecution.createChild(), MODEL, new float[]{1f, 0f});
+
+        assertThat(index.search(MODEL, new float[]{1f, 0f}, 10, SemanticEmbeddingIndex.Filter.execution(execution.value())))
+                .extracting(SemanticEmbeddingIndex.Match::semanticKey)
+                .containsExactly("emb-child", "emb-grandchild");
+        assertThat(index.search(MODEL, new float[]{1f, 0f}, 10, SemanticEmbeddingIndex.Filter.execution(child.value())))
+                .extracting(SemanticEmbeddingIndex.Match::semanticKey)
+                .containsExactly("emb-child", "emb-grandchild");
+        assertThat(index.search(MODEL, new float[]{1f, 0f}, 10, SemanticEmbeddingIndex.Filter.artifactType("AgentResult")))
+                .extracting(SemanticEmbeddingIndex.Match::semanticKey)
+                .containsExactly("emb-grandchild");
+    }
+
+    @Test
+    void artifactTypesWrittenAfterTheEmbeddingAreResolvedOnTypedSearch() {
+        ArtifactKey target = execution.createChild();
+        index.add("emb-late", target, MODEL, new float[]{1f, 0f});
+        lenient().when(artifactRepository.findByArtifactKeyIn(anyCollection()))
+                .thenReturn(List.of(artifact(target, "Execution")));
+
+        assertThat(index.search(MODEL, new float[]{1f, 0f}, 1, SemanticEmbeddingIndex.Filter.artifactType("Execution")))
+                .extracting(SemanticEmbeddingIndex.Match::artifactType)
+                .containsExactly("Execution");
+    }
+
+    @Test
+    void loadsPersistedEmbeddingsOnceAndSkipsDuplicates() {
+        ArtifactKey target = execution.createChild();
+        lenient().when(repository.findByPayloadType(SemanticRepresentationEntity.PayloadType.EMBEDDING))
+                .thenReturn(List.of(entity("emb-1", target, new float[]{0f, 2f})));
+
+        index.add("emb-1", target, MODEL, new float[]{0f, 2f});
+        index.search(MODEL, new float[]{0f, 1f}, 5, SemanticEmbeddingIndex.Filter.NONE);
+        var matches = index.search(MODEL, new float[]{0f, 1f}, 5, SemanticEmbeddingIndex.Filter.NONE);
+
+        assertThat(matches).hasSize(1);
+        assertThat(matches.getFirst().score()).isCloseTo(1f, within(0.0001f));
+        verify(repository, times(1)).findByPayloadType(any());
+    }
+
+    @Test
+    void removeTargetDropsItsEmbeddingsAndKeepsOthersSearchable() {
+        ArtifactKey removed = execution.createChild();
+        ArtifactKey kept = execution.createChild();
+        index.add("emb-removed-1", removed, MODEL, new float[]{1f, 0f});
+        index.add("emb-kept", kept, MODEL, new float[]{0.5f, 0.5f});
+        index.add("emb-removed-2", removed, MODEL, new float[]{0.9f, 0.1f});
+
+        index.removeTarget(removed);
+
+        assertThat(index.search(MODEL, new float[]{1f, 0f}, 5, SemanticEmbeddingIndex.Filter.NONE))
+                .extracting(SemanticEmbeddingIndex.Match::semanticKey)
+                .containsExactly("emb-kept");
+        assertThat(index.stats().vectors()).isEqualTo(1);
+    }
+
+    @Test
+    void similarToExcludesTheArtifactItself() {
+        ArtifactKey source = execution.createChild();
+        ArtifactKey near = execution.createChild();
+        ArtifactKey far = execution.createChild();
+        float[] sourceVector = {1f, 0f, 0f, 0f, 0f};
+        index.add("emb-source", source, MODEL, sourceVector);
+        index.add("emb-near", near, MODEL, new float[]{0.9f, 0.1f, 0f, 0f, 0f});
+        index.add("emb-far", far, MODEL, new float[]{0f, 0f, 0f, 0f, 1f});
+        lenient().when(repository.findLatestByTargetAndType(source.value(), SemanticRepresentationEntity.PayloadType.EMBEDDING))
+                .thenReturn(Optional.of(entity("emb-source", source, sourceVector)));
+
+        assertThat(index.similarTo(source, 1, SemanticEmbeddingIndex.Filter.NONE))
+                .extracting(SemanticEmbeddingIndex.Match::targetArtifactKey)
+                .containsExactly(near);
+    }
+
+    private static ArtifactEntity artifact(ArtifactKey key, String type) {
+        return ArtifactEntity.builder()
+                .artifactKey(key.value())
+                .artifactType(type)
+                .build();
+    }
+
+    private static SemanticRepresentationEntity entity(String semanticKey, ArtifactKey target, float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * 4);
+        for (float f : embedding) {
+            buffer.putFloat(f);
+        }
+        return SemanticRepresentationEntity.builder()
+                .semanticKey(semanticKey)
+                .targetArtifactKey(target.value())
+                .modelRef(MODEL)
+                .payloadType(SemanticRepresentationEntity.PayloadType.EMBEDDING)
+                .payloadBinary(buffer.array())
+                .build();
+    }
+}
@@ -12,8 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import com.jayway.jsonpath.JsonPath;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.nio.file.Path;
 import java.time.Instant;
@@ -22,8 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -585,6 +590,90 @@ class LlmDebugUiControllerWorkflowGraphTest {
                 .andExpect(jsonPath("$.root.children[0].metrics.pendingItems").isEmpty());
     }
 
+    /**
+     * Polling with the previous ETag gets 304 until something changes; polling with
+     * sinceRevision and its epoch gets only the changed nodes, without their subtrees, and
+     * with any other epoch gets the full tree.
+     */
+    @Test
+    void workflowGraph_supports_not_modified_and_deltas_since_revision() throws Exception {
+        ArtifactKey rootKey = ArtifactKey.createRoot();
+        ArtifactKey agentKey = rootKey.createChild();
+        ArtifactKey otherKey = rootKey.createChild();
+
+        String rootId = rootKey.value();
+        String agentId = agentKey.value();
+        String otherId = otherKey.value();
+
+        graphRepository.save(OrchestratorNode.builder()
+                .nodeId(rootId)
+                .title("Orchestrator")
+                .goal("Test deltas")
+                .status(Events.NodeStatus.RUNNING)
+                .parentNodeId(null)
+                .childNodeIds(new ArrayList<>(List.of(agentId, otherId)))
+                .createdAt(NOW.minusSeconds(60))
+                .lastUpdatedAt(NOW.minusSeconds(10))
+                .worktreeContext(testWorktreeContext(rootId))
+                .build());
+        for (String id : List.of(agentId, otherId)) {
+            graphRepository.save(SummaryNode.builder()
+                    .nodeId(id)
+                    .title("Agent")
+                    .goal("Do work")
+                    .status(Events.NodeStatus.RUNNING)
+                    .parentNodeId(rootId)
+                    .childNodeIds(new ArrayList<>())
+                    .createdAt(NOW.minusSeconds(55))
+                    .lastUpdatedAt(NOW.minusSeconds(10))
+                    .build());
+        }
+
+        String body = "{\"nodeId\":\"" + rootId + "\",\"errorWindowSeconds\":180}";
+        MvcResult full = mockMvc.perform(post("/api/ui/workflow-graph")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.root.children.length()").value(2))
+                .andReturn();
+        String etag = full.getResponse().getHeader(HttpHeaders.ETAG);
+        long revision = ((Number) JsonPath.read(full.getResponse().getContentAsString(), "$.revision")).longValue();
+        String epoch = JsonPath.read(full.getResponse().getContentAsString(), "$.epoch");
+
+        mockMvc.perform(post("/api/ui/workflow-graph")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .content(body))
+                .andExpect(status().isNotModified());
+
+        eventStreamRepository.save(new Events.AddMessageEvent(uid(), NOW, agentId, "progress"));
+
+        mockMvc.perform(post("/api/ui/workflow-graph")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .content("{\"nodeId\":\"" + rootId + "\",\"errorWindowSeconds\":180,\"sinceRevision\":" + revision
+                                + ",\"epoch\":\"" + epoch + "\"}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.epoch").value(epoch))
+                .andExpect(jsonPath("$.sinceRevision").value(revision))
+                .andExpect(jsonPath("$.revision").value(revision + 1))
+                .andExpect(jsonPath("$.changedNodes[*].nodeId", containsInAnyOrder(rootId, agentId)))
+                .andExpect(jsonPath("$.changedNodes[0].children").isEmpty())
+                .andExpect(jsonPath("$.removedNodeIds").isEmpty())
+                .andExpect(jsonPath("$.stats.totalNodes").doesNotExist());
+
+        mockMvc.perform(post("/api/ui/workflow-graph")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nodeId\":\"" + rootId + "\",\"errorWindowSeconds\":180,\"sinceRevision\":" + revision
+                                + ",\"epoch\":\"stale\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.epoch").value(epoch))
+                .andExpect(jsonPath("$.changedNodes").doesNotExist())
+                .andExpect(jsonPath("$.root.children.length()").value(2));
+    }
+
     // --- Helpers ---
 
     private static String uid() {
@@ -0,0 +1,123 @@
+package com.hayden.multiagentide.filter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hayden.acp_cdc_ai.acp.filter.FilterEnums;
+import com.hayden.multiagentide.filter.repository.LayerEntity;
+import com.hayden.multiagentide.filter.repository.LayerRepository;
+import com.hayden.multiagentide.filter.repository.PolicyRegistrationEntity;
+import com.hayden.multiagentide.filter.repository.PolicyRegistrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CompiledPolicyIndexTest {
+
+    @Mock
+    private PolicyRegistrationRepository policyRegistrationRepository;
+    @Mock
+    private LayerRepository layerRepository;
+
+    private CompiledPolicyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CompiledPolicyIndex(policyRegistrationRepository, layerRepository, new ObjectMapper());
+
+        lenient().when(layerRepository.findAll()).thenReturn(List.of(
+                layer("controller", null, true),
+                layer("workflow-agent", "controller", true),
+                layer("workflow-agent/coordinateWorkflow", "workflow-agent", true),
+                layer("isolated", "controller", false),
+                layer("isolated/child", "isolated", true)));
+    }
+
+    @Test
+    void effectivePoliciesIncludeInheritableAncestorsOrderedByPriority() {
+        lenient().when(policyRegistrationRepository.findByStatus(FilterEnums.PolicyStatus.ACTIVE.name()))
+                .thenReturn(List.of(
+                        policy("policy-b", 5, "workflow-agent", "REGEX", "GOAL_.*"),
+                        policy("policy-a", 1, "controller", "EQUALS", "GOAL_STARTED")));
+
+        var effective = index.effectivePolicies("workflow-agent/coordinateWorkflow");
+
+        assertThat(effective).extracting(CompiledPolicyIndex.CompiledPolicy::registrationId)
+                .containsExactly("policy-a", "policy-b");
+        assertThat(effective.getLast().bindings().getFirst().matchesRegex("GOAL_STARTED")).isTrue();
+        assertThat(effective.getFirst().kind()).isEqualTo(FilterEnums.FilterKind.REGEX_PATH);
+    }
+
+    @Test
+    void nonInheritableAncestorStopsTheWalk() {
+        lenient().when(policyRegistrationRepository.findByStatus(FilterEnums.PolicyStatus.ACTIVE.name()))
+                .thenReturn(List.of(policy("policy-a", 1, "controller", "EQUALS", "x")));
+
+        assertThat(index.effectivePolicies("isolated/child")).isEmpty();
+        assertThat(index.effectivePolicies("unknown-layer")).isEmpty();
+        assertThat(index.directlyBoundPolicies("controller")).hasSize(1);
+    }
+
+    @Test
+    void lookupsAreServedFromSnapshotUntilInvalidated() {
+        lenient().when(policyRegistrationRepository.findByStatus(FilterEnums.PolicyStatus.ACTIVE.name()))
+                .thenReturn(List.of(policy("policy-a", 1, "controller", "EQUALS", "x")));
+
+        index.effectivePolicies("controller");
+        index.effectivePolicies("workflow-agent");
+        index.directlyBoundPolicies("controller");
+
+        verify(policyRegistrationRepository, times(1)).findByStatus(FilterEnums.PolicyStatus.ACTIVE.name());
+        assertThat(index.stats().hits()).isEqualTo(2);
+        assertThat(index.stats().misses()).isEqualTo(1);
+
+        index.invalidate();
+        index.effectivePolicies("controller");
+
+        verify(policyRegistrationRepository, times(2)).findByStatus(FilterEnums.PolicyStatus.ACTIVE.name());
+        assertThat(index.stats().rebuilds()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidRegexIsCompiledToNoMatch() {
+        lenient().when(policyRegistrationRepository.findByStatus(FilterEnums.PolicyStatus.ACTIVE.name()))
+                .thenReturn(List.of(policy("policy-a", 1, "controller", "REGEX", "([")));
+
+        var binding = index.effectivePolicies("controller").getFirst().bindings().getFirst();
+
+        assertThat(binding.pattern()).isNull();
+        assertThat(binding.matchesRegex("anything")).isFalse();
+    }
+
+    private static LayerEntity layer(String layerId, String parentId, boolean inheritable) {
+        return LayerEntity.builder()
+                .layerId(layerId)
+                .layerType("WORKFLOW_AGENT")
+                .layerKey(layerId)
+                .parentLayerId(parentId)
+                .isInheritable(inheritable)
+                .build();
+    }
+
+    private static PolicyRegistrationEntity policy(String id, int priority, String layerId,
+                                                   String matcherType, String matcherText) {
+        return PolicyRegistrationEntity.builder()
+                .registrationId(id)
+                .registeredBy("test")
+                .status(FilterEnums.PolicyStatus.ACTIVE.name())
+                .filterKind(FilterEnums.FilterKind.REGEX_PATH.name())
+                .filterJson("{\"priority\":%d}".formatted(priority))
+                .layerBindingsJson("""
+                        [{"layerId":"%s","enabled":true,"matcherKey":"NAME","matcherType":"%s","matcherText":"%s","matchOn":"GRAPH_EVENT"}]
+                        """.formatted(layerId, matcherType, matcherText.replace("\\", "\\\\")))
+                .build();
+    }
+}
@@ -0,0 +1,373 @@
+package com.hayden.multiagentide.infrastructure;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.EventListener;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for DefaultEventBus.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Without async delivery every listener is called on the publishing thread, in order</li>
+ *   <li>ASYNC listeners receive every event, in publish order, off the publishing thread</li>
+ *   <li>An ASYNC listener failing on one event still receives the rest of its batch</li>
+ *   <li>DROP_OLDEST_DELTAS and COALESCE only ever discard or merge stream deltas</li>
+ *   <li>COALESCE blocks the publisher when the incoming delta cannot be merged</li>
+ *   <li>An ASYNC listener publishing to itself while its queue is full does not deadlock</li>
+ *   <li>Node-scoped listeners only see events in their subtree, merged into global listeners by order</li>
+ * </ul>
+ */
+class DefaultEventBusTest {
+
+    private EventBusProperties properties;
+    private DefaultEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EventBusProperties();
+        bus = new DefaultEventBus(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+    }
+
+    @Test
+    void syncListenersRunInOrderOnPublishingThread() {
+        var first = new RecordingListener("first", 1, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.BLOCK);
+        var second = new RecordingListener("second", 2, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK);
+        bus.setSubscribers(List.of(second, first));
+
+        bus.publish(delta("n1", "a", false));
+
+        assertThat(bus.getSubscribers()).containsExactly(first, second);
+        assertThat(first.threads).containsExactly(Thread.currentThread());
+        assertThat(second.threads).containsExactly(Thread.currentThread());
+        assertThat(bus.asyncListenerStats()).isEmpty();
+    }
+
+    @Test
+    void subscribeIgnoresDuplicateListenerIds() {
+        var listener = new RecordingListener("dup", 0, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK);
+        bus.setSubscribers(List.of());
+
+        bus.subscribe(listener);
+        bus.subscribe(new RecordingListener("dup", 0, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK));
+        bus.publish(delta("n1", "a", false));
+        bus.unsubscribe(listener);
+        bus.publish(delta("n1", "b", false));
+
+        assertThat(listener.received).hasSize(1);
+        assertThat(bus.hasSubscribers()).isFalse();
+    }
+
+    @Test
+    void nodeScopedListenersOnlyReceiveTheirSubtreeInOrder() {
+        ArtifactKey root = ArtifactKey.createRoot();
+        ArtifactKey child = root.createChild();
+        ArtifactKey sibling = root.createChild();
+        var global = new RecordingListener("global", 1, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK);
+        var early = new RecordingListener("early", 0, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK);
+        var late = new RecordingListener("late", 2, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK);
+        List<String> calls = new CopyOnWriteArrayList<>();
+        bus.setSubscribers(List.of(global));
+        bus.subscribe(root.value(), late);
+        bus.subscribe(child.value(), early);
+        for (RecordingListener listener : List.of(global, early, late)) {
+            listener.onDelivery = () -> calls.add(listener.listenerId());
+        }
+
+        bus.publish(delta(child.createChild().value(), "a", false));
+        bus.publish(delta(sibling.value(), "b", false));
+        bus.publish(delta(ArtifactKey.createRoot().value(), "c", false));
+
+        assertThat(calls).containsExactly("early", "global", "late", "global", "late", "global");
+        assertThat(bus.getSubscribers()).containsExactly(global, late, early);
+
+        bus.unsubscribe(late);
+        bus.unsubscribe(early);
+        bus.publish(delta(child.value(), "d", false));
+
+        assertThat(late.received).hasSize(2);
+        assertThat(early.received).hasSize(1);
+        assertThat(bus.getSubscribers()).containsExactly(global);
+    }
+
+    @Test
+    void nodeScopedSubscribeIgnoresDuplicateListenerIds() {
+        ArtifactKey root = ArtifactKey.createRoot();
+        var listener = new RecordingListener("dup", 0, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK);
+        bus.setSubscribers(List.of());
+
+        bus.subscribe(root.value(), listener);
+        bus.subscribe(root.value(), new RecordingListener("dup", 0, EventListener.DeliveryMode.SYNC, EventListener.BackpressurePolicy.BLOCK));
+        bus.publish(delta(root.value(), "a", false));
+
+        assertThat(listener.received).hasSize(1);
+        assertThat(bus.hasSubscribers()).isTrue();
+        bus.unsubscribe(listener);
+        assertThat(bus.hasSubscribers()).isFalse();
+    }
+
+    @Nested
+    class Async {
+
+        @BeforeEach
+        void enableAsync() {
+            properties.setAsyncDeliveryEnabled(true);
+            properties.setQueueCapacity(4);
+            properties.setMaxBatchSize(3);
+        }
+
+        @Test
+        void deliversAllEventsInOrderOffThePublishingThread() throws InterruptedException {
+            var listener = new RecordingListener("async", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.BLOCK);
+            bus.setSubscribers(List.of(listener));
+
+            for (int i = 0; i < 20; i++) {
+                bus.publish(delta("n1", String.valueOf(i), false));
+            }
+
+            assertThat(bus.awaitAsyncDelivery(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(listener.received).extracting(e -> ((Events.NodeStreamDeltaEvent) e).deltaContent())
+                    .containsExactlyElementsOf(java.util.stream.IntStream.range(0, 20).mapToObj(String::valueOf).toList());
+            assertThat(listener.threads).doesNotContain(Thread.currentThread());
+            assertThat(listener.maxBatch).isLessThanOrEqualTo(3);
+
+            var stats = bus.asyncListenerStats().getFirst();
+            assertThat(stats.delivered()).isEqualTo(20);
+            assertThat(stats.queueDepth()).isZero();
+            assertThat(stats.dropped()).isZero();
+        }
+
+        @Test
+        void coalesceMergesDeltasForTheSameNodeWhenFull() throws InterruptedException {
+            var listener = new RecordingListener("coalesce", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.COALESCE);
+            bus.setSubscribers(List.of(listener));
+            listener.block();
+
+            bus.publish(delta("n0", "x", false));
+            listener.awaitFirstDelivery();
+            for (String chunk : List.of("a", "b", "c", "d", "e", "f")) {
+                bus.publish(delta("n1", chunk, false));
+            }
+            listener.release();
+
+            assertThat(bus.awaitAsyncDelivery(5, TimeUnit.SECONDS)).isTrue();
+            String transcript = listener.received.stream()
+                    .filter(e -> e.nodeId().equals("n1"))
+                    .map(e -> ((Events.NodeStreamDeltaEvent) e).deltaContent())
+                    .reduce("", String::concat);
+            assertThat(transcript).isEqualTo("abcdef");
+            assertThat(bus.asyncListenerStats().getFirst().coalesced()).isEqualTo(2);
+        }
+
+        @Test
+        void coalesceBlocksInsteadOfDroppingWhenTheTailCannotBeMerged() throws InterruptedException {
+            var listener = new RecordingListener("coalesce", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.COALESCE);
+            bus.setSubscribers(List.of(listener));
+            listener.block();
+
+            bus.publish(delta("n0", "x", false));
+            listener.awaitFirstDelivery();
+            List<String> chunks = List.of("a", "b", "c", "d", "e", "f");
+            Thread publisher = Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < chunks.size(); i++) {
+                    bus.publish(delta(i % 2 == 0 ? "n1" : "n2", chunks.get(i), false));
+                }
+            });
+
+            publisher.join(Duration.ofMillis(200));
+            assertThat(publisher.isAlive()).isTrue();
+            listener.release();
+            publisher.join(Duration.ofSeconds(5));
+
+            assertThat(bus.awaitAsyncDelivery(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(listener.received).filteredOn(e -> !e.nodeId().equals("n0"))
+                    .extracting(e -> ((Events.NodeStreamDeltaEvent) e).deltaContent())
+                    .containsExactlyElementsOf(chunks);
+            assertThat(bus.asyncListenerStats().getFirst().dropped()).isZero();
+            assertThat(bus.asyncListenerStats().getFirst().coalesced()).isZero();
+        }
+
+        @Test
+        void blockingListenerRepublishingToItselfPastCapacityDoesNotDeadlock() throws InterruptedException {
+            var listener = new RecordingListener("republish", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.BLOCK);
+            bus.setSubscribers(List.of(listener));
+            List<String> chunks = List.of("a", "b", "c", "d", "e", "f");
+            AtomicBoolean republished = new AtomicBoolean();
+            listener.onDelivery = () -> {
+                if (republished.compareAndSet(false, true)) {
+                    chunks.forEach(chunk -> bus.publish(delta("n1", chunk, false)));
+                }
+            };
+
+            bus.publish(delta("n0", "x", false));
+
+            assertThat(bus.awaitAsyncDelivery(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(listener.received).filteredOn(e -> e.nodeId().equals("n1"))
+                    .extracting(e -> ((Events.NodeStreamDeltaEvent) e).deltaContent())
+                    .containsExactlyElementsOf(chunks);
+        }
+
+        @Test
+        void dropOldestDeltasNeverDropsOtherEvents() throws InterruptedException {
+            var listener = new RecordingListener("drop", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.DROP_OLDEST_DELTAS);
+            bus.setSubscribers(List.of(listener));
+            listener.block();
+
+            bus.publish(delta("n0", "x", false));
+            listener.awaitFirstDelivery();
+            bus.publish(error("n1"));
+            for (String chunk : List.of("a", "b", "c", "d", "e")) {
+                bus.publish(delta("n1", chunk, false));
+            }
+            listener.release();
+
+            assertThat(bus.awaitAsyncDelivery(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(listener.received).filteredOn(Events.NodeErrorEvent.class::isInstance).hasSize(1);
+            assertThat(listener.received).filteredOn(e -> e.nodeId().equals("n1"))
+                    .filteredOn(Events.NodeStreamDeltaEvent.class::isInstance)
+                    .extracting(e -> ((Events.NodeStreamDeltaEvent) e).deltaContent())
+                    .containsExactly("c", "d", "e");
+            assertThat(bus.asyncListenerStats().getFirst().dropped()).isEqualTo(2);
+        }
+
+        @Test
+        void aThrowingEventDoesNotDropTheRestOfItsBatch() throws InterruptedException {
+            var listener = new RecordingListener("failing", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.BLOCK);
+            listener.failOn = e -> e.eventId().equals("e-a");
+            bus.setSubscribers(List.of(listener));
+            listener.block();
+
+            bus.publish(delta("n0", "x", false));
+            listener.awaitFirstDelivery();
+            for (String chunk : List.of("a", "b", "c")) {
+                bus.publish(delta("n1", chunk, false));
+            }
+            listener.release();
+
+            assertThat(bus.awaitAsyncDelivery(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(listener.maxBatch).isEqualTo(3);
+            assertThat(listener.received).extracting(e -> ((Events.NodeStreamDeltaEvent) e).deltaContent())
+                    .containsExactly("x", "b", "c");
+            assertThat(bus.asyncListenerStats().getFirst().delivered()).isEqualTo(4);
+        }
+
+        @Test
+        void configOverridesListenerBackpressurePolicy() {
+            properties.getBackpressure().put("override", EventListener.BackpressurePolicy.COALESCE);
+            bus.setSubscribers(List.of(new RecordingListener("override", 0, EventListener.DeliveryMode.ASYNC, EventListener.BackpressurePolicy.BLOCK)));
+
+            assertThat(bus.asyncListenerStats().getFirst().policy()).isEqualTo(EventListener.BackpressurePolicy.COALESCE);
+        }
+    }
+
+    private static Events.NodeStreamDeltaEvent delta(String nodeId, String content, boolean isFinal) {
+        return new Events.NodeStreamDeltaEvent("e-" + content, Instant.now(), nodeId, null, content, 1, isFinal);
+    }
+
+    private static Events.NodeErrorEvent error(String nodeId) {
+        return Events.NodeErrorEvent.builder()
+                .eventId("err")
+                .timestamp(Instant.now())
+                .nodeId(nodeId)
+                .build();
+    }
+
+    private static final class RecordingListener implements EventListener {
+
+        private final String id;
+        private final int order;
+        private final DeliveryMode mode;
+        private final BackpressurePolicy policy;
+
+        final List<Events.GraphEvent> received = new CopyOnWriteArrayList<>();
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        volatile int maxBatch;
+        volatile Runnable onDelivery = () -> {
+        };
+        volatile Predicate<Events.GraphEvent> failOn = e -> false;
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private final CountDownLatch firstDelivery = new CountDownLatch(1);
+
+        RecordingListener(String id, int order, DeliveryMode mode, BackpressurePolicy policy) {
+            this.id = id;
+            this.order = order;
+            this.mode = mode;
+            this.policy = policy;
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void awaitFirstDelivery() throws InterruptedException {
+            assertThat(firstDelivery.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        @Override
+        public String listenerId() {
+            return id;
+        }
+
+        @Override
+        public void onEvent(Events.GraphEvent event) {
+            if (failOn.test(event)) {
+                throw new IllegalStateException("failing " + event.eventId());
+            }
+            onDelivery.run();
+            received.add(event);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public void onEvents(List<Events.GraphEvent> events) {
+            maxBatch = Math.max(maxBatch, events.size());
+            firstDelivery.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            EventListener.super.onEvents(events);
+        }
+
+        @Override
+        public int order() {
+            return order;
+        }
+
+        @Override
+        public DeliveryMode deliveryMode() {
+            return mode;
+        }
+
+        @Override
+        public BackpressurePolicy backpressurePolicy() {
+            return policy;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.hayden.multiagentide.infrastructure;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeSubscriptionTrieTest {
+
+    private final NodeSubscriptionTrie<String> trie = new NodeSubscriptionTrie<>();
+
+    @Test
+    void matchesAncestorOrSelfChainRootFirst() {
+        ArtifactKey root = ArtifactKey.createRoot();
+        ArtifactKey child = root.createChild();
+        ArtifactKey grandchild = child.createChild();
+        trie.add(root.value(), "root");
+        trie.add(child.value(), "child");
+        trie.add(grandchild.value(), "grandchild");
+        trie.add(root.createChild().value(), "sibling");
+
+        assertThat(trie.match(grandchild.createChild().value())).containsExactly("root", "child", "grandchild");
+        assertThat(trie.match(child.value())).containsExactly("root", "child");
+        assertThat(trie.match(root.value())).containsExactly("root");
+        assertThat(trie.match(ArtifactKey.createRoot().value())).isEmpty();
+        assertThat(trie.match(null)).isEmpty();
+    }
+
+    @Test
+    void doesNotMatchOnPartialSegments() {
+        ArtifactKey root = ArtifactKey.createRoot();
+        trie.add(root.value(), "root");
+
+        assertThat(trie.match(root.value() + "X")).isEmpty();
+        assertThat(trie.match(root.value().substring(0, root.value().length() - 1))).isEmpty();
+    }
+
+    @Test
+    void removeDropsOnlyThatRegistrationAndPrunesEmptyNodes() {
+        ArtifactKey root = ArtifactKey.createRoot();
+        ArtifactKey child = root.createChild();
+        trie.add(root.value(), "a");
+        trie.add(child.value(), "b");
+        trie.add(child.value(), "c");
+
+        assertThat(trie.remove(child.value(), "b")).isTrue();
+        assertThat(trie.remove(child.value(), "b")).isFalse();
+        assertThat(trie.remove(root.createChild().value(), "a")).isFalse();
+        assertThat(trie.match(child.value())).containsExactly("a", "c");
+
+        trie.remove(child.value(), "c");
+        trie.remove(root.value(), "a");
+
+        assertThat(trie.size()).isZero();
+        assertThat(trie.match(child.value())).isEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+package com.hayden.multiagentide.integration.artifacts;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.multiagentide.artifacts.entity.ArtifactEntity;
+import com.hayden.multiagentide.artifacts.repository.ArtifactBatchWriter;
+import com.hayden.multiagentide.artifacts.repository.ArtifactRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Persistence-layer integration tests for {@link ArtifactBatchWriter}.
+ * Uses real PostgreSQL via docker-compose (testdocker profile).
+ * <p>
+ * Covers:
+ * - Rows written by the JDBC batch read back through {@link ArtifactRepository} with every column
+ * - Child id collections keep their order
+ * - Generated ids are distinct and usable as repository ids
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "testdocker"})
+class ArtifactPersistenceIT {
+
+    @Autowired
+    private ArtifactBatchWriter artifactBatchWriter;
+    @Autowired
+    private ArtifactRepository artifactRepository;
+
+    @BeforeEach
+    void setUp() {
+        artifactRepository.deleteAll();
+    }
+
+    @Test
+    @Transactional
+    void batchInsertedArtifactsReadBackThroughTheRepository() {
+        ArtifactKey root = ArtifactKey.createRoot();
+        ArtifactKey first = root.createChild();
+        ArtifactKey second = root.createChild();
+        ArtifactEntity rootEntity = artifact(root, null, root, 1)
+                .childIds(List.of(second.value(), first.value()))
+                .templateStaticId("tpl/root")
+                .shared(true)
+                .build();
+        ArtifactEntity firstEntity = artifact(first, root, root, 2)
+                .referencedArtifactKey(second.value())
+                .build();
+        ArtifactEntity secondEntity = artifact(second, root, root, 2).build();
+
+        assertThat(artifactBatchWriter.insertAll(List.of(rootEntity, firstEntity, secondEntity))).isEqualTo(3);
+
+        List<ArtifactEntity> stored = artifactRepository.findByExecutionKeyOrderByArtifactKey(root.value());
+        assertThat(stored).extracting(ArtifactEntity::getArtifactKey)
+                .containsExactlyInAnyOrder(root.value(), first.value(), second.value());
+        assertThat(stored).extracting(ArtifactEntity::getId).doesNotContainNull().doesNotHaveDuplicates();
+
+        ArtifactEntity storedRoot = artifactRepository.findByArtifactKey(root.value()).orElseThrow();
+        assertThat(storedRoot.getParentKey()).isNull();
+        assertThat(storedRoot.getDepth()).isEqualTo(1);
+        assertThat(storedRoot.getShared()).isTrue();
+        assertThat(storedRoot.getTemplateStaticId()).isEqualTo("tpl/root");
+        assertThat(storedRoot.getContentHash()).isEqualTo(rootEntity.getContentHash());
+        assertThat(storedRoot.getContentJson()).isEqualTo(rootEntity.getContentJson());
+        assertThat(storedRoot.getSchemaVersion()).isEqualTo(rootEntity.getSchemaVersion());
+        assertThat(storedRoot.getChildIds()).containsExactly(second.value(), first.value());
+
+        ArtifactEntity storedFirst = artifactRepository.findById(
+                artifactRepository.findByArtifactKey(first.value()).orElseThrow().getId()).orElseThrow();
+        assertThat(storedFirst.getParentKey()).isEqualTo(root.value());
+        assertThat(storedFirst.getReferencedArtifactKey()).isEqualTo(second.value());
+        assertThat(storedFirst.getArtifactType()).isEqualTo("TEST");
+        assertThat(storedFirst.getShared()).isFalse();
+        assertThat(storedFirst.getChildIds()).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void emptyBatchInsertsNothing() {
+        assertThat(artifactBatchWriter.insertAll(List.of())).isZero();
+        assertThat(artifactRepository.count()).isZero();
+    }
+
+    private static ArtifactEntity.ArtifactEntityBuilder artifact(ArtifactKey key, ArtifactKey parent,
+                                                                 ArtifactKey execution, int depth) {
+        return ArtifactEntity.builder()
+                .artifactKey(key.value())
+                .parentKey(parent == null ? null : parent.value())
+                .executionKey(execution.value())
+                .artifactType("TEST")
+                .contentHash(UUID.randomUUID().toString().replace("-", ""))
+                .contentJson("{\"key\":\"" + key.value() + "\"}")
+                .depth(depth);
+    }
+}
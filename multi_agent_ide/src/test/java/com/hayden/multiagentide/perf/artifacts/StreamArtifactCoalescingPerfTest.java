@@ -0,0 +1,71 @@
+package com.hayden.multiagentide.perf.artifacts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.acp_cdc_ai.acp.events.MessageStreamArtifact;
+import com.hayden.multiagentide.artifacts.ArtifactPersistenceProperties;
+import com.hayden.multiagentide.artifacts.EventArtifactMapper;
+import com.hayden.multiagentide.artifacts.StreamArtifactCoalescer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Artifact rows and content hashes produced for a streamed response, one artifact per delta
+ * versus {@link StreamArtifactCoalescer} segments. Only runs with {@code -Pprofile=perf}.
+ */
+@Slf4j
+class StreamArtifactCoalescingPerfTest {
+
+    private static final int NODES = 20;
+    private static final int DELTAS_PER_NODE = 2_000;
+
+    @Test
+    void coalescingCutsRowsAndHashes() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        EventArtifactMapper mapper = new EventArtifactMapper(objectMapper);
+        StreamArtifactCoalescer coalescer = new StreamArtifactCoalescer(mapper, new ArtifactPersistenceProperties());
+
+        ArtifactKey root = ArtifactKey.createRoot();
+        List<Events.GraphEvent> deltas = new ArrayList<>(NODES * DELTAS_PER_NODE);
+        for (int n = 0; n < NODES; n++) {
+            String nodeId = root.createChild().value();
+            for (int i = 0; i < DELTAS_PER_NODE; i++) {
+                deltas.add(new Events.NodeStreamDeltaEvent(UUID.randomUUID().toString(), Instant.now(), nodeId,
+                        null, "tok" + i + " ", 1, i == DELTAS_PER_NODE - 1));
+            }
+        }
+
+        long start = System.nanoTime();
+        List<MessageStreamArtifact> perDelta = new ArrayList<>(deltas.size());
+        for (Events.GraphEvent delta : deltas) {
+            perDelta.add(mapper.mapToStreamArtifact(delta));
+        }
+        long perDeltaMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        List<MessageStreamArtifact> segments = new ArrayList<>();
+        for (Events.GraphEvent delta : deltas) {
+            segments.addAll(coalescer.offer(delta));
+        }
+        segments.addAll(coalescer.drainExecution(root.value()));
+        long coalescedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        StreamArtifactCoalescer.CoalescingStats stats = coalescer.stats();
+        log.info("Stream artifacts: per-delta rows/hashes={} ({} ms), coalesced rows/hashes={} ({} ms), reduction={}%",
+                perDelta.size(), perDeltaMillis, segments.size(), coalescedMillis,
+                Math.round(stats.reduction() * 100));
+
+        assertThat(segments.stream().mapToInt(s -> StreamArtifactCoalescer.chunks(s).size()).sum())
+                .isEqualTo(deltas.size());
+        assertThat(segments.size() * 10).isLessThan(perDelta.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.hayden.multiagentide.perf.events;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.EventListener;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.infrastructure.DefaultEventBus;
+import com.hayden.multiagentide.infrastructure.EventBusProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publish cost of {@link DefaultEventBus} with 10, 100 and 1000 live node-scoped listeners, one
+ * per subagent of a single run, as {@code BlackboardHistory} subscribes them.
+ *
+ * <p>Each event targets a random subagent's child node, so it should reach exactly one listener.
+ * With node routing the per-publish cost should stay roughly flat instead of growing with the
+ * listener count, as it did when every listener was global. Only runs with {@code -Pprofile=perf}.
+ */
+@Slf4j
+class DefaultEventBusRoutingPerfTest {
+
+    private static final int EVENTS = 200_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    @Test
+    void publishCostStaysFlatAsListenersGrow() {
+        long small = nanosPerPublish(10, true);
+        long medium = nanosPerPublish(100, true);
+        long large = nanosPerPublish(1_000, true);
+        long largeGlobal = nanosPerPublish(1_000, false);
+
+        log.info("Event bus publish ns/op: routed 10={} 100={} 1000={}, global 1000={}",
+                small, medium, large, largeGlobal);
+
+        // Global delivery is ~100x more work at 1000 listeners; allow generous noise.
+        assertThat(large).isLessThan(Math.max(small, 1L) * 10);
+        assertThat(large).isLessThan(largeGlobal);
+    }
+
+    private long nanosPerPublish(int listeners, boolean routed) {
+        DefaultEventBus bus = new DefaultEventBus(new EventBusProperties());
+        bus.setSubscribers(List.of());
+        LongAdder delivered = new LongAdder();
+        ArtifactKey run = ArtifactKey.createRoot();
+        List<String> eventNodes = new ArrayList<>();
+        for (int i = 0; i < listeners; i++) {
+            ArtifactKey subagent = run.createChild();
+            eventNodes.add(subagent.createChild().value());
+            ScopedListener listener = new ScopedListener("listener-" + i, subagent.value(), delivered);
+            if (routed) {
+                bus.subscribe(subagent.value(), listener);
+            } else {
+                bus.subscribe(listener);
+            }
+        }
+        List<Events.GraphEvent> events = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 1_024; i++) {
+            String nodeId = eventNodes.get(random.nextInt(eventNodes.size()));
+            events.add(new Events.NodeStreamDeltaEvent("e-" + i, Instant.now(), nodeId, null, "x", 1, false));
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + 1; round++) {
+            delivered.reset();
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENTS; i++) {
+                bus.publish(events.get(i & (events.size() - 1)));
+            }
+            long elapsed = System.nanoTime() - start;
+            assertThat(delivered.sum()).isEqualTo(EVENTS);
+            best = Math.min(best, elapsed / EVENTS);
+        }
+        bus.shutdown();
+        return best;
+    }
+
+    /**
+     * Filters like {@code BlackboardHistory}: only counts events in its own subtree.
+     */
+    private record ScopedListener(String listenerId, String nodeId, LongAdder delivered) implements EventListener {
+
+        @Override
+        public void onEvent(Events.GraphEvent event) {
+            String eventNodeId = event.nodeId();
+            if (eventNodeId.equals(nodeId) || eventNodeId.startsWith(nodeId + "/")) {
+                delivered.increment();
+            }
+        }
+    }
+}
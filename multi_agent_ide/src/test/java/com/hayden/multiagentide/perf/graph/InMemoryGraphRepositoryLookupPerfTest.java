@@ -0,0 +1,115 @@
+package com.hayden.multiagentide.perf.graph;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.model.nodes.InterruptContext;
+import com.hayden.multiagentide.model.nodes.InterruptNode;
+import com.hayden.multiagentide.model.nodes.SummaryNode;
+import com.hayden.multiagentide.repository.InMemoryGraphRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookup cost of {@link InMemoryGraphRepository} as the graph grows across many runs.
+ *
+ * <p>Each run is a root with {@value #CHILDREN_PER_RUN} children, one of which has an
+ * interrupt. The same number of random parent/type/origin lookups is timed at each graph
+ * size; with the secondary indexes the per-lookup cost should stay roughly flat rather than
+ * growing with the total node count. Only runs with {@code -Pprofile=perf}.
+ */
+@Slf4j
+class InMemoryGraphRepositoryLookupPerfTest {
+
+    private static final int CHILDREN_PER_RUN = 20;
+    private static final int LOOKUPS = 20_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    @Test
+    void lookupCostStaysFlatAsGraphGrows() {
+        long small = nanosPerLookup(1_000);
+        long medium = nanosPerLookup(10_000);
+        long large = nanosPerLookup(50_000);
+
+        log.info("Graph lookup ns/op: 1k={} 10k={} 50k={}", small, medium, large);
+
+        // A full scan would be ~50x slower at 50k than at 1k; allow generous noise.
+        assertThat(large).isLessThan(Math.max(small, 1L) * 10);
+    }
+
+    private long nanosPerLookup(int targetNodes) {
+        InMemoryGraphRepository repository = new InMemoryGraphRepository();
+        List<String> runIds = new ArrayList<>();
+        List<String> childIds = new ArrayList<>();
+        Instant now = Instant.now();
+
+        while (repository.count() < targetNodes) {
+            ArtifactKey root = ArtifactKey.createRoot();
+            runIds.add(root.value());
+            repository.save(summary(root.value(), null, now));
+            for (int i = 0; i < CHILDREN_PER_RUN; i++) {
+                String childId = root.createChild().value();
+                childIds.add(childId);
+                repository.save(summary(childId, root.value(), now));
+            }
+            String interruptId = root.createChild().value();
+            repository.save(interrupt(interruptId, root.value(), childIds.getLast(), now));
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + 1; round++) {
+            long sink = 0;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                String runId = runIds.get(random.nextInt(runIds.size()));
+                String childId = childIds.get(random.nextInt(childIds.size()));
+                sink += repository.findByParentId(runId).size();
+                sink += repository.findInterruptByOrigin(childId).isPresent() ? 1 : 0;
+            }
+            sink += repository.findByType(Events.NodeType.INTERRUPT).size();
+            long elapsed = System.nanoTime() - start;
+            assertThat(sink).isPositive();
+            best = Math.min(best, elapsed / LOOKUPS);
+        }
+        return best;
+    }
+
+    private static SummaryNode summary(String nodeId, String parentNodeId, Instant now) {
+        return SummaryNode.builder()
+                .nodeId(nodeId)
+                .title(nodeId)
+                .goal("perf")
+                .status(Events.NodeStatus.RUNNING)
+                .parentNodeId(parentNodeId)
+                .createdAt(now)
+                .lastUpdatedAt(now)
+                .build();
+    }
+
+    private static InterruptNode interrupt(String nodeId, String parentNodeId, String originNodeId, Instant now) {
+        return InterruptNode.builder()
+                .nodeId(nodeId)
+                .title(nodeId)
+                .goal("perf")
+                .status(Events.NodeStatus.WAITING_INPUT)
+                .parentNodeId(parentNodeId)
+                .createdAt(now)
+                .lastUpdatedAt(now)
+                .interruptContext(new InterruptContext(
+                        Events.InterruptType.HUMAN_REVIEW,
+                        InterruptContext.InterruptStatus.REQUESTED,
+                        "perf",
+                        originNodeId,
+                        null,
+                        nodeId,
+                        null))
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.hayden.multiagentide.perf.ui;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.ui.state.UiSessionState;
+import com.hayden.multiagentide.ui.state.UiState;
+import com.hayden.multiagentide.ui.state.UiStateReducer;
+import com.hayden.multiagentide.ui.state.UiViewport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-event cost of {@link UiStateReducer} as a session's event log grows to 10k, 100k and
+ * 1M events. With the structurally shared log the cost per event should stay roughly flat
+ * instead of growing with the session length. Only runs with {@code -Pprofile=perf}.
+ */
+@Slf4j
+class UiStateReducerAppendPerfTest {
+
+    private static final Path REPO = Path.of("/tmp/repo");
+    private static final UiViewport VIEWPORT = new UiViewport(50);
+
+    @Test
+    void appendCostStaysFlatAsSessionGrows() {
+        long small = nanosPerEvent(10_000, 0);
+        long medium = nanosPerEvent(100_000, 0);
+        long large = nanosPerEvent(1_000_000, 0);
+        long capped = nanosPerEvent(1_000_000, 100_000);
+
+        log.info("UiStateReducer ns/event: 10k={} 100k={} 1M={} 1M capped at 100k={}", small, medium, large, capped);
+
+        // Copying the log on each event would make 1M ~100x slower per event than 10k.
+        assertThat(large).isLessThan(Math.max(small, 1L) * 10);
+    }
+
+    private long nanosPerEvent(int events, int cap) {
+        UiStateReducer reducer = new UiStateReducer(cap, cap / 20);
+        Events.GraphEvent event = new Events.AddMessageEvent("e", Instant.now(), "session-1", "message");
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            UiState state = UiState.initial("shell-1", "session-1", List.of("session-1"),
+                    Map.of("session-1", UiSessionState.initial(REPO)), REPO);
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                state = reducer.reduce(state, event, VIEWPORT, "session-1");
+            }
+            long elapsed = System.nanoTime() - start;
+            assertThat(state.sessions().get("session-1").events()).isNotEmpty();
+            best = Math.min(best, elapsed / events);
+        }
+        return best;
+    }
+}
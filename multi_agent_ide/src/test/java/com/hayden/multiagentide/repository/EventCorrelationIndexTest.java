@@ -0,0 +1,152 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for EventCorrelationIndex.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Id lookups return every event for the id, oldest first, regardless of save order</li>
+ *   <li>Scope lookups see events on the scope node and its descendants, newest first</li>
+ *   <li>Per-scope tool calls are bounded to the most recent ones</li>
+ *   <li>Removed events disappear from both the id and the scope indexes</li>
+ * </ul>
+ */
+class EventCorrelationIndexTest {
+
+    private EventCorrelationIndex index;
+
+    private ArtifactKey root;
+    private ArtifactKey child;
+    private ArtifactKey otherRoot;
+
+    @BeforeEach
+    void setUp() {
+        index = new EventCorrelationIndex();
+        root = ArtifactKey.createRoot();
+        child = root.createChild();
+        otherRoot = ArtifactKey.createRoot();
+    }
+
+    @Test
+    void toolCallsByIdAreOldestFirst() {
+        Instant now = Instant.now();
+        var completed = toolCall(child.value(), "call-1", "completed", now);
+        var started = toolCall(child.value(), "call-1", "in_progress", now.minusSeconds(5));
+        index.add(completed);
+        index.add(started);
+        index.add(toolCall(child.value(), "call-2", "in_progress", now));
+
+        assertThat(index.toolCalls("call-1")).containsExactly(started, completed);
+        assertThat(index.toolCalls("missing")).isEmpty();
+        assertThat(index.toolCalls(null)).isEmpty();
+    }
+
+    @Test
+    void scopeLookupsIncludeDescendantsNewestFirst() {
+        Instant now = Instant.now();
+        var older = toolCall(child.value(), "call-1", "completed", now.minusSeconds(10));
+        var newer = toolCall(root.value(), "call-2", "completed", now);
+        index.add(older);
+        index.add(newer);
+        index.add(toolCall(otherRoot.value(), "call-3", "completed", now));
+
+        assertThat(index.recentToolCallsInScope(root.value(), 10)).containsExactly(newer, older);
+        assertThat(index.recentToolCallsInScope(root.value(), 1)).containsExactly(newer);
+        assertThat(index.recentToolCallsInScope(child.value(), 10)).containsExactly(older);
+        assertThat(index.recentToolCallsInScope(ArtifactKey.createRoot().value(), 10)).isEmpty();
+    }
+
+    @Test
+    void scopeKeepsOnlyTheMostRecentToolCalls() {
+        Instant now = Instant.now();
+        int total = EventCorrelationIndex.MAX_TOOL_CALLS_PER_SCOPE + 10;
+        for (int i = 0; i < total; i++) {
+            index.add(toolCall(child.value(), "call-" + i, "completed", now.plusMillis(i)));
+        }
+
+        List<Events.ToolCallEvent> recent = index.recentToolCallsInScope(root.value(), Integer.MAX_VALUE);
+        assertThat(recent).hasSize(EventCorrelationIndex.MAX_TOOL_CALLS_PER_SCOPE);
+        assertThat(recent.getFirst().toolCallId()).isEqualTo("call-" + (total - 1));
+        assertThat(recent.getLast().toolCallId()).isEqualTo("call-10");
+        assertThat(index.toolCalls("call-0")).hasSize(1);
+    }
+
+    @Test
+    void interruptsResolveByRequestIdOrNodeId() {
+        var interrupt = interrupt(child.value(), "req-1", Instant.now());
+        index.add(interrupt);
+        index.add(review(child.value(), Instant.now()));
+
+        assertThat(index.interrupts("req-1")).containsExactly(interrupt);
+        assertThat(index.interrupts(child.value())).containsExactly(interrupt);
+        assertThat(index.interruptsInScope(root.value())).containsExactly(interrupt);
+        assertThat(index.reviewsInScope(root.value())).hasSize(1);
+        assertThat(index.reviewsInScope(otherRoot.value())).isEmpty();
+    }
+
+    @Test
+    void permissionsInScopeOptionallyMatchOrigin() {
+        var permission = permission(otherRoot.value(), child.value(), "perm-1", "call-1", Instant.now());
+        index.add(permission);
+
+        assertThat(index.permissions("perm-1")).containsExactly(permission);
+        assertThat(index.permissions("call-1")).containsExactly(permission);
+        assertThat(index.permissions(otherRoot.value())).containsExactly(permission);
+        assertThat(index.permissionsInScope(otherRoot.value(), false)).containsExactly(permission);
+        assertThat(index.permissionsInScope(root.value(), false)).isEmpty();
+        assertThat(index.permissionsInScope(root.value(), true)).containsExactly(permission);
+    }
+
+    @Test
+    void removedEventsLeaveEveryIndex() {
+        Instant now = Instant.now();
+        var kept = toolCall(child.value(), "call-1", "in_progress", now.minusSeconds(1));
+        var removed = toolCall(child.value(), "call-1", "completed", now);
+        var interrupt = interrupt(child.value(), "req-1", now);
+        var permission = permission(child.value(), null, "perm-1", "call-1", now);
+        index.add(kept);
+        index.add(removed);
+        index.add(interrupt);
+        index.add(permission);
+
+        index.removeAll(List.of(removed, interrupt, permission));
+
+        assertThat(index.toolCalls("call-1")).containsExactly(kept);
+        assertThat(index.recentToolCallsInScope(root.value(), 10)).containsExactly(kept);
+        assertThat(index.interrupts("req-1")).isEmpty();
+        assertThat(index.interruptsInScope(root.value())).isEmpty();
+        assertThat(index.permissions("perm-1")).isEmpty();
+        assertThat(index.permissionsInScope(root.value(), true)).isEmpty();
+    }
+
+    private static Events.ToolCallEvent toolCall(String nodeId, String toolCallId, String status, Instant at) {
+        return new Events.ToolCallEvent(UUID.randomUUID().toString(), at, nodeId, null, toolCallId,
+                "title", "execute", status, null, List.of(), List.of(), null, null);
+    }
+
+    private static Events.InterruptRequestEvent interrupt(String nodeId, String requestId, Instant at) {
+        return new Events.InterruptRequestEvent(UUID.randomUUID().toString(), at, nodeId, null, null,
+                null, "reason", List.of(), List.of(), null, requestId);
+    }
+
+    private static Events.NodeReviewRequestedEvent review(String nodeId, Instant at) {
+        return new Events.NodeReviewRequestedEvent(UUID.randomUUID().toString(), at, nodeId, nodeId, null, "content");
+    }
+
+    private static Events.PermissionRequestedEvent permission(String nodeId, String originNodeId, String requestId,
+                                                              String toolCallId, Instant at) {
+        return new Events.PermissionRequestedEvent(UUID.randomUUID().toString(), at, nodeId, originNodeId,
+                requestId, toolCallId, null);
+    }
+}
@@ -0,0 +1,389 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for InMemoryEventStreamRepository.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Metrics for a node cover the node and all of its descendants, and nothing else</li>
+ *   <li>Scoped stats count recent errors only from the window start, including late ones,
+ *       and never past the error horizon</li>
+ *   <li>Type lookups honour subtypes and timestamp order, not insertion order</li>
+ *   <li>Scoped pages are in timestamp order and a cursor keeps its place while events arrive</li>
+ *   <li>With retention enabled, compacted aggregates and spilled events stay reachable by id
+ *       and scope, and metrics are unchanged</li>
+ *   <li>A completed run that is fully spilled no longer holds per-run state or timeline entries,
+ *       and cursors handed out before the spill keep their place</li>
+ *   <li>A live run over budget only spills its deltas, so its correlations keep resolving</li>
+ *   <li>Crossing the global budget spills down to the low-water mark, not just under the budget</li>
+ * </ul>
+ */
+class InMemoryEventStreamRepositoryTest {
+
+    private InMemoryEventStreamRepository repository;
+
+    private ArtifactKey root;
+    private ArtifactKey child;
+    private ArtifactKey grandchild;
+    private ArtifactKey otherRoot;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryEventStreamRepository();
+        root = ArtifactKey.createRoot();
+        child = root.createChild();
+        grandchild = child.createChild();
+        otherRoot = ArtifactKey.createRoot();
+    }
+
+    @Test
+    void metricsRollUpAlongTheAncestorChain() {
+        Instant now = Instant.now();
+        repository.save(stream(root.value(), 3, now));
+        repository.save(stream(child.value(), 5, now));
+        repository.save(thought(grandchild.value(), 7, now));
+        repository.save(error(grandchild.value(), Events.NodeType.WORK, now));
+        repository.save(stream(otherRoot.value(), 11, now));
+
+        var rootMetrics = repository.computeMetrics(root.value()).orElseThrow();
+        assertThat(rootMetrics.totalEvents()).isEqualTo(4);
+        assertThat(rootMetrics.streamDeltas()).isEqualTo(2);
+        assertThat(rootMetrics.streamTokens()).isEqualTo(8);
+        assertThat(rootMetrics.thoughtTokens()).isEqualTo(7);
+        assertThat(rootMetrics.nodeErrorCount()).isEqualTo(1);
+        assertThat(rootMetrics.otherEvents()).isZero();
+
+        var childMetrics = repository.computeMetrics(child.value()).orElseThrow();
+        assertThat(childMetrics.totalEvents()).isEqualTo(3);
+        assertThat(childMetrics.streamTokens()).isEqualTo(5);
+
+        assertThat(repository.computeMetrics(grandchild.value()).orElseThrow().totalEvents()).isEqualTo(2);
+        assertThat(repository.computeMetrics(ArtifactKey.createRoot().value())).isEmpty();
+        assertThat(repository.computeMetrics(" ")).isEmpty();
+    }
+
+    @Test
+    void scopedStatsCountOnlyErrorsInsideTheWindow() {
+        Instant now = Instant.now();
+        repository.save(error(child.value(), Events.NodeType.WORK, now.minusSeconds(600)));
+        repository.save(error(child.value(), Events.NodeType.WORK, now.minusSeconds(10)));
+        repository.save(error(grandchild.value(), Events.NodeType.PLANNING, now));
+        repository.save(error(grandchild.value(), null, now));
+        repository.save(stream(child.value(), 4, now));
+
+        var stats = repository.computeScopedStats(root.value(), now.minusSeconds(180));
+
+        assertThat(stats.totalEvents()).isEqualTo(5);
+        assertThat(stats.eventTypeCounts()).containsEntry("NODE_ERROR", 4).containsEntry("NODE_STREAM_DELTA", 1);
+        assertThat(stats.recentErrorCount()).isEqualTo(3);
+        assertThat(stats.recentErrorsByNodeType())
+                .containsEntry("WORK", 1)
+                .containsEntry("PLANNING", 1)
+                .containsEntry("UNKNOWN", 1);
+        assertThat(stats.totalStreamTokens()).isEqualTo(4);
+
+        var empty = repository.computeScopedStats(otherRoot.value(), now.minusSeconds(180));
+        assertThat(empty.totalEvents()).isZero();
+        assertThat(empty.recentErrorCount()).isZero();
+    }
+
+    @Test
+    void recentErrorsCountLateTimestampsAndStopAtTheHorizon() {
+        Instant now = Instant.now();
+        repository.save(error(child.value(), Events.NodeType.WORK, now.minusSeconds(5_000)));
+        repository.save(error(child.value(), Events.NodeType.WORK, now.minusSeconds(20)));
+        repository.save(error(child.value(), Events.NodeType.WORK, now));
+        repository.save(error(grandchild.value(), Events.NodeType.PLANNING, now.minusSeconds(40)));
+        repository.save(error(grandchild.value(), Events.NodeType.PLANNING, now.minusSeconds(20)));
+        repository.save(error(grandchild.value(), Events.NodeType.PLANNING,
+                now.minusSeconds(EventAggregateIndex.ERROR_HORIZON_SECONDS + 1)));
+
+        var recent = repository.computeScopedStats(root.value(), now.minusSeconds(30));
+        assertThat(recent.recentErrorCount()).isEqualTo(3);
+        assertThat(recent.recentErrorsByNodeType()).containsEntry("WORK", 2).containsEntry("PLANNING", 1);
+
+        var all = repository.computeScopedStats(root.value(), now.minusSeconds(10_000));
+        assertThat(all.recentErrorCount()).isEqualTo(4);
+        assertThat(all.eventTypeCounts()).containsEntry("NODE_ERROR", 6);
+    }
+
+    @Test
+    void getLastMatchingReturnsNewestByTimestampEvenWhenSavedOutOfOrder() {
+        Instant now = Instant.now();
+        repository.save(stream(root.value(), 1, now));
+        repository.save(stream(child.value(), 2, now.minusSeconds(60)));
+        repository.save(thought(child.value(), 3, now.minusSeconds(30)));
+
+        assertThat(repository.getLastMatching(Events.NodeStreamDeltaEvent.class, e -> true))
+                .get().extracting(Events.NodeStreamDeltaEvent::tokenCount).isEqualTo(1);
+        assertThat(repository.getLastMatching(Events.NodeStreamDeltaEvent.class, e -> e.nodeId().equals(child.value())))
+                .get().extracting(Events.NodeStreamDeltaEvent::tokenCount).isEqualTo(2);
+        assertThat(repository.getLastMatching(Events.NodeErrorEvent.class, e -> true)).isEmpty();
+    }
+
+    @Test
+    void supertypeQueriesMergeAllConcreteTypesInTimestampOrder() {
+        Instant now = Instant.now();
+        var oldest = stream(root.value(), 1, now.minusSeconds(20));
+        var middle = thought(root.value(), 2, now.minusSeconds(10));
+        var newest = stream(root.value(), 3, now);
+        repository.save(middle);
+        repository.save(newest);
+        repository.save(oldest);
+
+        assertThat(repository.streamNewestFirst(Events.GraphEvent.class, e -> true))
+                .containsExactly(newest, middle, oldest);
+        assertThat(repository.getAllMatching(Events.GraphEvent.class, e -> true))
+                .containsExactly(oldest, middle, newest);
+
+        var error = error(root.value(), Events.NodeType.WORK, now.plusSeconds(1));
+        repository.save(error);
+        assertThat(repository.reverseIterator(Events.GraphEvent.class).next()).isEqualTo(error);
+    }
+
+    @Test
+    void pageCursorsAreUnaffectedByEventsArrivingBetweenPages() {
+        Instant now = Instant.now();
+        var first = stream(child.value(), 1, now.minusSeconds(30));
+        var second = stream(grandchild.value(), 2, now.minusSeconds(20));
+        var third = stream(child.value(), 3, now.minusSeconds(10));
+        repository.save(first);
+        repository.save(third);
+        repository.save(second);
+        repository.save(stream(otherRoot.value(), 4, now));
+
+        var page = repository.pageScoped(root.value(), null, 2, false);
+        assertThat(page.events()).containsExactly(first, second);
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.offset()).isZero();
+
+        var late = stream(child.value(), 5, now.minusSeconds(40));
+        var newest = stream(child.value(), 6, now);
+        repository.save(late);
+        repository.save(newest);
+
+        var next = repository.pageScoped(root.value(), page.nextCursor(), 2, false);
+        assertThat(next.events()).containsExactly(third, newest);
+        assertThat(next.total()).isEqualTo(5);
+        assertThat(next.offset()).isEqualTo(3);
+        assertThat(next.nextCursor()).isNull();
+    }
+
+    @Test
+    void descendingPagesWalkTowardsOlderEvents() {
+        Instant now = Instant.now();
+        var oldest = stream(child.value(), 1, now.minusSeconds(20));
+        var middle = thought(child.value(), 2, now.minusSeconds(10));
+        var newest = stream(grandchild.value(), 3, now);
+        repository.save(oldest);
+        repository.save(middle);
+        repository.save(newest);
+
+        var page = repository.pageScoped(child.value(), null, 2, true);
+        assertThat(page.events()).containsExactly(newest, middle);
+        assertThat(page.offset()).isEqualTo(1);
+
+        var next = repository.pageScoped(child.value(), page.nextCursor(), 2, true);
+        assertThat(next.events()).containsExactly(oldest);
+        assertThat(next.nextCursor()).isNull();
+
+        assertThat(repository.pageScoped(grandchild.value(), "not-a-cursor", 10, false).events())
+                .containsExactly(newest);
+        assertThat(repository.pageScoped(ArtifactKey.createRoot().value(), null, 10, false).total()).isZero();
+    }
+
+    @Nested
+    class Retention {
+
+        @TempDir
+        Path spillDir;
+
+        private EventRetentionProperties properties;
+        private InMemoryEventStreamRepository bounded;
+
+        @BeforeEach
+        void setUp() {
+            properties = new EventRetentionProperties();
+            properties.setEnabled(true);
+            properties.setSpillDirectory(spillDir.toString());
+        }
+
+        @AfterEach
+        void tearDown() {
+            bounded.close();
+        }
+
+        @Test
+        void completedRunsHaveTheirDeltasCoalesced() {
+            bounded = new InMemoryEventStreamRepository(properties, null);
+            Instant now = Instant.now();
+            var first = delta(child.value(), "Hel", now);
+            bounded.save(first);
+            bounded.save(delta(child.value(), "lo", now.plusMillis(1)));
+            var last = delta(child.value(), "!", now.plusMillis(2));
+            bounded.save(last);
+            bounded.save(goalCompleted(root.value(), now.plusMillis(3)));
+
+            var resident = bounded.listScoped(child.value());
+            assertThat(resident).hasSize(1);
+            assertThat(((Events.NodeStreamDeltaEvent) resident.getFirst()).deltaContent()).isEqualTo("Hello!");
+            assertThat(bounded.findById(first.eventId())).get().isEqualTo(resident.getFirst());
+            assertThat(bounded.findById(last.eventId())).isEmpty();
+            assertThat(bounded.computeMetrics(child.value()).orElseThrow().streamDeltas()).isEqualTo(3);
+            assertThat(bounded.retentionStats().compactedEvents()).isEqualTo(2);
+            assertThat(bounded.pageScoped(child.value(), null, 10, false).events()).containsExactlyElementsOf(resident);
+        }
+
+        @Test
+        void completedRunsOverTheGlobalBudgetAreSpilledAndStillReadable() {
+            properties.setMaxEventsTotal(4);
+            bounded = new InMemoryEventStreamRepository(properties, null);
+            Instant now = Instant.now();
+            var cold = error(grandchild.value(), Events.NodeType.WORK, now.minusSeconds(5));
+            bounded.save(cold);
+            bounded.save(error(child.value(), Events.NodeType.WORK, now.minusSeconds(4)));
+            bounded.save(goalCompleted(root.value(), now.minusMillis(3_500)));
+            bounded.save(error(otherRoot.value(), Events.NodeType.WORK, now.minusSeconds(3)));
+            bounded.save(error(otherRoot.value(), Events.NodeType.WORK, now.minusSeconds(2)));
+
+            assertThat(bounded.retentionStats().residentEvents()).isEqualTo(2);
+            assertThat(bounded.retentionStats().spilledEvents()).isEqualTo(3);
+            assertThat(bounded.retentionStats().runs()).isEqualTo(1);
+            assertThat(bounded.list()).hasSize(2);
+
+            assertThat(bounded.findById(cold.eventId())).get()
+                    .extracting(Events.GraphEvent::nodeId).isEqualTo(grandchild.value());
+            assertThat(bounded.listScoped(root.value())).hasSize(3);
+            assertThat(bounded.listScoped(grandchild.value())).hasSize(1);
+            var page = bounded.pageScoped(root.value(), null, 1, false);
+            assertThat(page.events()).extracting(Events.GraphEvent::eventId).containsExactly(cold.eventId());
+            assertThat(page.total()).isEqualTo(3);
+            assertThat(bounded.pageScoped(root.value(), page.nextCursor(), 1, false).events()).hasSize(1);
+            assertThat(bounded.computeMetrics(root.value()).orElseThrow().nodeErrorCount()).isEqualTo(2);
+        }
+
+        @Test
+        void cursorsHandedOutBeforeARunIsSpilledKeepTheirPlace() {
+            properties.setMaxEventsTotal(4);
+            bounded = new InMemoryEventStreamRepository(properties, null);
+            Instant now = Instant.now();
+            var first = error(child.value(), Events.NodeType.WORK, now.minusSeconds(5));
+            var second = error(grandchild.value(), Events.NodeType.WORK, now.minusSeconds(4));
+            var third = error(child.value(), Events.NodeType.WORK, now.minusSeconds(3));
+            bounded.save(first);
+            bounded.save(second);
+            bounded.save(third);
+            var page = bounded.pageScoped(root.value(), null, 1, false);
+            assertThat(page.events()).containsExactly(first);
+
+            bounded.save(goalCompleted(root.value(), now.minusSeconds(2)));
+            var other = error(otherRoot.value(), Events.NodeType.WORK, now.minusSeconds(1));
+            bounded.save(other);
+
+            assertThat(bounded.retentionStats().runs()).isEqualTo(1);
+            assertThat(bounded.retentionStats().residentBytes())
+                    .isEqualTo(InMemoryEventStreamRepository.estimateBytes(other));
+            var next = bounded.pageScoped(root.value(), page.nextCursor(), 2, false);
+            assertThat(next.events()).extracting(Events.GraphEvent::eventId)
+                    .containsExactly(second.eventId(), third.eventId());
+            assertThat(next.total()).isEqualTo(4);
+            assertThat(next.offset()).isEqualTo(1);
+            assertThat(bounded.pageScoped(child.value(), null, 10, true).events())
+                    .extracting(Events.GraphEvent::eventId)
+                    .containsExactly(third.eventId(), first.eventId());
+        }
+
+        @Test
+        void liveRunOverBudgetOnlySpillsDeltasAndStillResolvesPendingPermissions() {
+            properties.setMaxEventsPerRun(3);
+            bounded = new InMemoryEventStreamRepository(properties, null);
+            Instant now = Instant.now();
+            var session = new Events.ChatSessionCreatedEvent(UUID.randomUUID().toString(), now, child.value(),
+                    child.createChild());
+            var permission = new Events.PermissionRequestedEvent(UUID.randomUUID().toString(), now.plusMillis(1),
+                    child.value(), root.value(), "perm-1", "call-1", null);
+            bounded.save(session);
+            bounded.save(permission);
+            var firstDelta = finalDelta(child.value(), "a", now.plusMillis(2));
+            bounded.save(firstDelta);
+            bounded.save(finalDelta(child.value(), "b", now.plusMillis(3)));
+            bounded.save(finalDelta(child.value(), "c", now.plusMillis(4)));
+
+            assertThat(bounded.retentionStats().spilledEvents()).isEqualTo(2);
+            assertThat(bounded.retentionStats().residentEvents()).isEqualTo(3);
+            assertThat(bounded.findPermissionRequest("perm-1")).contains(permission);
+            assertThat(bounded.findPermissionRequestsInScope(root.value(), false)).containsExactly(permission);
+            assertThat(bounded.getLastMatching(Events.ChatSessionCreatedEvent.class, e -> true)).contains(session);
+            assertThat(bounded.list()).contains(session, permission);
+            assertThat(bounded.findById(firstDelta.eventId())).get()
+                    .extracting(Events.GraphEvent::eventId).isEqualTo(firstDelta.eventId());
+            assertThat(bounded.listScoped(root.value())).hasSize(5);
+        }
+
+        @Test
+        void exceedingTheGlobalBudgetSpillsDownToTheLowWaterMark() {
+            properties.setMaxEventsTotal(8);
+            bounded = new InMemoryEventStreamRepository(properties, null);
+            Instant now = Instant.now();
+            ArtifactKey liveRoot = ArtifactKey.createRoot();
+            bounded.save(error(child.value(), Events.NodeType.WORK, now.minusSeconds(9)));
+            bounded.save(goalCompleted(root.value(), now.minusSeconds(8)));
+            bounded.save(error(otherRoot.value(), Events.NodeType.WORK, now.minusSeconds(7)));
+            bounded.save(goalCompleted(otherRoot.value(), now.minusSeconds(6)));
+            for (int i = 0; i < 5; i++) {
+                bounded.save(error(liveRoot.value(), Events.NodeType.WORK, now.minusSeconds(5 - i)));
+            }
+
+            assertThat(bounded.retentionStats().spilledEvents()).isEqualTo(4);
+            assertThat(bounded.retentionStats().residentEvents()).isEqualTo(5);
+
+            bounded.save(error(liveRoot.value(), Events.NodeType.WORK, now));
+            assertThat(bounded.retentionStats().spilledEvents()).isEqualTo(4);
+            assertThat(bounded.retentionStats().residentEvents()).isEqualTo(6);
+        }
+
+        private Events.NodeStreamDeltaEvent delta(String nodeId, String content, Instant at) {
+            return new Events.NodeStreamDeltaEvent(UUID.randomUUID().toString(), at, nodeId, null, content, 1, false);
+        }
+
+        private Events.NodeStreamDeltaEvent finalDelta(String nodeId, String content, Instant at) {
+            return new Events.NodeStreamDeltaEvent(UUID.randomUUID().toString(), at, nodeId, null, content, 1, true);
+        }
+
+        private Events.GoalCompletedEvent goalCompleted(String nodeId, Instant at) {
+            return new Events.GoalCompletedEvent(UUID.randomUUID().toString(), at, nodeId, nodeId, null);
+        }
+    }
+
+    private static Events.NodeStreamDeltaEvent stream(String nodeId, int tokens, Instant at) {
+        return new Events.NodeStreamDeltaEvent(UUID.randomUUID().toString(), at, nodeId, null, "x", tokens, false);
+    }
+
+    private static Events.NodeThoughtDeltaEvent thought(String nodeId, int tokens, Instant at) {
+        return new Events.NodeThoughtDeltaEvent(UUID.randomUUID().toString(), at, nodeId, null, "x", tokens, false);
+    }
+
+    private static Events.NodeErrorEvent error(String nodeId, Events.NodeType nodeType, Instant at) {
+        return Events.NodeErrorEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .timestamp(at)
+                .nodeId(nodeId)
+                .nodeType(nodeType)
+                .message("boom")
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.model.nodes.GraphNode;
+import com.hayden.multiagentide.model.nodes.InterruptContext;
+import com.hayden.multiagentide.model.nodes.InterruptNode;
+import com.hayden.multiagentide.model.nodes.SummaryNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for InMemoryGraphRepository.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Parent, type and interrupt-origin lookups follow a node when it is re-saved with new values</li>
+ *   <li>Deleted and cleared nodes disappear from every lookup</li>
+ * </ul>
+ */
+class InMemoryGraphRepositoryTest {
+
+    private InMemoryGraphRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryGraphRepository();
+    }
+
+    @Test
+    void findByParentId_followsReparentedNode() {
+        repository.save(summary("child", "parent-a"));
+
+        repository.save(summary("child", "parent-b"));
+
+        assertThat(repository.findByParentId("parent-a")).isEmpty();
+        assertThat(repository.findByParentId("parent-b"))
+                .extracting(GraphNode::nodeId)
+                .containsExactly("child");
+    }
+
+    @Test
+    void findByType_returnsOnlyNodesOfThatType() {
+        repository.save(summary("s1", "root"));
+        repository.save(summary("s2", "root"));
+        repository.save(interrupt("i1", "root", "s1"));
+
+        assertThat(repository.findByType(Events.NodeType.SUMMARY))
+                .extracting(GraphNode::nodeId)
+                .containsExactlyInAnyOrder("s1", "s2");
+        assertThat(repository.findByType(Events.NodeType.INTERRUPT))
+                .extracting(GraphNode::nodeId)
+                .containsExactly("i1");
+    }
+
+    @Test
+    void findInterruptByOrigin_followsOriginChangeAndDelete() {
+        repository.save(interrupt("i1", "root", "origin-a"));
+        assertThat(repository.findInterruptByOrigin("origin-a")).map(GraphNode::nodeId).contains("i1");
+
+        repository.save(interrupt("i1", "root", "origin-b"));
+        assertThat(repository.findInterruptByOrigin("origin-a")).isEmpty();
+        assertThat(repository.findInterruptByOrigin("origin-b")).map(GraphNode::nodeId).contains("i1");
+
+        repository.delete("i1");
+        assertThat(repository.findInterruptByOrigin("origin-b")).isEmpty();
+        assertThat(repository.findByType(Events.NodeType.INTERRUPT)).isEmpty();
+        assertThat(repository.findByParentId("root")).isEmpty();
+    }
+
+    @Test
+    void clear_emptiesEveryLookup() {
+        repository.save(summary("s1", "root"));
+        repository.save(interrupt("i1", "root", "s1"));
+
+        repository.clear();
+
+        assertThat(repository.count()).isZero();
+        assertThat(repository.findByParentId("root")).isEmpty();
+        assertThat(repository.findByType(Events.NodeType.SUMMARY)).isEmpty();
+        assertThat(repository.findInterruptByOrigin("s1")).isEmpty();
+    }
+
+    static SummaryNode summary(String nodeId, String parentNodeId) {
+        Instant now = Instant.now();
+        return SummaryNode.builder()
+                .nodeId(nodeId)
+                .title(nodeId)
+                .goal("goal")
+                .status(Events.NodeStatus.READY)
+                .parentNodeId(parentNodeId)
+                .createdAt(now)
+                .lastUpdatedAt(now)
+                .build();
+    }
+
+    static InterruptNode interrupt(String nodeId, String parentNodeId, String originNodeId) {
+        Instant now = Instant.now();
+        return InterruptNode.builder()
+                .nodeId(nodeId)
+                .title(nodeId)
+                .goal("goal")
+                .status(Events.NodeStatus.WAITING_INPUT)
+                .parentNodeId(parentNodeId)
+                .createdAt(now)
+                .lastUpdatedAt(now)
+                .interruptContext(new InterruptContext(
+                        Events.InterruptType.HUMAN_REVIEW,
+                        InterruptContext.InterruptStatus.REQUESTED,
+                        "review",
+                        originNodeId,
+                        null,
+                        nodeId,
+                        null))
+                .build();
+    }
+}
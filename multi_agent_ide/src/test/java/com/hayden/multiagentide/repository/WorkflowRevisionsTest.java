@@ -0,0 +1,124 @@
+package com.hayden.multiagentide.repository;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for WorkflowRevisions.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Each touch advances only its own run's revision</li>
+ *   <li>A touch marks the node and its ancestors changed, and each node is reported once</li>
+ *   <li>Removed nodes are reported as removed until touched again</li>
+ *   <li>Revisions the run never issued are reported as incomplete</li>
+ *   <li>Revisions from another epoch, e.g. before the run was forgotten, are reported as incomplete</li>
+ * </ul>
+ */
+class WorkflowRevisionsTest {
+
+    private WorkflowRevisions revisions;
+
+    private ArtifactKey root;
+    private ArtifactKey child;
+    private ArtifactKey sibling;
+    private ArtifactKey otherRoot;
+
+    @BeforeEach
+    void setUp() {
+        revisions = new WorkflowRevisions();
+        root = ArtifactKey.createRoot();
+        child = root.createChild();
+        sibling = root.createChild();
+        otherRoot = ArtifactKey.createRoot();
+    }
+
+    @Test
+    void revisionsArePerRun() {
+        assertThat(revisions.revision(root.value()).revision()).isZero();
+
+        revisions.touch(child.value());
+        revisions.touch(sibling.value());
+        revisions.touch(otherRoot.value());
+
+        assertThat(revisions.revision(root.value()).revision()).isEqualTo(2);
+        assertThat(revisions.revision(child.value()).revision()).isEqualTo(2);
+        assertThat(revisions.revision(otherRoot.value()).revision()).isEqualTo(1);
+    }
+
+    @Test
+    void changesCoverAncestorsAndReportEachNodeOnce() {
+        revisions.touch(root.value());
+        String epoch = revisions.revision(root.value()).epoch();
+        long since = revisions.revision(root.value()).revision();
+        ArtifactKey grandchild = child.createChild();
+
+        revisions.touch(grandchild.value());
+        revisions.touch(child.value());
+        revisions.touch(grandchild.value());
+
+        var changes = revisions.changedSince(root.value(), epoch, since);
+        assertThat(changes.complete()).isTrue();
+        assertThat(changes.revision()).isEqualTo(since + 3);
+        assertThat(changes.changedNodeIds()).containsExactlyInAnyOrder(root.value(), child.value(), grandchild.value());
+        assertThat(changes.removedNodeIds()).isEmpty();
+
+        assertThat(revisions.changedSince(root.value(), epoch, since + 2).changedNodeIds())
+                .containsExactlyInAnyOrder(root.value(), child.value(), grandchild.value());
+        assertThat(revisions.changedSince(root.value(), epoch, since + 3).changedNodeIds()).isEmpty();
+    }
+
+    @Test
+    void removedNodesAreReportedUntilTouchedAgain() {
+        revisions.touch(child.value());
+        String epoch = revisions.revision(root.value()).epoch();
+        long since = revisions.revision(root.value()).revision();
+
+        revisions.remove(child.value());
+
+        var changes = revisions.changedSince(root.value(), epoch, since);
+        assertThat(changes.removedNodeIds()).containsExactly(child.value());
+        assertThat(changes.changedNodeIds()).containsExactly(root.value());
+
+        revisions.touch(child.value());
+        assertThat(revisions.changedSince(root.value(), epoch, since).changedNodeIds())
+                .containsExactlyInAnyOrder(root.value(), child.value());
+    }
+
+    @Test
+    void unknownRevisionsAreIncomplete() {
+        revisions.touch(child.value());
+        String epoch = revisions.revision(root.value()).epoch();
+        ArtifactKey unseen = ArtifactKey.createRoot();
+        String unseenEpoch = revisions.revision(unseen.value()).epoch();
+
+        assertThat(revisions.changedSince(root.value(), epoch, 5).complete()).isFalse();
+        assertThat(revisions.changedSince(root.value(), epoch, -1).complete()).isFalse();
+        assertThat(revisions.changedSince(unseen.value(), unseenEpoch, 0).complete()).isTrue();
+        assertThat(revisions.changedSince(unseen.value(), unseenEpoch, 3).complete()).isFalse();
+    }
+
+    @Test
+    void revisionsFromAnotherEpochAreIncomplete() {
+        revisions.touch(child.value());
+        revisions.remove(sibling.value());
+        WorkflowRevisions.Revision before = revisions.revision(root.value());
+
+        assertThat(revisions.changedSince(root.value(), null, before.revision()).complete()).isFalse();
+
+        revisions.forget(child.value());
+        assertThat(revisions.changedSince(root.value(), before.epoch(), before.revision()).complete()).isFalse();
+
+        revisions.touch(child.value());
+        WorkflowRevisions.Revision after = revisions.revision(root.value());
+        assertThat(after.epoch()).isNotEqualTo(before.epoch());
+        assertThat(after.revision()).isEqualTo(1);
+        var changes = revisions.changedSince(root.value(), before.epoch(), 0);
+        assertThat(changes.complete()).isFalse();
+        assertThat(changes.epoch()).isEqualTo(after.epoch());
+        assertThat(revisions.changedSince(root.value(), after.epoch(), 0).removedNodeIds()).isEmpty();
+    }
+}
@@ -0,0 +1,100 @@
+package com.hayden.multiagentide.service;
+
+import com.embabel.agent.api.common.ActionContext;
+import com.embabel.agent.core.Agent;
+import com.embabel.agent.core.AgentPlatform;
+import com.embabel.agent.core.AgentProcess;
+import com.hayden.acp_cdc_ai.acp.events.EventBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for AgentExecutor.runSubProcess under parallel dispatch.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Each child process is spawned while its own request is the latest on the blackboard</li>
+ *   <li>Child processes of one dispatch run concurrently</li>
+ * </ul>
+ */
+@ExtendWith(MockitoExtension.class)
+class AgentExecutorSubProcessTest {
+
+    @Mock
+    private EventBus eventBus;
+    @Mock
+    private ActionContext context;
+    @Mock
+    private AgentPlatform agentPlatform;
+    @Mock
+    private AgentProcess parentProcess;
+    @Mock
+    private Agent agent;
+
+    private AgentExecutor agentExecutor;
+    private SubagentDispatchExecutor dispatchExecutor;
+
+    @BeforeEach
+    void setUp() {
+        agentExecutor = new AgentExecutor(null, null, null, null, null, null, null,
+                eventBus, null, List.of(), null, null);
+        DispatchConfigProperties properties = new DispatchConfigProperties();
+        properties.setParallel(true);
+        properties.setMaxParallelismPerDispatch(2);
+        dispatchExecutor = new SubagentDispatchExecutor(properties, eventBus);
+    }
+
+    @Test
+    void childrenBindTheirOwnRequestAndRunConcurrently() {
+        AtomicReference<Object> lastAdded = new AtomicReference<>();
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        doAnswer(inv -> {
+            lastAdded.set(inv.getArgument(0));
+            return null;
+        }).when(context).addObject(any());
+        when(context.agentPlatform()).thenReturn(agentPlatform);
+        when(context.getAgentProcess()).thenReturn(parentProcess);
+        when(agentPlatform.createChildProcess(any(Agent.class), any(AgentProcess.class))).thenAnswer(inv -> {
+            Object bound = lastAdded.get();
+            AgentProcess child = mock(AgentProcess.class);
+            when(child.run()).thenAnswer(run -> {
+                bothRunning.countDown();
+                bothRunning.await(5, TimeUnit.SECONDS);
+                return child;
+            });
+            when(child.resultOfType(String.class)).thenAnswer(r ->
+                    bothRunning.getCount() == 0 ? "result-" + bound : "serialized-" + bound);
+            return child;
+        });
+
+        ReentrantLock lock = new ReentrantLock();
+        var outcome = dispatchExecutor.dispatch(SubagentDispatchExecutor.DispatchArgs.<String, String>builder()
+                .requests(List.of("a", "b"))
+                .runChild(request -> agentExecutor.runSubProcess(
+                        context, lock, "dispatch-input", request, agent, String.class))
+                .isInterrupt(r -> false)
+                .childNodeId(r -> r)
+                .dispatchNodeId("dispatch")
+                .dispatchAgentName("test-dispatch")
+                .workflowId("workflow")
+                .build());
+
+        assertThat(outcome.results()).containsExactly("result-a", "result-b");
+    }
+}
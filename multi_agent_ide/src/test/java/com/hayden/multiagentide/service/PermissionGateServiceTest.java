@@ -0,0 +1,107 @@
+package com.hayden.multiagentide.service;
+
+import com.hayden.acp_cdc_ai.acp.events.ArtifactKey;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.gate.PermissionGate;
+import com.hayden.multiagentide.repository.EventRetentionProperties;
+import com.hayden.multiagentide.repository.InMemoryEventStreamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for PermissionGateService lookups through the repository's correlation indexes.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Permission requests resolve by request id, tool call id and ArtifactKey scope</li>
+ *   <li>Interrupt requests resolve by request id and scope</li>
+ *   <li>Requests of a live run stay resolvable after the run's deltas are spilled</li>
+ * </ul>
+ */
+@ExtendWith(MockitoExtension.class)
+class PermissionGateServiceTest {
+
+    @Mock
+    private PermissionGate permissionGate;
+
+    @TempDir
+    Path spillDir;
+
+    private InMemoryEventStreamRepository repository;
+    private PermissionGateService service;
+
+    private ArtifactKey root;
+    private ArtifactKey child;
+
+    @BeforeEach
+    void setUp() {
+        EventRetentionProperties retention = new EventRetentionProperties();
+        retention.setEnabled(true);
+        retention.setMaxEventsPerRun(3);
+        retention.setSpillDirectory(spillDir.toString());
+        repository = new InMemoryEventStreamRepository(retention, null);
+        service = new PermissionGateService(permissionGate, repository);
+        root = ArtifactKey.createRoot();
+        child = root.createChild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void permissionRequestResolvesByIdAndScope() {
+        var permission = permission("perm-1", "call-1", Instant.now());
+        repository.save(permission);
+        when(permissionGate.resolveCancelled("perm-1")).thenReturn(true);
+
+        assertThat(service.findPermissionRequestEvent("perm-1")).contains(permission);
+        assertThat(service.findPermissionRequestEvent("call-1")).contains(permission);
+        assertThat(service.findPermissionRequestEvent(root.value())).contains(permission);
+        assertThat(service.findPermissionRequestEvent("missing")).isEmpty();
+
+        assertThat(service.resolvePermissionFromScope(root.value(), null, null)).isEqualTo("perm-1");
+        verify(permissionGate).resolveCancelled("perm-1");
+    }
+
+    @Test
+    void requestsOfALiveRunResolveAfterItIsSpilled() {
+        Instant now = Instant.now();
+        var permission = permission("perm-1", "call-1", now);
+        var interrupt = new Events.InterruptRequestEvent(UUID.randomUUID().toString(), now, child.value(), null, null,
+                null, "reason", List.of(), List.of(), null, "interrupt-1");
+        repository.save(permission);
+        repository.save(interrupt);
+        for (int i = 0; i < 4; i++) {
+            repository.save(new Events.NodeStreamDeltaEvent(UUID.randomUUID().toString(), now.plusMillis(i + 1),
+                    child.value(), null, "token-" + i, 1, true));
+        }
+        assertThat(repository.retentionStats().spilledEvents()).isPositive();
+        when(permissionGate.resolveCancelled("perm-1")).thenReturn(true);
+
+        assertThat(service.findPermissionRequestEvent("perm-1")).contains(permission);
+        assertThat(service.performPermissionResolution("perm-1", null, null)).isTrue();
+        assertThat(service.findInterruptRequestEvent("interrupt-1")).contains(interrupt);
+        assertThat(service.findInterruptIdsInScope(root.value())).isNotEmpty();
+    }
+
+    private Events.PermissionRequestedEvent permission(String requestId, String toolCallId, Instant at) {
+        return new Events.PermissionRequestedEvent(UUID.randomUUID().toString(), at, child.value(), root.value(),
+                requestId, toolCallId, null);
+    }
+}
@@ -20,11 +20,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -281,34 +279,65 @@ class SessionKeyResolutionServiceTest {
     class ResolveSessionForMessage {
 
         @Test
-        @SuppressWarnings("unchecked")
         void noMatchingSessions_returnsEmpty() {
-            when(eventStreamRepository.getAllMatching(eq(Events.ChatSessionCreatedEvent.class), any()))
-                    .thenReturn(Stream.empty());
-
-            var evt = mock(com.embabel.agent.api.channel.MessageOutputChannelEvent.class);
-            lenient().when(evt.getProcessId()).thenReturn("ak:01TEST");
+            var evt = message("ak:01TEST");
 
             assertThat(service.resolveSessionForMessage(evt)).isEmpty();
+            verifyNoInteractions(eventStreamRepository);
         }
 
         @Test
-        @SuppressWarnings("unchecked")
         void exactMatch_returnsSessionKey() {
             ArtifactKey sessionKey = ArtifactKey.createRoot();
-            var sessionEvent = new Events.ChatSessionCreatedEvent(
+            service.onEvent(new Events.ChatSessionCreatedEvent(
                     "e1", Instant.now(), "node1", sessionKey, "opts"
-            );
-            when(eventStreamRepository.getAllMatching(eq(Events.ChatSessionCreatedEvent.class), any()))
-                    .thenAnswer(inv -> {
-                        java.util.function.Predicate<Events.ChatSessionCreatedEvent> pred = inv.getArgument(1);
-                        return Stream.of(sessionEvent).filter(pred);
-                    });
+            ));
 
-            var evt = mock(com.embabel.agent.api.channel.MessageOutputChannelEvent.class);
-            when(evt.getProcessId()).thenReturn(sessionKey.value());
+            assertThat(service.resolveSessionForMessage(message(sessionKey.value()))).contains(sessionKey);
+            assertThat(service.resolveSessionForMessage(message(sessionKey.createChild().value()))).isEmpty();
+            verifyNoInteractions(eventStreamRepository);
+        }
+
+        @Test
+        void closedSession_noLongerRouted() {
+            ArtifactKey sessionKey = ArtifactKey.createRoot();
+            service.onEvent(new Events.ChatSessionCreatedEvent(
+                    "e1", Instant.now(), "node1", sessionKey, "opts"
+            ));
+            service.onEvent(new Events.ChatSessionClosedEvent("e2", Instant.now(), sessionKey.value()));
 
-            assertThat(service.resolveSessionForMessage(evt)).contains(sessionKey);
+            assertThat(service.resolveSessionForMessage(message(sessionKey.value()))).isEmpty();
+        }
+
+        @Test
+        void goalCompleted_evictsSessionsUnderGoal() {
+            ArtifactKey goal = ArtifactKey.createRoot();
+            ArtifactKey inGoal = goal.createChild().createChild();
+            ArtifactKey otherGoal = ArtifactKey.createRoot().createChild();
+            service.onEvent(new Events.ChatSessionCreatedEvent("e1", Instant.now(), "node1", inGoal, "opts"));
+            service.onEvent(new Events.ChatSessionCreatedEvent("e2", Instant.now(), "node2", otherGoal, "opts"));
+
+            service.onEvent(new Events.GoalCompletedEvent("e3", Instant.now(), goal.value(), "wf1", null, null));
+
+            assertThat(service.resolveSessionForMessage(message(inGoal.value()))).isEmpty();
+            assertThat(service.resolveSessionForMessage(message(otherGoal.value()))).contains(otherGoal);
+        }
+
+        @Test
+        void openSession_resolvesOwningNodeWithoutHistoryScan() {
+            ArtifactKey sessionKey = ArtifactKey.createRoot();
+            service.onEvent(new Events.ChatSessionCreatedEvent(
+                    "e1", Instant.now(), "ak:OWNER", sessionKey, "opts"
+            ));
+
+            assertThat(service.resolveOwningNodeId(sessionKey)).isEqualTo("ak:OWNER");
+            verifyNoInteractions(eventStreamRepository);
+        }
+
+        private com.embabel.agent.api.channel.MessageOutputChannelEvent message(String processId) {
+            var evt = mock(com.embabel.agent.api.channel.MessageOutputChannelEvent.class);
+            when(evt.getProcessId()).thenReturn(processId);
+            return evt;
         }
     }
 
@@ -331,6 +360,16 @@ class SessionKeyResolutionServiceTest {
             ))).isTrue();
         }
 
+        @Test
+        void isInterestedIn_chatSessionLifecycleEvents() {
+            assertThat(service.isInterestedIn(new Events.ChatSessionCreatedEvent(
+                    "e1", Instant.now(), "node1", ArtifactKey.createRoot(), "opts"
+            ))).isTrue();
+            assertThat(service.isInterestedIn(new Events.ChatSessionClosedEvent(
+                    "e1", Instant.now(), "ak:01TEST"
+            ))).isTrue();
+        }
+
         @Test
         void notInterestedIn_otherEvents() {
             assertThat(service.isInterestedIn(new Events.NodeAddedEvent(
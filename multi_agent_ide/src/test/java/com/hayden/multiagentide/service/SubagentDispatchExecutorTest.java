@@ -0,0 +1,212 @@
+package com.hayden.multiagentide.service;
+
+import com.hayden.acp_cdc_ai.acp.events.EventBus;
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for SubagentDispatchExecutor.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>Results are returned in request order regardless of completion order</li>
+ *   <li>The lowest-index interrupt wins; later siblings are cancelled and earlier ones kept</li>
+ *   <li>Parallelism never exceeds maxParallelismPerDispatch</li>
+ *   <li>Every started child publishes a matching completion event</li>
+ * </ul>
+ */
+@ExtendWith(MockitoExtension.class)
+class SubagentDispatchExecutorTest {
+
+    @Mock
+    private EventBus eventBus;
+
+    private DispatchConfigProperties properties;
+    private SubagentDispatchExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DispatchConfigProperties();
+        executor = new SubagentDispatchExecutor(properties, eventBus);
+    }
+
+    private SubagentDispatchExecutor.DispatchArgs.DispatchArgsBuilder<Integer, String> args(List<Integer> requests) {
+        return SubagentDispatchExecutor.DispatchArgs.<Integer, String>builder()
+                .requests(requests)
+                .isInterrupt(r -> r.startsWith("interrupt"))
+                .childNodeId(String::valueOf)
+                .dispatchNodeId("dispatch")
+                .dispatchAgentName("test-dispatch")
+                .workflowId("workflow");
+    }
+
+    @Nested
+    class Sequential {
+
+        @Test
+        void returnsResultsInOrderAndSkipsNulls() {
+            var outcome = executor.dispatch(args(List.of(1, 2, 3))
+                    .runChild(i -> i == 2 ? null : "r" + i)
+                    .build());
+
+            assertThat(outcome.isInterrupted()).isFalse();
+            assertThat(outcome.results()).containsExactly("r1", "r3");
+        }
+
+        @Test
+        void stopsAtFirstInterrupt() {
+            AtomicInteger calls = new AtomicInteger();
+            var outcome = executor.dispatch(args(List.of(1, 2, 3))
+                    .runChild(i -> {
+                        calls.incrementAndGet();
+                        return i == 2 ? "interrupt-" + i : "r" + i;
+                    })
+                    .build());
+
+            assertThat(outcome.interrupted()).isEqualTo("interrupt-2");
+            assertThat(outcome.results()).containsExactly("r1");
+            assertThat(calls.get()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    class Parallel {
+
+        @BeforeEach
+        void enableParallel() {
+            properties.setParallel(true);
+            properties.setMaxParallelismPerDispatch(3);
+        }
+
+        @Test
+        void preservesRequestOrderWhenChildrenFinishOutOfOrder() {
+            var outcome = executor.dispatch(args(List.of(1, 2, 3, 4))
+                    .runChild(i -> {
+                        sleep(50L * (5 - i));
+                        return "r" + i;
+                    })
+                    .build());
+
+            assertThat(outcome.results()).containsExactly("r1", "r2", "r3", "r4");
+        }
+
+        @Test
+        void runsChildrenConcurrentlyUpToTheDispatchBound() {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            executor.dispatch(args(List.of(1, 2, 3, 4, 5, 6))
+                    .runChild(i -> {
+                        int now = running.incrementAndGet();
+                        maxRunning.accumulateAndGet(now, Math::max);
+                        sleep(100);
+                        running.decrementAndGet();
+                        return "r" + i;
+                    })
+                    .build());
+
+            assertThat(maxRunning.get()).isGreaterThan(1).isLessThanOrEqualTo(3);
+        }
+
+        @Test
+        void interruptCancelsLaterSiblingsAndKeepsEarlierResults() throws InterruptedException {
+            CountDownLatch siblingCancelled = new CountDownLatch(1);
+
+            var outcome = executor.dispatch(args(List.of(1, 2, 3))
+                    .runChild(i -> {
+                        if (i == 1) {
+                            sleep(200);
+                            return "r1";
+                        }
+                        if (i == 2) {
+                            return "interrupt-2";
+                        }
+                        try {
+                            Thread.sleep(10_000);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            siblingCancelled.countDown();
+                            return null;
+                        }
+                        return "r" + i;
+                    })
+                    .build());
+
+            assertThat(outcome.interrupted()).isEqualTo("interrupt-2");
+            assertThat(outcome.results()).containsExactly("r1");
+            assertThat(siblingCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+
+            ArgumentCaptor<Events.GraphEvent> captor = ArgumentCaptor.forClass(Events.GraphEvent.class);
+            verify(eventBus, atLeastOnce()).publish(captor.capture());
+            assertThat(captor.getAllValues().stream()
+                    .filter(Events.DispatchChildCompletedEvent.class::isInstance)
+                    .map(Events.DispatchChildCompletedEvent.class::cast)
+                    .filter(e -> e.childIndex() == 2))
+                    .singleElement()
+                    .extracting(Events.DispatchChildCompletedEvent::outcome)
+                    .isEqualTo(Events.DispatchChildOutcome.CANCELLED);
+        }
+
+        @Test
+        void earlierInterruptFinishingLaterStillWins() {
+            var outcome = executor.dispatch(args(List.of(1, 2, 3))
+                    .runChild(i -> {
+                        if (i == 1) {
+                            sleep(200);
+                            return "interrupt-1";
+                        }
+                        return i == 2 ? "interrupt-2" : "r" + i;
+                    })
+                    .build());
+
+            assertThat(outcome.interrupted()).isEqualTo("interrupt-1");
+            assertThat(outcome.results()).isEmpty();
+        }
+
+        @Test
+        void publishesStartAndCompleteForEveryChild() {
+            executor.dispatch(args(List.of(1, 2, 3))
+                    .runChild(i -> "r" + i)
+                    .build());
+
+            ArgumentCaptor<Events.GraphEvent> captor = ArgumentCaptor.forClass(Events.GraphEvent.class);
+            verify(eventBus, atLeastOnce()).publish(captor.capture());
+
+            var started = captor.getAllValues().stream()
+                    .filter(Events.DispatchChildStartedEvent.class::isInstance)
+                    .map(Events.DispatchChildStartedEvent.class::cast)
+                    .toList();
+            var completed = captor.getAllValues().stream()
+                    .filter(Events.DispatchChildCompletedEvent.class::isInstance)
+                    .map(Events.DispatchChildCompletedEvent.class::cast)
+                    .toList();
+
+            assertThat(started).hasSize(3).allMatch(Events.DispatchChildStartedEvent::parallel);
+            assertThat(completed).hasSize(3)
+                    .allMatch(e -> e.outcome() == Events.DispatchChildOutcome.COMPLETED);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
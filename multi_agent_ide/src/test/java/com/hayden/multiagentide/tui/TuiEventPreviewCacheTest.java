@@ -0,0 +1,84 @@
+package com.hayden.multiagentide.tui;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import com.hayden.multiagentide.cli.CliEventFormatter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for TuiEventPreviewCache.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>An event is formatted once per width</li>
+ *   <li>Previews are truncated to the width</li>
+ *   <li>The cache never holds more than its capacity</li>
+ *   <li>Events without an id are formatted every time</li>
+ * </ul>
+ */
+class TuiEventPreviewCacheTest {
+
+    private CliEventFormatter formatter;
+    private TuiEventPreviewCache cache;
+
+    @BeforeEach
+    void setUp() {
+        formatter = mock(CliEventFormatter.class);
+        when(formatter.format(any(Events.GraphEvent.class))).thenReturn("[MESSAGE] a fairly long preview line");
+        cache = new TuiEventPreviewCache(formatter, 2);
+    }
+
+    @Test
+    void formatsOncePerEventAndWidth() {
+        Events.AddMessageEvent event = message(UUID.randomUUID().toString());
+
+        String wide = cache.preview(event, 80);
+        cache.preview(event, 80);
+        String narrow = cache.preview(event, 12);
+
+        assertThat(wide).isEqualTo("[MESSAGE] a fairly long preview line");
+        assertThat(narrow.length()).isLessThanOrEqualTo(12);
+        verify(formatter, times(2)).format(any(Events.GraphEvent.class));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPastCapacity() {
+        Events.AddMessageEvent first = message(UUID.randomUUID().toString());
+        Events.AddMessageEvent second = message(UUID.randomUUID().toString());
+        Events.AddMessageEvent third = message(UUID.randomUUID().toString());
+
+        cache.preview(first, 80);
+        cache.preview(second, 80);
+        cache.preview(first, 80);
+        cache.preview(third, 80);
+        cache.preview(first, 80);
+
+        assertThat(cache.size()).isEqualTo(2);
+        verify(formatter, times(3)).format(any(Events.GraphEvent.class));
+    }
+
+    @Test
+    void eventsWithoutIdAreNotCached() {
+        Events.AddMessageEvent event = message(null);
+
+        cache.preview(event, 80);
+        cache.preview(event, 80);
+
+        assertThat(cache.size()).isZero();
+        verify(formatter, times(2)).format(any(Events.GraphEvent.class));
+    }
+
+    private static Events.AddMessageEvent message(String eventId) {
+        return new Events.AddMessageEvent(eventId, Instant.now(), "ak:root", "hello");
+    }
+}
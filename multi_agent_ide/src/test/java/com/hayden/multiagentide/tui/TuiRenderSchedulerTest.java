@@ -0,0 +1,67 @@
+package com.hayden.multiagentide.tui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for TuiRenderScheduler.
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>A burst of requests renders at most a leading and a trailing frame</li>
+ *   <li>A request after the frame interval renders again</li>
+ *   <li>A non-positive frame rate renders every request inline</li>
+ *   <li>Nothing renders once the scheduler is closed</li>
+ * </ul>
+ */
+class TuiRenderSchedulerTest {
+
+    @Test
+    void burstOfRequestsIsCoalesced() throws Exception {
+        AtomicInteger frames = new AtomicInteger();
+        CountDownLatch firstFrame = new CountDownLatch(1);
+        try (TuiRenderScheduler scheduler = new TuiRenderScheduler(10, () -> {
+            frames.incrementAndGet();
+            firstFrame.countDown();
+        })) {
+            for (int i = 0; i < 1_000; i++) {
+                scheduler.requestFrame();
+            }
+            assertThat(firstFrame.await(2, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(250);
+            // The burst may finish before the leading frame renders, leaving no trailing frame.
+            assertThat(frames.get()).isBetween(1, 2);
+
+            int before = frames.get();
+            scheduler.requestFrame();
+            Thread.sleep(250);
+            assertThat(frames.get()).isEqualTo(before + 1);
+        }
+    }
+
+    @Test
+    void nonPositiveFrameRateRendersInline() {
+        AtomicInteger frames = new AtomicInteger();
+        try (TuiRenderScheduler scheduler = new TuiRenderScheduler(0, frames::incrementAndGet)) {
+            scheduler.requestFrame();
+            scheduler.requestFrame();
+            assertThat(frames.get()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void closedSchedulerDoesNotRender() throws Exception {
+        AtomicInteger frames = new AtomicInteger();
+        TuiRenderScheduler scheduler = new TuiRenderScheduler(10, frames::incrementAndGet);
+        scheduler.close();
+
+        scheduler.requestFrame();
+        Thread.sleep(150);
+        assertThat(frames.get()).isZero();
+    }
+}
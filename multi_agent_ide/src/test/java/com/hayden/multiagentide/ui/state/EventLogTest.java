@@ -0,0 +1,66 @@
+package com.hayden.multiagentide.ui.state;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogTest {
+
+    @Test
+    void olderVersionsKeepTheirPrefixAfterAppend() {
+        EventLog first = EventLog.empty().append(event(0));
+        EventLog second = first.append(event(1));
+
+        assertEquals(1, first.size());
+        assertEquals(List.of(event(0), event(1)), second);
+    }
+
+    @Test
+    void appendingToAnOlderVersionBranches() {
+        EventLog base = EventLog.empty();
+        for (int i = 0; i < EventLog.CHUNK_SIZE + 10; i++) {
+            base = base.append(event(i));
+        }
+        EventLog left = base.append(event(-1));
+        EventLog right = base.append(event(-2));
+
+        assertEquals(event(-1), left.get(left.size() - 1));
+        assertEquals(event(-2), right.get(right.size() - 1));
+        assertEquals(base, left.subList(0, base.size()));
+        assertEquals(base, right.subList(0, base.size()));
+    }
+
+    @Test
+    void dropOldestKeepsTheNewestEventsAndStillAppends() {
+        EventLog log = EventLog.empty();
+        List<Events.GraphEvent> expected = new ArrayList<>();
+        for (int i = 0; i < EventLog.CHUNK_SIZE * 4; i++) {
+            log = log.append(event(i));
+            expected.add(event(i));
+        }
+
+        log = log.dropOldest(EventLog.CHUNK_SIZE * 3 + 5);
+        log = log.append(event(-1));
+        expected = new ArrayList<>(expected.subList(EventLog.CHUNK_SIZE * 3 + 5, expected.size()));
+        expected.add(event(-1));
+
+        assertEquals(expected, log);
+    }
+
+    @Test
+    void copyOfReturnsTheSameLog() {
+        EventLog log = EventLog.empty().append(event(0));
+
+        assertSame(log, EventLog.copyOf(log));
+        assertEquals(log, EventLog.copyOf(List.of(event(0))));
+    }
+
+    private static Events.GraphEvent event(int i) {
+        return new Events.AddMessageEvent("e" + i, Instant.EPOCH, "node", "message " + i);
+    }
+}
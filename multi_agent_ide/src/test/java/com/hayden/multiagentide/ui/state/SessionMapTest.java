@@ -0,0 +1,74 @@
+package com.hayden.multiagentide.ui.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionMapTest {
+
+    private static final Path REPO = Path.of("/tmp/repo");
+
+    @Test
+    void olderVersionsAreUnchangedByWith() {
+        UiSessionState a = session("a");
+        SessionMap first = SessionMap.empty().with("s1", a);
+        SessionMap second = first.with("s1", session("b")).with("s2", session("c"));
+
+        assertEquals(1, first.size());
+        assertSame(a, first.get("s1"));
+        assertEquals(2, second.size());
+        assertEquals("b", second.get("s1").chatInput());
+        assertFalse(first.containsKey("s2"));
+    }
+
+    @Test
+    void iteratesInInsertionOrderAndKeepsThePositionOfReplacedIds() {
+        SessionMap map = SessionMap.empty()
+                .with("s1", session("a"))
+                .with("s2", session("b"))
+                .with("s3", session("c"))
+                .with("s1", session("d"));
+
+        assertEquals(List.of("s1", "s2", "s3"), new ArrayList<>(map.keySet()));
+        assertEquals("d", map.get("s1").chatInput());
+    }
+
+    @Test
+    void foldingChangesIntoANewBaseKeepsContentsAndOrder() {
+        Map<String, UiSessionState> expected = new LinkedHashMap<>();
+        SessionMap map = SessionMap.empty();
+        for (int i = 0; i < SessionMap.MAX_CHANGES * 3 + 5; i++) {
+            String id = "s" + (i % 7);
+            UiSessionState session = session("v" + i);
+            map = map.with(id, session);
+            expected.put(id, session);
+        }
+
+        assertEquals(expected, map);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(7, map.size());
+    }
+
+    @Test
+    void copyOfReusesSessionMapsAndCopiesOtherMaps() {
+        SessionMap map = SessionMap.empty().with("s1", session("a"));
+        Map<String, UiSessionState> plain = new LinkedHashMap<>(Map.of("s1", session("a")));
+
+        SessionMap copied = SessionMap.copyOf(plain);
+        plain.put("s2", session("b"));
+
+        assertSame(map, SessionMap.copyOf(map));
+        assertEquals(1, copied.size());
+        assertTrue(SessionMap.copyOf(null).isEmpty());
+    }
+
+    private static UiSessionState session(String chatInput) {
+        return UiSessionState.initial(REPO).toBuilder().chatInput(chatInput).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.hayden.multiagentide.ui.state;
+
+import com.hayden.acp_cdc_ai.acp.events.Events;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UiStateReducerTest {
+
+    private static final Path REPO = Path.of("/tmp/repo");
+
+    @Test
+    void appendsEventsAndFollowsTail() {
+        UiStateReducer reducer = new UiStateReducer();
+        UiState state = initial();
+        for (int i = 0; i < 30; i++) {
+            state = reducer.reduce(state, event(i), new UiViewport(10), "session-1");
+        }
+
+        UiSessionState session = state.sessions().get("session-1");
+        assertEquals(30, session.events().size());
+        assertEquals(29, session.selectedIndex());
+        assertEquals(20, session.scrollOffset());
+        assertEquals(List.of("session-1"), state.sessionOrder());
+    }
+
+    @Test
+    void evictsOldestEventsInWindowsPastTheCap() {
+        UiStateReducer reducer = new UiStateReducer(100, 25);
+        UiState state = initial();
+        for (int i = 0; i < 101; i++) {
+            state = reducer.reduce(state, event(i), new UiViewport(10), "session-1");
+        }
+
+        UiSessionState session = state.sessions().get("session-1");
+        assertEquals(76, session.events().size());
+        assertEquals("e25", session.events().getFirst().eventId());
+        assertEquals("e100", session.events().getLast().eventId());
+        assertEquals(75, session.selectedIndex());
+    }
+
+    @Test
+    void evictionShiftsPinnedSelection() {
+        UiStateReducer reducer = new UiStateReducer(10, 5);
+        UiState state = initial();
+        for (int i = 0; i < 10; i++) {
+            state = reducer.reduce(state, event(i), new UiViewport(5), "session-1");
+        }
+        state = reducer.reduce(state, new Events.TuiInteractionGraphEvent(
+                "move", Instant.now(), "session-1", "session-1",
+                new Events.EventStreamMoveSelection(1, 7)), new UiViewport(5), "session-1");
+        state = reducer.reduce(state, event(10), new UiViewport(5), "session-1");
+
+        UiSessionState session = state.sessions().get("session-1");
+        assertEquals("e5", session.events().getFirst().eventId());
+        assertEquals("e7", session.events().get(session.selectedIndex()).eventId());
+    }
+
+    private static UiState initial() {
+        return UiState.initial("shell-1", "session-1", List.of("session-1"),
+                Map.of("session-1", UiSessionState.initial(REPO)), REPO);
+    }
+
+    private static Events.GraphEvent event(int i) {
+        return new Events.AddMessageEvent("e" + i, Instant.now(), "session-1", "message " + i);
+    }
+}